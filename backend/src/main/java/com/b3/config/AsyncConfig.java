@@ -0,0 +1,62 @@
+package com.b3.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Thread pools for work that outlives the servlet request thread.
+ *
+ * KEY DESIGN: Streaming BRIX replies can take several seconds on CPU-only
+ * Ollama boxes. Running them on a dedicated, bounded pool frees Tomcat's
+ * request thread as soon as the SSE connection is opened, and caps how many
+ * generations can be relayed at once instead of letting bursts pile up.
+ *
+ * The reactive chat path never blocks on Llama, but JPA still blocks. Its
+ * repository calls run on a bounded Reactor scheduler sized to the JDBC
+ * pool, so thousands of in-flight chats share a handful of DB threads.
+ *
+ * Long background jobs get their own executor too, so they never hold a
+ * thread of the shared @Scheduled pool.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Bean(name = "brixStreamExecutor")
+    public ThreadPoolTaskExecutor brixStreamExecutor(
+            @Value("${brix.stream.pool-size:8}") int poolSize,
+            @Value("${brix.stream.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("brix-stream-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * One thread for the nightly check-in pre-generation run. No queue: a
+     * trigger that fires while a run is still going is rejected, not stacked.
+     */
+    @Bean(name = "brixPregenExecutor")
+    public ThreadPoolTaskExecutor brixPregenExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("brix-pregen-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "brixJpaScheduler", destroyMethod = "dispose")
+    public Scheduler brixJpaScheduler(
+            @Value("${brix.reactive.jpa-threads:10}") int threads,
+            @Value("${brix.reactive.jpa-queue-capacity:10000}") int queueCapacity) {
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "brix-jpa");
+    }
+}
@@ -1,5 +1,6 @@
 package com.b3.config;
 
+import com.b3.event.WorkoutCatalogChangedEvent;
 import com.b3.model.Exercise;
 import com.b3.model.UserProfile;
 import com.b3.model.Workout;
@@ -11,6 +12,7 @@ import com.b3.repository.WorkoutRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -39,7 +41,8 @@ public class DataInitializer {
             UserProfileRepository userRepo,
             WorkoutRepository workoutRepo,
             ExerciseRepository exerciseRepo,
-            WorkoutExerciseRepository workoutExerciseRepo) {
+            WorkoutExerciseRepository workoutExerciseRepo,
+            ApplicationEventPublisher eventPublisher) {
 
         return args -> {
             // Create default user if not exists
@@ -550,6 +553,7 @@ public class DataInitializer {
                     addExerciseToWorkout(workoutExerciseRepo, workout13, plank, 7, 2, null, 30, 0, "Finish strong");
 
                     logger.info(" Created {} workouts with exercises", workoutRepo.count());
+                    eventPublisher.publishEvent(new WorkoutCatalogChangedEvent("seeded"));
                 }
             }
 
@@ -0,0 +1,44 @@
+package com.b3.config;
+
+import com.b3.service.llm.LlmAdmissionController;
+import com.b3.service.llm.LlmPriority;
+import com.b3.service.llm.OllamaEndpointPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Admission control for LLM providers.
+ *
+ * ollama.admission.max-concurrent should match ONE model server's
+ * parallelism (OLLAMA_NUM_PARALLEL); the limit scales with the number of
+ * endpoints in ollama.api.urls, and the endpoint pool spreads the admitted
+ * calls across them. Interactive chat gets a short max wait
+ * - a user would rather get a keyword reply now than a Llama reply in 30s -
+ * while background generation can afford to queue longer.
+ */
+@Configuration
+public class LlmAdmissionConfig {
+
+    @Bean
+    public LlmAdmissionController ollamaAdmissionController(
+            MeterRegistry meterRegistry,
+            OllamaEndpointPool ollamaEndpointPool,
+            @Value("${ollama.admission.max-concurrent:2}") int maxConcurrent,
+            @Value("${ollama.admission.interactive.queue-capacity:32}") int interactiveCapacity,
+            @Value("${ollama.admission.interactive.max-wait-ms:5000}") long interactiveMaxWaitMs,
+            @Value("${ollama.admission.background.queue-capacity:16}") int backgroundCapacity,
+            @Value("${ollama.admission.background.max-wait-ms:60000}") long backgroundMaxWaitMs) {
+        return new LlmAdmissionController(
+                "ollama",
+                maxConcurrent * ollamaEndpointPool.size(),
+                Map.of(LlmPriority.INTERACTIVE, interactiveCapacity,
+                       LlmPriority.BACKGROUND, backgroundCapacity),
+                Map.of(LlmPriority.INTERACTIVE, interactiveMaxWaitMs,
+                       LlmPriority.BACKGROUND, backgroundMaxWaitMs),
+                meterRegistry);
+    }
+}
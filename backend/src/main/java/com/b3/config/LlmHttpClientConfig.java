@@ -0,0 +1,167 @@
+package com.b3.config;
+
+import com.b3.service.llm.DeadlineClientHttpRequestFactory;
+import com.b3.service.llm.LlmHttpClientSettings;
+import com.b3.service.llm.OllamaEndpointPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.netty.channel.ChannelOption;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Shared, pooled HTTP client layer for the LLM providers.
+ *
+ * KEY DESIGN: One Apache HttpClient connection pool per provider, so a slow
+ * Ollama box can never eat the connections Claude needs (and vice versa).
+ * Every client has connect/read/total timeouts plus a bounded pool wait:
+ * a request that can't get a connection quickly fails fast into BRIX's
+ * keyword fallback instead of parking a Tomcat worker.
+ *
+ * Ollama's pool is sized from admission control, not from
+ * llm.http.ollama.max-connections: each endpoint gets
+ * ollama.admission.max-concurrent connections, plus
+ * ollama.pool.sticky-max-imbalance for the extra calls sticky routing may
+ * put on one box, and the total is that times the endpoints in
+ * ollama.api.urls. Admitted calls never wait on the pool, and the pool
+ * grows with the endpoint list instead of capping it.
+ *
+ * Pool usage (leased/available/pending/max) is published per provider as
+ * httpcomponents.httpclient.pool.* metrics tagged with httpclient=<provider>.
+ * Each factory runs its total-timeout cancels on its own private thread; no
+ * executor is exposed as a bean, so @Scheduled jobs keep Spring Boot's task
+ * scheduler (spring.task.scheduling.pool.size).
+ *
+ * The reactive chat path gets its own non-blocking WebClient for Ollama,
+ * on a Reactor Netty pool sized and timed from the same llm.http.ollama.*
+ * settings (reactor.netty.connection.provider.* metrics). Neither client
+ * has a base URL: OllamaService picks the endpoint per call from
+ * OllamaEndpointPool, and both pools are per host.
+ */
+@Configuration
+public class LlmHttpClientConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmHttpClientConfig.class);
+
+    // Connection limits are replaced by ollamaSettings()
+    private static final LlmHttpClientSettings OLLAMA_DEFAULTS =
+            new LlmHttpClientSettings("ollama", 0, 0, 2_000, 60_000, 120_000, 2_000, 30_000);
+
+    private static final LlmHttpClientSettings CLAUDE_DEFAULTS =
+            new LlmHttpClientSettings("claude", 16, 16, 3_000, 30_000, 60_000, 2_000, 30_000);
+
+    @Bean
+    public DeadlineClientHttpRequestFactory ollamaRequestFactory(
+            Environment env,
+            MeterRegistry meterRegistry,
+            OllamaEndpointPool ollamaEndpointPool) {
+        return createRequestFactory(ollamaSettings(env, ollamaEndpointPool), meterRegistry);
+    }
+
+    @Bean
+    public DeadlineClientHttpRequestFactory claudeRequestFactory(
+            Environment env,
+            MeterRegistry meterRegistry) {
+        return createRequestFactory(LlmHttpClientSettings.from(env, "claude", CLAUDE_DEFAULTS), meterRegistry);
+    }
+
+    @Bean
+    public RestTemplate ollamaRestTemplate(@Qualifier("ollamaRequestFactory") DeadlineClientHttpRequestFactory requestFactory) {
+        return new RestTemplate(requestFactory);
+    }
+
+    @Bean
+    public RestTemplate claudeRestTemplate(@Qualifier("claudeRequestFactory") DeadlineClientHttpRequestFactory requestFactory) {
+        return new RestTemplate(requestFactory);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider ollamaConnectionProvider(Environment env, OllamaEndpointPool ollamaEndpointPool) {
+        LlmHttpClientSettings settings = ollamaSettings(env, ollamaEndpointPool);
+        // Reactor Netty keeps one pool per remote host, so the limit is per route
+        return ConnectionProvider.builder("ollama")
+                .maxConnections(settings.maxConnectionsPerRoute())
+                .pendingAcquireTimeout(Duration.ofMillis(settings.poolWaitTimeoutMs()))
+                .pendingAcquireMaxCount(-1)
+                .maxIdleTime(Duration.ofMillis(settings.idleEvictMs()))
+                .evictInBackground(Duration.ofMillis(settings.idleEvictMs()))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient ollamaWebClient(Environment env,
+                                     WebClient.Builder webClientBuilder,
+                                     @Qualifier("ollamaConnectionProvider") ConnectionProvider connectionProvider) {
+        LlmHttpClientSettings settings = LlmHttpClientSettings.from(env, "ollama", OLLAMA_DEFAULTS);
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.connectTimeoutMs())
+                .responseTimeout(Duration.ofMillis(settings.readTimeoutMs()));
+
+        return webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    static LlmHttpClientSettings ollamaSettings(Environment env, OllamaEndpointPool ollamaEndpointPool) {
+        int maxConcurrent = env.getProperty("ollama.admission.max-concurrent", Integer.class, 2);
+        int stickyMaxImbalance = Math.max(0, env.getProperty("ollama.pool.sticky-max-imbalance", Integer.class, 2));
+        return LlmHttpClientSettings.from(env, "ollama", OLLAMA_DEFAULTS)
+                .withRouteLimit(maxConcurrent + stickyMaxImbalance, ollamaEndpointPool.size());
+    }
+
+    private DeadlineClientHttpRequestFactory createRequestFactory(LlmHttpClientSettings settings,
+                                                                  MeterRegistry meterRegistry) {
+        logger.info("LLM HTTP client '{}': maxConnections={}, perRoute={}, connect={}ms, read={}ms, total={}ms, poolWait={}ms, idleEvict={}ms",
+                settings.provider(), settings.maxConnections(), settings.maxConnectionsPerRoute(), settings.connectTimeoutMs(),
+                settings.readTimeoutMs(), settings.totalTimeoutMs(), settings.poolWaitTimeoutMs(),
+                settings.idleEvictMs());
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.maxConnections())
+                .setMaxConnPerRoute(settings.maxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(settings.connectTimeoutMs()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(settings.readTimeoutMs()))
+                        .build())
+                .build();
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(settings.poolWaitTimeoutMs()))
+                .setResponseTimeout(Timeout.ofMilliseconds(settings.readTimeoutMs()))
+                .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(settings.idleEvictMs()))
+                .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, settings.provider())
+                .bindTo(meterRegistry);
+
+        // The factory closes httpClient (and its pool) when the context shuts down
+        return new DeadlineClientHttpRequestFactory(httpClient, settings.totalTimeoutMs(), settings.provider());
+    }
+}
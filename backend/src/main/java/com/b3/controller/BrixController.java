@@ -1,16 +1,40 @@
 package com.b3.controller;
 
+import com.b3.exception.BadRequestException;
+import com.b3.exception.TooManyRequestsException;
 import com.b3.model.BrixMessage;
 import com.b3.service.BrixService;
 import com.b3.service.BrixService.BrixChatResponse;
 import com.b3.service.BrixService.WorkoutRecommendation;
+import com.b3.service.BrixService.ChatStreamListener;
+import com.b3.service.brix.BrixChatJobService;
+import com.b3.service.brix.BrixChatJobService.JobView;
+import com.b3.service.brix.BrixMessageSearchIndex;
+import com.b3.service.brix.BrixMessageSearchIndex.SearchPage;
+import com.b3.service.brix.CohortRecommendationService;
+import com.b3.service.brix.CohortRecommendationService.CohortRecommendation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * REST Controller for BRIX AI Coach
@@ -24,9 +48,27 @@ public class BrixController {
     private static final Logger logger = LoggerFactory.getLogger(BrixController.class);
 
     private final BrixService brixService;
+    private final BrixChatJobService chatJobService;
+    private final BrixMessageSearchIndex messageSearchIndex;
+    private final CohortRecommendationService cohortRecommendations;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor brixStreamExecutor;
+    private final long streamTimeoutMs;
 
-    public BrixController(BrixService brixService) {
+    public BrixController(BrixService brixService,
+                          BrixChatJobService chatJobService,
+                          BrixMessageSearchIndex messageSearchIndex,
+                          CohortRecommendationService cohortRecommendations,
+                          ObjectMapper objectMapper,
+                          @Qualifier("brixStreamExecutor") TaskExecutor brixStreamExecutor,
+                          @Value("${brix.stream.timeout-ms:120000}") long streamTimeoutMs) {
         this.brixService = brixService;
+        this.chatJobService = chatJobService;
+        this.messageSearchIndex = messageSearchIndex;
+        this.cohortRecommendations = cohortRecommendations;
+        this.objectMapper = objectMapper;
+        this.brixStreamExecutor = brixStreamExecutor;
+        this.streamTimeoutMs = streamTimeoutMs;
     }
 
     // ========================================================================
@@ -48,6 +90,129 @@ public class BrixController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Send a message to BRIX without holding a request thread during generation
+     * POST /api/v1/brix/chat/reactive
+     *
+     * Same request/response as /chat. The servlet thread is released as soon
+     * as the Mono is returned; the reply is written when the Mono completes.
+     */
+    @PostMapping("/chat/reactive")
+    public Mono<BrixChatResponse> chatReactive(@RequestBody Map<String, Object> request) {
+        Long profileId = Long.valueOf(request.get("profileId").toString());
+        String message = request.get("message").toString();
+
+        logger.info("POST /api/v1/brix/chat/reactive - User {}: {}", profileId, message);
+
+        return brixService.chatReactive(profileId, message);
+    }
+
+    /**
+     * Send a message to BRIX and stream the reply as Server-Sent Events
+     * POST /api/v1/brix/chat/stream
+     *
+     * Events: "token" ({"content": "..."}) for each chunk as it is generated,
+     * then a single "done" carrying the full BrixChatResponse, or "error" if
+     * generation failed after tokens had already been sent. 429 if every
+     * stream slot and queue place is taken.
+     */
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(@RequestBody Map<String, Object> request) {
+        Long profileId = Long.valueOf(request.get("profileId").toString());
+        String message = request.get("message").toString();
+
+        logger.info("POST /api/v1/brix/chat/stream - User {}: {}", profileId, message);
+
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+
+        try {
+            brixStreamExecutor.execute(() -> relayStream(emitter, profileId, message));
+        } catch (TaskRejectedException e) {
+            // Pool and queue are full - refuse now rather than hold the connection open
+            logger.warn("BRIX stream for user {} rejected: stream pool is full", profileId);
+            throw new TooManyRequestsException("BRIX is busy - please try again in a moment");
+        }
+
+        return emitter;
+    }
+
+    private void relayStream(SseEmitter emitter, Long profileId, String message) {
+        try {
+            brixService.streamChat(profileId, message, new ChatStreamListener() {
+                @Override
+                public void onToken(String token) {
+                    send(emitter, "token", Map.of("content", token));
+                }
+
+                @Override
+                public void onComplete(BrixChatResponse response) {
+                    send(emitter, "done", response);
+                }
+            });
+            emitter.complete();
+        } catch (UncheckedIOException e) {
+            // Client went away - nothing left to tell it
+            logger.info("BRIX stream for user {} closed by client", profileId);
+            emitter.complete();
+        } catch (Exception e) {
+            logger.error("BRIX stream for user {} failed: {}", profileId, e.getMessage());
+            try {
+                emitter.send(SseEmitter.event().name("error")
+                        .data(Map.of("message", "BRIX lost its train of thought - please try again")));
+                emitter.complete();
+            } catch (IOException | IllegalStateException sendFailure) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    /**
+     * Start BRIX on a reply and return a job id immediately
+     * POST /api/v1/brix/chat/jobs
+     *
+     * Same body as /chat. Send an Idempotency-Key header (e.g. a UUID made
+     * once per message) and retries return the original job instead of
+     * generating again. Responds 202 with the job; poll its Location.
+     */
+    @PostMapping("/chat/jobs")
+    public ResponseEntity<JobView> submitChatJob(
+            @RequestBody Map<String, Object> request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Long profileId = Long.valueOf(request.get("profileId").toString());
+        String message = request.get("message").toString();
+
+        logger.info("POST /api/v1/brix/chat/jobs - User {}: {}", profileId, message);
+
+        JobView job = chatJobService.submit(profileId, message, idempotencyKey);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/brix/chat/jobs/" + job.jobId()))
+                .body(job);
+    }
+
+    /**
+     * Fetch a chat job, long-polling up to waitMs for it to finish
+     * GET /api/v1/brix/chat/jobs/{jobId}?waitMs=20000
+     *
+     * 200 once COMPLETED or FAILED, 202 while still PENDING.
+     */
+    @GetMapping("/chat/jobs/{jobId}")
+    public Mono<ResponseEntity<JobView>> getChatJob(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "0") long waitMs) {
+        return chatJobService.await(jobId, waitMs)
+                .map(job -> ResponseEntity
+                        .status(job.status() == BrixChatJobService.Status.PENDING ? HttpStatus.ACCEPTED : HttpStatus.OK)
+                        .body(job));
+    }
+
+    private void send(SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     // ========================================================================
     // RECOMMENDATION ENDPOINTS
     // ========================================================================
@@ -67,6 +232,60 @@ public class BrixController {
         return ResponseEntity.ok(recommendation);
     }
 
+    /**
+     * Today's recommendation for a whole cohort, streamed as NDJSON
+     * POST /api/v1/brix/recommendations/cohort
+     *
+     * Body: {"profileIds": [1, 2, 3]} or {"allActive": true}. One JSON object
+     * per line, in profile ID order, written as each chunk is scored; unknown
+     * IDs are skipped. Meant for campaign jobs - a full run holds this request
+     * until the last user is written.
+     */
+    @PostMapping("/recommendations/cohort")
+    public void getCohortRecommendations(@RequestBody Map<String, Object> request,
+                                         HttpServletResponse response) throws IOException {
+        boolean allActive = Boolean.parseBoolean(String.valueOf(request.get("allActive")));
+        Object profileIds = request.get("profileIds");
+        if (allActive == (profileIds != null)) {
+            throw new BadRequestException("Send either profileIds or allActive: true");
+        }
+        List<Long> ids = List.of();
+        if (profileIds != null) {
+            if (!(profileIds instanceof List<?> list) || list.isEmpty()) {
+                throw new BadRequestException("profileIds must be a non-empty list");
+            }
+            try {
+                ids = list.stream().map(id -> Long.valueOf(id.toString())).toList();
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("profileIds must be numbers");
+            }
+        }
+
+        logger.info("POST /api/v1/brix/recommendations/cohort ({})",
+                allActive ? "all active" : ids.size() + " users");
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        try (SequenceWriter lines = objectMapper.writer().withRootValueSeparator("\n")
+                .writeValues(response.getOutputStream())) {
+            Consumer<CohortRecommendation> sink = recommendation -> {
+                try {
+                    lines.write(recommendation);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            if (allActive) {
+                cohortRecommendations.recommendActive(sink);
+            } else {
+                cohortRecommendations.recommendFor(ids, sink);
+            }
+            lines.flush();
+        } catch (UncheckedIOException e) {
+            // Client went away - stop the run
+            logger.info("Cohort recommendation stream closed by client");
+        }
+    }
+
     // ========================================================================
     // MESSAGE HISTORY ENDPOINTS
     // ========================================================================
@@ -85,6 +304,23 @@ public class BrixController {
         return ResponseEntity.ok(messages);
     }
 
+    /**
+     * Search a user's BRIX history, best matches first
+     * GET /api/v1/brix/messages/{profileId}/search?q=stretching&limit=20&cursor=...
+     *
+     * Pass the nextCursor of a page to get the one after it; null means no more.
+     */
+    @GetMapping("/messages/{profileId}/search")
+    public ResponseEntity<SearchPage> searchMessages(
+            @PathVariable Long profileId,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String cursor) {
+        logger.info("GET /api/v1/brix/messages/{}/search (limit={})", profileId, limit);
+
+        return ResponseEntity.ok(messageSearchIndex.search(profileId, q, limit, cursor));
+    }
+
     // ========================================================================
     // CONTEXT TRIGGER ENDPOINTS
     // ========================================================================
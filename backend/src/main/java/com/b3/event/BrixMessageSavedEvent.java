@@ -0,0 +1,11 @@
+package com.b3.event;
+
+/**
+ * Published when a BRIX message becomes visible to its user - a chat turn
+ * (either side), a trigger message, or a pre-generated message on delivery.
+ *
+ * BrixMessageSearchIndex adds it to the user's search index once the
+ * writing transaction has committed.
+ */
+public record BrixMessageSavedEvent(Long profileId, Long messageId, String messageText) {
+}
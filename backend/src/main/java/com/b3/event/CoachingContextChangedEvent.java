@@ -0,0 +1,11 @@
+package com.b3.event;
+
+/**
+ * Published when something BRIX coaches on changes for a user - profile,
+ * behavior stats, today's check-in, a completed workout or brick.
+ *
+ * Listeners that cache per-user state drop it once the writing transaction
+ * has committed (see CoachingContextCache).
+ */
+public record CoachingContextChangedEvent(Long profileId, String reason) {
+}
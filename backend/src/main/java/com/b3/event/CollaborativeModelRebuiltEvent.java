@@ -0,0 +1,9 @@
+package com.b3.event;
+
+/**
+ * Published when WorkoutCoOccurrenceModel swaps in a full recount, so
+ * recommendations cached against the old counts are dropped
+ * (see WorkoutRecommendationCache).
+ */
+public record CollaborativeModelRebuiltEvent(int users, long pairs) {
+}
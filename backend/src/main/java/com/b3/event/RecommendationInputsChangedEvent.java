@@ -0,0 +1,12 @@
+package com.b3.event;
+
+/**
+ * Published when an input to the user's workout recommendation changes -
+ * today's check-in, their profile (level, goal) or a completed session.
+ *
+ * Narrower than CoachingContextChangedEvent: behavior stats and bricks do
+ * not move the recommendation, so they do not publish this. Listeners act
+ * once the writing transaction has committed (see WorkoutRecommendationCache).
+ */
+public record RecommendationInputsChangedEvent(Long profileId, String reason) {
+}
@@ -0,0 +1,9 @@
+package com.b3.event;
+
+/**
+ * Published after workouts, their exercises or the exercise library are
+ * written, so the in-memory catalog snapshot is rebuilt once the write has
+ * committed (see WorkoutCatalogHolder).
+ */
+public record WorkoutCatalogChangedEvent(String reason) {
+}
@@ -0,0 +1,10 @@
+package com.b3.event;
+
+/**
+ * Published when a user completes a workout session.
+ *
+ * Listeners act once the writing transaction has committed
+ * (see WorkoutCoOccurrenceModel).
+ */
+public record WorkoutCompletedEvent(Long profileId, Long workoutId) {
+}
@@ -0,0 +1,11 @@
+package com.b3.exception;
+
+/**
+ * Thrown when the server is at capacity for a kind of work
+ * Returns 429 Too Many Requests
+ */
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,173 @@
+package com.b3.model;
+
+import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * BrixConversationSummary entity - Rolling summary of a user's older BRIX chat
+ * 
+ * Chat turns that have scrolled out of the recent-turn window are folded
+ * into this summary a few at a time, so BRIX keeps the gist of a long
+ * conversation without replaying it. summarizedThroughMessageId marks the
+ * last BrixMessage already folded in; each refresh only reads messages
+ * after it.
+ */
+@Entity
+@Table(name = "brix_conversation_summary")
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BrixConversationSummary {
+
+    // ========================================================================
+    // FIELDS
+    // ========================================================================
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "summary_id")
+    private Long summaryId;
+
+    // ========================================================================
+    // RELATIONSHIPS
+    // ========================================================================
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "profile_id", nullable = false, unique = true)
+    private UserProfile userProfile;
+
+    // ========================================================================
+    // SUMMARY DATA
+    // ========================================================================
+
+    @Column(name = "summary_text", columnDefinition = "TEXT")
+    private String summaryText;
+
+    @Column(name = "summarized_through_message_id", nullable = false)
+    private Long summarizedThroughMessageId = 0L;
+
+    @Column(name = "messages_summarized", nullable = false)
+    private Integer messagesSummarized = 0;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // ========================================================================
+    // CONSTRUCTORS
+    // ========================================================================
+
+    public BrixConversationSummary() {}
+
+    public BrixConversationSummary(UserProfile userProfile) {
+        this.userProfile = userProfile;
+    }
+
+    // ========================================================================
+    // JPA CALLBACKS
+    // ========================================================================
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // ========================================================================
+    // BUSINESS LOGIC
+    // ========================================================================
+
+    /**
+     * Fold a batch of newer messages in: replace the text and advance the watermark
+     */
+    public void advance(String newSummaryText, Long throughMessageId, int messageCount) {
+        this.summaryText = newSummaryText;
+        this.summarizedThroughMessageId = throughMessageId;
+        this.messagesSummarized = getMessagesSummarized() + messageCount;
+    }
+
+    /**
+     * Check if anything has been summarized yet
+     */
+    public boolean hasSummary() {
+        return summaryText != null && !summaryText.isBlank();
+    }
+
+    // ========================================================================
+    // GETTERS AND SETTERS
+    // ========================================================================
+
+    public Long getSummaryId() {
+        return summaryId;
+    }
+
+    public void setSummaryId(Long summaryId) {
+        this.summaryId = summaryId;
+    }
+
+    public UserProfile getUserProfile() {
+        return userProfile;
+    }
+
+    public void setUserProfile(UserProfile userProfile) {
+        this.userProfile = userProfile;
+    }
+
+    public String getSummaryText() {
+        return summaryText;
+    }
+
+    public void setSummaryText(String summaryText) {
+        this.summaryText = summaryText;
+    }
+
+    public Long getSummarizedThroughMessageId() {
+        return summarizedThroughMessageId != null ? summarizedThroughMessageId : 0L;
+    }
+
+    public void setSummarizedThroughMessageId(Long summarizedThroughMessageId) {
+        this.summarizedThroughMessageId = summarizedThroughMessageId;
+    }
+
+    public Integer getMessagesSummarized() {
+        return messagesSummarized != null ? messagesSummarized : 0;
+    }
+
+    public void setMessagesSummarized(Integer messagesSummarized) {
+        this.messagesSummarized = messagesSummarized;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // ========================================================================
+    // OBJECT OVERRIDES
+    // ========================================================================
+
+    @Override
+    public String toString() {
+        return "BrixConversationSummary{" +
+                "summaryId=" + summaryId +
+                ", summarizedThroughMessageId=" + summarizedThroughMessageId +
+                ", messagesSummarized=" + messagesSummarized +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BrixConversationSummary)) return false;
+        BrixConversationSummary that = (BrixConversationSummary) o;
+        return Objects.equals(summaryId, that.summaryId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(summaryId);
+    }
+}
@@ -3,6 +3,7 @@ package com.b3.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Objects;
@@ -13,9 +14,18 @@ import java.util.Objects;
  * Represents all communication from BRIX, including motivational messages,
  * check-ins, celebrations, and tips. Tracks message type, tone, and context
  * to help BRIX learn what messaging works best for each user.
+ *
+ * Chat turns are stored on both sides: what the user typed (sender USER)
+ * as well as BRIX's reply, so the conversation can be replayed to the model.
  */
 @Entity
-@Table(name = "brix_message")
+@Table(name = "brix_message", indexes = {
+    // Conversation memory: a user's chat turns by id (latest N, and those after a summary)
+    @Index(name = "idx_brixmsg_profile_trigger_id", columnList = "profile_id, context_trigger, message_id"),
+    // Pre-generated check-ins: "does this user have any for the day" and "serve this trigger's"
+    @Index(name = "idx_brixmsg_profile_deliver", columnList = "profile_id, deliver_on"),
+    @Index(name = "idx_brixmsg_profile_trigger_deliver", columnList = "profile_id, context_trigger, deliver_on")
+})
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class BrixMessage {
 
@@ -27,7 +37,13 @@ public class BrixMessage {
         MOTIVATION,      // "You got this! Let's crush today!"
         CHECK_IN,        // "How are you feeling today?"
         CELEBRATION,     // "7-day streak! You're on fire!"
-        TIP              // "Pro tip: warm up prevents injury"
+        TIP,             // "Pro tip: warm up prevents injury"
+        CHAT             // A user's own message in /brix/chat
+    }
+
+    public enum Sender {
+        BRIX,            // Written by BRIX (AI or keyword fallback)
+        USER             // Typed by the user
     }
 
     public enum Tone {
@@ -77,7 +93,17 @@ public class BrixMessage {
     @Column(name = "context_trigger", length = 100)
     private String contextTrigger; // What triggered this message (e.g., "7_day_streak")
 
-    @Column(name = "sent_at", nullable = false, updatable = false)
+    // Nullable so the column can be added to existing tables - null means BRIX
+    @Enumerated(EnumType.STRING)
+    @Column(name = "sender", length = 10)
+    private Sender sender = Sender.BRIX;
+
+    // Set on pre-generated messages waiting to be served that day; null once delivered
+    @Column(name = "deliver_on")
+    private LocalDate deliverOn;
+
+    // Updatable: a pre-generated message is re-stamped when it is delivered
+    @Column(name = "sent_at", nullable = false)
     private LocalDateTime sentAt;
 
     // ========================================================================
@@ -105,6 +131,28 @@ public class BrixMessage {
         this.contextTrigger = contextTrigger;
     }
 
+    /**
+     * A user's chat message, stored so later turns can see it
+     */
+    public static BrixMessage fromUser(UserProfile userProfile, String messageText,
+                                       Tone tone, String contextTrigger) {
+        String text = messageText.length() > 500 ? messageText.substring(0, 500) : messageText;
+        BrixMessage message = new BrixMessage(userProfile, text, MessageType.CHAT, tone, contextTrigger);
+        message.setSender(Sender.USER);
+        return message;
+    }
+
+    /**
+     * A message generated ahead of time, held back until it is served on deliverOn
+     */
+    public static BrixMessage pregenerated(UserProfile userProfile, String messageText, MessageType messageType,
+                                           Tone tone, String contextTrigger, LocalDate deliverOn) {
+        String text = messageText.length() > 500 ? messageText.substring(0, 500) : messageText;
+        BrixMessage message = new BrixMessage(userProfile, text, messageType, tone, contextTrigger);
+        message.setDeliverOn(deliverOn);
+        return message;
+    }
+
     // ========================================================================
     // JPA CALLBACKS
     // ========================================================================
@@ -139,6 +187,28 @@ public class BrixMessage {
         return messageType == MessageType.CHECK_IN;
     }
 
+    /**
+     * Check if the user wrote this message (rather than BRIX)
+     */
+    public boolean isFromUser() {
+        return sender == Sender.USER;
+    }
+
+    /**
+     * Check if this message is pre-generated and not yet shown to the user
+     */
+    public boolean isPending() {
+        return deliverOn != null;
+    }
+
+    /**
+     * Release a pre-generated message to the user, stamped with the delivery time
+     */
+    public void deliver(LocalDateTime now) {
+        this.deliverOn = null;
+        this.sentAt = now;
+    }
+
     /**
      * Check if this message was triggered by a specific event
      */
@@ -235,6 +305,22 @@ public class BrixMessage {
         this.contextTrigger = contextTrigger;
     }
 
+    public Sender getSender() {
+        return sender != null ? sender : Sender.BRIX;
+    }
+
+    public void setSender(Sender sender) {
+        this.sender = sender;
+    }
+
+    public LocalDate getDeliverOn() {
+        return deliverOn;
+    }
+
+    public void setDeliverOn(LocalDate deliverOn) {
+        this.deliverOn = deliverOn;
+    }
+
     public LocalDateTime getSentAt() {
         return sentAt;
     }
@@ -251,6 +337,7 @@ public class BrixMessage {
     public String toString() {
         return "BrixMessage{" +
                 "messageId=" + messageId +
+                ", sender=" + getSender() +
                 ", messageType=" + messageType +
                 ", tone=" + tone +
                 ", preview='" + getMessagePreview() + '\'' +
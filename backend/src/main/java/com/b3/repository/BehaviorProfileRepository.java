@@ -3,8 +3,13 @@ package com.b3.repository;
 import com.b3.model.BehaviorProfile;
 import com.b3.model.UserProfile;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -28,4 +33,17 @@ public interface BehaviorProfileRepository extends JpaRepository<BehaviorProfile
      * Check if behavior profile exists for user
      */
     boolean existsByUserProfile(UserProfile userProfile);
+
+    /**
+     * Keyset page of recently active users (behavior touched since activeSince),
+     * with their profile, ordered by profile ID after the given cursor
+     */
+    @Query("SELECT b FROM BehaviorProfile b JOIN FETCH b.userProfile u " +
+           "WHERE u.profileId > :afterProfileId AND b.updatedAt >= :activeSince " +
+           "ORDER BY u.profileId")
+    List<BehaviorProfile> findActiveAfter(
+        @Param("afterProfileId") Long afterProfileId,
+        @Param("activeSince") LocalDateTime activeSince,
+        Pageable pageable
+    );
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.b3.repository;
+
+import com.b3.model.BrixConversationSummary;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for BrixConversationSummary entity
+ * One rolling chat summary per user
+ */
+@Repository
+public interface BrixConversationSummaryRepository extends JpaRepository<BrixConversationSummary, Long> {
+
+    /**
+     * Find the user's summary (absent until their first refresh)
+     */
+    Optional<BrixConversationSummary> findByUserProfile_ProfileId(Long profileId);
+}
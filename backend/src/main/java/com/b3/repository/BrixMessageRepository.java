@@ -3,13 +3,19 @@ package com.b3.repository;
 import com.b3.model.BrixMessage;
 import com.b3.model.UserProfile;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface for BrixMessage entity
@@ -28,6 +34,60 @@ public interface BrixMessageRepository extends JpaRepository<BrixMessage, Long>
      */
     List<BrixMessage> findByUserProfile_ProfileIdOrderBySentAtDesc(Long profileId);
     
+    /**
+     * Latest messages of one kind (e.g. "user_chat" turns), newest first
+     */
+    List<BrixMessage> findByUserProfile_ProfileIdAndContextTriggerOrderByMessageIdDesc(
+        Long profileId,
+        String contextTrigger,
+        Pageable pageable
+    );
+
+    /**
+     * Messages of one kind written after a given message, oldest first
+     */
+    List<BrixMessage> findByUserProfile_ProfileIdAndContextTriggerAndMessageIdGreaterThanOrderByMessageIdAsc(
+        Long profileId,
+        String contextTrigger,
+        Long afterMessageId,
+        Pageable pageable
+    );
+
+    /**
+     * Pre-generated message for a trigger, waiting to be served on a given day
+     */
+    Optional<BrixMessage> findFirstByUserProfile_ProfileIdAndContextTriggerAndDeliverOn(
+        Long profileId,
+        String contextTrigger,
+        LocalDate deliverOn
+    );
+
+    /**
+     * Which of these users already have messages pre-generated for a day
+     */
+    @Query("SELECT DISTINCT bm.userProfile.profileId FROM BrixMessage bm " +
+           "WHERE bm.userProfile.profileId IN :profileIds AND bm.deliverOn = :deliverOn")
+    List<Long> findProfileIdsWithPendingOn(
+        @Param("profileIds") Collection<Long> profileIds,
+        @Param("deliverOn") LocalDate deliverOn
+    );
+
+    /**
+     * Drop pre-generated messages whose day passed without them being served
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BrixMessage bm WHERE bm.deliverOn < :date")
+    int deleteUndeliveredBefore(@Param("date") LocalDate date);
+
+    /**
+     * Id and text of every message the user can see (pending pre-generated
+     * ones excluded) - what the search index is built from
+     */
+    @Query("SELECT bm.messageId AS messageId, bm.messageText AS messageText FROM BrixMessage bm " +
+           "WHERE bm.userProfile.profileId = :profileId AND bm.deliverOn IS NULL")
+    List<IndexedText> findIndexedText(@Param("profileId") Long profileId);
+
     /**
      * Find messages by type
      */
@@ -51,6 +111,16 @@ public interface BrixMessageRepository extends JpaRepository<BrixMessage, Long>
      */
     List<BrixMessage> findTop20ByUserProfileOrderBySentAtDesc(UserProfile userProfile);
     
+    /**
+     * Latest messages from BRIX the user can see, newest first - user chat turns
+     * and pending pre-generated messages excluded in the query, so the page is
+     * full whenever the user has that many
+     */
+    @Query("SELECT bm FROM BrixMessage bm WHERE bm.userProfile.profileId = :profileId " +
+           "AND (bm.sender IS NULL OR bm.sender = 'BRIX') AND bm.deliverOn IS NULL " +
+           "ORDER BY bm.sentAt DESC")
+    List<BrixMessage> findRecentFromBrix(@Param("profileId") Long profileId, Pageable pageable);
+
     /**
      * Find messages sent after a specific time
      */
@@ -80,4 +150,12 @@ public interface BrixMessageRepository extends JpaRepository<BrixMessage, Long>
         @Param("startOfDay") LocalDateTime startOfDay,
         @Param("endOfDay") LocalDateTime endOfDay
     );
-}
\ No newline at end of file
+
+    /**
+     * Projection for findIndexedText
+     */
+    interface IndexedText {
+        Long getMessageId();
+        String getMessageText();
+    }
+}
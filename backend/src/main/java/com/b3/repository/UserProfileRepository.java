@@ -1,8 +1,14 @@
 package com.b3.repository;
 
 import com.b3.model.UserProfile;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -43,4 +49,44 @@ public interface UserProfileRepository extends JpaRepository<UserProfile, Long>
      * Check if display name exists
      */
     boolean existsByDisplayName(String displayName);
-}
\ No newline at end of file
+
+    /**
+     * Keyset page of recommendation inputs (level, goal, the given day's
+     * check-in or nulls) for users after the cursor whose behavior profile
+     * was touched since activeSince, by profile ID
+     */
+    @Query("SELECT u.profileId AS profileId, u.fitnessLevel AS fitnessLevel, u.primaryGoal AS primaryGoal, " +
+           "d.energyLevel AS energyLevel, d.stressLevel AS stressLevel " +
+           "FROM BehaviorProfile b JOIN b.userProfile u " +
+           "LEFT JOIN DailyLog d ON d.userProfile = u AND d.logDate = :day " +
+           "WHERE u.profileId > :afterProfileId AND b.updatedAt >= :activeSince ORDER BY u.profileId")
+    List<RecommendationInputs> findActiveRecommendationInputsAfter(
+        @Param("afterProfileId") Long afterProfileId,
+        @Param("day") LocalDate day,
+        @Param("activeSince") LocalDateTime activeSince,
+        Pageable pageable
+    );
+
+    /**
+     * Recommendation inputs for the given users, by profile ID
+     */
+    @Query("SELECT u.profileId AS profileId, u.fitnessLevel AS fitnessLevel, u.primaryGoal AS primaryGoal, " +
+           "d.energyLevel AS energyLevel, d.stressLevel AS stressLevel " +
+           "FROM UserProfile u LEFT JOIN DailyLog d ON d.userProfile = u AND d.logDate = :day " +
+           "WHERE u.profileId IN :profileIds ORDER BY u.profileId")
+    List<RecommendationInputs> findRecommendationInputsByIds(
+        @Param("profileIds") Collection<Long> profileIds,
+        @Param("day") LocalDate day
+    );
+
+    /**
+     * Projection for the recommendation input queries
+     */
+    interface RecommendationInputs {
+        Long getProfileId();
+        UserProfile.FitnessLevel getFitnessLevel();
+        UserProfile.PrimaryGoal getPrimaryGoal();
+        Integer getEnergyLevel();
+        Integer getStressLevel();
+    }
+}
@@ -3,6 +3,7 @@ package com.b3.repository;
 import com.b3.model.Workout;
 import com.b3.model.WorkoutExercise;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -23,6 +24,14 @@ public interface WorkoutExerciseRepository extends JpaRepository<WorkoutExercise
      */
     List<WorkoutExercise> findByWorkout_WorkoutIdOrderByOrderIndexAsc(Long workoutId);
     
+    /**
+     * Every workout's exercises with the exercise itself, in one query -
+     * what the catalog snapshot is built from
+     */
+    @Query("SELECT we FROM WorkoutExercise we JOIN FETCH we.exercise " +
+           "ORDER BY we.workout.workoutId, we.orderIndex")
+    List<WorkoutExercise> findAllWithExercises();
+
     /**
      * Count exercises in a workout
      */
@@ -95,4 +95,38 @@ public interface WorkoutSessionRepository extends JpaRepository<WorkoutSession,
      * Find all sessions for a user, ordered by start time (newest first)
      */
     List<WorkoutSession> findByUserProfile_ProfileIdOrderByStartTimeDesc(Long profileId);
-}
\ No newline at end of file
+
+    /**
+     * Lowest and highest profile ID with a completed session (nulls when there are none)
+     */
+    @Query("SELECT MIN(ws.userProfile.profileId) AS minProfileId, MAX(ws.userProfile.profileId) AS maxProfileId " +
+           "FROM WorkoutSession ws WHERE ws.completionStatus = 'COMPLETED'")
+    ProfileIdRange findCompletedProfileIdRange();
+
+    /**
+     * Distinct (user, workout) pairs completed by users in [fromProfileId, toProfileId)
+     */
+    @Query("SELECT DISTINCT ws.userProfile.profileId AS profileId, ws.workout.workoutId AS workoutId " +
+           "FROM WorkoutSession ws WHERE ws.completionStatus = 'COMPLETED' " +
+           "AND ws.userProfile.profileId >= :fromProfileId AND ws.userProfile.profileId < :toProfileId")
+    List<CompletedWorkout> findCompletedWorkoutsInRange(
+        @Param("fromProfileId") Long fromProfileId,
+        @Param("toProfileId") Long toProfileId
+    );
+
+    /**
+     * Projection for findCompletedProfileIdRange
+     */
+    interface ProfileIdRange {
+        Long getMinProfileId();
+        Long getMaxProfileId();
+    }
+
+    /**
+     * Projection for findCompletedWorkoutsInRange
+     */
+    interface CompletedWorkout {
+        Long getProfileId();
+        Long getWorkoutId();
+    }
+}
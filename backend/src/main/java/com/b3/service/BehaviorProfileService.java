@@ -2,6 +2,7 @@ package com.b3.service;
 
 import com.b3.dto.request.BehaviorProfileUpdateRequest;
 import com.b3.dto.response.BehaviorProfileResponse;
+import com.b3.event.CoachingContextChangedEvent;
 import com.b3.exception.ResourceNotFoundException;
 import com.b3.model.BehaviorProfile;
 import com.b3.model.UserProfile;
@@ -9,6 +10,7 @@ import com.b3.repository.BehaviorProfileRepository;
 import com.b3.repository.UserProfileRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,12 +25,15 @@ public class BehaviorProfileService {
     
     private final BehaviorProfileRepository behaviorProfileRepository;
     private final UserProfileRepository userProfileRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     public BehaviorProfileService(
             BehaviorProfileRepository behaviorProfileRepository,
-            UserProfileRepository userProfileRepository) {
+            UserProfileRepository userProfileRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.behaviorProfileRepository = behaviorProfileRepository;
         this.userProfileRepository = userProfileRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
@@ -83,6 +88,7 @@ public class BehaviorProfileService {
         }
         
         BehaviorProfile updated = behaviorProfileRepository.save(behavior);
+        eventPublisher.publishEvent(new CoachingContextChangedEvent(profileId, "behavior_updated"));
         log.info("Successfully updated behavior profile for user: {}", profileId);
         
         return mapToResponse(updated);
@@ -120,6 +126,7 @@ public class BehaviorProfileService {
         
         behavior.setConsistencyScore(updatedScore);
         behaviorProfileRepository.save(behavior);
+        eventPublisher.publishEvent(new CoachingContextChangedEvent(profileId, "consistency_updated"));
         
         log.info("Updated consistency score for user {}: {}", profileId, updatedScore);
         
@@ -137,6 +144,7 @@ public class BehaviorProfileService {
         
         BehaviorProfile behavior = new BehaviorProfile(user);
         BehaviorProfile saved = behaviorProfileRepository.save(behavior);
+        eventPublisher.publishEvent(new CoachingContextChangedEvent(profileId, "behavior_created"));
         
         log.info("Successfully created behavior profile for user: {}", profileId);
         
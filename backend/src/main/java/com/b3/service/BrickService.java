@@ -2,6 +2,7 @@ package com.b3.service;
 
 import com.b3.dto.response.BrickResponse;
 import com.b3.dto.response.BrickStatsResponse;
+import com.b3.event.CoachingContextChangedEvent;
 import com.b3.exception.ResourceNotFoundException;
 import com.b3.model.Brick;
 import com.b3.model.UserProfile;
@@ -11,6 +12,7 @@ import com.b3.repository.UserProfileRepository;
 import com.b3.repository.WorkoutSessionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +38,7 @@ public class BrickService {
     private final BrickRepository brickRepository;
     private final UserProfileRepository userProfileRepository;
     private final WorkoutSessionRepository workoutSessionRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     // ========================================================================
     // CONSTRUCTOR
@@ -44,10 +47,12 @@ public class BrickService {
     public BrickService(
             BrickRepository brickRepository,
             UserProfileRepository userProfileRepository,
-            WorkoutSessionRepository workoutSessionRepository) {
+            WorkoutSessionRepository workoutSessionRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.brickRepository = brickRepository;
         this.userProfileRepository = userProfileRepository;
         this.workoutSessionRepository = workoutSessionRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     // ========================================================================
@@ -98,6 +103,8 @@ public class BrickService {
             Brick.BrickType.WORKOUT
         );
         Brick saved = brickRepository.save(brick);
+        eventPublisher.publishEvent(new CoachingContextChangedEvent(
+            session.getUserProfile().getProfileId(), "brick_laid"));
         
         log.info("Created brick with ID: {}", saved.getBrickId());
         
@@ -1,11 +1,42 @@
 package com.b3.service;
 
+import com.b3.event.BrixMessageSavedEvent;
 import com.b3.model.*;
 import com.b3.repository.*;
+import com.b3.service.brix.BrixCheckInPregenerator;
+import com.b3.service.brix.BrixContextAssembler;
+import com.b3.service.brix.BrixPipelineMetrics;
+import com.b3.service.brix.BrixPipelineMetrics.ReplySource;
+import com.b3.service.brix.BrixPipelineMetrics.Stage;
+import com.b3.service.brix.BrixPromptBuilder;
+import com.b3.service.brix.BrixResponseCache;
+import com.b3.service.brix.BrixTrafficRecorder;
+import com.b3.service.brix.CoachingContext;
+import com.b3.service.brix.CoachingContextCache;
+import com.b3.service.brix.KeywordIntentMatcher;
+import com.b3.service.brix.LlmBypassPolicy;
+import com.b3.service.brix.TrivialMessageClassifier;
+import com.b3.service.brix.WorkoutCoOccurrenceModel;
+import com.b3.service.brix.WorkoutRecommendationCache;
+import com.b3.service.brix.WorkoutScoringEngine;
+import com.b3.service.brix.WorkoutScoringEngine.ScoreBreakdown;
+import com.b3.service.brix.WorkoutScoringEngine.ScoredWorkout;
+import com.b3.service.catalog.WorkoutCatalog;
+import com.b3.service.catalog.WorkoutCatalogHolder;
+import com.b3.service.llm.LlmRequest;
+import com.b3.service.llm.LlmRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -14,8 +45,12 @@ import java.util.*;
 /**
  * BrixService - The AI Coach Brain
  * 
- * Uses Claude AI for intelligent responses when configured,
+ * Routes to the fastest healthy LLM (Ollama or Claude) when available,
  * falls back to keyword-based responses otherwise.
+ * Both sides of every chat turn are persisted; BrixContextAssembler replays
+ * the recent ones (plus a rolling summary) within a fixed token budget.
+ * User state comes from a cached CoachingContext snapshot, loaded at most
+ * once per request and reused until the user writes something.
  */
 @Service
 @Transactional
@@ -23,28 +58,70 @@ public class BrixService {
 
     private static final Logger logger = LoggerFactory.getLogger(BrixService.class);
 
+    /** Cap on GET /brix/messages/{profileId}?limit= */
+    private static final int MAX_RECENT_MESSAGES = 100;
+
     private final UserProfileRepository userProfileRepository;
     private final BehaviorProfileRepository behaviorProfileRepository;
-    private final WorkoutRepository workoutRepository;
+    private final WorkoutCatalogHolder workoutCatalog;
+    private final WorkoutScoringEngine scoringEngine;
+    private final WorkoutRecommendationCache recommendationCache;
+    private final WorkoutCoOccurrenceModel coOccurrenceModel;
     private final DailyLogRepository dailyLogRepository;
     private final BrixMessageRepository brixMessageRepository;
     private final BrickRepository brickRepository;
     private final OllamaService ollamaService;
+    private final LlmRouter llmRouter;
+    private final BrixResponseCache responseCache;
+    private final KeywordIntentMatcher intentMatcher;
+    private final LlmBypassPolicy bypassPolicy;
+    private final BrixContextAssembler contextAssembler;
+    private final CoachingContextCache coachingContextCache;
+    private final BrixPipelineMetrics pipelineMetrics;
+    private final BrixTrafficRecorder trafficRecorder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Scheduler jpaScheduler;
 
     public BrixService(UserProfileRepository userProfileRepository,
                        BehaviorProfileRepository behaviorProfileRepository,
-                       WorkoutRepository workoutRepository,
+                       WorkoutCatalogHolder workoutCatalog,
+                       WorkoutScoringEngine scoringEngine,
+                       WorkoutRecommendationCache recommendationCache,
+                       WorkoutCoOccurrenceModel coOccurrenceModel,
                        DailyLogRepository dailyLogRepository,
                        BrixMessageRepository brixMessageRepository,
                        BrickRepository brickRepository,
-                       OllamaService ollamaService) {
+                       OllamaService ollamaService,
+                       LlmRouter llmRouter,
+                       BrixResponseCache responseCache,
+                       KeywordIntentMatcher intentMatcher,
+                       LlmBypassPolicy bypassPolicy,
+                       BrixContextAssembler contextAssembler,
+                       CoachingContextCache coachingContextCache,
+                       BrixPipelineMetrics pipelineMetrics,
+                       BrixTrafficRecorder trafficRecorder,
+                       ApplicationEventPublisher eventPublisher,
+                       @Qualifier("brixJpaScheduler") Scheduler jpaScheduler) {
         this.userProfileRepository = userProfileRepository;
         this.behaviorProfileRepository = behaviorProfileRepository;
-        this.workoutRepository = workoutRepository;
+        this.workoutCatalog = workoutCatalog;
+        this.scoringEngine = scoringEngine;
+        this.recommendationCache = recommendationCache;
+        this.coOccurrenceModel = coOccurrenceModel;
         this.dailyLogRepository = dailyLogRepository;
         this.brixMessageRepository = brixMessageRepository;
         this.brickRepository = brickRepository;
         this.ollamaService = ollamaService;
+        this.llmRouter = llmRouter;
+        this.responseCache = responseCache;
+        this.intentMatcher = intentMatcher;
+        this.bypassPolicy = bypassPolicy;
+        this.contextAssembler = contextAssembler;
+        this.coachingContextCache = coachingContextCache;
+        this.pipelineMetrics = pipelineMetrics;
+        this.trafficRecorder = trafficRecorder;
+        this.eventPublisher = eventPublisher;
+        this.jpaScheduler = jpaScheduler;
     }
 
     // ========================================================================
@@ -63,122 +140,354 @@ public class BrixService {
     public BrixChatResponse chat(Long profileId, String userMessage) {
         logger.info("BRIX chat for user {}: {}", profileId, userMessage);
 
-        UserProfile user = userProfileRepository.findById(profileId)
-                .orElseThrow(() -> new RuntimeException("User not found: " + profileId));
+        // User state + tone (usually from cache) and earlier turns - loaded before this message is saved
+        ChatContext chatContext = loadChatContext(profileId, userMessage, BrixPipelineMetrics.PATH_CHAT);
+        CoachingContext context = chatContext.coaching();
+        UserProfile user = context.user();
+        BehaviorProfile behavior = context.behavior();
+        DailyLog todaysLog = context.todaysLog();
+        BrixMessage.Tone tone = context.tone();
+        BrixContextAssembler.ConversationMemory memory = chatContext.memory();
 
-        BehaviorProfile behavior = behaviorProfileRepository.findByUserProfile(user)
-                .orElse(null);
+        // Try the LLM first, fall back to keyword-based
+        String response = generateResponse(userMessage, user, behavior, todaysLog, tone, memory);
 
-        DailyLog todaysLog = dailyLogRepository.findByUserProfileAndLogDate(user, LocalDate.now())
-                .orElse(null);
+        // Save both sides of the turn
+        saveChatTurn(user, userMessage, response, tone);
+
+        return new BrixChatResponse(response, tone.name(), getWorkoutRecommendation(context));
+    }
+
+    /**
+     * Streaming variant of chat() - relays the reply to the listener token by token.
+     *
+     * KEY DESIGN: Same context → tone → generate → persist flow as chat(), but
+     * the BrixMessage is only saved once the stream completes, so a dropped
+     * connection never leaves a half-written reply in the history.
+     * Runs outside a transaction so no DB connection is held while Llama generates.
+     *
+     * Fallback rule: if Ollama fails BEFORE the first token, the user can't tell,
+     * so we quietly send the keyword response as a single chunk. If it fails
+     * AFTER tokens went out, we can't take them back - the error propagates
+     * and the controller ends the stream with an error event.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void streamChat(Long profileId, String userMessage, ChatStreamListener listener) {
+        logger.info("BRIX streaming chat for user {}: {}", profileId, userMessage);
+
+        ChatContext chatContext = loadChatContext(profileId, userMessage, BrixPipelineMetrics.PATH_STREAM);
+        CoachingContext context = chatContext.coaching();
+        UserProfile user = context.user();
+        BehaviorProfile behavior = context.behavior();
+        DailyLog todaysLog = context.todaysLog();
+        BrixMessage.Tone tone = context.tone();
+        BrixContextAssembler.ConversationMemory memory = chatContext.memory();
+
+        BrixResponseCache.ReplyContext replyContext = buildReplyContext(user, behavior, todaysLog, tone);
+        BrixResponseCache.CacheKey cacheKey = responseCache.keyFor(userMessage, replyContext);
+
+        // Trivial message or cache hit: sent as a single chunk, no LLM call
+        String response = trivialResponse(userMessage, user, behavior, tone, memory.ongoing());
+        ReplySource source = ReplySource.TRIVIAL;
+        if (response == null && !memory.ongoing()) {
+            response = responseCache.get(cacheKey, replyContext);
+            source = ReplySource.CACHE;
+        }
+        boolean[] firstTokenSent = {false};
 
-        // Determine tone based on behavior
-        BrixMessage.Tone tone = determineTone(behavior, todaysLog);
+        if (response != null) {
+            listener.onToken(response);
+        } else if (ollamaService.isConfigured()) {
+            logger.info("Streaming Ollama (Llama) response");
+            try {
+                LlmRequest request = brixRequest(user, userMessage, replyContext, memory, BrixPipelineMetrics.PATH_STREAM);
+                long started = System.nanoTime();
+                response = ollamaService.streamChat(
+                    request.systemPrompt(),
+                    request.history(),
+                    request.userMessage(),
+                    request.affinityKey(),
+                    token -> {
+                        if (!firstTokenSent[0]) {
+                            pipelineMetrics.recordStage(Stage.FIRST_TOKEN, BrixPipelineMetrics.PATH_STREAM,
+                                    System.nanoTime() - started);
+                        }
+                        firstTokenSent[0] = true;
+                        listener.onToken(token);
+                    }
+                );
+                long elapsed = System.nanoTime() - started;
+                if (response != null && !response.isEmpty()) {
+                    bypassPolicy.recordLlmLatency(elapsed);
+                    pipelineMetrics.recordStage(Stage.GENERATION, BrixPipelineMetrics.PATH_STREAM, elapsed);
+                    source = ReplySource.LLM;
+                    if (!memory.ongoing()) {
+                        responseCache.put(cacheKey, response, replyContext);
+                    }
+                } else {
+                    pipelineMetrics.recordLlmError(ollamaService.name(), ollamaService.model(), BrixContextAssembler.CHAT_TRIGGER);
+                }
+            } catch (Exception e) {
+                pipelineMetrics.recordLlmError(ollamaService.name(), ollamaService.model(), BrixContextAssembler.CHAT_TRIGGER);
+                if (firstTokenSent[0]) {
+                    logger.error("Ollama stream failed mid-response for user {}: {}", profileId, e.getMessage());
+                    throw e;
+                }
+                logger.error("Ollama stream failed before first token, falling back to keywords: {}", e.getMessage());
+            }
+        }
 
-        // Try Claude AI first, fall back to keyword-based
-        String response = generateResponse(userMessage, user, behavior, todaysLog, tone);
+        if (response == null || response.isEmpty()) {
+            logger.info("Using keyword-based response");
+            response = generateKeywordResponse(userMessage, user, behavior, todaysLog, tone);
+            source = ReplySource.KEYWORD;
+            listener.onToken(response);
+        }
+        pipelineMetrics.recordReply(source, BrixPipelineMetrics.PATH_STREAM, BrixContextAssembler.CHAT_TRIGGER);
 
-        // Save the message
-        BrixMessage message = new BrixMessage(user, response, BrixMessage.MessageType.MOTIVATION, tone);
-        message.setContextTrigger("user_chat");
-        brixMessageRepository.save(message);
+        saveChatTurn(user, userMessage, response, tone);
 
-        return new BrixChatResponse(response, tone.name(), getWorkoutRecommendation(profileId));
+        listener.onComplete(new BrixChatResponse(response, tone.name(), getWorkoutRecommendation(context)));
     }
 
     /**
-     * Generate response - tries Ollama (Llama) first, then falls back to keywords.
+     * Non-blocking variant of chat() for the reactive endpoint.
+     *
+     * KEY DESIGN: Same context → tone → generate → persist flow as chat(), but
+     * no thread waits on Llama: the LLM call is a WebClient Mono that holds
+     * nothing while the model generates. JPA is still blocking, so the context
+     * load and the final save hop onto the bounded brixJpaScheduler. Trivial
+     * messages, cache hits and the keyword fallback are CPU-only.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<BrixChatResponse> chatReactive(Long profileId, String userMessage) {
+        return Mono.fromCallable(() -> loadChatContext(profileId, userMessage, BrixPipelineMetrics.PATH_REACTIVE))
+                .subscribeOn(jpaScheduler)
+                .flatMap(context -> generateResponseReactive(userMessage, context)
+                        .publishOn(jpaScheduler)
+                        .map(response -> {
+                            saveChatTurn(context.user(), userMessage, response, context.tone());
+
+                            return new BrixChatResponse(response, context.tone().name(),
+                                    getWorkoutRecommendation(context.coaching()));
+                        }));
+    }
+
+    private Mono<String> generateResponseReactive(String userMessage, ChatContext context) {
+        UserProfile user = context.user();
+        BehaviorProfile behavior = context.behavior();
+        DailyLog todaysLog = context.todaysLog();
+        BrixMessage.Tone tone = context.tone();
+        BrixContextAssembler.ConversationMemory memory = context.memory();
+
+        String path = BrixPipelineMetrics.PATH_REACTIVE;
+        String trivial = trivialResponse(userMessage, user, behavior, tone, memory.ongoing());
+        if (trivial != null) {
+            pipelineMetrics.recordReply(ReplySource.TRIVIAL, path, BrixContextAssembler.CHAT_TRIGGER);
+            return Mono.just(trivial);
+        }
+
+        BrixResponseCache.ReplyContext replyContext = buildReplyContext(user, behavior, todaysLog, tone);
+        BrixResponseCache.CacheKey cacheKey = responseCache.keyFor(userMessage, replyContext);
+
+        // A follow-up depends on the conversation - never answer it from the shared cache
+        String cached = memory.ongoing() ? null : responseCache.get(cacheKey, replyContext);
+        if (cached != null) {
+            logger.info("Serving cached BRIX response");
+            pipelineMetrics.recordReply(ReplySource.CACHE, path, BrixContextAssembler.CHAT_TRIGGER);
+            return Mono.just(cached);
+        }
+
+        Mono<String> aiResponse = Mono.empty();
+        if (llmRouter.hasAvailableProvider()) {
+            aiResponse = Mono.defer(() -> {
+                LlmRequest request = brixRequest(user, userMessage, replyContext, memory, path);
+                long started = System.nanoTime();
+                return llmRouter.generate(request)
+                    .doOnNext(response -> {
+                        long elapsed = System.nanoTime() - started;
+                        bypassPolicy.recordLlmLatency(elapsed);
+                        pipelineMetrics.recordStage(Stage.GENERATION, path, elapsed);
+                        pipelineMetrics.recordReply(ReplySource.LLM, path, BrixContextAssembler.CHAT_TRIGGER);
+                        if (!memory.ongoing()) {
+                            responseCache.put(cacheKey, response, replyContext);
+                        }
+                    });
+            }).onErrorResume(e -> {
+                // Same rule as chat(): the user gets the keyword reply, never an error
+                logger.error("LLM failed, falling back to keywords: {}", e.getMessage());
+                return Mono.empty();
+            });
+        }
+
+        return aiResponse.switchIfEmpty(Mono.fromSupplier(() -> {
+            logger.info("Using keyword-based response");
+            pipelineMetrics.recordReply(ReplySource.KEYWORD, path, BrixContextAssembler.CHAT_TRIGGER);
+            return generateKeywordResponse(userMessage, user, behavior, todaysLog, tone);
+        }));
+    }
+
+    /**
+     * Generate response - tries the LLM router first, then falls back to keywords.
      *
      * KEY DESIGN: Graceful degradation pattern. We attempt AI first,
-     * but if Ollama is down or returns empty, we fall back to keyword matching.
+     * but if every provider is down or returns empty, we fall back to keyword matching.
      * This ensures the app ALWAYS responds—users never see an error from BRIX.
      * The fallback isn't "dumb"—it still uses context (name, streak, energy).
+     * Before either, two cheaper shortcuts: trivial messages ("hey", "thanks",
+     * emoji) are answered from templates, and the response cache reuses an AI
+     * reply already generated for a user in the same bucketed state - unless
+     * this is a follow-up in an ongoing conversation.
      */
     private String generateResponse(String userMessage, UserProfile user,
                                      BehaviorProfile behavior, DailyLog todaysLog,
-                                     BrixMessage.Tone tone) {
+                                     BrixMessage.Tone tone,
+                                     BrixContextAssembler.ConversationMemory memory) {
+
+        String path = BrixPipelineMetrics.PATH_CHAT;
+        String trivial = trivialResponse(userMessage, user, behavior, tone, memory.ongoing());
+        if (trivial != null) {
+            pipelineMetrics.recordReply(ReplySource.TRIVIAL, path, BrixContextAssembler.CHAT_TRIGGER);
+            return trivial;
+        }
+
+        BrixResponseCache.ReplyContext replyContext = buildReplyContext(user, behavior, todaysLog, tone);
+        BrixResponseCache.CacheKey cacheKey = responseCache.keyFor(userMessage, replyContext);
+
+        String cached = memory.ongoing() ? null : responseCache.get(cacheKey, replyContext);
+        if (cached != null) {
+            logger.info("Serving cached BRIX response");
+            pipelineMetrics.recordReply(ReplySource.CACHE, path, BrixContextAssembler.CHAT_TRIGGER);
+            return cached;
+        }
 
-        // Try Ollama (Llama) if configured and running
-        if (ollamaService.isConfigured()) {
-            logger.info("Using Ollama (Llama) for response");
+        // Try the fastest healthy LLM provider (Ollama, or Claude if configured)
+        if (llmRouter.hasAvailableProvider()) {
+            logger.info("Routing BRIX response to LLM");
             try {
-                String aiResponse = ollamaService.generateBrixResponse(
-                    userMessage,
-                    user.getDisplayName().split(" ")[0],
-                    behavior != null ? behavior.getConsecutiveDays() : 0,
-                    behavior != null ? behavior.getTotalBricksLaid() : 0,
-                    todaysLog != null ? todaysLog.getEnergyLevel() : null,
-                    todaysLog != null ? todaysLog.getStressLevel() : null,
-                    todaysLog != null ? todaysLog.getMood().name() : null,
-                    user.getFitnessLevel() != null ? user.getFitnessLevel().name() : null,
-                    user.getPrimaryGoal() != null ? user.getPrimaryGoal().name() : null
-                );
+                LlmRequest request = brixRequest(user, userMessage, replyContext, memory, path);
+                long started = System.nanoTime();
+                String aiResponse = llmRouter.generate(request).block();
 
                 if (aiResponse != null && !aiResponse.isEmpty()) {
+                    long elapsed = System.nanoTime() - started;
+                    bypassPolicy.recordLlmLatency(elapsed);
+                    pipelineMetrics.recordStage(Stage.GENERATION, path, elapsed);
+                    pipelineMetrics.recordReply(ReplySource.LLM, path, BrixContextAssembler.CHAT_TRIGGER);
+                    if (!memory.ongoing()) {
+                        responseCache.put(cacheKey, aiResponse, replyContext);
+                    }
                     return aiResponse;
                 }
             } catch (Exception e) {
-                logger.error("Ollama failed, falling back to keywords: {}", e.getMessage());
+                logger.error("LLM failed, falling back to keywords: {}", e.getMessage());
             }
         }
 
         // Fall back to keyword-based response
         logger.info("Using keyword-based response");
+        pipelineMetrics.recordReply(ReplySource.KEYWORD, path, BrixContextAssembler.CHAT_TRIGGER);
         return generateKeywordResponse(userMessage, user, behavior, todaysLog, tone);
     }
 
     /**
-     * Keyword-based response generation (fallback)
+     * The user's profile id is the affinity key, keeping them on one Ollama box.
+     * Conversation memory: summary at the end of the system prompt, recent turns as history.
      */
-    private String generateKeywordResponse(String userMessage, UserProfile user,
-                                            BehaviorProfile behavior, DailyLog todaysLog,
-                                            BrixMessage.Tone tone) {
-        String lowerMessage = userMessage.toLowerCase();
-        String name = user.getDisplayName().split(" ")[0];
-        int streak = behavior != null ? behavior.getConsecutiveDays() : 0;
-
-        // Greeting
-        if (containsAny(lowerMessage, "hello", "hi", "hey", "sup", "what's up")) {
-            return greetingResponse(name, streak, tone);
-        }
+    private LlmRequest brixRequest(UserProfile user, String userMessage, BrixResponseCache.ReplyContext context,
+                                   BrixContextAssembler.ConversationMemory memory, String path) {
+        LlmRequest request = pipelineMetrics.time(Stage.PROMPT_BUILD, path,
+                () -> BrixPromptBuilder.chatRequest(context, memory.summary(), memory.turns(),
+                        userMessage, String.valueOf(user.getProfileId())));
+        pipelineMetrics.recordPromptTokens(request, path);
+        return request;
+    }
 
-        // Tired/Low energy
-        if (containsAny(lowerMessage, "tired", "exhausted", "no energy", "drained", "sleepy", "low energy", "fatigued")) {
-            return tiredResponse(name, todaysLog, tone);
+    /**
+     * Persist the user's message and BRIX's reply, then let the summary catch
+     * up once they are committed
+     */
+    private void saveChatTurn(UserProfile user, String userMessage, String response, BrixMessage.Tone tone) {
+        saveMessage(BrixMessage.fromUser(user, userMessage, tone, BrixContextAssembler.CHAT_TRIGGER));
+
+        BrixMessage reply = new BrixMessage(user, response, BrixMessage.MessageType.MOTIVATION, tone);
+        reply.setContextTrigger(BrixContextAssembler.CHAT_TRIGGER);
+        saveMessage(reply);
+
+        Long profileId = user.getProfileId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    contextAssembler.refreshSummaryAsync(profileId);
+                }
+            });
+        } else {
+            contextAssembler.refreshSummaryAsync(profileId);
         }
+    }
 
-        // Motivated/Ready
-        if (containsAny(lowerMessage, "ready", "crush", "let's go", "pumped", "motivated", "fired up", "excited")) {
-            return motivatedResponse(name, streak, tone);
-        }
+    /**
+     * Save a message the user can now see; the search index picks it up after commit
+     */
+    private BrixMessage saveMessage(BrixMessage message) {
+        BrixMessage saved = brixMessageRepository.save(message);
+        eventPublisher.publishEvent(new BrixMessageSavedEvent(
+                saved.getUserProfile().getProfileId(), saved.getMessageId(), saved.getMessageText()));
+        return saved;
+    }
 
-        // Need motivation
-        if (containsAny(lowerMessage, "motivation", "motivate", "inspire", "struggling", "can't", "help", "stuck")) {
-            return motivationBoostResponse(name, behavior, tone);
+    /**
+     * Templated reply for trivial messages, or null if the message needs the LLM
+     * (including an acknowledgement that answers BRIX mid-conversation)
+     */
+    private String trivialResponse(String userMessage, UserProfile user,
+                                   BehaviorProfile behavior, BrixMessage.Tone tone, boolean ongoing) {
+        TrivialMessageClassifier.Category category = bypassPolicy.check(userMessage, ongoing);
+        if (category == null) {
+            return null;
         }
 
-        // Workout recommendation
-        if (containsAny(lowerMessage, "workout", "what should", "recommend", "suggestion", "exercise", "train")) {
-            return workoutRecommendationResponse(name, todaysLog, behavior, tone);
-        }
+        logger.info("Trivial message ({}), skipping LLM", category);
+        String name = user.getDisplayName().split(" ")[0];
+        int streak = behavior != null ? behavior.getConsecutiveDays() : 0;
 
-        // Streak/Progress questions
-        if (containsAny(lowerMessage, "streak", "progress", "how am i", "stats", "doing", "bricks")) {
-            return progressResponse(name, behavior, tone);
-        }
+        return switch (category) {
+            case GREETING -> greetingResponse(name, streak, tone);
+            case THANKS -> thanksResponse(name, streak, tone);
+            case ACKNOWLEDGEMENT -> acknowledgementResponse(name, tone);
+            case EMOJI_ONLY -> emojiResponse(name, tone);
+            case NOT_TRIVIAL -> null;
+        };
+    }
 
-        // Stress
-        if (containsAny(lowerMessage, "stressed", "stress", "anxious", "overwhelmed", "pressure")) {
-            return stressResponse(name, todaysLog, tone);
-        }
+    /**
+     * Keyword-based response generation (fallback)
+     *
+     * The keyword table lives in KeywordIntentMatcher, compiled once into a
+     * single-pass automaton; the highest-priority matched intent wins.
+     */
+    private String generateKeywordResponse(String userMessage, UserProfile user,
+                                            BehaviorProfile behavior, DailyLog todaysLog,
+                                            BrixMessage.Tone tone) {
+        String name = user.getDisplayName().split(" ")[0];
+        int streak = behavior != null ? behavior.getConsecutiveDays() : 0;
 
-        // Feeling bad/down
-        if (containsAny(lowerMessage, "bad", "down", "sad", "not great", "rough", "hard day", "difficult")) {
-            return empathyResponse(name, behavior, tone);
+        KeywordIntentMatcher.Intent intent = intentMatcher.match(userMessage);
+        if (intent == null) {
+            return defaultResponse(name, tone);
         }
 
-        // Default response
-        return defaultResponse(name, tone);
+        return switch (intent) {
+            case GREETING -> greetingResponse(name, streak, tone);
+            case TIRED -> tiredResponse(name, todaysLog, tone);
+            case MOTIVATED -> motivatedResponse(name, streak, tone);
+            case NEED_MOTIVATION -> motivationBoostResponse(name, behavior, tone);
+            case WORKOUT_REQUEST -> workoutRecommendationResponse(name, todaysLog, behavior, tone);
+            case PROGRESS -> progressResponse(name, behavior, tone);
+            case STRESS -> stressResponse(name, todaysLog, tone);
+            case FEELING_DOWN -> empathyResponse(name, behavior, tone);
+        };
     }
 
     // ========================================================================
@@ -262,6 +571,36 @@ public class BrixService {
         return String.format("I hear you, %s. Some days are just hard, and that's okay. 💙 You don't have to crush a workout today. Just showing up here and checking in? That counts. How about we start small - even a 5-minute stretch or walk outside?", name);
     }
 
+    private String thanksResponse(String name, int streak, BrixMessage.Tone tone) {
+        return switch (tone) {
+            case CELEBRATORY -> String.format("Anytime, %s! 🎉 You're the one doing the work%s - I'm just here cheering. Keep stacking those bricks!",
+                    name, streak >= 3 ? " - " + streak + " days and counting" : "");
+            case CHALLENGING -> String.format("Anytime, %s! 💪 Now let's put it to work - what's the next brick you're laying today?", name);
+            case EMPATHETIC -> String.format("Anytime, %s. 💙 I'm glad I could help. Go at your own pace - I'm here whenever you need me.", name);
+            case ENCOURAGING -> streak >= 3
+                    ? String.format("Anytime, %s! 🧱 You're the one doing the work - %d days and counting. Keep stacking those bricks!", name, streak)
+                    : String.format("Anytime, %s! 🧱 That's what I'm here for. Let me know whenever you need a workout idea or a push!", name);
+        };
+    }
+
+    private String acknowledgementResponse(String name, BrixMessage.Tone tone) {
+        return switch (tone) {
+            case CELEBRATORY -> String.format("Love it, %s! 🎉 You're on a roll - I'm here whenever you're ready for the next brick.", name);
+            case CHALLENGING -> String.format("Good, %s! 💪 Don't let the momentum cool off - ping me when you're ready to go.", name);
+            case EMPATHETIC -> String.format("Sounds good, %s. 💙 No rush at all - I'm here whenever you're ready.", name);
+            case ENCOURAGING -> String.format("Sounds good, %s! 💪 I'm here whenever you're ready for the next brick.", name);
+        };
+    }
+
+    private String emojiResponse(String name, BrixMessage.Tone tone) {
+        return switch (tone) {
+            case CELEBRATORY -> String.format("Right back at you, %s! 🎉🧱 Want to keep the celebration going with a workout?", name);
+            case CHALLENGING -> String.format("That's the spirit, %s! 🔥 Ready for something that'll push you today?", name);
+            case EMPATHETIC -> String.format("💙 Thanks for checking in, %s. Want a gentle workout idea, or just a quick check-in?", name);
+            case ENCOURAGING -> String.format("Love the energy, %s! 🔥🧱 Want a workout recommendation or a quick check-in?", name);
+        };
+    }
+
     private String defaultResponse(String name, BrixMessage.Tone tone) {
         List<String> responses = Arrays.asList(
             String.format("I love that you're here, %s! 🧱 Every interaction is another brick in your foundation. What else can I help you with? Ask about workouts, motivation, or your progress!", name),
@@ -277,111 +616,61 @@ public class BrixService {
 
     public WorkoutRecommendation getWorkoutRecommendation(Long profileId) {
         logger.info("Getting workout recommendation for user {}", profileId);
+        // A cache hit skips the coaching context load too
+        WorkoutCatalog catalog = workoutCatalog.current();
+        return recommendationCache.get(profileId, LocalDate.now(), catalog.version(),
+                () -> rankWorkouts(coachingContext(profileId), catalog));
+    }
 
-        UserProfile user = userProfileRepository.findById(profileId)
-                .orElseThrow(() -> new RuntimeException("User not found: " + profileId));
-
-        DailyLog todaysLog = dailyLogRepository.findByUserProfileAndLogDate(user, LocalDate.now())
-                .orElse(null);
+    private WorkoutRecommendation getWorkoutRecommendation(CoachingContext context) {
+        WorkoutCatalog catalog = workoutCatalog.current();
+        return recommendationCache.get(context.profileId(), context.date(), catalog.version(),
+                () -> rankWorkouts(context, catalog));
+    }
 
-        BehaviorProfile behavior = behaviorProfileRepository.findByUserProfile(user)
-                .orElse(null);
+    private WorkoutRecommendation rankWorkouts(CoachingContext context, WorkoutCatalog catalog) {
+        DailyLog todaysLog = context.todaysLog();
 
-        List<Workout> allWorkouts = workoutRepository.findAll();
-        if (allWorkouts.isEmpty()) {
+        // In-memory snapshot and co-occurrence model: no query per recommendation
+        List<ScoredWorkout> ranked = scoringEngine.rank(catalog, context.user(), todaysLog,
+                coOccurrenceModel.bonuses(context.profileId(), catalog));
+        if (ranked.isEmpty()) {
             return null;
         }
 
-        Workout recommended = scoreAndSelectWorkout(allWorkouts, user, todaysLog, behavior);
-        String reason = generateRecommendationReason(recommended, todaysLog, behavior);
+        ScoredWorkout recommended = ranked.get(0);
+        WorkoutCatalog.Entry workout = recommended.workout();
+        String reason = todaysLog != null
+                ? WorkoutScoringEngine.reason(todaysLog.getEnergyLevel(), todaysLog.getStressLevel())
+                : WorkoutScoringEngine.reason(null, null);
+
+        List<WorkoutAlternative> alternatives = new ArrayList<>(ranked.size() - 1);
+        for (ScoredWorkout alternative : ranked.subList(1, ranked.size())) {
+            WorkoutCatalog.Entry entry = alternative.workout();
+            alternatives.add(new WorkoutAlternative(
+                    entry.workoutId(),
+                    entry.name(),
+                    entry.type().name(),
+                    entry.difficulty().name(),
+                    entry.estimatedDuration(),
+                    alternative.score(),
+                    alternative.breakdown()
+            ));
+        }
 
         return new WorkoutRecommendation(
-                recommended.getWorkoutId(),
-                recommended.getName(),
-                recommended.getWorkoutType().name(),
-                recommended.getDifficultyLevel().name(),
-                recommended.getEstimatedDuration(),
-                reason
+                workout.workoutId(),
+                workout.name(),
+                workout.type().name(),
+                workout.difficulty().name(),
+                workout.estimatedDuration(),
+                reason,
+                recommended.score(),
+                recommended.breakdown(),
+                alternatives
         );
     }
 
-    /**
-     * KEY DESIGN: Additive scoring algorithm for workout recommendations.
-     * Each workout starts at 50 points, then gains points for matching:
-     * - User's fitness level (+20)
-     * - Today's energy level (low energy → beginner/short workouts, high → advanced)
-     * - Stress level (high stress → flexibility/short workouts)
-     * - Primary goal alignment (+15)
-     * The highest-scoring workout wins. This creates personalized recommendations
-     * without complex ML—just weighted factors based on current user state.
-     */
-    private Workout scoreAndSelectWorkout(List<Workout> workouts, UserProfile user,
-                                           DailyLog todaysLog, BehaviorProfile behavior) {
-        Map<Workout, Integer> scores = new HashMap<>();
-
-        for (Workout workout : workouts) {
-            int score = 50;
-
-            if (workout.getDifficultyLevel().name().equals(user.getFitnessLevel().name())) {
-                score += 20;
-            }
-
-            if (todaysLog != null) {
-                int energy = todaysLog.getEnergyLevel();
-                int stress = todaysLog.getStressLevel();
-
-                if (energy <= 2) {
-                    if (workout.getDifficultyLevel() == Workout.DifficultyLevel.BEGINNER) score += 30;
-                    if (workout.getEstimatedDuration() <= 20) score += 20;
-                    if (workout.getWorkoutType() == Workout.WorkoutType.FLEXIBILITY) score += 25;
-                }
-
-                if (energy >= 4) {
-                    if (workout.getDifficultyLevel() == Workout.DifficultyLevel.ADVANCED) score += 15;
-                    if (workout.getWorkoutType() == Workout.WorkoutType.STRENGTH) score += 10;
-                }
-
-                if (stress >= 4) {
-                    if (workout.getWorkoutType() == Workout.WorkoutType.FLEXIBILITY) score += 30;
-                    if (workout.getEstimatedDuration() <= 25) score += 15;
-                }
-            }
-
-            if (user.getPrimaryGoal() != null) {
-                String goal = user.getPrimaryGoal().name();
-                if (goal.equals("STRENGTH") && workout.getWorkoutType() == Workout.WorkoutType.STRENGTH) {
-                    score += 15;
-                } else if (goal.equals("CARDIO") && workout.getWorkoutType() == Workout.WorkoutType.CARDIO) {
-                    score += 15;
-                } else if (goal.equals("FLEXIBILITY") && workout.getWorkoutType() == Workout.WorkoutType.FLEXIBILITY) {
-                    score += 15;
-                }
-            }
-
-            scores.put(workout, score);
-        }
-
-        return scores.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(workouts.get(0));
-    }
-
-    private String generateRecommendationReason(Workout workout, DailyLog todaysLog, BehaviorProfile behavior) {
-        if (todaysLog != null) {
-            if (todaysLog.getEnergyLevel() <= 2) {
-                return "Perfect for your energy level today - gentle but effective!";
-            }
-            if (todaysLog.getStressLevel() >= 4) {
-                return "Great for stress relief - you'll feel amazing after!";
-            }
-            if (todaysLog.getEnergyLevel() >= 4) {
-                return "You've got great energy today - let's maximize it!";
-            }
-        }
-        return "Matches your fitness level and goals perfectly!";
-    }
-
     // ========================================================================
     // TONE ADAPTATION
     // ========================================================================
@@ -441,19 +730,21 @@ public class BrixService {
     public BrixMessage generateContextMessage(Long profileId, String trigger) {
         logger.info("Generating context message for user {} with trigger: {}", profileId, trigger);
 
-        UserProfile user = userProfileRepository.findById(profileId)
-                .orElseThrow(() -> new RuntimeException("User not found: " + profileId));
-
-        BehaviorProfile behavior = behaviorProfileRepository.findByUserProfile(user)
-                .orElse(null);
+        CoachingContext context = coachingContext(profileId);
+        BrixMessage pregenerated = deliverPregenerated(context, trigger);
+        if (pregenerated != null) {
+            pipelineMetrics.recordReply(ReplySource.PREGENERATED, BrixPipelineMetrics.PATH_TRIGGER, trigger);
+            return pregenerated;
+        }
 
-        DailyLog todaysLog = dailyLogRepository.findByUserProfileAndLogDate(user, LocalDate.now())
-                .orElse(null);
+        UserProfile user = context.user();
+        BehaviorProfile behavior = context.behavior();
+        DailyLog todaysLog = context.todaysLog();
 
-        String name = user.getDisplayName().split(" ")[0];
+        String name = context.firstName();
         String messageText;
         BrixMessage.MessageType messageType;
-        BrixMessage.Tone tone = determineTone(behavior, todaysLog);
+        BrixMessage.Tone tone = context.tone();
 
         switch (trigger.toLowerCase()) {
             case "app_open":
@@ -486,7 +777,34 @@ public class BrixService {
         }
 
         BrixMessage message = new BrixMessage(user, messageText, messageType, tone, trigger);
-        return brixMessageRepository.save(message);
+        pipelineMetrics.recordReply(ReplySource.TEMPLATE, BrixPipelineMetrics.PATH_TRIGGER, trigger);
+        return saveMessage(message);
+    }
+
+    /**
+     * Serve the message BrixCheckInPregenerator wrote overnight, if there is one
+     */
+    private BrixMessage deliverPregenerated(CoachingContext context, String trigger) {
+        String key = trigger.toLowerCase();
+        if (!BrixCheckInPregenerator.TRIGGERS.containsKey(key)) {
+            return null;
+        }
+        // Written for the start of the day - once today's log exists, the live message knows more
+        if (key.equals("app_open") && context.todaysLog() != null) {
+            return null;
+        }
+
+        return brixMessageRepository
+                .findFirstByUserProfile_ProfileIdAndContextTriggerAndDeliverOn(context.profileId(), key, context.date())
+                .map(message -> {
+                    if (key.equals("app_open")) {
+                        message.setTone(context.tone());
+                    }
+                    message.deliver(LocalDateTime.now());
+                    logger.info("Serving pre-generated {} message for user {}", key, context.profileId());
+                    return saveMessage(message);
+                })
+                .orElse(null);
     }
 
     private String generateAppOpenMessage(String name, BehaviorProfile behavior, DailyLog todaysLog) {
@@ -530,30 +848,109 @@ public class BrixService {
     // ========================================================================
 
     public List<BrixMessage> getRecentMessages(Long profileId, int limit) {
-        UserProfile user = userProfileRepository.findById(profileId)
-                .orElseThrow(() -> new RuntimeException("User not found: " + profileId));
+        if (!userProfileRepository.existsById(profileId)) {
+            throw new RuntimeException("User not found: " + profileId);
+        }
+        if (limit <= 0) {
+            return List.of();
+        }
 
-        return brixMessageRepository.findTop20ByUserProfileOrderBySentAtDesc(user)
-                .stream()
-                .limit(limit)
-                .toList();
+        // User-side chat turns are conversation memory, not messages from BRIX
+        return brixMessageRepository.findRecentFromBrix(profileId,
+                PageRequest.of(0, Math.min(limit, MAX_RECENT_MESSAGES)));
     }
 
     // ========================================================================
     // HELPER METHODS
     // ========================================================================
 
-    private boolean containsAny(String text, String... keywords) {
-        for (String keyword : keywords) {
-            if (text.contains(keyword)) return true;
+    /**
+     * With capture on, the turn is also queued for the replay file (see BrixTrafficRecorder)
+     */
+    private ChatContext loadChatContext(Long profileId, String userMessage, String path) {
+        ChatContext context = pipelineMetrics.time(Stage.CONTEXT_LOAD, path,
+                () -> new ChatContext(coachingContext(profileId), contextAssembler.assemble(profileId)));
+        if (trafficRecorder.isEnabled()) {
+            trafficRecorder.record(path, profileId, userMessage,
+                    buildReplyContext(context.user(), context.behavior(), context.todaysLog(), context.tone()),
+                    context.memory());
         }
-        return false;
+        return context;
+    }
+
+    private CoachingContext coachingContext(Long profileId) {
+        return coachingContextCache.get(profileId, this::loadCoachingContext);
+    }
+
+    /**
+     * Cache miss: the three lookups every BRIX request used to repeat
+     */
+    private CoachingContext loadCoachingContext(Long profileId) {
+        UserProfile user = userProfileRepository.findById(profileId)
+                .orElseThrow(() -> new RuntimeException("User not found: " + profileId));
+
+        BehaviorProfile behavior = behaviorProfileRepository.findByUserProfile(user)
+                .orElse(null);
+
+        LocalDate today = LocalDate.now();
+        DailyLog todaysLog = dailyLogRepository.findByUserProfileAndLogDate(user, today)
+                .orElse(null);
+
+        return new CoachingContext(user, behavior, todaysLog, determineTone(behavior, todaysLog), today);
+    }
+
+    private BrixResponseCache.ReplyContext buildReplyContext(UserProfile user, BehaviorProfile behavior,
+                                                             DailyLog todaysLog, BrixMessage.Tone tone) {
+        return new BrixResponseCache.ReplyContext(
+                user.getDisplayName().split(" ")[0],
+                behavior != null ? behavior.getConsecutiveDays() : 0,
+                behavior != null ? behavior.getTotalBricksLaid() : 0,
+                todaysLog != null ? todaysLog.getEnergyLevel() : null,
+                todaysLog != null ? todaysLog.getStressLevel() : null,
+                todaysLog != null ? todaysLog.getMood().name() : null,
+                tone,
+                user.getFitnessLevel() != null ? user.getFitnessLevel().name() : null,
+                user.getPrimaryGoal() != null ? user.getPrimaryGoal().name() : null
+        );
     }
 
     // ========================================================================
     // RESPONSE CLASSES
     // ========================================================================
 
+    /**
+     * User state and conversation memory for one chat turn
+     */
+    private record ChatContext(
+            CoachingContext coaching,
+            BrixContextAssembler.ConversationMemory memory
+    ) {
+        UserProfile user() {
+            return coaching.user();
+        }
+
+        BehaviorProfile behavior() {
+            return coaching.behavior();
+        }
+
+        DailyLog todaysLog() {
+            return coaching.todaysLog();
+        }
+
+        BrixMessage.Tone tone() {
+            return coaching.tone();
+        }
+    }
+
+    /**
+     * Receives a streamed chat reply as it is generated
+     */
+    public interface ChatStreamListener {
+        void onToken(String token);
+
+        void onComplete(BrixChatResponse response);
+    }
+
     public record BrixChatResponse(
             String message,
             String tone,
@@ -566,6 +963,22 @@ public class BrixService {
             String type,
             String difficulty,
             Integer duration,
-            String reason
+            String reason,
+            Integer score,
+            ScoreBreakdown breakdown,
+            List<WorkoutAlternative> alternatives
+    ) {}
+
+    /**
+     * A runner-up recommendation, so the app can offer choices without another call
+     */
+    public record WorkoutAlternative(
+            Long workoutId,
+            String name,
+            String type,
+            String difficulty,
+            Integer duration,
+            Integer score,
+            ScoreBreakdown breakdown
     ) {}
 }
@@ -1,11 +1,18 @@
 package com.b3.service;
 
+import com.b3.service.brix.BrixPromptBuilder;
+import com.b3.service.llm.ChatTurn;
+import com.b3.service.llm.LlmProvider;
+import com.b3.service.llm.LlmRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.*;
 
@@ -15,18 +22,19 @@ import java.util.*;
  * Provides intelligent AI responses for BRIX coach
  */
 @Service
-public class ClaudeService {
+public class ClaudeService implements LlmProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(ClaudeService.class);
     private static final String CLAUDE_API_URL = "https://api.anthropic.com/v1/messages";
+    private static final String CLAUDE_MODEL = "claude-3-haiku-20240307"; // Fast & cheap for chat
 
     @Value("${anthropic.api.key:}")
     private String apiKey;
 
     private final RestTemplate restTemplate;
 
-    public ClaudeService() {
-        this.restTemplate = new RestTemplate();
+    public ClaudeService(@Qualifier("claudeRestTemplate") RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
     }
 
     /**
@@ -36,10 +44,42 @@ public class ClaudeService {
         return apiKey != null && !apiKey.isEmpty() && !apiKey.equals("your-api-key-here");
     }
 
+    @Override
+    public String name() {
+        return "claude";
+    }
+
+    @Override
+    public String model() {
+        return CLAUDE_MODEL;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return isConfigured();
+    }
+
+    /**
+     * Router entry point. chat() is blocking, so it runs on boundedElastic;
+     * a cancelled hedge simply has its reply discarded.
+     */
+    @Override
+    public Mono<String> generate(LlmRequest request) {
+        return Mono.fromCallable(() -> chat(request.systemPrompt(), request.history(), request.userMessage()))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
     /**
      * Send a message to Claude and get a response
      */
     public String chat(String systemPrompt, String userMessage) {
+        return chat(systemPrompt, List.of(), userMessage);
+    }
+
+    /**
+     * Send a message with earlier conversation turns (oldest first)
+     */
+    public String chat(String systemPrompt, List<ChatTurn> history, String userMessage) {
         if (!isConfigured()) {
             logger.warn("Claude API key not configured");
             return null;
@@ -52,11 +92,14 @@ public class ClaudeService {
             headers.set("anthropic-version", "2023-06-01");
 
             Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", "claude-3-haiku-20240307"); // Fast & cheap for chat
+            requestBody.put("model", CLAUDE_MODEL);
             requestBody.put("max_tokens", 300);
             requestBody.put("system", systemPrompt);
             
             List<Map<String, String>> messages = new ArrayList<>();
+            for (ChatTurn turn : history) {
+                messages.add(Map.of("role", turn.wireRole(), "content", turn.content()));
+            }
             messages.add(Map.of("role", "user", "content", userMessage));
             requestBody.put("messages", messages);
 
@@ -89,54 +132,9 @@ public class ClaudeService {
                                         int totalBricks, Integer energyLevel, Integer stressLevel,
                                         String mood, String fitnessLevel, String primaryGoal) {
         
-        String systemPrompt = buildBrixSystemPrompt(userName, streak, totalBricks, 
-                                                     energyLevel, stressLevel, mood,
-                                                     fitnessLevel, primaryGoal);
+        String systemPrompt = BrixPromptBuilder.systemPrompt(userName, streak, totalBricks,
+                energyLevel, stressLevel, mood, fitnessLevel, primaryGoal);
         
         return chat(systemPrompt, userMessage);
     }
-
-    private String buildBrixSystemPrompt(String userName, int streak, int totalBricks,
-                                          Integer energyLevel, Integer stressLevel, 
-                                          String mood, String fitnessLevel, String primaryGoal) {
-        
-        StringBuilder prompt = new StringBuilder();
-        prompt.append("You are BRIX, an enthusiastic and supportive AI fitness coach in the B3 (Brick by Brick) fitness app. ");
-        prompt.append("Your personality is warm, motivating, and uses a 'brick by brick' metaphor - each workout is a brick in building the user's fitness wall.\n\n");
-        
-        prompt.append("KEY TRAITS:\n");
-        prompt.append("- Use brick/wall building metaphors naturally (not every message, but often)\n");
-        prompt.append("- Be encouraging but not fake - acknowledge struggles genuinely\n");
-        prompt.append("- Use emojis sparingly but effectively (🧱💪🔥)\n");
-        prompt.append("- Keep responses concise (2-4 sentences max)\n");
-        prompt.append("- Be adaptive: empathetic when user is struggling, celebratory for wins, challenging when they're ready\n\n");
-        
-        prompt.append("USER CONTEXT:\n");
-        prompt.append(String.format("- Name: %s\n", userName));
-        prompt.append(String.format("- Current streak: %d days\n", streak));
-        prompt.append(String.format("- Total bricks (workouts): %d\n", totalBricks));
-        prompt.append(String.format("- Fitness level: %s\n", fitnessLevel != null ? fitnessLevel : "Unknown"));
-        prompt.append(String.format("- Primary goal: %s\n", primaryGoal != null ? primaryGoal : "General fitness"));
-        
-        if (energyLevel != null) {
-            prompt.append(String.format("- Today's energy level: %d/5\n", energyLevel));
-        }
-        if (stressLevel != null) {
-            prompt.append(String.format("- Today's stress level: %d/5\n", stressLevel));
-        }
-        if (mood != null) {
-            prompt.append(String.format("- Today's mood: %s\n", mood));
-        }
-        
-        prompt.append("\nRESPONSE GUIDELINES:\n");
-        prompt.append("- If user is tired/low energy: Be empathetic, suggest rest or light activity\n");
-        prompt.append("- If user is stressed: Acknowledge it, suggest exercise as stress relief\n");
-        prompt.append("- If user is motivated: Match their energy, encourage them\n");
-        prompt.append("- If user asks about workouts: Recommend based on their energy/goals\n");
-        prompt.append("- If user asks about progress: Celebrate their bricks and streak\n");
-        prompt.append("- Always address them by first name\n");
-        prompt.append("- Never break character - you ARE BRIX the fitness coach\n");
-        
-        return prompt.toString();
-    }
 }
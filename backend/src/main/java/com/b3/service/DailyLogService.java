@@ -2,6 +2,8 @@ package com.b3.service;
 
 import com.b3.dto.DailyLogCreateDTO;
 import com.b3.dto.DailyLogDTO;
+import com.b3.event.CoachingContextChangedEvent;
+import com.b3.event.RecommendationInputsChangedEvent;
 import com.b3.exception.ResourceNotFoundException;
 import com.b3.exception.DuplicateResourceException;
 import com.b3.model.DailyLog;
@@ -10,6 +12,7 @@ import com.b3.repository.DailyLogRepository;
 import com.b3.repository.UserProfileRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,15 +34,18 @@ public class DailyLogService {
 
     private final DailyLogRepository dailyLogRepository;
     private final UserProfileRepository userProfileRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ========================================================================
     // CONSTRUCTOR
     // ========================================================================
 
     public DailyLogService(DailyLogRepository dailyLogRepository,
-                          UserProfileRepository userProfileRepository) {
+                          UserProfileRepository userProfileRepository,
+                          ApplicationEventPublisher eventPublisher) {
         this.dailyLogRepository = dailyLogRepository;
         this.userProfileRepository = userProfileRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // ========================================================================
@@ -76,6 +82,8 @@ public class DailyLogService {
         dailyLog.setNotes(createDTO.getNotes());
 
         DailyLog savedLog = dailyLogRepository.save(dailyLog);
+        eventPublisher.publishEvent(new CoachingContextChangedEvent(userProfile.getProfileId(), "daily_log_submitted"));
+        eventPublisher.publishEvent(new RecommendationInputsChangedEvent(userProfile.getProfileId(), "daily_log_submitted"));
         logger.info("Successfully created daily log with ID: {}", savedLog.getLogId());
 
         return mapToDTO(savedLog);
@@ -195,6 +203,10 @@ public class DailyLogService {
         dailyLog.setNotes(updateDTO.getNotes());
 
         DailyLog savedLog = dailyLogRepository.save(dailyLog);
+        eventPublisher.publishEvent(new CoachingContextChangedEvent(
+                dailyLog.getUserProfile().getProfileId(), "daily_log_updated"));
+        eventPublisher.publishEvent(new RecommendationInputsChangedEvent(
+                dailyLog.getUserProfile().getProfileId(), "daily_log_updated"));
         logger.info("Successfully updated daily log: {}", logId);
 
         return mapToDTO(savedLog);
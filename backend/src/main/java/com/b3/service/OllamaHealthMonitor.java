@@ -0,0 +1,47 @@
+package com.b3.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * OllamaHealthMonitor - Background reachability probe for Ollama
+ *
+ * KEY DESIGN: Health is checked on a fixed schedule, off the request path.
+ * Each probe result feeds the endpoint's circuit breaker, so chat requests
+ * only ever read cached state. The probe is also what closes an open circuit
+ * once Ollama comes back, without waiting for a user to volunteer a request.
+ */
+@Component
+public class OllamaHealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OllamaHealthMonitor.class);
+
+    private final OllamaService ollamaService;
+
+    private volatile boolean lastProbeHealthy = true;
+
+    public OllamaHealthMonitor(OllamaService ollamaService) {
+        this.ollamaService = ollamaService;
+    }
+
+    @Scheduled(initialDelayString = "${ollama.health.initial-delay-ms:0}",
+               fixedDelayString = "${ollama.health.probe-interval-ms:15000}")
+    public void probe() {
+        boolean healthy = ollamaService.probeHealth();
+
+        if (healthy != lastProbeHealthy) {
+            if (healthy) {
+                logger.info("Ollama health probe recovered ({})", ollamaService.describeEndpoints());
+            } else {
+                logger.warn("Ollama health probe failing ({})", ollamaService.describeEndpoints());
+            }
+        }
+        lastProbeHealthy = healthy;
+    }
+
+    public boolean isLastProbeHealthy() {
+        return lastProbeHealthy;
+    }
+}
@@ -0,0 +1,89 @@
+package com.b3.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalTime;
+
+/**
+ * OllamaModelWarmer - Keeps the BRIX model loaded so chats never pay a cold start
+ *
+ * KEY DESIGN: Ollama unloads a model once it has been idle for its
+ * keep-alive, and the next request waits seconds for it to load again. We
+ * (1) load the model as soon as the app is ready, on a background executor
+ * so startup isn't held up, and (2) refresh its keep-alive on a schedule - but
+ * only during active hours, so an idle box can release the memory overnight.
+ *
+ * Active hours are "HH:mm-HH:mm" in server local time and may wrap midnight
+ * (e.g. 22:00-02:00). Every request also carries ollama.keep-alive, so real
+ * chat traffic extends the window too.
+ */
+@Component
+public class OllamaModelWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(OllamaModelWarmer.class);
+
+    private final OllamaService ollamaService;
+    private final TaskExecutor warmupExecutor;
+    private final boolean warmupEnabled;
+    private final LocalTime activeFrom;
+    private final LocalTime activeTo;
+    private final Clock clock;
+
+    public OllamaModelWarmer(OllamaService ollamaService,
+                             @Qualifier("brixStreamExecutor") TaskExecutor warmupExecutor,
+                             @Value("${ollama.warmup.enabled:true}") boolean warmupEnabled,
+                             @Value("${ollama.keep-alive.active-hours:06:00-23:00}") String activeHours) {
+        this.ollamaService = ollamaService;
+        this.warmupExecutor = warmupExecutor;
+        this.warmupEnabled = warmupEnabled;
+        this.clock = Clock.systemDefaultZone();
+
+        String[] range = activeHours.split("-");
+        if (range.length != 2) {
+            throw new IllegalArgumentException("ollama.keep-alive.active-hours must be HH:mm-HH:mm, got: " + activeHours);
+        }
+        this.activeFrom = LocalTime.parse(range[0].trim());
+        this.activeTo = LocalTime.parse(range[1].trim());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        if (!warmupEnabled) {
+            return;
+        }
+        warmupExecutor.execute(() -> {
+            long started = System.nanoTime();
+            if (ollamaService.warmUp("warmup")) {
+                logger.info("Ollama model warmed up in {} ms", (System.nanoTime() - started) / 1_000_000);
+            }
+        });
+    }
+
+    @Scheduled(initialDelayString = "${ollama.keep-alive.ping-interval-ms:240000}",
+               fixedDelayString = "${ollama.keep-alive.ping-interval-ms:240000}")
+    public void keepAlive() {
+        if (!warmupEnabled || !isActiveHours(LocalTime.now(clock))) {
+            return;
+        }
+        if (!ollamaService.warmUp("keepalive")) {
+            logger.debug("Ollama keep-alive ping skipped or failed");
+        }
+    }
+
+    boolean isActiveHours(LocalTime now) {
+        if (activeFrom.isBefore(activeTo)) {
+            return !now.isBefore(activeFrom) && now.isBefore(activeTo);
+        }
+        // Window wraps midnight
+        return !now.isBefore(activeFrom) || now.isBefore(activeTo);
+    }
+}
@@ -1,13 +1,32 @@
 package com.b3.service;
 
+import com.b3.service.llm.ChatTurn;
+import com.b3.service.llm.CircuitBreaker;
+import com.b3.service.llm.LlmAdmissionController;
+import com.b3.service.llm.LlmPriority;
+import com.b3.service.llm.LlmProvider;
+import com.b3.service.llm.LlmRequest;
+import com.b3.service.llm.OllamaEndpointPool;
+import com.b3.service.llm.OllamaModelSelector;
+import com.b3.service.llm.OllamaResponseMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * OllamaService - Integration with locally running Ollama (Llama)
@@ -17,169 +36,382 @@ import java.util.*;
  *
  * Install: https://ollama.ai
  * Run: ollama run llama3.2
+ *
+ * Several Ollama boxes can be listed in ollama.api.urls; every call leases
+ * an endpoint from OllamaEndpointPool (least outstanding, sticky per profile).
+ * The model and response cap come from OllamaModelSelector, which drops to a
+ * smaller model under load.
  */
 @Service
-public class OllamaService {
+public class OllamaService implements LlmProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(OllamaService.class);
 
-    @Value("${ollama.api.url:http://localhost:11434}")
-    private String ollamaUrl;
+    private final boolean enabled;
+    private final String keepAlive;
+    private final RestTemplate restTemplate;
+    private final WebClient webClient;
+    private final Duration totalTimeout;
+    private final ObjectMapper objectMapper;
+    private final OllamaEndpointPool endpointPool;
+    private final OllamaModelSelector modelSelector;
+    private final LlmAdmissionController admissionController;
+    private final OllamaResponseMetrics responseMetrics;
 
-    @Value("${ollama.model:llama3.2}")
-    private String model;
+    public OllamaService(@Qualifier("ollamaRestTemplate") RestTemplate restTemplate,
+                         @Qualifier("ollamaWebClient") WebClient webClient,
+                         @Value("${llm.http.ollama.total-timeout-ms:120000}") long totalTimeoutMs,
+                         ObjectMapper objectMapper,
+                         LlmAdmissionController ollamaAdmissionController,
+                         OllamaResponseMetrics responseMetrics,
+                         OllamaEndpointPool endpointPool,
+                         OllamaModelSelector modelSelector,
+                         @Value("${ollama.enabled:true}") boolean enabled,
+                         @Value("${ollama.keep-alive:30m}") String keepAlive) {
+        this.enabled = enabled;
+        this.keepAlive = keepAlive;
+        this.restTemplate = restTemplate;
+        this.webClient = webClient;
+        this.totalTimeout = Duration.ofMillis(totalTimeoutMs);
+        this.objectMapper = objectMapper;
+        this.endpointPool = endpointPool;
+        this.admissionController = ollamaAdmissionController;
+        this.responseMetrics = responseMetrics;
+        this.modelSelector = modelSelector;
+    }
 
-    @Value("${ollama.enabled:true}")
-    private boolean enabled;
+    /**
+     * Check if Ollama is configured and believed reachable.
+     *
+     * KEY DESIGN: This sits on the chat hot path, so it must never do I/O.
+     * Reachability comes from the per-endpoint circuit breakers, which are fed
+     * by real call outcomes and by OllamaHealthMonitor's background probe.
+     * While every endpoint is ejected this returns false instantly and BRIX
+     * falls back to keywords without waiting on a connect timeout.
+     */
+    public boolean isConfigured() {
+        return enabled && endpointPool.hasAvailableEndpoint();
+    }
 
-    private final RestTemplate restTemplate;
+    // ========================================================================
+    // LLM PROVIDER
+    // ========================================================================
 
-    public OllamaService() {
-        this.restTemplate = new RestTemplate();
+    @Override
+    public String name() {
+        return "ollama";
+    }
+
+    @Override
+    public String model() {
+        return modelSelector.activeModel();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return isConfigured();
     }
 
     /**
-     * Check if Ollama is configured and reachable
+     * Router entry point - the non-blocking path, so a hedge loser is
+     * cancelled mid-generation and gives its model slot back
      */
-    public boolean isConfigured() {
+    @Override
+    public Mono<String> generate(LlmRequest request) {
+        return chatReactive(request.systemPrompt(), request.history(), request.userMessage(),
+                request.priority(), request.affinityKey());
+    }
+
+    /**
+     * Active health check against GET /api/tags on every endpoint.
+     * Called on a schedule by OllamaHealthMonitor - never from a request thread.
+     * This is what re-admits an ejected endpoint. True if any endpoint is up.
+     */
+    public boolean probeHealth() {
         if (!enabled) {
             return false;
         }
 
-        try {
-            // Quick health check
-            ResponseEntity<String> response = restTemplate.getForEntity(
-                ollamaUrl + "/api/tags",
-                String.class
-            );
-            return response.getStatusCode() == HttpStatus.OK;
-        } catch (Exception e) {
-            logger.debug("Ollama not reachable: {}", e.getMessage());
-            return false;
+        boolean anyHealthy = false;
+        for (OllamaEndpointPool.Endpoint endpoint : endpointPool.getEndpoints()) {
+            boolean healthy;
+            try {
+                ResponseEntity<String> response = restTemplate.getForEntity(
+                    endpoint.url() + "/api/tags",
+                    String.class
+                );
+                healthy = response.getStatusCode() == HttpStatus.OK;
+            } catch (Exception e) {
+                logger.debug("Ollama endpoint {} not reachable: {}", endpoint.url(), e.getMessage());
+                healthy = false;
+            }
+            endpointPool.recordProbe(endpoint, healthy);
+            anyHealthy |= healthy;
         }
+        return anyHealthy;
     }
 
     /**
-     * Send a message to Ollama and get a response
+     * Endpoint rotation summary for health logging, e.g. "2/3 admitted"
      */
-    public String chat(String systemPrompt, String userMessage) {
+    public String describeEndpoints() {
+        return endpointPool.describe();
+    }
+
+    /**
+     * Load the model into memory (or refresh its keep-alive) without generating.
+     *
+     * KEY DESIGN: /api/chat with an empty messages array just loads the model
+     * and resets its unload timer to keep_alive. Called at startup and on a
+     * schedule by OllamaModelWarmer - never from a request thread - so users
+     * never pay the multi-second cold load. Skips admission control: there is
+     * no generation to share the model with. The downshift model is warmed
+     * too - switching to it at peak load must not start with a cold load.
+     */
+    public boolean warmUp(String source) {
         if (!enabled) {
-            logger.debug("Ollama is disabled");
-            return null;
+            return false;
         }
 
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
+        // Every box needs every model resident - a request can land on any of them
+        boolean anyWarm = false;
+        for (String model : modelSelector.models()) {
             Map<String, Object> requestBody = new HashMap<>();
             requestBody.put("model", model);
-            requestBody.put("stream", false);
-
-            // Build messages array for chat endpoint
-            List<Map<String, String>> messages = new ArrayList<>();
-            messages.add(Map.of("role", "system", "content", systemPrompt));
-            messages.add(Map.of("role", "user", "content", userMessage));
-            requestBody.put("messages", messages);
-
-            // Set options for faster responses
-            Map<String, Object> options = new HashMap<>();
-            options.put("num_predict", 300); // Limit response length
-            options.put("temperature", 0.7);
-            requestBody.put("options", options);
-
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-
-            logger.debug("Sending request to Ollama: {}", ollamaUrl + "/api/chat");
-
-            ResponseEntity<Map> response = restTemplate.exchange(
-                ollamaUrl + "/api/chat",
-                HttpMethod.POST,
-                request,
-                Map.class
-            );
-
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> message = (Map<String, Object>) response.getBody().get("message");
-                if (message != null) {
-                    return (String) message.get("content");
+            requestBody.put("messages", List.of());
+            requestBody.put("keep_alive", keepAlive);
+
+            for (OllamaEndpointPool.Endpoint endpoint : endpointPool.getEndpoints()) {
+                if (endpoint.getState() != CircuitBreaker.State.CLOSED) {
+                    continue;
+                }
+                try {
+                    ResponseEntity<JsonNode> response = restTemplate.postForEntity(
+                        endpoint.url() + "/api/chat",
+                        requestBody,
+                        JsonNode.class
+                    );
+                    responseMetrics.record(response.getBody(), source);
+                    anyWarm |= response.getStatusCode() == HttpStatus.OK;
+                } catch (Exception e) {
+                    logger.warn("Ollama {} for model {} on {} failed: {}", source, model, endpoint.url(), e.getMessage());
                 }
             }
-        } catch (Exception e) {
-            logger.error("Ollama API error: {}", e.getMessage());
         }
-
-        return null;
+        return anyWarm;
     }
 
     /**
-     * Generate BRIX coach response with context
+     * Send a message to Ollama on WebClient - the one path every routed call
+     * (generate) takes through admission control.
+     *
+     * KEY DESIGN: No thread is held while Llama generates - not while queued
+     * for a model slot (acquireAsync), not while waiting on the socket. The
+     * permit is released however the Mono ends: success, error, timeout or
+     * the subscriber cancelling. Errors are swallowed: the Mono completes
+     * empty (also when every endpoint is ejected, no slot frees up within the
+     * priority's max wait, or the reply is blank) and the caller falls back.
+     *
+     * @param history earlier conversation turns, oldest first, sent between
+     *                the system prompt and userMessage
+     * @param affinityKey sticky endpoint key (profile id), or null
      */
-    public String generateBrixResponse(String userMessage, String userName, int streak,
-                                        int totalBricks, Integer energyLevel, Integer stressLevel,
-                                        String mood, String fitnessLevel, String primaryGoal) {
+    public Mono<String> chatReactive(String systemPrompt, List<ChatTurn> history, String userMessage,
+                                     LlmPriority priority, String affinityKey) {
+        if (!enabled) {
+            logger.debug("Ollama is disabled");
+            return Mono.empty();
+        }
 
-        String systemPrompt = buildBrixSystemPrompt(userName, streak, totalBricks,
-                                                     energyLevel, stressLevel, mood,
-                                                     fitnessLevel, primaryGoal);
+        if (!endpointPool.hasAvailableEndpoint()) {
+            logger.debug("All Ollama endpoints ejected - skipping call");
+            return Mono.empty();
+        }
 
-        return chat(systemPrompt, userMessage);
+        return Mono.usingWhen(
+                Mono.fromFuture(() -> admissionController.acquireAsync(priority)),
+                permit -> Mono.defer(() -> {
+                    // Endpoint is picked only once we hold a slot, so in-flight counts are real
+                    OllamaEndpointPool.Lease lease = endpointPool.acquire(affinityKey);
+                    if (lease == null) {
+                        logger.debug("All Ollama endpoints ejected - skipping call");
+                        return Mono.<String>empty();
+                    }
+                    // Model is chosen once admitted, against the load at that moment
+                    OllamaModelSelector.ModelChoice choice = modelSelector.current();
+                    long started = System.nanoTime();
+                    return webClient.post()
+                            .uri(lease.url() + "/api/chat")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(buildChatRequest(choice, systemPrompt, history, userMessage, false))
+                            .retrieve()
+                            .bodyToMono(JsonNode.class)
+                            .timeout(totalTimeout)
+                            .doOnNext(body -> {
+                                lease.success();
+                                modelSelector.recordLatency(choice, System.nanoTime() - started, true);
+                                responseMetrics.record(body, "chat");
+                            })
+                            .doOnError(e -> {
+                                lease.failure();
+                                modelSelector.recordLatency(choice, System.nanoTime() - started, false);
+                            })
+                            // Before the signal goes downstream, so the next call sees the real in-flight count
+                            .doOnTerminate(lease::close)
+                            .doOnCancel(lease::close)
+                            .mapNotNull(body -> {
+                                String content = body.path("message").path("content").asText("");
+                                return content.isBlank() ? null : content;
+                            });
+                }),
+                permit -> Mono.fromRunnable(permit::close)
+            )
+            .onErrorResume(e -> {
+                logger.error("Ollama API error: {}", e.getMessage());
+                return Mono.empty();
+            });
     }
 
     /**
-     * KEY DESIGN: Dynamic system prompt construction.
-     * We inject user context (streak, bricks, energy, stress, mood) directly
-     * into the AI's system prompt. This means the AI "knows" the user's current
-     * state without us having to re-explain it in every message.
+     * Send a message to Ollama with "stream": true and relay each content
+     * chunk to onToken as it arrives.
      *
-     * The prompt defines BRIX's personality and gives explicit guidelines:
-     * - Use brick/wall metaphors naturally
-     * - Be adaptive (empathetic when struggling, challenging when ready)
-     * - Keep responses concise (2-4 sentences)
-     * - Always address user by first name
+     * KEY DESIGN: Ollama streams NDJSON - one JSON object per line, each
+     * carrying a small slice of the reply in message.content, with the last
+     * line flagged "done": true. We read line by line straight off the socket
+     * instead of buffering the body, so the first token reaches the caller
+     * after prompt evaluation rather than after the whole generation.
      *
-     * This is prompt engineering in action—shaping AI behavior through context.
+     * Unlike chatReactive(), failures are thrown rather than swallowed: the caller
+     * has to know whether any tokens already went out before deciding to
+     * fall back. Returns the full concatenated reply, or null if disabled.
+     *
+     * @param history earlier conversation turns, oldest first
+     * @param affinityKey sticky endpoint key (profile id), or null
      */
-    private String buildBrixSystemPrompt(String userName, int streak, int totalBricks,
-                                          Integer energyLevel, Integer stressLevel,
-                                          String mood, String fitnessLevel, String primaryGoal) {
-
-        StringBuilder prompt = new StringBuilder();
-        prompt.append("You are BRIX, an enthusiastic and supportive AI fitness coach in the B3 (Brick by Brick) fitness app. ");
-        prompt.append("Your personality is warm, motivating, and uses a 'brick by brick' metaphor - each workout is a brick in building the user's fitness wall.\n\n");
-
-        prompt.append("KEY TRAITS:\n");
-        prompt.append("- Use brick/wall building metaphors naturally (not every message, but often)\n");
-        prompt.append("- Be encouraging but not fake - acknowledge struggles genuinely\n");
-        prompt.append("- Keep responses concise (2-4 sentences max)\n");
-        prompt.append("- Be adaptive: empathetic when user is struggling, celebratory for wins, challenging when they're ready\n\n");
-
-        prompt.append("USER CONTEXT:\n");
-        prompt.append(String.format("- Name: %s\n", userName));
-        prompt.append(String.format("- Current streak: %d days\n", streak));
-        prompt.append(String.format("- Total bricks (workouts): %d\n", totalBricks));
-        prompt.append(String.format("- Fitness level: %s\n", fitnessLevel != null ? fitnessLevel : "Unknown"));
-        prompt.append(String.format("- Primary goal: %s\n", primaryGoal != null ? primaryGoal : "General fitness"));
-
-        if (energyLevel != null) {
-            prompt.append(String.format("- Today's energy level: %d/5\n", energyLevel));
+    public String streamChat(String systemPrompt, List<ChatTurn> history, String userMessage,
+                             String affinityKey, Consumer<String> onToken) {
+        if (!enabled) {
+            logger.debug("Ollama is disabled");
+            return null;
+        }
+
+        if (!endpointPool.hasAvailableEndpoint()) {
+            logger.debug("All Ollama endpoints ejected - skipping stream");
+            return null;
         }
-        if (stressLevel != null) {
-            prompt.append(String.format("- Today's stress level: %d/5\n", stressLevel));
+
+        // The slot is held for the whole stream - generation is still running until "done"
+        LlmAdmissionController.Permit permit = admissionController.acquire(LlmPriority.INTERACTIVE);
+        if (permit == null) {
+            logger.info("Ollama busy - no slot for stream, falling back");
+            return null;
         }
-        if (mood != null) {
-            prompt.append(String.format("- Today's mood: %s\n", mood));
+
+        OllamaEndpointPool.Lease lease = endpointPool.acquire(affinityKey);
+        if (lease == null) {
+            permit.close();
+            logger.debug("All Ollama endpoints ejected - skipping stream");
+            return null;
+        }
+
+        OllamaModelSelector.ModelChoice choice = modelSelector.current();
+        Map<String, Object> requestBody = buildChatRequest(choice, systemPrompt, history, userMessage, true);
+
+        logger.debug("Streaming request to Ollama: {}", lease.url() + "/api/chat");
+
+        long started = System.nanoTime();
+        boolean[] firstChunkReceived = {false};
+        try (permit) {
+            String fullResponse = streamFromOllama(lease.url(), requestBody, chunk -> {
+                if (!firstChunkReceived[0]) {
+                    // Ollama is answering - a client disconnect later is not its fault
+                    firstChunkReceived[0] = true;
+                    lease.success();
+                }
+                onToken.accept(chunk);
+            });
+            lease.success();
+            modelSelector.recordLatency(choice, System.nanoTime() - started, true);
+            return fullResponse;
+        } catch (RuntimeException e) {
+            if (!firstChunkReceived[0]) {
+                lease.failure();
+                modelSelector.recordLatency(choice, System.nanoTime() - started, false);
+            }
+            throw e;
+        } finally {
+            lease.close();
+        }
+    }
+
+    private String streamFromOllama(String endpointUrl, Map<String, Object> requestBody, Consumer<String> onToken) {
+        return restTemplate.execute(
+            endpointUrl + "/api/chat",
+            HttpMethod.POST,
+            request -> {
+                request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                objectMapper.writeValue(request.getBody(), requestBody);
+            },
+            response -> {
+                StringBuilder fullResponse = new StringBuilder();
+                BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+
+                    JsonNode chunk = objectMapper.readTree(line);
+                    if (chunk.hasNonNull("error")) {
+                        throw new IllegalStateException("Ollama stream error: " + chunk.get("error").asText());
+                    }
+
+                    String content = chunk.path("message").path("content").asText("");
+                    if (!content.isEmpty()) {
+                        fullResponse.append(content);
+                        onToken.accept(content);
+                    }
+
+                    if (chunk.path("done").asBoolean(false)) {
+                        responseMetrics.record(chunk, "chat");
+                        break;
+                    }
+                }
+
+                return fullResponse.toString();
+            }
+        );
+    }
+
+    /**
+     * Build the /api/chat request body shared by the blocking and streaming calls.
+     * History goes after the system prompt, so the shared prefix stays first.
+     */
+    private Map<String, Object> buildChatRequest(OllamaModelSelector.ModelChoice choice, String systemPrompt,
+                                                 List<ChatTurn> history, String userMessage, boolean stream) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", choice.model());
+        requestBody.put("stream", stream);
+        requestBody.put("keep_alive", keepAlive);
+
+        // Build messages array for chat endpoint
+        List<Map<String, String>> messages = new ArrayList<>();
+        messages.add(Map.of("role", "system", "content", systemPrompt));
+        for (ChatTurn turn : history) {
+            messages.add(Map.of("role", turn.wireRole(), "content", turn.content()));
         }
+        messages.add(Map.of("role", "user", "content", userMessage));
+        requestBody.put("messages", messages);
 
-        prompt.append("\nRESPONSE GUIDELINES:\n");
-        prompt.append("- If user is tired/low energy: Be empathetic, suggest rest or light activity\n");
-        prompt.append("- If user is stressed: Acknowledge it, suggest exercise as stress relief\n");
-        prompt.append("- If user is motivated: Match their energy, encourage them\n");
-        prompt.append("- If user asks about workouts: Recommend based on their energy/goals\n");
-        prompt.append("- If user asks about progress: Celebrate their bricks and streak\n");
-        prompt.append("- Always address them by first name\n");
-        prompt.append("- Never break character - you ARE BRIX the fitness coach\n");
+        // Set options for faster responses
+        Map<String, Object> options = new HashMap<>();
+        options.put("num_predict", choice.numPredict()); // Limit response length
+        options.put("temperature", 0.7);
+        requestBody.put("options", options);
 
-        return prompt.toString();
+        return requestBody;
     }
 }
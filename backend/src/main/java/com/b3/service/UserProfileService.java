@@ -2,11 +2,14 @@ package com.b3.service;
 
 import com.b3.dto.request.UserProfileUpdateRequest;
 import com.b3.dto.response.UserProfileResponse;
+import com.b3.event.CoachingContextChangedEvent;
+import com.b3.event.RecommendationInputsChangedEvent;
 import com.b3.exception.ResourceNotFoundException;
 import com.b3.model.UserProfile;
 import com.b3.repository.UserProfileRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,9 +23,12 @@ public class UserProfileService {
     
     private static final Logger log = LoggerFactory.getLogger(UserProfileService.class);
     private final UserProfileRepository userProfileRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
-    public UserProfileService(UserProfileRepository userProfileRepository) {
+    public UserProfileService(UserProfileRepository userProfileRepository,
+                              ApplicationEventPublisher eventPublisher) {
         this.userProfileRepository = userProfileRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
@@ -59,6 +65,8 @@ public class UserProfileService {
         );
         
         UserProfile updated = userProfileRepository.save(user);
+        eventPublisher.publishEvent(new CoachingContextChangedEvent(profileId, "profile_updated"));
+        eventPublisher.publishEvent(new RecommendationInputsChangedEvent(profileId, "profile_updated"));
         log.info("Successfully updated user profile: {}", profileId);
         
         return mapToResponse(updated);
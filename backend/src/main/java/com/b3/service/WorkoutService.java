@@ -4,42 +4,36 @@ import com.b3.dto.WorkoutExerciseDTO;
 import com.b3.dto.response.WorkoutResponse;
 import com.b3.exception.ResourceNotFoundException;
 import com.b3.model.Workout;
-import com.b3.model.WorkoutExercise;
-import com.b3.repository.WorkoutRepository;
-import com.b3.repository.WorkoutExerciseRepository;
+import com.b3.service.catalog.WorkoutCatalog;
+import com.b3.service.catalog.WorkoutCatalogHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
+/**
+ * Workout library reads, all served from the in-memory WorkoutCatalog
+ * snapshot - no database access, and the list endpoints return precomputed
+ * lists (see WorkoutCatalogHolder for when the snapshot is rebuilt).
+ */
 @Service
-@Transactional
 public class WorkoutService {
     
     private static final Logger log = LoggerFactory.getLogger(WorkoutService.class);
-    private final WorkoutRepository workoutRepository;
-    private final WorkoutExerciseRepository workoutExerciseRepository;
+    private final WorkoutCatalogHolder catalogHolder;
     
-    public WorkoutService(WorkoutRepository workoutRepository, WorkoutExerciseRepository workoutExerciseRepository) {
-        this.workoutRepository = workoutRepository;
-        this.workoutExerciseRepository = workoutExerciseRepository;
+    public WorkoutService(WorkoutCatalogHolder catalogHolder) {
+        this.catalogHolder = catalogHolder;
     }
     
     /**
      * Get all workouts
      */
     public List<WorkoutResponse> getAllWorkouts() {
-        log.info("Fetching all workouts");
-        List<Workout> workouts = workoutRepository.findAll();
+        List<WorkoutResponse> workouts = catalogHolder.current().responses();
         log.info("Found {} workouts", workouts.size());
-        
-        return workouts.stream()
-            .map(this::mapToResponse)
-            .collect(Collectors.toList());
+        return workouts;
     }
     
     /**
@@ -47,96 +41,43 @@ public class WorkoutService {
      */
     public WorkoutResponse getWorkoutById(Long workoutId) {
         log.info("Fetching workout with ID: {}", workoutId);
-        Workout workout = workoutRepository.findById(workoutId)
-            .orElseThrow(() -> new ResourceNotFoundException("Workout", workoutId));
-        
-        return mapToResponse(workout);
+        return findEntry(workoutId).response();
     }
     
     public List<WorkoutExerciseDTO> getWorkoutExercises(Long workoutId) {
         log.info("Fetching exercises for workout ID: {}", workoutId);
-        if (!workoutRepository.existsById(workoutId)) {
-            throw new ResourceNotFoundException("Workout", workoutId);
-        }
-        List<WorkoutExercise> exercises = workoutExerciseRepository
-            .findByWorkout_WorkoutIdOrderByOrderIndexAsc(workoutId);
-        log.info("Found {} exercises for workout {}", exercises.size(), workoutId);
-        return exercises.stream().map(this::mapToExerciseDTO).collect(Collectors.toList());
+        return findEntry(workoutId).exercises();
     }
     
     public List<WorkoutResponse> getWorkoutsByType(Workout.WorkoutType type) {
-        log.info("Fetching workouts by type: {}", type);
-        List<Workout> workouts = workoutRepository.findByWorkoutType(type);
+        List<WorkoutResponse> workouts = catalogHolder.current().responsesByType(type);
         log.info("Found {} {} workouts", workouts.size(), type);
-        
-        return workouts.stream()
-            .map(this::mapToResponse)
-            .collect(Collectors.toList());
+        return workouts;
     }
     
     public List<WorkoutResponse> getWorkoutsByDifficulty(Workout.DifficultyLevel difficulty) {
-        log.info("Fetching workouts by difficulty: {}", difficulty);
-        List<Workout> workouts = workoutRepository.findByDifficultyLevel(difficulty);
+        List<WorkoutResponse> workouts = catalogHolder.current().responsesByDifficulty(difficulty);
         log.info("Found {} {} workouts", workouts.size(), difficulty);
-        
-        return workouts.stream()
-            .map(this::mapToResponse)
-            .collect(Collectors.toList());
+        return workouts;
     }
     
     public List<WorkoutResponse> searchWorkouts(String keyword) {
-        log.info("Searching workouts with keyword: {}", keyword);
-        List<Workout> workouts = workoutRepository.findByNameContainingIgnoreCase(keyword);
+        List<WorkoutResponse> workouts = catalogHolder.current().search(keyword);
         log.info("Found {} workouts matching '{}'", workouts.size(), keyword);
-        
-        return workouts.stream()
-            .map(this::mapToResponse)
-            .collect(Collectors.toList());
+        return workouts;
     }
     
     public List<WorkoutResponse> getRecommendedWorkouts(Workout.DifficultyLevel fitnessLevel) {
-        log.info("Getting recommended workouts for fitness level: {}", fitnessLevel);
-        List<Workout> workouts = workoutRepository.findByDifficultyLevel(fitnessLevel);
-        log.info("Recommended {} workouts", workouts.size());
-        
-        return workouts.stream()
-            .map(this::mapToResponse)
-            .collect(Collectors.toList());
+        List<WorkoutResponse> workouts = catalogHolder.current().responsesByDifficulty(fitnessLevel);
+        log.info("Recommended {} workouts for fitness level {}", workouts.size(), fitnessLevel);
+        return workouts;
     }
     
-    /**
-     * Map Workout entity to WorkoutResponse DTO
-     */
-    private WorkoutResponse mapToResponse(Workout workout) {
-        WorkoutResponse response = new WorkoutResponse();
-        response.setWorkoutId(workout.getWorkoutId());
-        response.setName(workout.getName());
-        response.setDescription(workout.getDescription());
-        response.setWorkoutType(workout.getWorkoutType().name());
-        response.setDifficultyLevel(workout.getDifficultyLevel().name());
-        response.setEstimatedDuration(workout.getEstimatedDuration());
-        response.setRequiredEquipment(workout.getRequiredEquipment());
-        return response;
-    }
-
-    /**
-     * Map WorkoutExercise entity to WorkoutExerciseDTO
-     */
-    private WorkoutExerciseDTO mapToExerciseDTO(WorkoutExercise we) {
-        WorkoutExerciseDTO dto = new WorkoutExerciseDTO();
-        dto.setExerciseId(we.getExercise().getExerciseId());
-        dto.setName(we.getExercise().getName());
-        dto.setDescription(we.getExercise().getDescription());
-        dto.setMuscleGroup(we.getExercise().getMuscleGroup() != null ? we.getExercise().getMuscleGroup().name() : null);
-        dto.setEquipmentType(we.getExercise().getEquipmentType() != null ? we.getExercise().getEquipmentType().name() : null);
-        dto.setVideoUrl(we.getExercise().getVideoUrl());
-        dto.setImageUrl(we.getExercise().getImageUrl());
-        dto.setOrderIndex(we.getOrderIndex());
-        dto.setSets(we.getSets());
-        dto.setReps(we.getReps());
-        dto.setDurationSeconds(we.getDurationSeconds());
-        dto.setRestSeconds(we.getRestSeconds());
-        dto.setNotes(we.getNotes());
-        return dto;
+    private WorkoutCatalog.Entry findEntry(Long workoutId) {
+        WorkoutCatalog.Entry entry = catalogHolder.current().find(workoutId);
+        if (entry == null) {
+            throw new ResourceNotFoundException("Workout", workoutId);
+        }
+        return entry;
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,9 @@ package com.b3.service;
 import com.b3.dto.request.WorkoutSessionCreateRequest;
 import com.b3.dto.request.WorkoutSessionCompleteRequest;
 import com.b3.dto.response.WorkoutSessionResponse;
+import com.b3.event.CoachingContextChangedEvent;
+import com.b3.event.RecommendationInputsChangedEvent;
+import com.b3.event.WorkoutCompletedEvent;
 import com.b3.exception.BadRequestException;
 import com.b3.exception.ResourceNotFoundException;
 import com.b3.model.UserProfile;
@@ -13,6 +16,7 @@ import com.b3.repository.WorkoutRepository;
 import com.b3.repository.WorkoutSessionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -34,14 +38,17 @@ public class WorkoutSessionService {
     private final WorkoutSessionRepository workoutSessionRepository;
     private final UserProfileRepository userProfileRepository;
     private final WorkoutRepository workoutRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     public WorkoutSessionService(
             WorkoutSessionRepository workoutSessionRepository,
             UserProfileRepository userProfileRepository,
-            WorkoutRepository workoutRepository) {
+            WorkoutRepository workoutRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.workoutSessionRepository = workoutSessionRepository;
         this.userProfileRepository = userProfileRepository;
         this.workoutRepository = workoutRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
@@ -92,6 +99,8 @@ public class WorkoutSessionService {
         }
         
         WorkoutSession updated = workoutSessionRepository.save(session);
+        eventPublisher.publishEvent(new WorkoutCompletedEvent(
+            session.getUserProfile().getProfileId(), session.getWorkout().getWorkoutId()));
         
         // Update user stats (streak, total workouts)
         updateUserStats(session.getUserProfile());
@@ -143,6 +152,8 @@ public class WorkoutSessionService {
         user.updateStreak();
         
         userProfileRepository.save(user);
+        eventPublisher.publishEvent(new CoachingContextChangedEvent(user.getProfileId(), "workout_completed"));
+        eventPublisher.publishEvent(new RecommendationInputsChangedEvent(user.getProfileId(), "workout_completed"));
         
         log.info("Updated user stats - Total workouts: {}, Current streak: {}", 
             user.getTotalWorkouts(), user.getCurrentStreak());
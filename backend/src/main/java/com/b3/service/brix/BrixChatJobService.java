@@ -0,0 +1,274 @@
+package com.b3.service.brix;
+
+import com.b3.exception.BadRequestException;
+import com.b3.exception.ResourceNotFoundException;
+import com.b3.exception.TooManyRequestsException;
+import com.b3.service.BrixService;
+import com.b3.service.BrixService.BrixChatResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * BrixChatJobService - Chat turns as jobs the client can submit once and poll
+ *
+ * KEY DESIGN: On a flaky mobile connection a slow /chat call times out on the
+ * client, which retries - starting a second generation and saving a second
+ * pair of messages. Here the POST only registers a job and returns its id;
+ * the generation runs on the reactive chat path, and the client long-polls
+ * for the result.
+ *
+ * A client-supplied Idempotency-Key (scoped to the profile) maps every retry
+ * to the job the first attempt created, whether it is still running or
+ * already done, so the LLM work and the saved messages happen exactly once.
+ * Only a FAILED job may be replaced under its key. Reusing a key with a
+ * different message is a client bug and is rejected.
+ *
+ * The job table is bounded: finished jobs expire after
+ * brix.jobs.ttl-seconds and are evicted oldest-first when the table is full.
+ * Running jobs are never evicted; if the table is full of them, new
+ * submissions are refused with 429 rather than growing without limit.
+ *
+ * Metrics: brix.chat.jobs (counter, created/deduplicated/rejected),
+ * brix.chat.jobs.active (gauge).
+ */
+@Service
+public class BrixChatJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrixChatJobService.class);
+
+    public enum Status { PENDING, COMPLETED, FAILED }
+
+    private final BrixService brixService;
+    private final int maxJobs;
+    private final long ttlMs;
+    private final long maxWaitMs;
+    private final Clock clock;
+
+    private final LinkedHashMap<String, Job> jobs = new LinkedHashMap<>();
+    private final Map<String, String> jobIdsByKey = new HashMap<>();
+
+    private final Counter created;
+    private final Counter deduplicated;
+    private final Counter rejected;
+
+    @Autowired
+    public BrixChatJobService(BrixService brixService,
+                              MeterRegistry meterRegistry,
+                              @Value("${brix.jobs.max-entries:1000}") int maxJobs,
+                              @Value("${brix.jobs.ttl-seconds:600}") long ttlSeconds,
+                              @Value("${brix.jobs.max-wait-ms:30000}") long maxWaitMs) {
+        this(brixService, meterRegistry, maxJobs, ttlSeconds * 1000, maxWaitMs, Clock.systemUTC());
+    }
+
+    BrixChatJobService(BrixService brixService, MeterRegistry meterRegistry, int maxJobs,
+                       long ttlMs, long maxWaitMs, Clock clock) {
+        this.brixService = brixService;
+        this.maxJobs = Math.max(1, maxJobs);
+        this.ttlMs = ttlMs;
+        this.maxWaitMs = maxWaitMs;
+        this.clock = clock;
+
+        this.created = Counter.builder("brix.chat.jobs")
+                .tag("result", "created")
+                .description("Async BRIX chat jobs by submission outcome")
+                .register(meterRegistry);
+        this.deduplicated = Counter.builder("brix.chat.jobs")
+                .tag("result", "deduplicated")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("brix.chat.jobs")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        Gauge.builder("brix.chat.jobs.active", this, BrixChatJobService::size)
+                .register(meterRegistry);
+    }
+
+    // ========================================================================
+    // PUBLIC API
+    // ========================================================================
+
+    /**
+     * Start a chat job, or return the existing job for this idempotency key
+     *
+     * @param idempotencyKey optional; null or blank always creates a new job
+     */
+    public JobView submit(Long profileId, String message, String idempotencyKey) {
+        String scopedKey = (idempotencyKey == null || idempotencyKey.isBlank())
+                ? null : profileId + ":" + idempotencyKey.trim();
+
+        Job job;
+        synchronized (this) {
+            evictExpired();
+
+            if (scopedKey != null) {
+                Job existing = jobs.get(jobIdsByKey.get(scopedKey));
+                if (existing != null && existing.result().isCompletedExceptionally()) {
+                    // A failed attempt may be retried under the same key
+                    jobs.remove(existing.jobId());
+                    forgetKey(existing);
+                } else if (existing != null) {
+                    if (!existing.message().equals(message)) {
+                        throw new BadRequestException("Idempotency-Key was already used for a different message");
+                    }
+                    deduplicated.increment();
+                    logger.info("Chat job {} reused for retry from user {}", existing.jobId(), profileId);
+                    return existing.view();
+                }
+            }
+
+            if (jobs.size() >= maxJobs && !evictOldestFinished()) {
+                rejected.increment();
+                throw new TooManyRequestsException("BRIX is busy - please try again in a moment");
+            }
+
+            job = new Job(UUID.randomUUID().toString(), message, scopedKey, new CompletableFuture<>());
+            jobs.put(job.jobId(), job);
+            if (scopedKey != null) {
+                jobIdsByKey.put(scopedKey, job.jobId());
+            }
+        }
+
+        created.increment();
+        logger.info("Chat job {} created for user {}", job.jobId(), profileId);
+
+        Mono.defer(() -> brixService.chatReactive(profileId, message))
+                .subscribe(
+                        response -> finish(job, response, null),
+                        error -> finish(job, null, error));
+
+        return job.view();
+    }
+
+    /**
+     * Current state of a job, waiting up to waitMs (capped) for it to finish
+     */
+    public Mono<JobView> await(String jobId, long waitMs) {
+        Job job;
+        synchronized (this) {
+            evictExpired();
+            job = jobs.get(jobId);
+        }
+        if (job == null) {
+            return Mono.error(new ResourceNotFoundException("Chat job not found with id: " + jobId));
+        }
+        if (job.result().isDone() || waitMs <= 0) {
+            return Mono.just(job.view());
+        }
+
+        Duration wait = Duration.ofMillis(Math.min(waitMs, maxWaitMs));
+        return Mono.fromFuture(job.result().copy())
+                .map(ignored -> job.view())
+                .onErrorResume(ignored -> Mono.just(job.view()))
+                .timeout(wait, Mono.fromSupplier(job::view));
+    }
+
+    public synchronized int size() {
+        return jobs.size();
+    }
+
+    // ========================================================================
+    // HELPERS
+    // ========================================================================
+
+    private void finish(Job job, BrixChatResponse response, Throwable error) {
+        synchronized (this) {
+            job.finishedAtMs = clock.millis();
+        }
+        if (error != null) {
+            logger.warn("Chat job {} failed: {}", job.jobId(), error.getMessage());
+            job.result().completeExceptionally(error);
+        } else {
+            job.result().complete(response);
+        }
+    }
+
+    private void evictExpired() {
+        long now = clock.millis();
+        Iterator<Job> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            Job job = iterator.next();
+            if (job.finishedAtMs > 0 && now - job.finishedAtMs >= ttlMs) {
+                iterator.remove();
+                forgetKey(job);
+            }
+        }
+    }
+
+    private boolean evictOldestFinished() {
+        Iterator<Job> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            Job job = iterator.next();
+            if (job.finishedAtMs > 0) {
+                iterator.remove();
+                forgetKey(job);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void forgetKey(Job job) {
+        if (job.scopedKey() != null) {
+            jobIdsByKey.remove(job.scopedKey(), job.jobId());
+        }
+    }
+
+    // ========================================================================
+    // TYPES
+    // ========================================================================
+
+    /**
+     * What the client sees: response is set once COMPLETED, error once FAILED
+     */
+    public record JobView(
+            String jobId,
+            Status status,
+            BrixChatResponse response,
+            String error
+    ) {}
+
+    private static final class Job {
+        private final String jobId;
+        private final String message;
+        private final String scopedKey;
+        private final CompletableFuture<BrixChatResponse> result;
+        private volatile long finishedAtMs;
+
+        Job(String jobId, String message, String scopedKey, CompletableFuture<BrixChatResponse> result) {
+            this.jobId = jobId;
+            this.message = message;
+            this.scopedKey = scopedKey;
+            this.result = result;
+        }
+
+        String jobId() { return jobId; }
+        String message() { return message; }
+        String scopedKey() { return scopedKey; }
+        CompletableFuture<BrixChatResponse> result() { return result; }
+
+        JobView view() {
+            if (!result.isDone()) {
+                return new JobView(jobId, Status.PENDING, null, null);
+            }
+            if (result.isCompletedExceptionally()) {
+                return new JobView(jobId, Status.FAILED, null, "BRIX lost its train of thought - please try again");
+            }
+            return new JobView(jobId, Status.COMPLETED, result.join(), null);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.b3.service.brix;
+
+import com.b3.model.BehaviorProfile;
+import com.b3.model.BrixMessage;
+import com.b3.model.UserProfile;
+import com.b3.repository.BehaviorProfileRepository;
+import com.b3.repository.BrixMessageRepository;
+import com.b3.service.llm.LlmPriority;
+import com.b3.service.llm.LlmRequest;
+import com.b3.service.llm.LlmRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * BrixCheckInPregenerator - Writes tomorrow's check-in messages overnight
+ *
+ * KEY DESIGN: app_open fires when people open the app, which is the morning
+ * peak - the worst time to spend LLM capacity. Its message (and the
+ * missed_day / low_energy ones) depends only on state that is already known
+ * the night before, so during an off-peak window we generate them for every
+ * recently active user and store them as pending BrixMessage rows
+ * (deliver_on set). The trigger endpoint serves a pending row with one
+ * indexed lookup and falls back to live generation when there is none.
+ *
+ * Throttling: calls go through the LLM router at BACKGROUND priority, so the
+ * admission queue lets any interactive chat jump ahead, and start at most
+ * brix.pregen.max-per-minute times a minute (generation time counts toward
+ * the gap). The run stops at the end of the window; whoever was not reached
+ * just gets live messages.
+ *
+ * A run takes hours, so the @Scheduled trigger only hands it to the
+ * single-thread brixPregenExecutor and returns: the waits between calls
+ * block that thread, never the shared scheduler that runs the health
+ * probe, keep-alive and cache jobs.
+ *
+ * Users are read in keyset pages (profile_id > cursor), never with OFFSET, so
+ * every page costs the same however many profiles there are. Users who already
+ * have messages for the target day are skipped, so a run can be repeated
+ * safely - one indexed query per page finds them.
+ *
+ * Capacity: the LLM pace, not the database, bounds a run. Each user takes
+ * one call per trigger, so at the defaults (30 calls a minute, a 4.5 hour
+ * window, 3 triggers) a night covers about 2,700 users. Raise
+ * brix.pregen.max-per-minute or widen the window for more; users beyond
+ * that get live messages in the morning.
+ *
+ * Metrics: brix.pregen.messages (counter, generated/failed).
+ */
+@Component
+public class BrixCheckInPregenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrixCheckInPregenerator.class);
+
+    /** Give up on the run after this many failed generations in a row (LLM down) */
+    private static final int MAX_CONSECUTIVE_FAILURES = 5;
+
+    /**
+     * Triggers that are pre-generated, with the message type, tone and what
+     * the model is asked for
+     */
+    public static final Map<String, CheckIn> TRIGGERS = Map.of(
+            "app_open", new CheckIn(BrixMessage.MessageType.CHECK_IN, BrixMessage.Tone.ENCOURAGING,
+                    "I just opened the app to start my day. Greet me in one or two short sentences "
+                            + "and invite me to check in."),
+            "missed_day", new CheckIn(BrixMessage.MessageType.MOTIVATION, BrixMessage.Tone.EMPATHETIC,
+                    "I missed my workout yesterday. In one or two short sentences, reassure me "
+                            + "without any guilt and invite me back."),
+            "low_energy", new CheckIn(BrixMessage.MessageType.TIP, BrixMessage.Tone.EMPATHETIC,
+                    "My energy is low today. In one or two short sentences, suggest something "
+                            + "gentle I can still do.")
+    );
+
+    private final BehaviorProfileRepository behaviorProfileRepository;
+    private final BrixMessageRepository messageRepository;
+    private final LlmRouter llmRouter;
+    private final TaskExecutor executor;
+    private final boolean enabled;
+    private final LocalTime windowFrom;
+    private final LocalTime windowTo;
+    private final int chunkSize;
+    private final long minIntervalMs;
+    private final int activeDays;
+    private final Duration timeout;
+    private final Clock clock;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter generated;
+    private final Counter failed;
+
+    @Autowired
+    public BrixCheckInPregenerator(BehaviorProfileRepository behaviorProfileRepository,
+                                   BrixMessageRepository messageRepository,
+                                   LlmRouter llmRouter,
+                                   @Qualifier("brixPregenExecutor") TaskExecutor executor,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${brix.pregen.enabled:true}") boolean enabled,
+                                   @Value("${brix.pregen.window:01:00-05:30}") String window,
+                                   @Value("${brix.pregen.chunk-size:200}") int chunkSize,
+                                   @Value("${brix.pregen.max-per-minute:30}") int maxPerMinute,
+                                   @Value("${brix.pregen.active-days:14}") int activeDays,
+                                   @Value("${brix.pregen.timeout-ms:60000}") long timeoutMs) {
+        this(behaviorProfileRepository, messageRepository, llmRouter, executor, meterRegistry, enabled, window,
+                chunkSize, maxPerMinute, activeDays, timeoutMs, Clock.systemDefaultZone());
+    }
+
+    BrixCheckInPregenerator(BehaviorProfileRepository behaviorProfileRepository,
+                            BrixMessageRepository messageRepository,
+                            LlmRouter llmRouter,
+                            TaskExecutor executor,
+                            MeterRegistry meterRegistry,
+                            boolean enabled,
+                            String window,
+                            int chunkSize,
+                            int maxPerMinute,
+                            int activeDays,
+                            long timeoutMs,
+                            Clock clock) {
+        this.behaviorProfileRepository = behaviorProfileRepository;
+        this.messageRepository = messageRepository;
+        this.llmRouter = llmRouter;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.minIntervalMs = maxPerMinute > 0 ? 60_000L / maxPerMinute : 0;
+        this.activeDays = activeDays;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.clock = clock;
+
+        String[] range = window.split("-");
+        if (range.length != 2) {
+            throw new IllegalArgumentException("brix.pregen.window must be HH:mm-HH:mm, got: " + window);
+        }
+        this.windowFrom = LocalTime.parse(range[0].trim());
+        this.windowTo = LocalTime.parse(range[1].trim());
+
+        this.generated = Counter.builder("brix.pregen.messages")
+                .tag("result", "generated")
+                .description("Check-in messages pre-generated off-peak")
+                .register(meterRegistry);
+        this.failed = Counter.builder("brix.pregen.messages")
+                .tag("result", "failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hands the run to brixPregenExecutor; the scheduler thread returns at once
+     */
+    @Scheduled(cron = "${brix.pregen.cron:0 0 1 * * *}")
+    public void runScheduled() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            executor.execute(this::run);
+        } catch (TaskRejectedException e) {
+            logger.info("BRIX pre-generation already running, skipping");
+        }
+    }
+
+    // ========================================================================
+    // RUN
+    // ========================================================================
+
+    /**
+     * One pass over active users; returns what it did (also logged)
+     */
+    public RunSummary run() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("BRIX pre-generation already running, skipping");
+            return RunSummary.notRun();
+        }
+        try {
+            return runOnce();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private RunSummary runOnce() {
+        LocalDateTime started = LocalDateTime.now(clock);
+        if (!isInWindow(started.toLocalTime())) {
+            logger.info("BRIX pre-generation outside its window {}-{}, skipping", windowFrom, windowTo);
+            return RunSummary.notRun();
+        }
+        if (!llmRouter.hasAvailableProvider()) {
+            logger.info("No LLM provider available, skipping BRIX pre-generation");
+            return RunSummary.notRun();
+        }
+
+        // Messages are for the morning after the window closes
+        LocalDate deliverOn = started.toLocalTime().isBefore(windowTo)
+                ? started.toLocalDate()
+                : started.toLocalDate().plusDays(1);
+        int purged = messageRepository.deleteUndeliveredBefore(started.toLocalDate());
+        if (purged > 0) {
+            logger.info("Dropped {} pre-generated messages that were never served", purged);
+        }
+
+        LocalDateTime activeSince = started.minusDays(activeDays);
+        int users = 0;
+        int messages = 0;
+        int skipped = 0;
+        int consecutiveFailures = 0;
+        long cursor = 0;
+        long nextCallNanos = System.nanoTime();
+
+        while (true) {
+            List<BehaviorProfile> page = behaviorProfileRepository.findActiveAfter(
+                    cursor, activeSince, PageRequest.of(0, chunkSize));
+            Set<Long> alreadyDone = page.isEmpty() ? Set.of() : new HashSet<>(
+                    messageRepository.findProfileIdsWithPendingOn(page.stream()
+                            .map(behavior -> behavior.getUserProfile().getProfileId()).toList(), deliverOn));
+
+            for (BehaviorProfile behavior : page) {
+                if (!isInWindow(LocalTime.now(clock))) {
+                    logger.info("BRIX pre-generation window closed after {} users", users);
+                    return summary(deliverOn, users, messages, skipped, false);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    logger.info("BRIX pre-generation interrupted after {} users", users);
+                    return summary(deliverOn, users, messages, skipped, false);
+                }
+                UserProfile user = behavior.getUserProfile();
+                cursor = user.getProfileId();
+
+                if (alreadyDone.contains(cursor)) {
+                    skipped++;
+                    continue;
+                }
+
+                users++;
+                for (Map.Entry<String, CheckIn> trigger : TRIGGERS.entrySet()) {
+                    nextCallNanos = pace(nextCallNanos);
+                    String text = generate(user, behavior, trigger.getKey(), trigger.getValue());
+                    if (text == null) {
+                        failed.increment();
+                        if (++consecutiveFailures >= MAX_CONSECUTIVE_FAILURES) {
+                            logger.warn("BRIX pre-generation stopped after {} failures in a row", consecutiveFailures);
+                            return summary(deliverOn, users, messages, skipped, false);
+                        }
+                        continue;
+                    }
+                    consecutiveFailures = 0;
+                    CheckIn checkIn = trigger.getValue();
+                    messageRepository.save(BrixMessage.pregenerated(user, text, checkIn.messageType(),
+                            checkIn.tone(), trigger.getKey(), deliverOn));
+                    generated.increment();
+                    messages++;
+                }
+            }
+
+            if (page.size() < chunkSize) {
+                return summary(deliverOn, users, messages, skipped, true);
+            }
+        }
+    }
+
+    // ========================================================================
+    // HELPERS
+    // ========================================================================
+
+    private String generate(UserProfile user, BehaviorProfile behavior, String trigger, CheckIn checkIn) {
+        // Written before the day starts: no daily log yet
+        String systemPrompt = BrixPromptBuilder.systemPrompt(
+                user.getDisplayName().split(" ")[0],
+                behavior.getConsecutiveDays() != null ? behavior.getConsecutiveDays() : 0,
+                behavior.getTotalBricksLaid() != null ? behavior.getTotalBricksLaid() : 0,
+                null, null, null,
+                user.getFitnessLevel() != null ? user.getFitnessLevel().name() : null,
+                user.getPrimaryGoal() != null ? user.getPrimaryGoal().name() : null);
+        LlmRequest request = new LlmRequest(systemPrompt, checkIn.instruction(),
+                LlmPriority.BACKGROUND, String.valueOf(user.getProfileId())).withPurpose(trigger);
+        try {
+            String text = llmRouter.generate(request).block(timeout);
+            return text == null || text.isBlank() ? null : text.trim();
+        } catch (Exception e) {
+            logger.debug("Pre-generation for user {} failed: {}", user.getProfileId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Waits for the call slot and returns the next one. Slots are spaced from
+     * call start to call start, so a slow generation eats into the gap
+     * instead of adding to it.
+     */
+    private long pace(long slotNanos) {
+        if (minIntervalMs <= 0) {
+            return slotNanos;
+        }
+        long waitNanos = slotNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                // Shutdown: the run loop sees the flag and stops
+                Thread.currentThread().interrupt();
+            }
+        }
+        return Math.max(slotNanos, System.nanoTime()) + TimeUnit.MILLISECONDS.toNanos(minIntervalMs);
+    }
+
+    boolean isInWindow(LocalTime now) {
+        if (windowFrom.isBefore(windowTo)) {
+            return !now.isBefore(windowFrom) && now.isBefore(windowTo);
+        }
+        // Window wraps midnight
+        return !now.isBefore(windowFrom) || now.isBefore(windowTo);
+    }
+
+    private RunSummary summary(LocalDate deliverOn, int users, int messages, int skipped, boolean completed) {
+        logger.info("BRIX pre-generation for {}: {} messages for {} users, {} already done, {}",
+                deliverOn, messages, users, skipped, completed ? "complete" : "stopped early");
+        return new RunSummary(deliverOn, users, messages, skipped, completed);
+    }
+
+    // ========================================================================
+    // TYPES
+    // ========================================================================
+
+    public record CheckIn(
+            BrixMessage.MessageType messageType,
+            BrixMessage.Tone tone,
+            String instruction
+    ) {}
+
+    public record RunSummary(
+            LocalDate deliverOn,
+            int users,
+            int messages,
+            int skipped,
+            boolean completed
+    ) {
+        static RunSummary notRun() {
+            return new RunSummary(null, 0, 0, 0, false);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package com.b3.service.brix;
+
+import com.b3.model.BrixConversationSummary;
+import com.b3.model.BrixMessage;
+import com.b3.repository.BrixConversationSummaryRepository;
+import com.b3.repository.BrixMessageRepository;
+import com.b3.service.llm.ChatTurn;
+import com.b3.service.llm.LlmRequest;
+import com.b3.service.llm.LlmRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BrixContextAssembler - Conversation memory for BRIX, within a fixed token budget
+ *
+ * KEY DESIGN: Prompt size must not grow with chat history - prompt eval time
+ * is what the user waits for before the first token. Every request gets at
+ * most brix.memory.token-budget tokens of memory:
+ * - the rolling summary of older turns (BrixConversationSummary), capped at
+ *   brix.memory.summary-max-tokens, placed at the end of the system prompt
+ * - then as many of the latest brix.memory.max-turns messages as still fit,
+ *   newest first, replayed as real user/assistant turns
+ *
+ * The summary is maintained incrementally: once brix.memory.summary-batch
+ * messages have scrolled out of the recent window, only those are folded
+ * into the existing summary (one BACKGROUND LLM call, or an extractive
+ * fallback when no LLM answers) and the watermark moves past them. Nothing
+ * is ever re-summarized from scratch, so refresh cost is flat too.
+ *
+ * Token counts are estimated (~4 chars per token) - close enough for a budget.
+ *
+ * Metrics: brix.memory.prompt.tokens (estimated memory tokens per request),
+ * brix.memory.summary.refreshes (counter, by method).
+ */
+@Component
+public class BrixContextAssembler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrixContextAssembler.class);
+
+    /** contextTrigger of chat turns - both the user's messages and BRIX's replies */
+    public static final String CHAT_TRIGGER = "user_chat";
+
+    /** Role markers and separators per replayed message */
+    private static final int TOKENS_PER_MESSAGE = 4;
+
+    /** Upper bound on messages folded by one refresh; a long backlog catches up over several */
+    private static final int MAX_FOLD_MESSAGES = 50;
+
+    private static final String SUMMARY_SYSTEM_PROMPT =
+            "You keep a running summary of a chat between a user and BRIX, their fitness coach. "
+            + "Update the summary with the new messages. Keep what matters for coaching: goals, injuries, "
+            + "preferences, plans, how they have been feeling, and what BRIX suggested. "
+            + "Drop small talk. Write plain third-person sentences, no preamble, under %d words.";
+
+    /**
+     * Memory for one request. turns are oldest first and start with a user turn.
+     * ongoing = the last chat message is recent, i.e. this is a follow-up.
+     */
+    public record ConversationMemory(String summary, List<ChatTurn> turns, int estimatedTokens, boolean ongoing) {
+
+        public static final ConversationMemory EMPTY = new ConversationMemory(null, List.of(), 0, false);
+
+        public boolean isEmpty() {
+            return summary == null && turns.isEmpty();
+        }
+    }
+
+    private final BrixMessageRepository messageRepository;
+    private final BrixConversationSummaryRepository summaryRepository;
+    private final LlmRouter llmRouter;
+    private final Scheduler jpaScheduler;
+    private final boolean enabled;
+    private final int tokenBudget;
+    private final int maxTurns;
+    private final int summaryMaxTokens;
+    private final int summaryBatch;
+    private final Duration sessionGap;
+    private final Duration summaryTimeout;
+    private final Clock clock;
+
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+    private final DistributionSummary promptTokens;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public BrixContextAssembler(BrixMessageRepository messageRepository,
+                                BrixConversationSummaryRepository summaryRepository,
+                                LlmRouter llmRouter,
+                                MeterRegistry meterRegistry,
+                                @Qualifier("brixJpaScheduler") Scheduler jpaScheduler,
+                                @Value("${brix.memory.enabled:true}") boolean enabled,
+                                @Value("${brix.memory.token-budget:600}") int tokenBudget,
+                                @Value("${brix.memory.max-turns:8}") int maxTurns,
+                                @Value("${brix.memory.summary-max-tokens:200}") int summaryMaxTokens,
+                                @Value("${brix.memory.summary-batch:4}") int summaryBatch,
+                                @Value("${brix.memory.session-gap-minutes:30}") long sessionGapMinutes,
+                                @Value("${brix.memory.summary-timeout-ms:30000}") long summaryTimeoutMs) {
+        this(messageRepository, summaryRepository, llmRouter, meterRegistry, jpaScheduler, enabled, tokenBudget,
+                maxTurns, summaryMaxTokens, summaryBatch, sessionGapMinutes, summaryTimeoutMs, Clock.systemDefaultZone());
+    }
+
+    BrixContextAssembler(BrixMessageRepository messageRepository,
+                         BrixConversationSummaryRepository summaryRepository,
+                         LlmRouter llmRouter, MeterRegistry meterRegistry, Scheduler jpaScheduler,
+                         boolean enabled, int tokenBudget, int maxTurns, int summaryMaxTokens, int summaryBatch,
+                         long sessionGapMinutes, long summaryTimeoutMs, Clock clock) {
+        this.messageRepository = messageRepository;
+        this.summaryRepository = summaryRepository;
+        this.llmRouter = llmRouter;
+        this.meterRegistry = meterRegistry;
+        this.jpaScheduler = jpaScheduler;
+        this.enabled = enabled;
+        this.tokenBudget = Math.max(0, tokenBudget);
+        this.maxTurns = Math.max(0, maxTurns);
+        this.summaryMaxTokens = Math.max(0, Math.min(summaryMaxTokens, this.tokenBudget));
+        this.summaryBatch = Math.max(1, summaryBatch);
+        this.sessionGap = Duration.ofMinutes(sessionGapMinutes);
+        this.summaryTimeout = Duration.ofMillis(summaryTimeoutMs);
+        this.clock = clock;
+
+        this.promptTokens = DistributionSummary.builder("brix.memory.prompt.tokens")
+                .description("Estimated conversation-memory tokens added to a BRIX prompt")
+                .register(meterRegistry);
+    }
+
+    // ========================================================================
+    // ASSEMBLY
+    // ========================================================================
+
+    /**
+     * Summary plus the latest turns that fit the budget. Blocking (JPA).
+     * Call before the current message is saved - it must not be in its own history.
+     */
+    public ConversationMemory assemble(Long profileId) {
+        if (!enabled) {
+            return ConversationMemory.EMPTY;
+        }
+
+        BrixConversationSummary summaryRow = summaryRepository.findByUserProfile_ProfileId(profileId).orElse(null);
+        long watermark = summaryRow != null ? summaryRow.getSummarizedThroughMessageId() : 0L;
+        String summary = summaryRow != null && summaryRow.hasSummary()
+                ? capToTokens(summaryRow.getSummaryText(), summaryMaxTokens)
+                : null;
+        int used = summary != null ? estimateTokens(summary) : 0;
+
+        List<BrixMessage> recent = maxTurns == 0 ? List.of()
+                : messageRepository.findByUserProfile_ProfileIdAndContextTriggerOrderByMessageIdDesc(
+                        profileId, CHAT_TRIGGER, PageRequest.of(0, maxTurns));
+
+        // Newest first: take turns until the budget runs out
+        Deque<ChatTurn> window = new ArrayDeque<>();
+        for (BrixMessage message : recent) {
+            if (message.getMessageId() != null && message.getMessageId() <= watermark) {
+                break;
+            }
+            int cost = estimateTokens(message.getMessageText()) + TOKENS_PER_MESSAGE;
+            if (used + cost > tokenBudget) {
+                break;
+            }
+            window.addFirst(message.isFromUser()
+                    ? ChatTurn.user(message.getMessageText())
+                    : ChatTurn.assistant(message.getMessageText()));
+            used += cost;
+        }
+
+        boolean ongoing = !recent.isEmpty() && recent.get(0).getSentAt() != null
+                && recent.get(0).getSentAt().isAfter(LocalDateTime.now(clock).minus(sessionGap));
+
+        promptTokens.record(used);
+        return new ConversationMemory(summary, normalize(window), used, ongoing);
+    }
+
+    /**
+     * Chat APIs want user first and roles alternating, ending before the new
+     * user message: drop a leading BRIX turn and a trailing user turn, and
+     * merge runs from the same side (e.g. BRIX replies stored before user
+     * messages were).
+     */
+    static List<ChatTurn> normalize(Deque<ChatTurn> window) {
+        while (!window.isEmpty() && window.peekFirst().role() == ChatTurn.Role.ASSISTANT) {
+            window.pollFirst();
+        }
+        while (!window.isEmpty() && window.peekLast().role() == ChatTurn.Role.USER) {
+            window.pollLast();
+        }
+
+        List<ChatTurn> turns = new ArrayList<>(window.size());
+        for (ChatTurn turn : window) {
+            int last = turns.size() - 1;
+            if (last >= 0 && turns.get(last).role() == turn.role()) {
+                turns.set(last, new ChatTurn(turn.role(), turns.get(last).content() + "\n" + turn.content()));
+            } else {
+                turns.add(turn);
+            }
+        }
+        return turns;
+    }
+
+    // ========================================================================
+    // SUMMARY REFRESH
+    // ========================================================================
+
+    /**
+     * Fire-and-forget refresh after a chat turn is saved. At most one runs per
+     * user at a time; failures only delay the summary until the next turn.
+     */
+    public void refreshSummaryAsync(Long profileId) {
+        if (!enabled || !refreshing.add(profileId)) {
+            return;
+        }
+        refreshSummary(profileId)
+                .doFinally(signal -> refreshing.remove(profileId))
+                .subscribe(
+                        refreshed -> { },
+                        e -> logger.warn("BRIX summary refresh failed for user {}: {}", profileId, e.getMessage()));
+    }
+
+    /**
+     * Fold messages that have left the recent window into the summary, if
+     * there are at least summary-batch of them. Emits whether it did.
+     */
+    public Mono<Boolean> refreshSummary(Long profileId) {
+        return Mono.fromCallable(() -> pendingFold(profileId))
+                .subscribeOn(jpaScheduler)
+                .flatMap(fold -> {
+                    if (fold.batch().isEmpty()) {
+                        return Mono.just(false);
+                    }
+                    return summarizeWithLlm(fold)
+                            .map(text -> new FoldResult(fold, text, "llm"))
+                            .switchIfEmpty(Mono.fromSupplier(() ->
+                                    new FoldResult(fold, summarizeExtractive(fold), "extractive")))
+                            .publishOn(jpaScheduler)
+                            .map(this::save);
+                });
+    }
+
+    private Fold pendingFold(Long profileId) {
+        BrixConversationSummary row = summaryRepository.findByUserProfile_ProfileId(profileId).orElse(null);
+        long watermark = row != null ? row.getSummarizedThroughMessageId() : 0L;
+
+        List<BrixMessage> pending = messageRepository
+                .findByUserProfile_ProfileIdAndContextTriggerAndMessageIdGreaterThanOrderByMessageIdAsc(
+                        profileId, CHAT_TRIGGER, watermark, PageRequest.of(0, MAX_FOLD_MESSAGES + maxTurns));
+
+        // The newest max-turns messages stay verbatim in the window
+        int foldable = pending.size() - maxTurns;
+        if (foldable < summaryBatch) {
+            return new Fold(row, List.of());
+        }
+        return new Fold(row, List.copyOf(pending.subList(0, Math.min(foldable, MAX_FOLD_MESSAGES))));
+    }
+
+    private Mono<String> summarizeWithLlm(Fold fold) {
+        if (!llmRouter.hasAvailableProvider()) {
+            return Mono.empty();
+        }
+
+        StringBuilder prompt = new StringBuilder("CURRENT SUMMARY:\n")
+                .append(fold.previousSummary() != null ? fold.previousSummary() : "(none yet)")
+                .append("\n\nNEW MESSAGES:\n");
+        for (BrixMessage message : fold.batch()) {
+            prompt.append(message.isFromUser() ? "User: " : "BRIX: ").append(message.getMessageText()).append('\n');
+        }
+        prompt.append("\nUpdated summary:");
+
+        int maxWords = Math.max(20, summaryMaxTokens * 3 / 4);
+        return llmRouter.generate(LlmRequest.background(String.format(SUMMARY_SYSTEM_PROMPT, maxWords), prompt.toString())
+                        .withPurpose("conversation_summary"))
+                .timeout(summaryTimeout, Mono.empty())
+                .map(String::trim)
+                .filter(text -> !text.isEmpty())
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * No LLM available: append what the user said (their words carry the
+     * facts), dropping the oldest sentences once over the cap
+     */
+    String summarizeExtractive(Fold fold) {
+        StringBuilder summary = new StringBuilder();
+        if (fold.previousSummary() != null) {
+            summary.append(fold.previousSummary());
+        }
+        for (BrixMessage message : fold.batch()) {
+            if (message.isFromUser()) {
+                if (summary.length() > 0) {
+                    summary.append('\n');
+                }
+                summary.append("They said: ").append(message.getMessageText().strip());
+            }
+        }
+        return summary.toString();
+    }
+
+    private boolean save(FoldResult result) {
+        Fold fold = result.fold();
+        BrixMessage last = fold.batch().get(fold.batch().size() - 1);
+
+        BrixConversationSummary row = fold.row() != null ? fold.row()
+                : new BrixConversationSummary(last.getUserProfile());
+        row.advance(keepTail(result.text(), summaryMaxTokens), last.getMessageId(), fold.batch().size());
+        summaryRepository.save(row);
+
+        Counter.builder("brix.memory.summary.refreshes")
+                .tag("method", result.method())
+                .description("Incremental BRIX conversation summary updates")
+                .register(meterRegistry)
+                .increment();
+        logger.debug("Folded {} messages into BRIX summary ({})", fold.batch().size(), result.method());
+        return true;
+    }
+
+    record Fold(BrixConversationSummary row, List<BrixMessage> batch) {
+
+        String previousSummary() {
+            return row != null && row.hasSummary() ? row.getSummaryText() : null;
+        }
+    }
+
+    private record FoldResult(Fold fold, String text, String method) {
+    }
+
+    // ========================================================================
+    // TOKEN ESTIMATES
+    // ========================================================================
+
+    /**
+     * ~4 characters per token for English text
+     */
+    static int estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + 3) / 4;
+    }
+
+    /**
+     * Keep the start of the text (used when reading: an LLM summary leads
+     * with what matters)
+     */
+    static String capToTokens(String text, int maxTokens) {
+        int maxChars = maxTokens * 4;
+        return text.length() <= maxChars ? text : text.substring(0, maxChars);
+    }
+
+    /**
+     * Keep the end of the text, starting on a line boundary (used when
+     * saving: the oldest part of an over-long summary goes first)
+     */
+    static String keepTail(String text, int maxTokens) {
+        int maxChars = maxTokens * 4;
+        if (text.length() <= maxChars) {
+            return text;
+        }
+        String tail = text.substring(text.length() - maxChars);
+        int lineBreak = tail.indexOf('\n');
+        return lineBreak >= 0 && lineBreak < tail.length() - 1 ? tail.substring(lineBreak + 1) : tail;
+    }
+}
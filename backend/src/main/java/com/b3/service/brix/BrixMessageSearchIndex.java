@@ -0,0 +1,413 @@
+package com.b3.service.brix;
+
+import com.b3.event.BrixMessageSavedEvent;
+import com.b3.exception.BadRequestException;
+import com.b3.model.BrixMessage;
+import com.b3.repository.BrixMessageRepository;
+import com.b3.repository.BrixMessageRepository.IndexedText;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * BrixMessageSearchIndex - Ranked full-text search over a user's BRIX history
+ *
+ * KEY DESIGN: "What did BRIX say about stretching?" over brix_message would be
+ * a LIKE '%stretch%' on every search. The profile_id indexes narrow that to
+ * the user's own rows, but it still reads the text of every one of them -
+ * no index can help a leading wildcard - and it can't rank. Instead each
+ * user gets an inverted index (stemmed term -> message ids + term counts)
+ * kept in memory:
+ *
+ *   - built from the database on the user's first search: one query for id
+ *     and text, which reads all of that user's messages through
+ *     idx_brixmsg_profile_deliver (never the other users')
+ *   - then maintained incrementally: every message BRIX shows the user
+ *     publishes BrixMessageSavedEvent, added here after the write commits
+ *   - bounded LRU over users (brix.search.max-users); an evicted user is
+ *     simply rebuilt on their next search
+ *
+ * After the build, a search never touches brix_message except to load the
+ * page it returns: it scores only the postings of the query terms (BM25),
+ * keeps the best page in a bounded heap and loads just those messages by
+ * primary key, so it costs the same whether the user has a hundred
+ * messages or fifty thousand that never mention the term.
+ *
+ * Pagination is keyset: results are ordered by (score desc, message id desc)
+ * and the cursor is the last (score, id) returned - the next page is
+ * everything strictly after it, with no OFFSET to skip through. Scores
+ * depend on the whole index, so a message saved between pages can shift
+ * rankings slightly; pages never repeat a result, though.
+ *
+ * Metrics: brix.search.latency (timer), brix.search.index.builds (counter),
+ * brix.search.indexed.users (gauge).
+ */
+@Component
+public class BrixMessageSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrixMessageSearchIndex.class);
+
+    /** BM25 parameters (the usual defaults) */
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "about", "an", "and", "are", "as", "at", "be", "but", "by", "can", "did", "do", "does",
+            "for", "from", "had", "has", "have", "how", "i", "if", "in", "is", "it", "its", "me", "my",
+            "of", "on", "or", "so", "that", "the", "this", "to", "was", "we", "what", "when", "where",
+            "which", "who", "why", "will", "with", "you", "your");
+
+    /** Best first; the id breaks ties so the order (and the cursor) is total */
+    private static final Comparator<ScoredMessage> RANK_ORDER =
+            Comparator.comparingDouble(ScoredMessage::score).reversed()
+                    .thenComparing(ScoredMessage::messageId, Comparator.reverseOrder());
+
+    private final BrixMessageRepository messageRepository;
+    private final int maxResults;
+    private final LinkedHashMap<Long, UserIndex> indexes;
+
+    private final Timer searchTimer;
+    private final Counter builds;
+
+    public BrixMessageSearchIndex(BrixMessageRepository messageRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${brix.search.max-users:1000}") int maxUsers,
+                                  @Value("${brix.search.max-results:50}") int maxResults) {
+        this.messageRepository = messageRepository;
+        this.maxResults = Math.max(1, maxResults);
+        int capacity = Math.max(1, maxUsers);
+        this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserIndex> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        this.searchTimer = Timer.builder("brix.search.latency")
+                .description("BRIX message search, index lookup through loading the page")
+                .register(meterRegistry);
+        this.builds = Counter.builder("brix.search.index.builds")
+                .description("Per-user search indexes built from the database")
+                .register(meterRegistry);
+        Gauge.builder("brix.search.indexed.users", this, BrixMessageSearchIndex::size)
+                .register(meterRegistry);
+    }
+
+    // ========================================================================
+    // SEARCH
+    // ========================================================================
+
+    /**
+     * One page of a user's messages matching the query, best first
+     *
+     * @param cursor nextCursor of the previous page, or null for the first
+     */
+    public SearchPage search(Long profileId, String query, int limit, String cursor) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Search query must not be blank");
+        }
+        ScoredMessage after = decodeCursor(cursor);
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            return new SearchPage(List.of(), null);
+        }
+        int pageSize = Math.min(Math.max(1, limit), maxResults);
+
+        long started = System.nanoTime();
+        try {
+            // One extra tells us whether there is a next page
+            List<ScoredMessage> ranked = indexFor(profileId).search(terms, after, pageSize + 1);
+            boolean more = ranked.size() > pageSize;
+            if (more) {
+                ranked = ranked.subList(0, pageSize);
+            }
+
+            Map<Long, BrixMessage> messages = messageRepository
+                    .findAllById(ranked.stream().map(ScoredMessage::messageId).toList())
+                    .stream()
+                    .collect(Collectors.toMap(BrixMessage::getMessageId, Function.identity()));
+
+            List<SearchHit> hits = new ArrayList<>(ranked.size());
+            for (ScoredMessage scored : ranked) {
+                BrixMessage message = messages.get(scored.messageId());
+                if (message != null) {
+                    hits.add(SearchHit.of(message, scored.score()));
+                }
+            }
+            String nextCursor = more ? encodeCursor(ranked.get(ranked.size() - 1)) : null;
+            return new SearchPage(hits, nextCursor);
+        } finally {
+            searchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Adds the message once its save has committed, so a rolled-back reply
+     * never becomes searchable. The streaming and reactive chat paths save
+     * with no transaction at all (Propagation.NOT_SUPPORTED); without
+     * fallbackExecution their replies would be missing from a loaded index
+     * until it was evicted and rebuilt.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMessageSaved(BrixMessageSavedEvent event) {
+        UserIndex index;
+        synchronized (this) {
+            index = indexes.get(event.profileId());
+        }
+        // Not loaded: the next search builds from the database, which has it
+        if (index != null) {
+            index.add(event.messageId(), event.messageText());
+        }
+    }
+
+    public synchronized int size() {
+        return indexes.size();
+    }
+
+    /**
+     * The user's index, built on first use. It is registered before it is
+     * built, so a message committed during the build is either read by the
+     * build or added by its event afterwards - adds are idempotent.
+     */
+    private UserIndex indexFor(Long profileId) {
+        UserIndex index;
+        synchronized (this) {
+            index = indexes.computeIfAbsent(profileId, ignored -> new UserIndex());
+        }
+        index.buildIfNeeded(profileId);
+        return index;
+    }
+
+    // ========================================================================
+    // TEXT ANALYSIS
+    // ========================================================================
+
+    /**
+     * Lower-cased, stemmed words, stop words and single letters dropped
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String word = lower.substring(start, i);
+                if (word.length() > 1 && !STOP_WORDS.contains(word)) {
+                    tokens.add(stem(word));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Light suffix stripping so "stretching", "stretches" and "stretched"
+     * all find "stretch" - enough for coaching vocabulary, not a full stemmer
+     */
+    static String stem(String word) {
+        if (word.length() > 5 && word.endsWith("ing")) {
+            return undouble(word.substring(0, word.length() - 3));
+        }
+        if (word.length() > 4 && word.endsWith("ed")) {
+            return undouble(word.substring(0, word.length() - 2));
+        }
+        if (word.length() > 4 && word.endsWith("ies")) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.length() > 4 && word.endsWith("es")) {
+            String base = word.substring(0, word.length() - 2);
+            if (base.endsWith("s") || base.endsWith("x") || base.endsWith("ch") || base.endsWith("sh")) {
+                return base;
+            }
+        }
+        if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    /** "runn" -> "run", "plann" -> "plan"; but "stress", "roll", "buzz" keep theirs */
+    private static String undouble(String stem) {
+        int n = stem.length();
+        if (n > 2 && stem.charAt(n - 1) == stem.charAt(n - 2) && "lsz".indexOf(stem.charAt(n - 1)) < 0) {
+            return stem.substring(0, n - 1);
+        }
+        return stem;
+    }
+
+    // ========================================================================
+    // CURSOR
+    // ========================================================================
+
+    static String encodeCursor(ScoredMessage last) {
+        String raw = Long.toHexString(Double.doubleToLongBits(last.score())) + ":" + last.messageId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ScoredMessage decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.indexOf(':');
+            double score = Double.longBitsToDouble(Long.parseUnsignedLong(raw.substring(0, split), 16));
+            return new ScoredMessage(Long.parseLong(raw.substring(split + 1)), score);
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid search cursor");
+        }
+    }
+
+    // ========================================================================
+    // TYPES
+    // ========================================================================
+
+    public record SearchPage(List<SearchHit> results, String nextCursor) {}
+
+    public record SearchHit(
+            Long messageId,
+            String messageText,
+            BrixMessage.Sender sender,
+            BrixMessage.MessageType messageType,
+            LocalDateTime sentAt,
+            double score
+    ) {
+        static SearchHit of(BrixMessage message, double score) {
+            return new SearchHit(message.getMessageId(), message.getMessageText(), message.getSender(),
+                    message.getMessageType(), message.getSentAt(), score);
+        }
+    }
+
+    record ScoredMessage(long messageId, double score) {}
+
+    /**
+     * One user's postings. Every method holds the lock, so a search sees
+     * a consistent index and an add waits for a running build.
+     */
+    private final class UserIndex {
+
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<Long, Integer> lengths = new HashMap<>();
+        private long totalLength;
+        private boolean built;
+
+        synchronized void buildIfNeeded(Long profileId) {
+            if (built) {
+                return;
+            }
+            long started = System.nanoTime();
+            List<IndexedText> rows = messageRepository.findIndexedText(profileId);
+            for (IndexedText row : rows) {
+                add(row.getMessageId(), row.getMessageText());
+            }
+            built = true;
+            builds.increment();
+            logger.debug("Built search index for user {}: {} messages, {} terms in {}ms",
+                    profileId, lengths.size(), postings.size(), (System.nanoTime() - started) / 1_000_000);
+        }
+
+        synchronized void add(Long messageId, String text) {
+            if (messageId == null || lengths.containsKey(messageId)) {
+                return;
+            }
+            List<String> tokens = tokenize(text);
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+            lengths.put(messageId, tokens.size());
+            totalLength += tokens.size();
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, ignored -> new Postings()).add(messageId, frequency));
+        }
+
+        synchronized List<ScoredMessage> search(List<String> terms, ScoredMessage after, int limit) {
+            int documents = lengths.size();
+            if (documents == 0) {
+                return List.of();
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / documents);
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documents - list.size + 0.5) / (list.size + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    long messageId = list.messageIds[i];
+                    int frequency = list.frequencies[i];
+                    double norm = 1 - B + B * lengths.get(messageId) / averageLength;
+                    scores.merge(messageId, idf * frequency * (K1 + 1) / (frequency + K1 * norm), Double::sum);
+                }
+            }
+
+            // Bounded heap, worst at the head: only the page is ever sorted
+            PriorityQueue<ScoredMessage> best = new PriorityQueue<>(limit + 1, RANK_ORDER.reversed());
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                ScoredMessage candidate = new ScoredMessage(entry.getKey(), entry.getValue());
+                if (after != null && RANK_ORDER.compare(candidate, after) <= 0) {
+                    continue;
+                }
+                best.offer(candidate);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<ScoredMessage> page = new ArrayList<>(best);
+            page.sort(RANK_ORDER);
+            return page;
+        }
+    }
+
+    /**
+     * Growable parallel arrays - far smaller than a list of boxed entries
+     */
+    private static final class Postings {
+        private long[] messageIds = new long[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(long messageId, int frequency) {
+            if (size == messageIds.length) {
+                messageIds = Arrays.copyOf(messageIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            messageIds[size] = messageId;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+}
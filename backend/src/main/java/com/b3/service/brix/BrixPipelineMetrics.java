@@ -0,0 +1,149 @@
+package com.b3.service.brix;
+
+import com.b3.service.llm.ChatTurn;
+import com.b3.service.llm.LlmRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * BrixPipelineMetrics - Where the time in a BRIX reply goes, stage by stage
+ *
+ * KEY DESIGN: One place that names every BRIX-level meter, so the chat,
+ * reactive and streaming paths report the same stages under the same tags
+ * and a dashboard can stack them:
+ *
+ *   context_load  - coaching snapshot + conversation memory
+ *   prompt_build  - system prompt, summary and history assembled
+ *   (queue wait)  - llm.admission.wait, recorded by LlmAdmissionController
+ *   first_token   - LLM call start to first streamed token (stream path only)
+ *   generation    - LLM call start to the complete reply
+ *
+ * Below this, the LLM layer reports llm.router.latency and llm.errors (by
+ * provider, model, trigger) and OllamaResponseMetrics reports Ollama's own
+ * timings, token counts and tokens per second.
+ *
+ * Every reply is counted by where it came from (trivial / cache / llm /
+ * keyword for chats, pregenerated / template for triggers), so the
+ * keyword share of brix.replies is the fallback rate. The trigger tag comes
+ * from the client's URL, so it is folded onto the triggers BRIX knows and
+ * anything else counts as "other" - one meter per known trigger, however
+ * many different strings callers send.
+ *
+ * Metrics: brix.pipeline.stage (timer, by stage + path), brix.replies
+ * (counter, by source + path + trigger), brix.prompt.tokens (summary,
+ * estimated, by path).
+ */
+@Component
+public class BrixPipelineMetrics {
+
+    public static final String PATH_CHAT = "chat";
+    public static final String PATH_REACTIVE = "reactive";
+    public static final String PATH_STREAM = "stream";
+    public static final String PATH_TRIGGER = "trigger";
+
+    public enum Stage { CONTEXT_LOAD, PROMPT_BUILD, FIRST_TOKEN, GENERATION }
+
+    public enum ReplySource { TRIVIAL, CACHE, LLM, KEYWORD, PREGENERATED, TEMPLATE }
+
+    public static final String OTHER_TRIGGER = "other";
+
+    /** Chat plus every trigger BrixService.generateContextMessage has a message for */
+    private static final Set<String> KNOWN_TRIGGERS = Set.of(
+            BrixContextAssembler.CHAT_TRIGGER,
+            "app_open", "workout_complete", "streak_milestone", "missed_day", "low_energy");
+
+    private final MeterRegistry meterRegistry;
+
+    public BrixPipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // ========================================================================
+    // STAGES
+    // ========================================================================
+
+    public void recordStage(Stage stage, String path, long nanos) {
+        Timer.builder("brix.pipeline.stage")
+                .tag("stage", stage.name().toLowerCase())
+                .tag("path", path)
+                .description("Time spent in each stage of a BRIX reply")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Run a stage and record how long it took (also when it throws)
+     */
+    public <T> T time(Stage stage, String path, Supplier<T> work) {
+        long started = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            recordStage(stage, path, System.nanoTime() - started);
+        }
+    }
+
+    // ========================================================================
+    // REPLIES
+    // ========================================================================
+
+    public void recordReply(ReplySource source, String path, String trigger) {
+        Counter.builder("brix.replies")
+                .tag("source", source.name().toLowerCase())
+                .tag("path", path)
+                .tag("trigger", triggerTag(trigger))
+                .description("BRIX replies by where they came from")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * The tag value for a trigger: itself if BRIX knows it, "other" if not
+     */
+    static String triggerTag(String trigger) {
+        if (trigger == null) {
+            return OTHER_TRIGGER;
+        }
+        String key = trigger.toLowerCase(Locale.ROOT);
+        return KNOWN_TRIGGERS.contains(key) ? key : OTHER_TRIGGER;
+    }
+
+    /**
+     * An LLM call made outside the router (the streaming path talks to Ollama
+     * directly) - same meter as the router's failures
+     */
+    public void recordLlmError(String provider, String model, String trigger) {
+        Counter.builder("llm.errors")
+                .tag("provider", provider)
+                .tag("model", model)
+                .tag("trigger", trigger)
+                .description("LLM calls that failed or came back empty")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Estimated size of everything sent to the model (system prompt, history, message)
+     */
+    public void recordPromptTokens(LlmRequest request, String path) {
+        int tokens = BrixContextAssembler.estimateTokens(request.systemPrompt())
+                + BrixContextAssembler.estimateTokens(request.userMessage());
+        for (ChatTurn turn : request.history()) {
+            tokens += BrixContextAssembler.estimateTokens(turn.content());
+        }
+        DistributionSummary.builder("brix.prompt.tokens")
+                .tag("path", path)
+                .description("Estimated prompt tokens per LLM call (~4 chars/token)")
+                .baseUnit("tokens")
+                .register(meterRegistry)
+                .record(tokens);
+    }
+}
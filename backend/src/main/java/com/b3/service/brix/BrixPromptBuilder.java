@@ -0,0 +1,114 @@
+package com.b3.service.brix;
+
+import com.b3.service.llm.ChatTurn;
+import com.b3.service.llm.LlmRequest;
+
+import java.util.List;
+
+/**
+ * BrixPromptBuilder - The one BRIX system prompt, shared by Ollama and Claude
+ *
+ * KEY DESIGN: Prefix-cache friendly layout. Model servers reuse work for the
+ * longest prompt prefix they have already seen (Ollama keeps the KV cache of
+ * the previous request; Anthropic caches marked prefixes). The old prompt put
+ * the user's name and streak between the persona and the guidelines, so the
+ * prefix diverged after ~60 tokens and every request re-evaluated the rest.
+ *
+ * Now everything that never changes - persona, traits, guidelines - is one
+ * precomputed constant, byte-identical for every user and every request. The
+ * per-user context follows it as a short block, and the user message comes
+ * after that. Only the tail has to be evaluated fresh.
+ *
+ * The context block is appended field by field; String.format parsed its
+ * pattern on every call for eight one-line substitutions.
+ */
+public final class BrixPromptBuilder {
+
+    /**
+     * Persona and guidelines. Do not interpolate anything into this - a single
+     * differing byte early in the prompt invalidates the cached prefix.
+     */
+    public static final String PERSONA_PREFIX =
+            "You are BRIX, an enthusiastic and supportive AI fitness coach in the B3 (Brick by Brick) fitness app. "
+            + "Your personality is warm, motivating, and uses a 'brick by brick' metaphor - each workout is a brick in building the user's fitness wall.\n\n"
+            + "KEY TRAITS:\n"
+            + "- Use brick/wall building metaphors naturally (not every message, but often)\n"
+            + "- Be encouraging but not fake - acknowledge struggles genuinely\n"
+            + "- Keep responses concise (2-4 sentences max)\n"
+            + "- Be adaptive: empathetic when user is struggling, celebratory for wins, challenging when they're ready\n\n"
+            + "RESPONSE GUIDELINES:\n"
+            + "- If user is tired/low energy: Be empathetic, suggest rest or light activity\n"
+            + "- If user is stressed: Acknowledge it, suggest exercise as stress relief\n"
+            + "- If user is motivated: Match their energy, encourage them\n"
+            + "- If user asks about workouts: Recommend based on their energy/goals\n"
+            + "- If user asks about progress: Celebrate their bricks and streak\n"
+            + "- Always address them by first name, as given in USER CONTEXT\n"
+            + "- Never break character - you ARE BRIX the fitness coach\n\n";
+
+    private BrixPromptBuilder() {
+    }
+
+    /**
+     * Full system prompt: the shared prefix followed by this user's context
+     */
+    public static String systemPrompt(String userName, int streak, int totalBricks,
+                                      Integer energyLevel, Integer stressLevel,
+                                      String mood, String fitnessLevel, String primaryGoal) {
+
+        StringBuilder prompt = new StringBuilder(PERSONA_PREFIX.length() + 192).append(PERSONA_PREFIX);
+        appendUserContext(prompt, userName, streak, totalBricks, energyLevel, stressLevel,
+                mood, fitnessLevel, primaryGoal);
+        return prompt.toString();
+    }
+
+    /**
+     * Append the rolling conversation summary (see BrixContextAssembler).
+     * It goes last, after USER CONTEXT, so it never disturbs the cached prefix.
+     */
+    public static String withConversationSummary(String systemPrompt, String summary) {
+        if (summary == null || summary.isBlank()) {
+            return systemPrompt;
+        }
+        return systemPrompt + "\nEARLIER IN THIS CONVERSATION:\n" + summary.strip() + "\n";
+    }
+
+    /**
+     * The complete LLM request for one chat turn. BrixService and the traffic
+     * replay harness both build it here, so a replay measures the prompt
+     * layout that actually ships.
+     */
+    public static LlmRequest chatRequest(BrixResponseCache.ReplyContext context, String summary,
+                                         List<ChatTurn> history, String userMessage, String affinityKey) {
+        String systemPrompt = systemPrompt(context.firstName(), context.streak(), context.totalBricks(),
+                context.energyLevel(), context.stressLevel(), context.mood(),
+                context.fitnessLevel(), context.primaryGoal());
+        return LlmRequest.interactive(withConversationSummary(systemPrompt, summary), userMessage, affinityKey)
+                .withHistory(history)
+                .withPurpose(BrixContextAssembler.CHAT_TRIGGER);
+    }
+
+    /**
+     * Compact per-user block, appended after the shared prefix
+     */
+    static void appendUserContext(StringBuilder prompt, String userName, int streak, int totalBricks,
+                                  Integer energyLevel, Integer stressLevel,
+                                  String mood, String fitnessLevel, String primaryGoal) {
+
+        prompt.append("USER CONTEXT:\n")
+              .append("- Name: ").append(userName).append('\n')
+              .append("- Streak: ").append(streak).append(" days\n")
+              .append("- Bricks (workouts): ").append(totalBricks).append('\n')
+              .append("- Fitness level: ").append(fitnessLevel != null ? fitnessLevel : "Unknown").append('\n')
+              .append("- Goal: ").append(primaryGoal != null ? primaryGoal : "General fitness").append('\n');
+
+        if (energyLevel != null) {
+            prompt.append("- Energy today: ").append(energyLevel.intValue()).append("/5\n");
+        }
+        if (stressLevel != null) {
+            prompt.append("- Stress today: ").append(stressLevel.intValue()).append("/5\n");
+        }
+        if (mood != null) {
+            prompt.append("- Mood today: ").append(mood).append('\n');
+        }
+    }
+}
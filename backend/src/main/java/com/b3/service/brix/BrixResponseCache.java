@@ -0,0 +1,321 @@
+package com.b3.service.brix;
+
+import com.b3.model.BrixMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BrixResponseCache - Reuses LLM replies across users in the same state
+ *
+ * KEY DESIGN: "hey", "I'm tired", "what should I do today" arrive constantly
+ * from users whose context is effectively the same. We key the cache on the
+ * normalized message plus BUCKETED context - streak band, energy/stress band,
+ * mood, tone, fitness level, goal - so a reply generated for one user can be
+ * served to the next.
+ *
+ * Personal values are never baked into the cached text: the user's first
+ * name, streak and brick count are swapped for {name}/{streak}/{bricks}
+ * placeholders on the way in and filled back in at render time. Replies
+ * that still contain other digits can't be safely generalized and are
+ * not cached.
+ *
+ * Eviction is LRU, bounded by an approximate byte budget, with a TTL so
+ * cached replies don't feel canned for too long.
+ */
+@Component
+public class BrixResponseCache {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}' ]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern DIGIT = Pattern.compile("\\d");
+
+    /** Rough per-entry overhead (key record, map node, boxed fields) in bytes */
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long ttlMs;
+    private final int maxMessageWords;
+    private final Clock clock;
+
+    private final LinkedHashMap<CacheKey, CachedReply> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter uncacheable;
+
+    @Autowired
+    public BrixResponseCache(MeterRegistry meterRegistry,
+                             @Value("${brix.cache.enabled:true}") boolean enabled,
+                             @Value("${brix.cache.max-bytes:4194304}") long maxBytes,
+                             @Value("${brix.cache.ttl-minutes:360}") long ttlMinutes,
+                             @Value("${brix.cache.max-message-words:8}") int maxMessageWords) {
+        this(meterRegistry, enabled, maxBytes, ttlMinutes * 60_000, maxMessageWords, Clock.systemUTC());
+    }
+
+    BrixResponseCache(MeterRegistry meterRegistry, boolean enabled, long maxBytes, long ttlMs,
+                      int maxMessageWords, Clock clock) {
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        this.ttlMs = ttlMs;
+        this.maxMessageWords = maxMessageWords;
+        this.clock = clock;
+
+        this.hits = Counter.builder("brix.response.cache")
+                .tag("result", "hit")
+                .description("BRIX replies served from cache (LLM calls saved)")
+                .register(meterRegistry);
+        this.misses = Counter.builder("brix.response.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.uncacheable = Counter.builder("brix.response.cache")
+                .tag("result", "uncacheable")
+                .register(meterRegistry);
+
+        Gauge.builder("brix.response.cache.entries", this, BrixResponseCache::size)
+                .register(meterRegistry);
+        Gauge.builder("brix.response.cache.bytes", this, BrixResponseCache::bytes)
+                .register(meterRegistry);
+    }
+
+    // ========================================================================
+    // PUBLIC API
+    // ========================================================================
+
+    /**
+     * Build the cache key for this message + context, or null if the message
+     * is too long/unique to be worth caching.
+     */
+    public CacheKey keyFor(String userMessage, ReplyContext context) {
+        if (!enabled || userMessage == null) {
+            return null;
+        }
+
+        String normalized = normalize(userMessage);
+        if (normalized.isEmpty() || normalized.split(" ").length > maxMessageWords) {
+            return null;
+        }
+
+        return new CacheKey(
+                normalized,
+                streakBand(context.streak()),
+                levelBand(context.energyLevel()),
+                levelBand(context.stressLevel()),
+                context.mood(),
+                context.tone(),
+                context.fitnessLevel(),
+                context.primaryGoal()
+        );
+    }
+
+    /**
+     * Look up a cached reply and render it for this user. Null on miss.
+     */
+    public String get(CacheKey key, ReplyContext context) {
+        if (key == null) {
+            return null;
+        }
+
+        CachedReply reply;
+        synchronized (this) {
+            reply = entries.get(key);
+            if (reply != null && clock.millis() - reply.createdAtMs() > ttlMs) {
+                removeEntry(key);
+                reply = null;
+            }
+        }
+
+        if (reply == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return render(reply.template(), context);
+    }
+
+    /**
+     * Generalize an LLM reply and store it under key.
+     * Returns false if the reply couldn't be safely generalized.
+     */
+    public boolean put(CacheKey key, String reply, ReplyContext context) {
+        if (key == null || reply == null || reply.isBlank()) {
+            return false;
+        }
+
+        String template = templatize(reply, context);
+        if (template == null) {
+            uncacheable.increment();
+            return false;
+        }
+
+        long entryBytes = ENTRY_OVERHEAD_BYTES + 2L * (template.length() + key.normalizedMessage().length());
+        if (entryBytes > maxBytes) {
+            return false;
+        }
+
+        synchronized (this) {
+            removeEntry(key);
+            entries.put(key, new CachedReply(template, clock.millis(), entryBytes));
+            currentBytes += entryBytes;
+            evictToBudget();
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return currentBytes;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    // ========================================================================
+    // KEY BUILDING
+    // ========================================================================
+
+    static String normalize(String message) {
+        String lower = message.toLowerCase(Locale.ROOT).replace('’', '\'');
+        String stripped = NON_WORD.matcher(lower).replaceAll(" ");
+        return WHITESPACE.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    /**
+     * Streak bands follow the milestones BRIX already reacts to (3, 7, 30 days)
+     */
+    static int streakBand(int streak) {
+        if (streak <= 0) return 0;
+        if (streak < 3) return 1;
+        if (streak < 7) return 2;
+        if (streak < 30) return 3;
+        return 4;
+    }
+
+    /**
+     * 1-5 check-in scale collapsed to low (1-2) / mid (3) / high (4-5); -1 if no check-in
+     */
+    static int levelBand(Integer level) {
+        if (level == null) return -1;
+        if (level <= 2) return 0;
+        if (level == 3) return 1;
+        return 2;
+    }
+
+    // ========================================================================
+    // TEMPLATING
+    // ========================================================================
+
+    static String templatize(String reply, ReplyContext context) {
+        String name = context.firstName();
+        if (name == null || name.length() < 2) {
+            return null;
+        }
+
+        String template = Pattern.compile("\\b" + Pattern.quote(name) + "\\b")
+                .matcher(reply).replaceAll(Matcher.quoteReplacement("{name}"));
+
+        boolean streakMentioned = containsNumber(template, context.streak());
+        boolean bricksMentioned = containsNumber(template, context.totalBricks());
+        if (streakMentioned && bricksMentioned && context.streak() == context.totalBricks()) {
+            // Can't tell which figure the model meant
+            return null;
+        }
+        if (streakMentioned) {
+            template = replaceNumber(template, context.streak(), "{streak}");
+        }
+        if (bricksMentioned) {
+            template = replaceNumber(template, context.totalBricks(), "{bricks}");
+        }
+
+        if (DIGIT.matcher(template).find()) {
+            return null;
+        }
+        return template;
+    }
+
+    static String render(String template, ReplyContext context) {
+        return template
+                .replace("{name}", context.firstName())
+                .replace("{streak}", String.valueOf(context.streak()))
+                .replace("{bricks}", String.valueOf(context.totalBricks()));
+    }
+
+    private static boolean containsNumber(String text, int number) {
+        return Pattern.compile("(?<!\\d)" + number + "(?!\\d)").matcher(text).find();
+    }
+
+    private static String replaceNumber(String text, int number, String placeholder) {
+        return Pattern.compile("(?<!\\d)" + number + "(?!\\d)").matcher(text)
+                .replaceAll(Matcher.quoteReplacement(placeholder));
+    }
+
+    // ========================================================================
+    // EVICTION
+    // ========================================================================
+
+    private void removeEntry(CacheKey key) {
+        CachedReply removed = entries.remove(key);
+        if (removed != null) {
+            currentBytes -= removed.bytes();
+        }
+    }
+
+    private void evictToBudget() {
+        Iterator<Map.Entry<CacheKey, CachedReply>> eldest = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            currentBytes -= eldest.next().getValue().bytes();
+            eldest.remove();
+        }
+    }
+
+    // ========================================================================
+    // TYPES
+    // ========================================================================
+
+    /**
+     * Personal values needed to bucket, generalize and render a reply
+     */
+    public record ReplyContext(
+            String firstName,
+            int streak,
+            int totalBricks,
+            Integer energyLevel,
+            Integer stressLevel,
+            String mood,
+            BrixMessage.Tone tone,
+            String fitnessLevel,
+            String primaryGoal
+    ) {}
+
+    public record CacheKey(
+            String normalizedMessage,
+            int streakBand,
+            int energyBand,
+            int stressBand,
+            String mood,
+            BrixMessage.Tone tone,
+            String fitnessLevel,
+            String primaryGoal
+    ) {}
+
+    private record CachedReply(String template, long createdAtMs, long bytes) {}
+}
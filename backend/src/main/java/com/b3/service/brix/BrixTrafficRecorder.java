@@ -0,0 +1,213 @@
+package com.b3.service.brix;
+
+import com.b3.service.llm.ChatTurn;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BrixTrafficRecorder - Captures real BRIX chat traffic for offline replay
+ *
+ * KEY DESIGN: Comparing models, prompt layouts or providers on synthetic
+ * load says little about how they behave on what users actually send. With
+ * brix.capture.enabled, every chat turn (blocking, reactive and streaming)
+ * is appended to brix.capture.path as one JSON line: arrival time, path,
+ * message, the resolved coaching context and the conversation memory. That is
+ * everything BrixPromptBuilder.chatRequest needs, so the replay harness
+ * (BrixTrafficReplay in the test sources) rebuilds byte-identical prompts
+ * without a database.
+ *
+ * Recording never slows a request down: the line is handed to a single
+ * writer thread through a bounded queue, and when the queue is full or the
+ * file has reached brix.capture.max-bytes the record is dropped and counted.
+ * The file is append-only; restarting keeps adding to it. Capture is off by
+ * default - the file holds what users wrote.
+ *
+ * Metrics: brix.capture.records (counter, written/dropped).
+ */
+@Component
+public class BrixTrafficRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrixTrafficRecorder.class);
+
+    /** Shared with the replay harness so both sides read the same format */
+    public static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_EMPTY)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final boolean enabled;
+    private final Path file;
+    private final long maxBytes;
+    private final Clock clock;
+    private final ThreadPoolExecutor writerThread;
+
+    private final Counter written;
+    private final Counter dropped;
+
+    private BufferedWriter writer;
+    private long bytesWritten;
+    private boolean full;
+
+    @Autowired
+    public BrixTrafficRecorder(MeterRegistry meterRegistry,
+                               @Value("${brix.capture.enabled:false}") boolean enabled,
+                               @Value("${brix.capture.path:./brix-capture.jsonl}") String path,
+                               @Value("${brix.capture.max-bytes:104857600}") long maxBytes,
+                               @Value("${brix.capture.queue-capacity:1000}") int queueCapacity) {
+        this(meterRegistry, enabled, Path.of(path), maxBytes, queueCapacity, Clock.systemUTC());
+    }
+
+    BrixTrafficRecorder(MeterRegistry meterRegistry, boolean enabled, Path file, long maxBytes,
+                        int queueCapacity, Clock clock) {
+        this.enabled = enabled;
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+
+        this.written = Counter.builder("brix.capture.records")
+                .tag("result", "written")
+                .description("BRIX chat turns captured for replay")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("brix.capture.records")
+                .tag("result", "dropped")
+                .register(meterRegistry);
+
+        this.writerThread = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "brix-capture");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> dropped.increment());
+
+        if (enabled) {
+            logger.info("Capturing BRIX chat traffic to {}", file.toAbsolutePath());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ========================================================================
+    // CAPTURE
+    // ========================================================================
+
+    /**
+     * Queue one chat turn for the capture file; returns immediately
+     */
+    public void record(String path, Long profileId, String message,
+                       BrixResponseCache.ReplyContext context,
+                       BrixContextAssembler.ConversationMemory memory) {
+        if (!enabled) {
+            return;
+        }
+        CapturedRequest captured = new CapturedRequest(clock.millis(), path, profileId, message, context,
+                memory.summary(), memory.turns());
+        writerThread.execute(() -> write(captured));
+    }
+
+    /**
+     * Runs on the writer thread only
+     */
+    private void write(CapturedRequest captured) {
+        if (full) {
+            dropped.increment();
+            return;
+        }
+        try {
+            byte[] line = (MAPPER.writeValueAsString(captured) + "\n").getBytes(StandardCharsets.UTF_8);
+            if (writer == null) {
+                Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                bytesWritten = Files.exists(file) ? Files.size(file) : 0;
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            if (bytesWritten + line.length > maxBytes) {
+                full = true;
+                dropped.increment();
+                logger.warn("BRIX capture file {} reached {} bytes, no longer recording", file, maxBytes);
+                return;
+            }
+            writer.write(new String(line, StandardCharsets.UTF_8));
+            // Flush only once the queue is drained - bursts are written together
+            if (writerThread.getQueue().isEmpty()) {
+                writer.flush();
+            }
+            bytesWritten += line.length;
+            written.increment();
+        } catch (IOException e) {
+            dropped.increment();
+            logger.warn("Could not write BRIX capture record: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Write out whatever is queued and close the file
+     */
+    @PreDestroy
+    public void close() {
+        writerThread.shutdown();
+        try {
+            writerThread.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logger.warn("Could not close BRIX capture file: {}", e.getMessage());
+            }
+        }
+    }
+
+    // ========================================================================
+    // TYPES
+    // ========================================================================
+
+    /**
+     * One line of the capture file
+     *
+     * @param at        arrival time, epoch millis (the replay keeps the gaps between records)
+     * @param summary   rolling conversation summary, if any
+     * @param history   recent turns sent with the prompt
+     */
+    public record CapturedRequest(
+            long at,
+            String path,
+            Long profileId,
+            String message,
+            BrixResponseCache.ReplyContext context,
+            String summary,
+            List<ChatTurn> history
+    ) {
+        public CapturedRequest {
+            history = history != null ? history : List.of();
+        }
+    }
+}
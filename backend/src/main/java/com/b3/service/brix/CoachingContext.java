@@ -0,0 +1,34 @@
+package com.b3.service.brix;
+
+import com.b3.model.BehaviorProfile;
+import com.b3.model.BrixMessage;
+import com.b3.model.DailyLog;
+import com.b3.model.UserProfile;
+
+import java.time.LocalDate;
+
+/**
+ * Everything BRIX needs to know about a user for one request, loaded once.
+ *
+ * The entities are detached snapshots shared between requests through
+ * CoachingContextCache - read them, never modify them. behavior and
+ * todaysLog may be null (no profile yet / no check-in today).
+ *
+ * date - the day todaysLog belongs to; the snapshot is stale after midnight
+ */
+public record CoachingContext(
+        UserProfile user,
+        BehaviorProfile behavior,
+        DailyLog todaysLog,
+        BrixMessage.Tone tone,
+        LocalDate date
+) {
+
+    public Long profileId() {
+        return user.getProfileId();
+    }
+
+    public String firstName() {
+        return user.getDisplayName().split(" ")[0];
+    }
+}
@@ -0,0 +1,154 @@
+package com.b3.service.brix;
+
+import com.b3.event.CoachingContextChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * CoachingContextCache - One CoachingContext per user, reused across requests
+ *
+ * KEY DESIGN: A chat turn used to load the profile, behavior profile and
+ * today's log, then load all three again for the workout recommendation.
+ * The snapshot changes only when the user writes something, so it is
+ * cached and dropped on write instead of re-read on every request.
+ *
+ * Invalidation: services publish CoachingContextChangedEvent; the entry is
+ * dropped AFTER the write commits. Dropping it earlier would let a
+ * concurrent request re-cache the pre-write state. A load that was already
+ * running when an invalidation arrived may have read old data, so its
+ * result is returned but not cached (checked with a global epoch - cheap,
+ * and only ever too cautious).
+ *
+ * Bounded LRU by entry count. Entries also expire after
+ * brix.context-cache.ttl-seconds and at midnight, when "today's log" changes
+ * meaning - a safety net for writes that bypass the services.
+ *
+ * Metrics: brix.context.cache (counter, hit/miss), brix.context.cache.size (gauge).
+ */
+@Component
+public class CoachingContextCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoachingContextCache.class);
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMs;
+    private final Clock clock;
+
+    private final AtomicLong epoch = new AtomicLong();
+    private final LinkedHashMap<Long, Entry> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public CoachingContextCache(MeterRegistry meterRegistry,
+                                @Value("${brix.context-cache.enabled:true}") boolean enabled,
+                                @Value("${brix.context-cache.max-entries:10000}") int maxEntries,
+                                @Value("${brix.context-cache.ttl-seconds:300}") long ttlSeconds) {
+        this(meterRegistry, enabled, maxEntries, ttlSeconds * 1000, Clock.systemDefaultZone());
+    }
+
+    CoachingContextCache(MeterRegistry meterRegistry, boolean enabled, int maxEntries, long ttlMs, Clock clock) {
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > CoachingContextCache.this.maxEntries;
+            }
+        };
+
+        this.hits = Counter.builder("brix.context.cache")
+                .tag("result", "hit")
+                .description("Coaching context served from cache (DB reads saved)")
+                .register(meterRegistry);
+        this.misses = Counter.builder("brix.context.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("brix.context.cache.size", this, CoachingContextCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached snapshot, or the loader's result (cached unless invalidated meanwhile)
+     */
+    public CoachingContext get(Long profileId, Function<Long, CoachingContext> loader) {
+        if (!enabled) {
+            return loader.apply(profileId);
+        }
+
+        synchronized (this) {
+            Entry entry = entries.get(profileId);
+            if (entry != null) {
+                if (isFresh(entry)) {
+                    hits.increment();
+                    return entry.context();
+                }
+                entries.remove(profileId);
+            }
+        }
+
+        misses.increment();
+        long epochAtLoad = epoch.get();
+        CoachingContext loaded = loader.apply(profileId);
+
+        synchronized (this) {
+            if (epoch.get() == epochAtLoad) {
+                entries.put(profileId, new Entry(loaded, clock.millis()));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop a user's snapshot; the next request reloads it
+     */
+    public void invalidate(Long profileId) {
+        epoch.incrementAndGet();
+        synchronized (this) {
+            entries.remove(profileId);
+        }
+    }
+
+    /**
+     * Waits for the write to commit (see the class comment). A write with no
+     * transaction around it has nothing to wait for, so fallbackExecution
+     * drops the snapshot straight away rather than leaving it until the TTL.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onContextChanged(CoachingContextChangedEvent event) {
+        logger.debug("Coaching context of user {} changed ({}), dropping snapshot",
+                event.profileId(), event.reason());
+        invalidate(event.profileId());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean isFresh(Entry entry) {
+        return clock.millis() - entry.loadedAtMs() < ttlMs
+                && entry.context().date().equals(LocalDate.now(clock));
+    }
+
+    private record Entry(CoachingContext context, long loadedAtMs) {
+    }
+}
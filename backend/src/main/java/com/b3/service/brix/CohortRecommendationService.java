@@ -0,0 +1,310 @@
+package com.b3.service.brix;
+
+import com.b3.repository.UserProfileRepository;
+import com.b3.repository.UserProfileRepository.RecommendationInputs;
+import com.b3.service.brix.WorkoutScoringEngine.ScoredWorkout;
+import com.b3.service.catalog.WorkoutCatalog;
+import com.b3.service.catalog.WorkoutCatalogHolder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * CohortRecommendationService - Today's recommended workout for a whole cohort
+ *
+ * KEY DESIGN: A push campaign needs a recommendation for every active user.
+ * Calling /recommendation/{profileId} per user costs four queries each; here
+ * a run reads only the five columns scoring needs (level, goal, today's
+ * energy and stress) in one query per keyset page of brix.cohort.chunk-size
+ * users - profile_id > cursor, never OFFSET - and never loads an entity.
+ *
+ * Every page is scored in parallel on a dedicated fork-join pool
+ * (brix.cohort.parallelism, 0 = all cores) against ONE catalog snapshot,
+ * taken at the start of the run, so every user sees the same catalog even
+ * if it is swapped mid-run. A user's pick depends only on their scoring
+ * state (WorkoutScoringEngine.STATE_COUNT of them), so each state is ranked
+ * once per run and every other user in it is a table read. Users with a
+ * collaborative bonus (WorkoutCoOccurrenceModel) are the exception: their
+ * ranking is personal, so they are ranked individually.
+ *
+ * Results go to the caller's sink in profile ID order, one page at a time,
+ * from the calling thread - the sink never needs to be thread-safe, and
+ * memory stays at one page however large the cohort.
+ *
+ * Metrics: brix.cohort.recommendations (counter), brix.cohort.run (timer).
+ */
+@Component
+public class CohortRecommendationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CohortRecommendationService.class);
+
+    /** Below this many users a fork-join task scores its slice itself */
+    private static final int SPLIT_THRESHOLD = 512;
+
+    /** Keeps IN lists well under the database's bind-parameter limit */
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    /**
+     * One user's recommendation as the cohort API streams it
+     */
+    public record CohortRecommendation(
+            Long profileId,
+            Long workoutId,
+            String name,
+            String type,
+            String difficulty,
+            Integer duration,
+            Integer score,
+            String reason
+    ) {}
+
+    /**
+     * What a run covered; workouts come from catalog version catalogVersion
+     */
+    public record CohortRunSummary(int users, long catalogVersion, long elapsedMs) {}
+
+    private final UserProfileRepository userProfileRepository;
+    private final WorkoutCatalogHolder catalogHolder;
+    private final WorkoutScoringEngine scoringEngine;
+    private final WorkoutCoOccurrenceModel coOccurrenceModel;
+    private final int chunkSize;
+    private final int activeDays;
+    private final Clock clock;
+    private final ForkJoinPool pool;
+
+    private final Counter recommendations;
+    private final Timer runTimer;
+
+    @Autowired
+    public CohortRecommendationService(UserProfileRepository userProfileRepository,
+                                       WorkoutCatalogHolder catalogHolder,
+                                       WorkoutScoringEngine scoringEngine,
+                                       WorkoutCoOccurrenceModel coOccurrenceModel,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${brix.cohort.chunk-size:5000}") int chunkSize,
+                                       @Value("${brix.cohort.parallelism:0}") int parallelism,
+                                       @Value("${brix.cohort.active-days:14}") int activeDays) {
+        this(userProfileRepository, catalogHolder, scoringEngine, coOccurrenceModel, meterRegistry, chunkSize,
+                parallelism, activeDays, Clock.systemDefaultZone());
+    }
+
+    CohortRecommendationService(UserProfileRepository userProfileRepository,
+                                WorkoutCatalogHolder catalogHolder,
+                                WorkoutScoringEngine scoringEngine,
+                                WorkoutCoOccurrenceModel coOccurrenceModel,
+                                MeterRegistry meterRegistry,
+                                int chunkSize,
+                                int parallelism,
+                                int activeDays,
+                                Clock clock) {
+        this.userProfileRepository = userProfileRepository;
+        this.catalogHolder = catalogHolder;
+        this.scoringEngine = scoringEngine;
+        this.coOccurrenceModel = coOccurrenceModel;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.activeDays = activeDays;
+        this.clock = clock;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+
+        this.recommendations = Counter.builder("brix.cohort.recommendations")
+                .description("Recommendations produced by cohort runs")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("brix.cohort.run")
+                .description("Duration of a cohort recommendation run")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // ========================================================================
+    // RUNS
+    // ========================================================================
+
+    /**
+     * Recommend for every user whose behavior profile was touched in the last
+     * brix.cohort.active-days days
+     */
+    public CohortRunSummary recommendActive(Consumer<CohortRecommendation> sink) {
+        LocalDate today = LocalDate.now(clock);
+        LocalDateTime activeSince = LocalDateTime.now(clock).minusDays(activeDays);
+        return run("active", sink, new PageSource() {
+            private long cursor = 0;
+            private boolean done;
+
+            @Override
+            public List<RecommendationInputs> next() {
+                if (done) {
+                    return null;
+                }
+                List<RecommendationInputs> page = userProfileRepository.findActiveRecommendationInputsAfter(
+                        cursor, today, activeSince, PageRequest.of(0, chunkSize));
+                done = page.size() < chunkSize;
+                if (!page.isEmpty()) {
+                    cursor = page.get(page.size() - 1).getProfileId();
+                }
+                return page;
+            }
+        });
+    }
+
+    /**
+     * Recommend for the given users, in chunks of sorted IDs; unknown IDs are skipped
+     */
+    public CohortRunSummary recommendFor(Collection<Long> profileIds, Consumer<CohortRecommendation> sink) {
+        LocalDate today = LocalDate.now(clock);
+        List<Long> ids = new ArrayList<>(new TreeSet<>(profileIds));
+        int idsPerQuery = Math.min(chunkSize, MAX_IDS_PER_QUERY);
+        Iterator<List<Long>> chunks = new Iterator<>() {
+            private int from = 0;
+
+            @Override
+            public boolean hasNext() {
+                return from < ids.size();
+            }
+
+            @Override
+            public List<Long> next() {
+                List<Long> chunk = ids.subList(from, Math.min(from + idsPerQuery, ids.size()));
+                from += chunk.size();
+                return chunk;
+            }
+        };
+        return run("explicit", sink,
+                () -> chunks.hasNext() ? userProfileRepository.findRecommendationInputsByIds(chunks.next(), today) : null);
+    }
+
+    private interface PageSource {
+        /** The next page (possibly empty), or null once there are no more */
+        List<RecommendationInputs> next();
+    }
+
+    private CohortRunSummary run(String cohort, Consumer<CohortRecommendation> sink, PageSource pages) {
+        long started = System.nanoTime();
+        WorkoutCatalog catalog = catalogHolder.current();
+        if (catalog.isEmpty()) {
+            logger.warn("Cohort recommendation ({}) skipped: the workout catalog is empty", cohort);
+            return new CohortRunSummary(0, catalog.version(), 0);
+        }
+
+        AtomicReferenceArray<CohortRecommendation> byState =
+                new AtomicReferenceArray<>(WorkoutScoringEngine.STATE_COUNT);
+        int users = 0;
+        List<RecommendationInputs> page;
+        while ((page = pages.next()) != null) {
+            CohortRecommendation[] results = new CohortRecommendation[page.size()];
+            pool.invoke(new ScoreSlice(catalog, page, results, byState, 0, page.size()));
+
+            for (CohortRecommendation result : results) {
+                sink.accept(result);
+            }
+            users += results.length;
+            recommendations.increment(results.length);
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        runTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        logger.info("Cohort recommendation ({}) done: {} users in {} ms, catalog v{}",
+                cohort, users, elapsedMs, catalog.version());
+        return new CohortRunSummary(users, catalog.version(), elapsedMs);
+    }
+
+    // ========================================================================
+    // SCORING
+    // ========================================================================
+
+    /**
+     * Scores results[from, to) - halves until the slice is small, then scores in place
+     */
+    private final class ScoreSlice extends RecursiveAction {
+
+        private final WorkoutCatalog catalog;
+        private final List<RecommendationInputs> page;
+        private final CohortRecommendation[] results;
+        private final AtomicReferenceArray<CohortRecommendation> byState;
+        private final int from;
+        private final int to;
+
+        ScoreSlice(WorkoutCatalog catalog, List<RecommendationInputs> page, CohortRecommendation[] results,
+                   AtomicReferenceArray<CohortRecommendation> byState, int from, int to) {
+            this.catalog = catalog;
+            this.page = page;
+            this.results = results;
+            this.byState = byState;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScoreSlice(catalog, page, results, byState, from, middle),
+                          new ScoreSlice(catalog, page, results, byState, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                RecommendationInputs row = page.get(i);
+                int state = WorkoutScoringEngine.state(row.getFitnessLevel(), row.getPrimaryGoal(),
+                        row.getEnergyLevel(), row.getStressLevel());
+                int[] collaborative = coOccurrenceModel.bonuses(row.getProfileId(), catalog);
+                if (collaborative != null) {
+                    results[i] = withProfile(rank(catalog, state, collaborative, row), row.getProfileId());
+                    continue;
+                }
+                CohortRecommendation pick = byState.get(state);
+                if (pick == null) {
+                    // Two threads may rank the same state at once; both get the same answer.
+                    // The reason depends on the same energy/stress bands, so it is per state too
+                    pick = rank(catalog, state, null, row);
+                    byState.set(state, pick);
+                }
+                results[i] = withProfile(pick, row.getProfileId());
+            }
+        }
+    }
+
+    private CohortRecommendation rank(WorkoutCatalog catalog, int state, int[] collaborative,
+                                      RecommendationInputs row) {
+        ScoredWorkout best = scoringEngine.topK(catalog, state, collaborative, 1).get(0);
+        WorkoutCatalog.Entry workout = best.workout();
+        return new CohortRecommendation(
+                null,
+                workout.workoutId(),
+                workout.name(),
+                workout.type().name(),
+                workout.difficulty().name(),
+                workout.estimatedDuration(),
+                best.score(),
+                WorkoutScoringEngine.reason(row.getEnergyLevel(), row.getStressLevel()));
+    }
+
+    private static CohortRecommendation withProfile(CohortRecommendation pick, Long profileId) {
+        return new CohortRecommendation(profileId, pick.workoutId(), pick.name(), pick.type(),
+                pick.difficulty(), pick.duration(), pick.score(), pick.reason());
+    }
+}
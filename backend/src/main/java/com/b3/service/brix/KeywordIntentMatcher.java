@@ -0,0 +1,263 @@
+package com.b3.service.brix;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * KeywordIntentMatcher - Finds every keyword intent in a message in one pass
+ *
+ * KEY DESIGN: When Ollama is down, the keyword fallback carries ALL chat
+ * traffic. Instead of lowercasing the message and running eight
+ * String.contains loops, the whole keyword table is compiled once into an
+ * Aho-Corasick automaton. One scan over the message finds every keyword,
+ * lowercasing characters as it goes.
+ *
+ * Matches respect word boundaries, so "hi" no longer fires on "this".
+ * Keywords ending in '*' are stems: they need a boundary at the start only,
+ * so "workout*" still catches "workouts" and "stress*" catches "stressful".
+ *
+ * Intent order is priority order - greetings beat tiredness beat motivation
+ * and so on, exactly as the fallback has always ranked them.
+ */
+@Component
+public class KeywordIntentMatcher {
+
+    /**
+     * Keyword intents, highest priority first
+     */
+    public enum Intent {
+        GREETING("hello", "hi", "hey", "sup", "what's up"),
+        TIRED("tired", "exhausted", "no energy", "drained", "sleepy", "low energy", "fatigued"),
+        MOTIVATED("ready", "crush*", "let's go", "pumped", "motivated", "fired up", "excited"),
+        NEED_MOTIVATION("motivation", "motivate", "inspir*", "struggling", "can't", "help", "stuck"),
+        WORKOUT_REQUEST("workout*", "what should", "recommend*", "suggestion*", "exercis*", "train*"),
+        PROGRESS("streak*", "progress", "how am i", "stats", "doing", "brick*"),
+        STRESS("stress*", "anxious", "overwhelm*", "pressure"),
+        FEELING_DOWN("bad", "down", "sad", "not great", "rough", "hard day", "difficult");
+
+        private final String[] keywords;
+
+        Intent(String... keywords) {
+            this.keywords = keywords;
+        }
+
+        public String[] getKeywords() {
+            return keywords.clone();
+        }
+    }
+
+    private static final Intent[] INTENTS = Intent.values();
+
+    /**
+     * Characters outside the keyword alphabet all map to this symbol, whose
+     * column sends every state back to root. Giving them a real column keeps
+     * the hot loop branch-free on spaces and punctuation.
+     */
+    private static final int OTHER = 0;
+
+    // Compiled automaton: flat dense transition table, indexed by
+    // (state << stateShift) + symbol. Stored as char (states < 65536) so the
+    // whole table stays in L1. symbolOf covers both ASCII cases.
+    private final int[] symbolOf = new int[128];
+    private final int alphabetSize;
+    private final int stateShift;
+    private final char[] transitions;
+    private final boolean[] accepting;
+
+    // Per-state outputs: keyword lengths, stem flags and intents ending here
+    private final int[][] outputLength;
+    private final boolean[][] outputStem;
+    private final int[][] outputIntent;
+
+    public KeywordIntentMatcher() {
+        int symbols = OTHER + 1;
+        for (Intent intent : INTENTS) {
+            for (String keyword : intent.keywords) {
+                for (char c : stripStem(keyword).toCharArray()) {
+                    if (symbolOf[c] == OTHER) {
+                        symbolOf[c] = symbols;
+                        symbolOf[Character.toUpperCase(c) & 0x7F] = symbols;
+                        symbols++;
+                    }
+                }
+            }
+        }
+        this.alphabetSize = symbols;
+        this.stateShift = 32 - Integer.numberOfLeadingZeros(symbols - 1);
+
+        // 1. Build the trie
+        List<int[]> gotoTable = new ArrayList<>();
+        List<List<int[]>> outputs = new ArrayList<>();   // {length, stem, intent}
+        gotoTable.add(newRow());
+        outputs.add(new ArrayList<>());
+
+        for (Intent intent : INTENTS) {
+            for (String keyword : intent.keywords) {
+                boolean stem = keyword.endsWith("*");
+                String word = stripStem(keyword);
+                int state = 0;
+                for (char c : word.toCharArray()) {
+                    int symbol = symbolOf[c];
+                    if (gotoTable.get(state)[symbol] < 0) {
+                        gotoTable.get(state)[symbol] = gotoTable.size();
+                        gotoTable.add(newRow());
+                        outputs.add(new ArrayList<>());
+                    }
+                    state = gotoTable.get(state)[symbol];
+                }
+                outputs.get(state).add(new int[]{word.length(), stem ? 1 : 0, intent.ordinal()});
+            }
+        }
+
+        // 2. Breadth-first: failure links, merged outputs and full DFA transitions
+        int stateCount = gotoTable.size();
+        int[] failure = new int[stateCount];
+        int[][] delta = new int[stateCount][];
+        Queue<Integer> queue = new ArrayDeque<>();
+
+        delta[0] = new int[alphabetSize];
+        for (int symbol = 0; symbol < alphabetSize; symbol++) {
+            int next = gotoTable.get(0)[symbol];
+            if (next < 0) {
+                delta[0][symbol] = 0;
+            } else {
+                delta[0][symbol] = next;
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs.get(state).addAll(outputs.get(failure[state]));
+            delta[state] = new int[alphabetSize];
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int next = gotoTable.get(state)[symbol];
+                if (next < 0) {
+                    delta[state][symbol] = delta[failure[state]][symbol];
+                } else {
+                    delta[state][symbol] = next;
+                    failure[next] = delta[failure[state]][symbol];
+                    queue.add(next);
+                }
+            }
+        }
+
+        if (stateCount > Character.MAX_VALUE) {
+            throw new IllegalStateException("Keyword table too large: " + stateCount + " states");
+        }
+        this.transitions = new char[stateCount << stateShift];
+        for (int state = 0; state < stateCount; state++) {
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                transitions[(state << stateShift) + symbol] = (char) delta[state][symbol];
+            }
+        }
+
+        this.accepting = new boolean[stateCount];
+        this.outputLength = new int[stateCount][];
+        this.outputStem = new boolean[stateCount][];
+        this.outputIntent = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            List<int[]> out = outputs.get(state);
+            accepting[state] = !out.isEmpty();
+            outputLength[state] = new int[out.size()];
+            outputStem[state] = new boolean[out.size()];
+            outputIntent[state] = new int[out.size()];
+            for (int i = 0; i < out.size(); i++) {
+                outputLength[state][i] = out.get(i)[0];
+                outputStem[state][i] = out.get(i)[1] == 1;
+                outputIntent[state][i] = out.get(i)[2];
+            }
+        }
+    }
+
+    // ========================================================================
+    // MATCHING
+    // ========================================================================
+
+    /**
+     * Highest-priority intent in the message, or null if nothing matched
+     */
+    public Intent match(String message) {
+        int mask = matchMask(message);
+        return mask == 0 ? null : INTENTS[Integer.numberOfTrailingZeros(mask)];
+    }
+
+    /**
+     * Every intent in the message, iterating in priority order
+     */
+    public Set<Intent> matchAll(String message) {
+        int mask = matchMask(message);
+        EnumSet<Intent> intents = EnumSet.noneOf(Intent.class);
+        while (mask != 0) {
+            intents.add(INTENTS[Integer.numberOfTrailingZeros(mask)]);
+            mask &= mask - 1;
+        }
+        return intents;
+    }
+
+    /**
+     * Bit i is set when Intent with ordinal i matched. Allocation-free.
+     */
+    public int matchMask(String message) {
+        if (message == null) {
+            return 0;
+        }
+
+        int mask = 0;
+        int state = 0;
+        int length = message.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = message.charAt(i);
+            int symbol = c < 128 ? symbolOf[c] : nonAsciiSymbol(c);
+            state = transitions[(state << stateShift) + symbol];
+            if (!accepting[state]) {
+                continue;
+            }
+
+            int[] lengths = outputLength[state];
+            for (int k = 0; k < lengths.length; k++) {
+                int start = i - lengths[k] + 1;
+                if (start > 0 && isWordChar(message.charAt(start - 1))) {
+                    continue;
+                }
+                if (!outputStem[state][k] && i + 1 < length && isWordChar(message.charAt(i + 1))) {
+                    continue;
+                }
+                mask |= 1 << outputIntent[state][k];
+            }
+        }
+        return mask;
+    }
+
+    // ========================================================================
+    // HELPER METHODS
+    // ========================================================================
+
+    private int nonAsciiSymbol(char c) {
+        char lower = c == '’' ? '\'' : Character.toLowerCase(c);
+        return lower < 128 ? symbolOf[lower] : OTHER;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '\'' || c == '’';
+    }
+
+    private static String stripStem(String keyword) {
+        return keyword.endsWith("*") ? keyword.substring(0, keyword.length() - 1) : keyword;
+    }
+
+    private int[] newRow() {
+        int[] row = new int[alphabetSize];
+        Arrays.fill(row, -1);
+        return row;
+    }
+}
@@ -0,0 +1,123 @@
+package com.b3.service.brix;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LlmBypassPolicy - Decides when a message can skip the LLM entirely
+ *
+ * KEY DESIGN: "hey", "thanks", "ok" and a row of 💪 don't need a
+ * multi-second Llama generation - the templated replies are just as good.
+ * The classifier runs in microseconds before any LLM call; when it is
+ * confident (brix.bypass.threshold) the caller answers from templates.
+ *
+ * To show what this buys us, we count bypassed vs LLM-routed messages and,
+ * for every bypass, record the latency saved - estimated from a moving
+ * average of recent real LLM generations.
+ */
+@Component
+public class LlmBypassPolicy {
+
+    /** Weight of the newest sample in the LLM latency moving average */
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final TrivialMessageClassifier classifier = new TrivialMessageClassifier();
+    private final boolean enabled;
+    private final double threshold;
+
+    private final Map<TrivialMessageClassifier.Category, Counter> bypassed =
+            new EnumMap<>(TrivialMessageClassifier.Category.class);
+    private final Counter routedToLlm;
+    private final DistributionSummary latencySaved;
+
+    private volatile double llmLatencyEwmaMs = -1;
+
+    public LlmBypassPolicy(MeterRegistry meterRegistry,
+                           @Value("${brix.bypass.enabled:true}") boolean enabled,
+                           @Value("${brix.bypass.threshold:0.85}") double threshold) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+
+        for (TrivialMessageClassifier.Category category : TrivialMessageClassifier.Category.values()) {
+            if (category == TrivialMessageClassifier.Category.NOT_TRIVIAL) continue;
+            bypassed.put(category, Counter.builder("brix.llm.route")
+                    .tag("route", "bypass")
+                    .tag("category", category.name().toLowerCase())
+                    .description("Chat messages answered without an LLM call")
+                    .register(meterRegistry));
+        }
+        this.routedToLlm = Counter.builder("brix.llm.route")
+                .tag("route", "llm")
+                .tag("category", "none")
+                .register(meterRegistry);
+        this.latencySaved = DistributionSummary.builder("brix.llm.bypass.latency.saved")
+                .baseUnit("milliseconds")
+                .description("Estimated LLM latency avoided per bypassed message")
+                .register(meterRegistry);
+
+        Gauge.builder("brix.llm.bypass.share", this, LlmBypassPolicy::bypassShare)
+                .description("Share of chat messages that skipped the LLM")
+                .register(meterRegistry);
+    }
+
+    // ========================================================================
+    // PUBLIC API
+    // ========================================================================
+
+    /**
+     * The trivial category to answer from templates, or null to use the LLM.
+     * Records the routing decision either way.
+     *
+     * @param ongoing true when the user is mid-conversation with BRIX - then an
+     *                "ok", "yes" or 👍 is usually the answer to BRIX's last
+     *                question and needs a real continuation, not a canned
+     *                acknowledgement. Greetings and thanks are still templated.
+     */
+    public TrivialMessageClassifier.Category check(String userMessage, boolean ongoing) {
+        if (!enabled) {
+            return null;
+        }
+
+        TrivialMessageClassifier.Prediction prediction = classifier.classify(userMessage);
+        if (prediction.category() == TrivialMessageClassifier.Category.NOT_TRIVIAL
+                || prediction.confidence() < threshold
+                || (ongoing && answersBrix(prediction.category()))) {
+            routedToLlm.increment();
+            return null;
+        }
+
+        bypassed.get(prediction.category()).increment();
+        if (llmLatencyEwmaMs >= 0) {
+            latencySaved.record(llmLatencyEwmaMs);
+        }
+        return prediction.category();
+    }
+
+    private static boolean answersBrix(TrivialMessageClassifier.Category category) {
+        return category == TrivialMessageClassifier.Category.ACKNOWLEDGEMENT
+                || category == TrivialMessageClassifier.Category.EMOJI_ONLY;
+    }
+
+    /**
+     * Feed the duration of a real LLM generation into the saved-latency estimate
+     */
+    public void recordLlmLatency(long durationNanos) {
+        double ms = TimeUnit.NANOSECONDS.toMicros(durationNanos) / 1000.0;
+        double current = llmLatencyEwmaMs;
+        llmLatencyEwmaMs = current < 0 ? ms : EWMA_ALPHA * ms + (1 - EWMA_ALPHA) * current;
+    }
+
+    public double bypassShare() {
+        double bypass = bypassed.values().stream().mapToDouble(Counter::count).sum();
+        double total = bypass + routedToLlm.count();
+        return total == 0 ? 0 : bypass / total;
+    }
+}
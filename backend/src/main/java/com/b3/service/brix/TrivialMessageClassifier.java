@@ -0,0 +1,271 @@
+package com.b3.service.brix;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * TrivialMessageClassifier - Spots messages that don't need the LLM
+ *
+ * KEY DESIGN: A tiny softmax (multinomial logistic regression) model over
+ * hashed character n-grams, trained in a few milliseconds at startup from
+ * the keyword lists BRIX already has. No model files, no dependencies.
+ * Character n-grams make it forgiving of "heyyy", "thx" and typos that an
+ * exact keyword list would miss.
+ *
+ * Emoji-only messages are caught by a plain rule before the model runs,
+ * and anything longer than a few words is never trivial - "hey, what
+ * should I do for legs?" carries a real question.
+ */
+public class TrivialMessageClassifier {
+
+    /**
+     * Trivial categories, plus NOT_TRIVIAL for everything that needs the LLM
+     */
+    public enum Category {
+        GREETING, THANKS, ACKNOWLEDGEMENT, EMOJI_ONLY, NOT_TRIVIAL
+    }
+
+    public record Prediction(Category category, double confidence) {}
+
+    private static final int MAX_WORDS = 5;
+    private static final int DIMENSIONS = 1 << 12;
+    private static final int MIN_GRAM = 2;
+    private static final int MAX_GRAM = 4;
+
+    private static final int EPOCHS = 40;
+    private static final double LEARNING_RATE = 0.3;
+    private static final double L2 = 1e-5;
+
+    /** Classes the model scores; EMOJI_ONLY is rule-based */
+    private static final Category[] MODEL_CLASSES = {
+            Category.GREETING, Category.THANKS, Category.ACKNOWLEDGEMENT, Category.NOT_TRIVIAL
+    };
+
+    private static final String[] THANKS_PHRASES = {
+            "thanks", "thank you", "thx", "ty", "thanks brix", "thank you so much", "thanks a lot",
+            "appreciate it", "cheers", "thank u", "tysm", "many thanks"
+    };
+
+    private static final String[] ACK_PHRASES = {
+            "ok", "okay", "k", "kk", "cool", "got it", "sounds good", "nice", "sure", "alright",
+            "will do", "perfect", "awesome", "yep", "yes", "no worries", "noted", "gotcha", "on it"
+    };
+
+    private static final String[] EXTRA_GREETINGS = {
+            "yo", "howdy", "hiya", "good morning", "morning", "good evening", "good afternoon", "heya"
+    };
+
+    /** Real questions and check-ins, used to build negative examples */
+    private static final String[] CONTENT_PHRASES = {
+            "i'm tired", "what workout should i do", "how is my streak", "i feel stressed",
+            "i need motivation", "i'm ready to crush it", "i had a rough day", "recommend something",
+            "can you help me", "what should i do today", "how am i doing", "i'm not feeling great",
+            "my legs are sore", "is it ok to skip today", "what about cardio", "i feel great today"
+    };
+
+    private final double[][] weights = new double[MODEL_CLASSES.length][DIMENSIONS];
+    private final double[] bias = new double[MODEL_CLASSES.length];
+
+    public TrivialMessageClassifier() {
+        train(buildTrainingSet());
+    }
+
+    // ========================================================================
+    // PREDICTION
+    // ========================================================================
+
+    public Prediction classify(String message) {
+        if (message == null || message.isBlank()) {
+            return new Prediction(Category.NOT_TRIVIAL, 1.0);
+        }
+        if (isEmojiOnly(message)) {
+            return new Prediction(Category.EMOJI_ONLY, 1.0);
+        }
+
+        String normalized = normalize(message);
+        if (normalized.isEmpty() || normalized.split(" ").length > MAX_WORDS) {
+            return new Prediction(Category.NOT_TRIVIAL, 1.0);
+        }
+
+        double[] probabilities = softmax(scores(features(normalized)));
+        int best = 0;
+        for (int c = 1; c < probabilities.length; c++) {
+            if (probabilities[c] > probabilities[best]) best = c;
+        }
+        return new Prediction(MODEL_CLASSES[best], probabilities[best]);
+    }
+
+    /**
+     * True if the message has at least one symbol and nothing but symbols,
+     * emoji modifiers/joiners, punctuation and whitespace
+     */
+    static boolean isEmojiOnly(String message) {
+        boolean sawSymbol = false;
+        for (int i = 0; i < message.length(); ) {
+            int cp = message.codePointAt(i);
+            i += Character.charCount(cp);
+            switch (Character.getType(cp)) {
+                case Character.OTHER_SYMBOL, Character.MODIFIER_SYMBOL -> sawSymbol = true;
+                case Character.FORMAT, Character.NON_SPACING_MARK, Character.ENCLOSING_MARK,
+                     Character.SPACE_SEPARATOR, Character.OTHER_PUNCTUATION,
+                     Character.DASH_PUNCTUATION -> { }
+                default -> {
+                    if (!Character.isWhitespace(cp)) return false;
+                }
+            }
+        }
+        return sawSymbol;
+    }
+
+    // ========================================================================
+    // FEATURES
+    // ========================================================================
+
+    static String normalize(String message) {
+        StringBuilder sb = new StringBuilder(message.length());
+        boolean lastSpace = true;
+        for (int i = 0; i < message.length(); i++) {
+            char c = Character.toLowerCase(message.charAt(i));
+            if (c == '’') c = '\'';
+            if (Character.isLetterOrDigit(c) || c == '\'') {
+                sb.append(c);
+                lastSpace = false;
+            } else if (!lastSpace) {
+                sb.append(' ');
+                lastSpace = true;
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    /**
+     * Hashed character n-grams (2-4) over " text ", plus whole-word features
+     */
+    private static int[] features(String normalized) {
+        String padded = " " + normalized + " ";
+        List<Integer> out = new ArrayList<>();
+        for (int n = MIN_GRAM; n <= MAX_GRAM; n++) {
+            for (int i = 0; i + n <= padded.length(); i++) {
+                out.add(bucket(padded, i, i + n, n));
+            }
+        }
+        for (String word : normalized.split(" ")) {
+            out.add(bucket(word, 0, word.length(), 0));
+        }
+        int[] result = new int[out.size()];
+        for (int i = 0; i < result.length; i++) result[i] = out.get(i);
+        return result;
+    }
+
+    private static int bucket(String text, int from, int to, int salt) {
+        int hash = 0x811C9DC5 ^ salt;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ text.charAt(i)) * 0x01000193;
+        }
+        return (hash & 0x7FFFFFFF) % DIMENSIONS;
+    }
+
+    // ========================================================================
+    // MODEL
+    // ========================================================================
+
+    private double[] scores(int[] features) {
+        double[] scores = bias.clone();
+        for (int c = 0; c < MODEL_CLASSES.length; c++) {
+            for (int f : features) {
+                scores[c] += weights[c][f];
+            }
+        }
+        return scores;
+    }
+
+    private static double[] softmax(double[] scores) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double s : scores) max = Math.max(max, s);
+        double sum = 0;
+        double[] out = new double[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            out[i] = Math.exp(scores[i] - max);
+            sum += out[i];
+        }
+        for (int i = 0; i < out.length; i++) out[i] /= sum;
+        return out;
+    }
+
+    private void train(List<Example> examples) {
+        Random random = new Random(42);
+        for (int epoch = 0; epoch < EPOCHS; epoch++) {
+            Collections.shuffle(examples, random);
+            for (Example example : examples) {
+                double[] probabilities = softmax(scores(example.features()));
+                for (int c = 0; c < MODEL_CLASSES.length; c++) {
+                    double gradient = probabilities[c] - (c == example.label() ? 1 : 0);
+                    bias[c] -= LEARNING_RATE * gradient;
+                    for (int f : example.features()) {
+                        weights[c][f] -= LEARNING_RATE * (gradient + L2 * weights[c][f]);
+                    }
+                }
+            }
+        }
+    }
+
+    // ========================================================================
+    // TRAINING DATA
+    // ========================================================================
+
+    private record Example(int[] features, int label) {}
+
+    /**
+     * Positives come from the greeting keywords plus thanks/ack phrases, with
+     * light variations (names, punctuation, stretched letters). Negatives are
+     * every other keyword intent, real questions, and greetings glued to them.
+     */
+    private static List<Example> buildTrainingSet() {
+        List<Example> examples = new ArrayList<>();
+
+        List<String> greetings = new ArrayList<>();
+        for (String keyword : KeywordIntentMatcher.Intent.GREETING.getKeywords()) {
+            greetings.add(keyword.replace("*", ""));
+        }
+        Collections.addAll(greetings, EXTRA_GREETINGS);
+
+        addVariants(examples, greetings, Category.GREETING);
+        addVariants(examples, List.of(THANKS_PHRASES), Category.THANKS);
+        addVariants(examples, List.of(ACK_PHRASES), Category.ACKNOWLEDGEMENT);
+
+        List<String> content = new ArrayList<>(List.of(CONTENT_PHRASES));
+        for (KeywordIntentMatcher.Intent intent : KeywordIntentMatcher.Intent.values()) {
+            if (intent == KeywordIntentMatcher.Intent.GREETING) continue;
+            for (String keyword : intent.getKeywords()) {
+                content.add(keyword.replace("*", ""));
+            }
+        }
+        for (String phrase : content) {
+            add(examples, phrase, Category.NOT_TRIVIAL);
+        }
+        for (String trivial : List.of("hey", "hi", "thanks", "ok")) {
+            for (String phrase : CONTENT_PHRASES) {
+                add(examples, trivial + " " + phrase, Category.NOT_TRIVIAL);
+            }
+        }
+        return examples;
+    }
+
+    private static void addVariants(List<Example> examples, List<String> phrases, Category category) {
+        for (String phrase : phrases) {
+            add(examples, phrase, category);
+            add(examples, phrase + " brix", category);
+            add(examples, phrase + "!", category);
+            char last = phrase.charAt(phrase.length() - 1);
+            add(examples, phrase + last + last, category);
+        }
+    }
+
+    private static void add(List<Example> examples, String text, Category category) {
+        int label = List.of(MODEL_CLASSES).indexOf(category);
+        examples.add(new Example(features(normalize(text.toLowerCase(Locale.ROOT))), label));
+    }
+}
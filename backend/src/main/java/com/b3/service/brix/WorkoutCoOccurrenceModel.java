@@ -0,0 +1,594 @@
+package com.b3.service.brix;
+
+import com.b3.event.CollaborativeModelRebuiltEvent;
+import com.b3.event.WorkoutCompletedEvent;
+import com.b3.repository.WorkoutSessionRepository;
+import com.b3.repository.WorkoutSessionRepository.CompletedWorkout;
+import com.b3.repository.WorkoutSessionRepository.ProfileIdRange;
+import com.b3.service.catalog.WorkoutCatalog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * WorkoutCoOccurrenceModel - "People who completed what you completed also completed..."
+ *
+ * KEY DESIGN: Item-item collaborative filtering over completed sessions. For
+ * every pair of workouts the model counts the users who completed both
+ * (each user counted once per pair, however often they repeat a workout),
+ * and for every workout the users who completed it. Similarity is cosine:
+ *
+ *   sim(i, j) = together(i, j) / sqrt(users(i) * users(j))
+ *
+ * A user's affinity for workout j is the best sim(i, j) over the workouts i
+ * they have completed, ignoring pairs seen together by fewer than
+ * brix.collaborative.min-support users. WorkoutScoringEngine adds
+ * round(brix.collaborative.weight * affinity) points - a factor in the
+ * additive score like any other (weight 0 turns it off).
+ *
+ * Storage is primitive and sparse - open-addressing long->int tables, no
+ * boxed maps: workout id -> dense index, one row of co-occurrence counts per
+ * workout (only pairs that occurred), and profile id -> sorted int[] of the
+ * workouts that user has completed.
+ *
+ * Updates are incremental: WorkoutCompletedEvent (after commit) adds one
+ * (user, workout) pair in O(workouts the user has done). There is no
+ * periodic rebuild. rebuild() recounts from scratch for bootstrapping - it
+ * runs once at startup - splitting profile IDs into ranges of
+ * brix.collaborative.rebuild-range-size counted in parallel on a fork-join
+ * pool and merged pairwise. Completions that arrive during a rebuild are
+ * replayed onto the new counts before they are swapped in; adding a pair
+ * twice is a no-op, so nothing is lost or double counted. A finished
+ * rebuild publishes CollaborativeModelRebuiltEvent, since every user's
+ * bonuses may have moved.
+ *
+ * Metrics: brix.collaborative.updates (counter), brix.collaborative.rebuild (timer),
+ * brix.collaborative.users (gauge).
+ */
+@Component
+public class WorkoutCoOccurrenceModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkoutCoOccurrenceModel.class);
+
+    /**
+     * What a rebuild counted
+     */
+    public record RebuildSummary(boolean ran, int users, int workouts, long pairs, long elapsedMs) {
+        static RebuildSummary notRun() {
+            return new RebuildSummary(false, 0, 0, 0, 0);
+        }
+    }
+
+    private final WorkoutSessionRepository sessionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int weight;
+    private final int minSupport;
+    private final int rangeSize;
+    private final int parallelism;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    /** Guarded by lock */
+    private Counts counts = new Counts();
+    /** Guarded by lock; non-null while a rebuild runs */
+    private List<long[]> completedDuringRebuild;
+
+    private final Counter updates;
+    private final Timer rebuildTimer;
+
+    public WorkoutCoOccurrenceModel(WorkoutSessionRepository sessionRepository,
+                                    MeterRegistry meterRegistry,
+                                    ApplicationEventPublisher eventPublisher,
+                                    @Value("${brix.collaborative.enabled:true}") boolean enabled,
+                                    @Value("${brix.collaborative.weight:20}") int weight,
+                                    @Value("${brix.collaborative.min-support:3}") int minSupport,
+                                    @Value("${brix.collaborative.rebuild-range-size:10000}") int rangeSize,
+                                    @Value("${brix.collaborative.rebuild-parallelism:0}") int parallelism) {
+        this.sessionRepository = sessionRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.weight = Math.max(0, weight);
+        this.minSupport = Math.max(1, minSupport);
+        this.rangeSize = Math.max(1, rangeSize);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+
+        this.updates = Counter.builder("brix.collaborative.updates")
+                .description("Completed (user, workout) pairs added to the co-occurrence model")
+                .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("brix.collaborative.rebuild")
+                .description("Full co-occurrence model rebuilds")
+                .register(meterRegistry);
+        Gauge.builder("brix.collaborative.users", this, WorkoutCoOccurrenceModel::users)
+                .register(meterRegistry);
+    }
+
+    // ========================================================================
+    // SCORING
+    // ========================================================================
+
+    /**
+     * Collaborative points per catalog position for this user, or null when
+     * they have none (no completed workouts, nothing similar enough, or off)
+     */
+    public int[] bonuses(Long profileId, WorkoutCatalog catalog) {
+        if (!enabled || weight == 0 || profileId == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            int slot = counts.userSlots.get(profileId, -1);
+            if (slot < 0) {
+                return null;
+            }
+            int[] completed = counts.userItems[slot];
+            List<WorkoutCatalog.Entry> entries = catalog.entries();
+            int[] bonus = null;
+            for (int position = 0; position < entries.size(); position++) {
+                int points = (int) Math.round(weight * affinity(completed, entries.get(position).workoutId()));
+                if (points > 0) {
+                    if (bonus == null) {
+                        bonus = new int[entries.size()];
+                    }
+                    bonus[position] = points;
+                }
+            }
+            return bonus;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best cosine similarity between the workout and any the user completed (caller holds the lock)
+     */
+    private double affinity(int[] completed, Long workoutId) {
+        int item = workoutId != null ? counts.itemIndex.get(workoutId, -1) : -1;
+        if (item < 0) {
+            return 0;
+        }
+        double best = 0;
+        for (int other : completed) {
+            if (other == item) {
+                continue;
+            }
+            int together = counts.together(other, item);
+            if (together >= minSupport) {
+                best = Math.max(best, together / Math.sqrt((double) counts.usersPerItem[other] * counts.usersPerItem[item]));
+            }
+        }
+        return best;
+    }
+
+    // ========================================================================
+    // INCREMENTAL UPDATES
+    // ========================================================================
+
+    /**
+     * Counts the completion only once its session has committed - a rolled
+     * back completion must not move anyone's bonuses. fallbackExecution
+     * covers a completion saved with no transaction open: dropped here, it
+     * would stay missing until the next startup rebuild, as nothing else
+     * recounts.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWorkoutCompleted(WorkoutCompletedEvent event) {
+        if (event.profileId() != null && event.workoutId() != null) {
+            record(event.profileId(), event.workoutId());
+        }
+    }
+
+    public void record(long profileId, long workoutId) {
+        if (!enabled) {
+            return;
+        }
+        boolean added;
+        lock.writeLock().lock();
+        try {
+            added = counts.add(profileId, workoutId);
+            if (completedDuringRebuild != null) {
+                completedDuringRebuild.add(new long[]{profileId, workoutId});
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (added) {
+            updates.increment();
+        }
+    }
+
+    // ========================================================================
+    // REBUILD
+    // ========================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        // Off the startup thread: until it finishes, recommendations just lack this factor
+        Thread thread = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                logger.warn("Co-occurrence model bootstrap failed: {}", e.getMessage());
+            }
+        }, "co-occurrence-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Recount everything from completed sessions and swap the result in
+     */
+    public RebuildSummary rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return RebuildSummary.notRun();
+        }
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            completedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Counts rebuilt = null;
+        try {
+            ProfileIdRange range = sessionRepository.findCompletedProfileIdRange();
+            List<long[]> ranges = new ArrayList<>();
+            if (range != null && range.getMinProfileId() != null) {
+                for (long from = range.getMinProfileId(); from <= range.getMaxProfileId(); from += rangeSize) {
+                    ranges.add(new long[]{from, Math.min(from + rangeSize, range.getMaxProfileId() + 1)});
+                }
+            }
+            rebuilt = ranges.isEmpty() ? new Counts() : pool.invoke(new CountRanges(ranges, 0, ranges.size()));
+        } finally {
+            pool.shutdown();
+            lock.writeLock().lock();
+            try {
+                if (rebuilt != null) {
+                    for (long[] completed : completedDuringRebuild) {
+                        rebuilt.add(completed[0], completed[1]);
+                    }
+                    counts = rebuilt;
+                }
+                completedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            rebuilding.set(false);
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        rebuildTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        RebuildSummary summary = new RebuildSummary(true, rebuilt.users, rebuilt.items, rebuilt.pairs,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        logger.info("Co-occurrence model rebuilt: {} users, {} workouts, {} workout pairs in {} ms",
+                summary.users(), summary.workouts(), summary.pairs(), summary.elapsedMs());
+        eventPublisher.publishEvent(new CollaborativeModelRebuiltEvent(summary.users(), summary.pairs()));
+        return summary;
+    }
+
+    /**
+     * Counts ranges[from, to) - halves until one range is left, then merges the halves
+     */
+    private final class CountRanges extends RecursiveTask<Counts> {
+
+        private final List<long[]> ranges;
+        private final int from;
+        private final int to;
+
+        CountRanges(List<long[]> ranges, int from, int to) {
+            this.ranges = ranges;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (to - from == 1) {
+                long[] range = ranges.get(from);
+                Counts partial = new Counts();
+                for (CompletedWorkout row : sessionRepository.findCompletedWorkoutsInRange(range[0], range[1])) {
+                    partial.add(row.getProfileId(), row.getWorkoutId());
+                }
+                return partial;
+            }
+            int middle = (from + to) >>> 1;
+            CountRanges right = new CountRanges(ranges, middle, to);
+            right.fork();
+            Counts left = new CountRanges(ranges, from, middle).compute();
+            left.merge(right.join());
+            return left;
+        }
+    }
+
+    public int users() {
+        lock.readLock().lock();
+        try {
+            return counts.users;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Users who completed both workouts (0 if either is unknown)
+     */
+    public int together(long workoutA, long workoutB) {
+        lock.readLock().lock();
+        try {
+            int a = counts.itemIndex.get(workoutA, -1);
+            int b = counts.itemIndex.get(workoutB, -1);
+            return a < 0 || b < 0 ? 0 : counts.together(a, b);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========================================================================
+    // COUNTS
+    // ========================================================================
+
+    /**
+     * The model's state - not thread-safe on its own; guarded by the model's lock
+     */
+    private static final class Counts {
+
+        private static final int[] NONE = new int[0];
+
+        /** workout id -> dense item index, and back */
+        final LongIntTable itemIndex = new LongIntTable(16);
+        long[] itemIds = new long[16];
+        /** item -> users who completed it */
+        int[] usersPerItem = new int[16];
+        /** item -> (other item -> users who completed both); null until the item pairs with anything */
+        LongIntTable[] rows = new LongIntTable[16];
+        int items;
+        /** distinct unordered pairs with a non-zero count */
+        long pairs;
+
+        /** profile id -> slot, and slot -> sorted completed items / profile id */
+        final LongIntTable userSlots = new LongIntTable(1024);
+        int[][] userItems = new int[1024][];
+        long[] slotProfiles = new long[1024];
+        int users;
+
+        int item(long workoutId) {
+            int item = itemIndex.get(workoutId, -1);
+            if (item >= 0) {
+                return item;
+            }
+            if (items == itemIds.length) {
+                int capacity = items * 2;
+                itemIds = Arrays.copyOf(itemIds, capacity);
+                usersPerItem = Arrays.copyOf(usersPerItem, capacity);
+                rows = Arrays.copyOf(rows, capacity);
+            }
+            itemIds[items] = workoutId;
+            itemIndex.put(workoutId, items);
+            return items++;
+        }
+
+        int together(int a, int b) {
+            return rows[a] != null ? rows[a].get(b, 0) : 0;
+        }
+
+        /**
+         * Add one completed (user, workout) pair; false if the user had it already
+         */
+        boolean add(long profileId, long workoutId) {
+            int item = item(workoutId);
+            int slot = userSlots.get(profileId, -1);
+            int[] completed = slot >= 0 ? userItems[slot] : NONE;
+            int at = Arrays.binarySearch(completed, item);
+            if (at >= 0) {
+                return false;
+            }
+            for (int other : completed) {
+                pair(item, other, 1);
+            }
+            usersPerItem[item]++;
+
+            int insertAt = -at - 1;
+            int[] next = new int[completed.length + 1];
+            System.arraycopy(completed, 0, next, 0, insertAt);
+            next[insertAt] = item;
+            System.arraycopy(completed, insertAt, next, insertAt + 1, completed.length - insertAt);
+            if (slot < 0) {
+                slot = newSlot(profileId);
+            }
+            userItems[slot] = next;
+            return true;
+        }
+
+        private int newSlot(long profileId) {
+            if (users == userItems.length) {
+                userItems = Arrays.copyOf(userItems, users * 2);
+                slotProfiles = Arrays.copyOf(slotProfiles, users * 2);
+            }
+            slotProfiles[users] = profileId;
+            userSlots.put(profileId, users);
+            return users++;
+        }
+
+        private void pair(int a, int b, int count) {
+            if (rows[a] == null) {
+                rows[a] = new LongIntTable(8);
+            }
+            if (rows[b] == null) {
+                rows[b] = new LongIntTable(8);
+            }
+            if (rows[a].addTo(b, count) == count) {
+                pairs++;
+            }
+            rows[b].addTo(a, count);
+        }
+
+        /**
+         * Fold in counts for a disjoint set of users (a rebuild partial)
+         */
+        void merge(Counts other) {
+            int[] mapped = new int[other.items];
+            for (int i = 0; i < other.items; i++) {
+                mapped[i] = item(other.itemIds[i]);
+                usersPerItem[mapped[i]] += other.usersPerItem[i];
+            }
+            for (int i = 0; i < other.items; i++) {
+                LongIntTable row = other.rows[i];
+                if (row == null) {
+                    continue;
+                }
+                for (int cell = 0; cell < row.capacity(); cell++) {
+                    // Each unordered pair once: pair() writes both directions
+                    if (row.isUsed(cell) && i < (int) row.keyAt(cell)) {
+                        pair(mapped[i], mapped[(int) row.keyAt(cell)], row.valueAt(cell));
+                    }
+                }
+            }
+            for (int slot = 0; slot < other.users; slot++) {
+                int[] completed = other.userItems[slot];
+                int[] remapped = new int[completed.length];
+                for (int k = 0; k < completed.length; k++) {
+                    remapped[k] = mapped[completed[k]];
+                }
+                Arrays.sort(remapped);
+                int merged = newSlot(other.slotProfiles[slot]);
+                userItems[merged] = remapped;
+            }
+        }
+    }
+
+    /**
+     * Open-addressing long -> int table with linear probing (no boxing, no removal)
+     */
+    static final class LongIntTable {
+
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+        private int[] values;
+        private int size;
+        private int mask;
+
+        LongIntTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+            allocate(capacity);
+        }
+
+        int get(long key, int missing) {
+            int cell = index(key);
+            while (keys[cell] != EMPTY) {
+                if (keys[cell] == key) {
+                    return values[cell];
+                }
+                cell = (cell + 1) & mask;
+            }
+            return missing;
+        }
+
+        void put(long key, int value) {
+            int cell = find(key);
+            if (keys[cell] == EMPTY) {
+                keys[cell] = key;
+                size++;
+                values[cell] = value;
+                growIfFull();
+            } else {
+                values[cell] = value;
+            }
+        }
+
+        /**
+         * Add delta to the key's value (0 if absent); returns the new value
+         */
+        int addTo(long key, int delta) {
+            int cell = find(key);
+            if (keys[cell] == EMPTY) {
+                keys[cell] = key;
+                values[cell] = delta;
+                size++;
+                growIfFull();
+                return delta;
+            }
+            return values[cell] += delta;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        boolean isUsed(int cell) {
+            return keys[cell] != EMPTY;
+        }
+
+        long keyAt(int cell) {
+            return keys[cell];
+        }
+
+        int valueAt(int cell) {
+            return values[cell];
+        }
+
+        private int find(long key) {
+            int cell = index(key);
+            while (keys[cell] != EMPTY && keys[cell] != key) {
+                cell = (cell + 1) & mask;
+            }
+            return cell;
+        }
+
+        private int index(long key) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+
+        private void growIfFull() {
+            if (size * 4 < keys.length * 3) {
+                return;
+            }
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            allocate(keys.length * 2);
+            for (int cell = 0; cell < oldKeys.length; cell++) {
+                if (oldKeys[cell] != EMPTY) {
+                    int target = find(oldKeys[cell]);
+                    keys[target] = oldKeys[cell];
+                    values[target] = oldValues[cell];
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+    }
+}
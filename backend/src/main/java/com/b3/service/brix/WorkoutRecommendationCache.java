@@ -0,0 +1,207 @@
+package com.b3.service.brix;
+
+import com.b3.event.CollaborativeModelRebuiltEvent;
+import com.b3.event.RecommendationInputsChangedEvent;
+import com.b3.service.BrixService.WorkoutRecommendation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * WorkoutRecommendationCache - Today's recommendation per user, until an input changes
+ *
+ * KEY DESIGN: Every chat turn and every /recommendation call used to rank
+ * the catalog again, yet the answer only moves when the user checks in (or
+ * edits today's log), edits their profile, or completes a session. So the
+ * result is cached per (profile, calendar day) and dropped precisely:
+ *
+ *   - DailyLogService, UserProfileService and WorkoutSessionService publish
+ *     RecommendationInputsChangedEvent; the entry is dropped AFTER the write
+ *     commits. A load already running when an invalidation arrives is
+ *     returned but not cached (global epoch, as in CoachingContextCache).
+ *   - entries carry the day they were computed for and the catalog version
+ *     they were ranked against; a different day or a swapped catalog is a
+ *     miss, and a scheduled purge at midnight (brix.recommendation-cache.rollover-cron)
+ *     frees yesterday's entries instead of waiting for LRU eviction.
+ *
+ *   - a WorkoutCoOccurrenceModel rebuild drops every entry: the startup
+ *     rebuild finishes after the first recommendations were cached without
+ *     a collaborative factor at all.
+ *
+ * There is no TTL, and one input is deliberately not tracked: the
+ * collaborative bonus also moves when OTHER users complete workouts.
+ * Dropping every entry on every completion would leave nothing cached, so
+ * that drift is accepted - a user's collaborative points are as of their
+ * entry's load, until one of their own inputs changes or the day rolls over.
+ * A hit skips the coaching-context load as well as the ranking.
+ *
+ * Metrics: brix.recommendation.cache (counter, hit/miss),
+ * brix.recommendation.cache.hit.ratio and brix.recommendation.cache.size (gauges).
+ */
+@Component
+public class WorkoutRecommendationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkoutRecommendationCache.class);
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Clock clock;
+
+    private final AtomicLong epoch = new AtomicLong();
+    private final LinkedHashMap<Long, Entry> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    @Autowired
+    public WorkoutRecommendationCache(MeterRegistry meterRegistry,
+                                      @Value("${brix.recommendation-cache.enabled:true}") boolean enabled,
+                                      @Value("${brix.recommendation-cache.max-entries:10000}") int maxEntries) {
+        this(meterRegistry, enabled, maxEntries, Clock.systemDefaultZone());
+    }
+
+    WorkoutRecommendationCache(MeterRegistry meterRegistry, boolean enabled, int maxEntries, Clock clock) {
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > WorkoutRecommendationCache.this.maxEntries;
+            }
+        };
+
+        this.hits = Counter.builder("brix.recommendation.cache")
+                .tag("result", "hit")
+                .description("Workout recommendations served from cache (rankings saved)")
+                .register(meterRegistry);
+        this.misses = Counter.builder("brix.recommendation.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("brix.recommendation.cache.hit.ratio", this, WorkoutRecommendationCache::hitRatio)
+                .description("Share of recommendation lookups served from cache since startup")
+                .register(meterRegistry);
+        Gauge.builder("brix.recommendation.cache.size", this, WorkoutRecommendationCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached recommendation for the user on that day against that catalog
+     * version, or the loader's result (cached unless invalidated meanwhile;
+     * null results are never cached)
+     */
+    public WorkoutRecommendation get(Long profileId, LocalDate day, long catalogVersion,
+                                     Supplier<WorkoutRecommendation> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        synchronized (this) {
+            Entry entry = entries.get(profileId);
+            if (entry != null) {
+                if (entry.day().equals(day) && entry.catalogVersion() == catalogVersion) {
+                    hits.increment();
+                    return entry.recommendation();
+                }
+                entries.remove(profileId);
+            }
+        }
+
+        misses.increment();
+        long epochAtLoad = epoch.get();
+        WorkoutRecommendation loaded = loader.get();
+
+        if (loaded != null) {
+            synchronized (this) {
+                if (epoch.get() == epochAtLoad) {
+                    entries.put(profileId, new Entry(loaded, day, catalogVersion));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop a user's recommendation; the next request recomputes it
+     */
+    public void invalidate(Long profileId) {
+        epoch.incrementAndGet();
+        synchronized (this) {
+            entries.remove(profileId);
+        }
+    }
+
+    /**
+     * Drop every recommendation (the epoch keeps loads in flight from caching)
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        synchronized (this) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Dropped after the commit, so a reload cannot re-cache the old inputs.
+     * With no TTL behind it, an invalidation that never fired would serve
+     * the stale ranking until midnight - fallbackExecution makes sure a
+     * write with no transaction around it still drops the entry.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInputsChanged(RecommendationInputsChangedEvent event) {
+        logger.debug("Recommendation inputs of user {} changed ({}), dropping cached recommendation",
+                event.profileId(), event.reason());
+        invalidate(event.profileId());
+    }
+
+    @EventListener
+    public void onCollaborativeModelRebuilt(CollaborativeModelRebuiltEvent event) {
+        logger.debug("Co-occurrence model rebuilt ({} users), dropping all cached recommendations", event.users());
+        invalidateAll();
+    }
+
+    /**
+     * Day rollover: every entry is for a day that just ended
+     */
+    @Scheduled(cron = "${brix.recommendation-cache.rollover-cron:0 0 0 * * *}")
+    public void purgeStaleDays() {
+        LocalDate today = LocalDate.now(clock);
+        int purged;
+        synchronized (this) {
+            int before = entries.size();
+            entries.values().removeIf(entry -> !entry.day().equals(today));
+            purged = before - entries.size();
+        }
+        if (purged > 0) {
+            logger.info("Dropped {} cached workout recommendations from before {}", purged, today);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private record Entry(WorkoutRecommendation recommendation, LocalDate day, long catalogVersion) {
+    }
+}
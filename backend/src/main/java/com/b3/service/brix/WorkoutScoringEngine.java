@@ -0,0 +1,368 @@
+package com.b3.service.brix;
+
+import com.b3.model.DailyLog;
+import com.b3.model.UserProfile;
+import com.b3.model.Workout;
+import com.b3.service.catalog.WorkoutCatalog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * WorkoutScoringEngine - Ranks the workout catalog for one user's current state
+ *
+ * KEY DESIGN: Additive scoring, the same weights BRIX has always used. Every
+ * workout starts at 50 points and gains points for matching:
+ *   - the user's fitness level (+20)
+ *   - today's energy (low energy: beginner +30, <= 20 min +20, flexibility +25;
+ *     high energy: advanced +15, strength +10)
+ *   - today's stress (high stress: flexibility +30, <= 25 min +15)
+ *   - the primary goal (strength/cardio/flexibility workout of that type +15)
+ *
+ * The rules are compiled once, at class load, into lookup tables:
+ *   - each factor is a table indexed by the user's band for it (enum ordinal,
+ *     0 = unknown) and the workout's difficulty/type/duration class
+ *   - for every one of the 240 user states the factors are folded into a
+ *     single row of 36 totals, one per workout shape (difficulty x type x
+ *     duration class)
+ * and each catalog snapshot is compiled once into the shape of every workout.
+ * Scoring a workout is then one array read - no enum-name comparisons and
+ * no map per call.
+ *
+ * The per-factor breakdowns are precomputed alongside the totals (8640
+ * shared instances). The best K are kept in a bounded min-heap of packed
+ * (score, position) longs, so ranking is O(n log K) and allocates one
+ * long[K] plus the K results.
+ * Ties go to the lower workout id, matching the single-pick behaviour.
+ *
+ * The collaborative factor (WorkoutCoOccurrenceModel) is per user, not per
+ * state, so it is passed in as points per catalog position and added on top
+ * of the table total; only the K winners that got any are given a breakdown
+ * of their own.
+ */
+@Component
+public class WorkoutScoringEngine {
+
+    public static final int BASE_SCORE = 50;
+
+    /**
+     * Per-factor points for one workout; total() is the score it was ranked by
+     */
+    public record ScoreBreakdown(int base, int fitnessLevel, int energy, int stress, int goal, int collaborative) {
+        public int total() {
+            return base + fitnessLevel + energy + stress + goal + collaborative;
+        }
+
+        ScoreBreakdown withCollaborative(int points) {
+            return new ScoreBreakdown(base, fitnessLevel, energy, stress, goal, points);
+        }
+    }
+
+    public record ScoredWorkout(WorkoutCatalog.Entry workout, int score, ScoreBreakdown breakdown) {}
+
+    // ========================================================================
+    // WEIGHT TABLES
+    // ========================================================================
+
+    private static final Workout.DifficultyLevel[] DIFFICULTIES = Workout.DifficultyLevel.values();
+    private static final Workout.WorkoutType[] TYPES = Workout.WorkoutType.values();
+
+    /** Workout duration classes: the two cut-offs the rules use */
+    private static final int SHORT = 0;      // <= 20 minutes
+    private static final int MODERATE = 1;   // 21-25 minutes
+    private static final int LONGER = 2;     // > 25 minutes
+    private static final int DURATION_CLASSES = 3;
+
+    /** User bands; 0 is always "unknown / no check-in today" */
+    private static final int ENERGY_LOW = 1;
+    private static final int ENERGY_HIGH = 3;
+    private static final int ENERGY_BANDS = 4;
+    private static final int STRESS_HIGH = 2;
+    private static final int STRESS_BANDS = 3;
+    private static final int FITNESS_BANDS = UserProfile.FitnessLevel.values().length + 1;
+    private static final int GOAL_BANDS = UserProfile.PrimaryGoal.values().length + 1;
+
+    private static final int SHAPES = DIFFICULTIES.length * TYPES.length * DURATION_CLASSES;
+    private static final int STATES = FITNESS_BANDS * ENERGY_BANDS * STRESS_BANDS * GOAL_BANDS;
+
+    /** [fitness band][difficulty] */
+    private static final int[][] FITNESS_BY_DIFFICULTY = new int[FITNESS_BANDS][DIFFICULTIES.length];
+    /** [energy band][difficulty], [energy band][type], [energy band][duration class] */
+    private static final int[][] ENERGY_BY_DIFFICULTY = new int[ENERGY_BANDS][DIFFICULTIES.length];
+    private static final int[][] ENERGY_BY_TYPE = new int[ENERGY_BANDS][TYPES.length];
+    private static final int[][] ENERGY_BY_DURATION = new int[ENERGY_BANDS][DURATION_CLASSES];
+    /** [stress band][type], [stress band][duration class] */
+    private static final int[][] STRESS_BY_TYPE = new int[STRESS_BANDS][TYPES.length];
+    private static final int[][] STRESS_BY_DURATION = new int[STRESS_BANDS][DURATION_CLASSES];
+    /** [goal band][type] */
+    private static final int[][] GOAL_BY_TYPE = new int[GOAL_BANDS][TYPES.length];
+
+    /** [user state][workout shape] -> breakdown and total score */
+    private static final ScoreBreakdown[][] BREAKDOWNS = new ScoreBreakdown[STATES][SHAPES];
+    private static final int[][] TOTALS = new int[STATES][SHAPES];
+
+    static {
+        // A workout matches the user's level when the enum names agree
+        for (UserProfile.FitnessLevel level : UserProfile.FitnessLevel.values()) {
+            for (Workout.DifficultyLevel difficulty : DIFFICULTIES) {
+                if (difficulty.name().equals(level.name())) {
+                    FITNESS_BY_DIFFICULTY[level.ordinal() + 1][difficulty.ordinal()] = 20;
+                }
+            }
+        }
+
+        ENERGY_BY_DIFFICULTY[ENERGY_LOW][Workout.DifficultyLevel.BEGINNER.ordinal()] = 30;
+        ENERGY_BY_DURATION[ENERGY_LOW][SHORT] = 20;
+        ENERGY_BY_TYPE[ENERGY_LOW][Workout.WorkoutType.FLEXIBILITY.ordinal()] = 25;
+        ENERGY_BY_DIFFICULTY[ENERGY_HIGH][Workout.DifficultyLevel.ADVANCED.ordinal()] = 15;
+        ENERGY_BY_TYPE[ENERGY_HIGH][Workout.WorkoutType.STRENGTH.ordinal()] = 10;
+
+        STRESS_BY_TYPE[STRESS_HIGH][Workout.WorkoutType.FLEXIBILITY.ordinal()] = 30;
+        STRESS_BY_DURATION[STRESS_HIGH][SHORT] = 15;
+        STRESS_BY_DURATION[STRESS_HIGH][MODERATE] = 15;
+
+        // Goals with a workout type of the same name; WEIGHT_LOSS has none
+        for (UserProfile.PrimaryGoal goal : UserProfile.PrimaryGoal.values()) {
+            for (Workout.WorkoutType type : TYPES) {
+                if (type.name().equals(goal.name())) {
+                    GOAL_BY_TYPE[goal.ordinal() + 1][type.ordinal()] = 15;
+                }
+            }
+        }
+
+        for (int state = 0; state < STATES; state++) {
+            for (int shape = 0; shape < SHAPES; shape++) {
+                BREAKDOWNS[state][shape] = breakdown(state, shape);
+                TOTALS[state][shape] = BREAKDOWNS[state][shape].total();
+            }
+        }
+    }
+
+    // ========================================================================
+    // RANKING
+    // ========================================================================
+
+    private final int defaultLimit;
+
+    /** Shapes of the most recently ranked catalog */
+    private volatile CompiledCatalog compiled;
+
+    public WorkoutScoringEngine(@Value("${brix.recommendation.alternatives:3}") int alternatives) {
+        this.defaultLimit = Math.max(1, alternatives + 1);
+    }
+
+    /**
+     * The recommendation plus brix.recommendation.alternatives runners-up, best first
+     */
+    public List<ScoredWorkout> rank(WorkoutCatalog catalog, UserProfile user, DailyLog todaysLog) {
+        return rank(catalog, user, todaysLog, null);
+    }
+
+    /**
+     * Same, plus collaborative points per catalog position (null = none)
+     */
+    public List<ScoredWorkout> rank(WorkoutCatalog catalog, UserProfile user, DailyLog todaysLog,
+                                    int[] collaborative) {
+        return topK(catalog, state(user, todaysLog), collaborative, defaultLimit);
+    }
+
+    /**
+     * The k highest-scoring workouts, best first (lower id first on equal scores)
+     */
+    public List<ScoredWorkout> topK(WorkoutCatalog catalog, UserProfile user, DailyLog todaysLog, int k) {
+        return topK(catalog, state(user, todaysLog), k);
+    }
+
+    /**
+     * Same, for a state from {@link #state}: every user in one state gets the same ranking
+     */
+    public List<ScoredWorkout> topK(WorkoutCatalog catalog, int state, int k) {
+        return topK(catalog, state, null, k);
+    }
+
+    /**
+     * Same, with collaborative points per catalog position added (null = none)
+     */
+    public List<ScoredWorkout> topK(WorkoutCatalog catalog, int state, int[] collaborative, int k) {
+        if (catalog.isEmpty() || k <= 0) {
+            return List.of();
+        }
+        int[] totals = TOTALS[state];
+        byte[] shapes = compile(catalog).shapes();
+
+        // Min-heap on (score, -position): the root is the weakest of the best k so far
+        int limit = Math.min(k, shapes.length);
+        long[] heap = new long[limit];
+        int size = 0;
+        for (int position = 0; position < shapes.length; position++) {
+            int score = totals[shapes[position]];
+            if (collaborative != null) {
+                score += collaborative[position];
+            }
+            long key = pack(score, position);
+            if (size < limit) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, limit);
+            }
+        }
+
+        // Drain weakest first, filling the result from the back
+        ScoredWorkout[] ranked = new ScoredWorkout[size];
+        for (int i = size - 1; i >= 0; i--) {
+            long key = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i);
+
+            int position = unpackPosition(key);
+            ScoreBreakdown breakdown = BREAKDOWNS[state][shapes[position]];
+            if (collaborative != null && collaborative[position] != 0) {
+                breakdown = breakdown.withCollaborative(collaborative[position]);
+            }
+            ranked[i] = new ScoredWorkout(catalog.entries().get(position), unpackScore(key), breakdown);
+        }
+        return List.of(ranked);
+    }
+
+    // ========================================================================
+    // STATE AND SHAPE
+    // ========================================================================
+
+    /** Number of distinct user states; states are 0 .. STATE_COUNT - 1 */
+    public static final int STATE_COUNT = STATES;
+
+    public static int state(UserProfile user, DailyLog todaysLog) {
+        return state(user.getFitnessLevel(), user.getPrimaryGoal(),
+                todaysLog != null ? todaysLog.getEnergyLevel() : null,
+                todaysLog != null ? todaysLog.getStressLevel() : null);
+    }
+
+    /**
+     * The user state the tables are indexed by; null means unknown (no check-in today)
+     */
+    public static int state(UserProfile.FitnessLevel fitnessLevel, UserProfile.PrimaryGoal primaryGoal,
+                            Integer energyLevel, Integer stressLevel) {
+        int fitness = fitnessLevel != null ? fitnessLevel.ordinal() + 1 : 0;
+        int goal = primaryGoal != null ? primaryGoal.ordinal() + 1 : 0;
+        int energy = energyLevel == null ? 0
+                : energyLevel <= 2 ? ENERGY_LOW : energyLevel >= 4 ? ENERGY_HIGH : 2;
+        int stress = stressLevel == null ? 0 : stressLevel >= 4 ? STRESS_HIGH : 1;
+        return ((fitness * ENERGY_BANDS + energy) * STRESS_BANDS + stress) * GOAL_BANDS + goal;
+    }
+
+    /**
+     * Why the top pick suits today, from the same check-in the score used
+     */
+    public static String reason(Integer energyLevel, Integer stressLevel) {
+        if (energyLevel != null && energyLevel <= 2) {
+            return "Perfect for your energy level today - gentle but effective!";
+        }
+        if (stressLevel != null && stressLevel >= 4) {
+            return "Great for stress relief - you'll feel amazing after!";
+        }
+        if (energyLevel != null && energyLevel >= 4) {
+            return "You've got great energy today - let's maximize it!";
+        }
+        return "Matches your fitness level and goals perfectly!";
+    }
+
+    static int shape(WorkoutCatalog.Entry workout) {
+        int duration = workout.estimatedDuration() <= 20 ? SHORT
+                : workout.estimatedDuration() <= 25 ? MODERATE : LONGER;
+        return (workout.difficulty().ordinal() * TYPES.length + workout.type().ordinal()) * DURATION_CLASSES
+                + duration;
+    }
+
+    private static ScoreBreakdown breakdown(int state, int shape) {
+        int goal = state % GOAL_BANDS;
+        int stress = state / GOAL_BANDS % STRESS_BANDS;
+        int energy = state / (GOAL_BANDS * STRESS_BANDS) % ENERGY_BANDS;
+        int fitness = state / (GOAL_BANDS * STRESS_BANDS * ENERGY_BANDS);
+
+        int duration = shape % DURATION_CLASSES;
+        int type = shape / DURATION_CLASSES % TYPES.length;
+        int difficulty = shape / (DURATION_CLASSES * TYPES.length);
+
+        return new ScoreBreakdown(
+                BASE_SCORE,
+                FITNESS_BY_DIFFICULTY[fitness][difficulty],
+                ENERGY_BY_DIFFICULTY[energy][difficulty] + ENERGY_BY_TYPE[energy][type]
+                        + ENERGY_BY_DURATION[energy][duration],
+                STRESS_BY_TYPE[stress][type] + STRESS_BY_DURATION[stress][duration],
+                GOAL_BY_TYPE[goal][type],
+                0);
+    }
+
+    private record CompiledCatalog(WorkoutCatalog catalog, byte[] shapes) {}
+
+    /**
+     * Shapes are per snapshot: recompiled only when the holder swaps in a new catalog
+     */
+    private CompiledCatalog compile(WorkoutCatalog catalog) {
+        CompiledCatalog current = compiled;
+        if (current != null && current.catalog() == catalog) {
+            return current;
+        }
+        List<WorkoutCatalog.Entry> entries = catalog.entries();
+        byte[] shapes = new byte[entries.size()];
+        for (int i = 0; i < shapes.length; i++) {
+            shapes[i] = (byte) shape(entries.get(i));
+        }
+        CompiledCatalog next = new CompiledCatalog(catalog, shapes);
+        compiled = next;
+        return next;
+    }
+
+    // ========================================================================
+    // HEAP
+    // ========================================================================
+
+    /** Higher score wins; on a tie the earlier position (lower id) wins */
+    private static long pack(int score, int position) {
+        return ((long) score << 32) | (Integer.MAX_VALUE - position);
+    }
+
+    private static int unpackScore(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int unpackPosition(long key) {
+        return Integer.MAX_VALUE - (int) key;
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        long key = heap[0];
+        int index = 0;
+        int child;
+        while ((child = 2 * index + 1) < size) {
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= key) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+}
@@ -0,0 +1,368 @@
+package com.b3.service.catalog;
+
+import com.b3.dto.WorkoutExerciseDTO;
+import com.b3.dto.response.WorkoutResponse;
+import com.b3.model.Exercise;
+import com.b3.model.Workout;
+import com.b3.model.WorkoutExercise;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * WorkoutCatalog - Immutable snapshot of every workout and its exercises
+ *
+ * KEY DESIGN: The catalog changes maybe once a week, but every BRIX
+ * recommendation and every workout list/filter/search endpoint read it from
+ * the database. A snapshot is built once from two queries and then only
+ * read, so it needs no locks: WorkoutCatalogHolder swaps in a new instance
+ * when the data changes and readers keep whichever one they already hold.
+ *
+ * Everything a read needs is precomputed at build time:
+ *   - entries in id order, plus the API responses and exercise lists
+ *   - indexes by WorkoutType, DifficultyLevel and DurationBucket
+ *   - entries sorted by duration, for "at most N minutes" as a binary search
+ *   - lower-cased names for keyword search
+ * so the list endpoints return the same unmodifiable lists every time.
+ * The response DTOs are shared between requests, so they are effectively
+ * immutable: every list in them is unmodifiable and nothing calls their
+ * setters once the snapshot is built. Read them, never modify them.
+ */
+public final class WorkoutCatalog {
+
+    public static final WorkoutCatalog EMPTY = of(List.of(), List.of(), 0);
+
+    /**
+     * Coarse duration groups, matching the cut-offs the recommendation
+     * scoring uses (short = the low-energy bonus)
+     */
+    public enum DurationBucket {
+        SHORT(20),
+        MEDIUM(40),
+        LONG(Integer.MAX_VALUE);
+
+        private final int maxMinutes;
+
+        DurationBucket(int maxMinutes) {
+            this.maxMinutes = maxMinutes;
+        }
+
+        public static DurationBucket of(int minutes) {
+            for (DurationBucket bucket : values()) {
+                if (minutes <= bucket.maxMinutes) {
+                    return bucket;
+                }
+            }
+            return LONG;
+        }
+    }
+
+    /**
+     * One workout as the catalog serves it
+     */
+    public record Entry(
+            Long workoutId,
+            String name,
+            Workout.WorkoutType type,
+            Workout.DifficultyLevel difficulty,
+            int estimatedDuration,
+            WorkoutResponse response,
+            List<WorkoutExerciseDTO> exercises
+    ) {
+        public DurationBucket durationBucket() {
+            return DurationBucket.of(estimatedDuration);
+        }
+    }
+
+    private final long version;
+    private final long fingerprint;
+    private final List<Entry> entries;
+    private final List<WorkoutResponse> responses;
+    private final Map<Long, Entry> byId;
+    private final Map<Workout.WorkoutType, Slice> byType;
+    private final Map<Workout.DifficultyLevel, Slice> byDifficulty;
+    private final Map<DurationBucket, List<Entry>> byDuration;
+    private final List<Entry> sortedByDuration;
+    private final int[] sortedDurations;
+    private final String[] lowerCaseNames;
+
+    private WorkoutCatalog(long version, long fingerprint, List<Entry> entries) {
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.entries = Collections.unmodifiableList(entries);
+        this.responses = entries.stream().map(Entry::response).toList();
+
+        Map<Long, Entry> ids = new HashMap<>();
+        Map<Workout.WorkoutType, List<Entry>> types = new EnumMap<>(Workout.WorkoutType.class);
+        Map<Workout.DifficultyLevel, List<Entry>> difficulties = new EnumMap<>(Workout.DifficultyLevel.class);
+        Map<DurationBucket, List<Entry>> durations = new EnumMap<>(DurationBucket.class);
+        for (Entry entry : entries) {
+            ids.put(entry.workoutId(), entry);
+            types.computeIfAbsent(entry.type(), ignored -> new ArrayList<>()).add(entry);
+            difficulties.computeIfAbsent(entry.difficulty(), ignored -> new ArrayList<>()).add(entry);
+            durations.computeIfAbsent(entry.durationBucket(), ignored -> new ArrayList<>()).add(entry);
+        }
+        this.byId = Map.copyOf(ids);
+        this.byType = slices(types, Workout.WorkoutType.class);
+        this.byDifficulty = slices(difficulties, Workout.DifficultyLevel.class);
+        this.byDuration = new EnumMap<>(DurationBucket.class);
+        for (DurationBucket bucket : DurationBucket.values()) {
+            byDuration.put(bucket, List.copyOf(durations.getOrDefault(bucket, List.of())));
+        }
+
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingInt(Entry::estimatedDuration));
+        this.sortedByDuration = Collections.unmodifiableList(sorted);
+        this.sortedDurations = sorted.stream().mapToInt(Entry::estimatedDuration).toArray();
+        this.lowerCaseNames = entries.stream()
+                .map(entry -> entry.name().toLowerCase(Locale.ROOT))
+                .toArray(String[]::new);
+    }
+
+    // ========================================================================
+    // BUILD
+    // ========================================================================
+
+    /**
+     * @param exercises every workout's exercises, with Exercise loaded
+     */
+    public static WorkoutCatalog of(List<Workout> workouts, List<WorkoutExercise> exercises, long version) {
+        Map<Long, List<WorkoutExercise>> exercisesByWorkout = new HashMap<>();
+        for (WorkoutExercise exercise : exercises) {
+            exercisesByWorkout.computeIfAbsent(exercise.getWorkout().getWorkoutId(), ignored -> new ArrayList<>())
+                    .add(exercise);
+        }
+
+        List<Workout> ordered = new ArrayList<>(workouts);
+        ordered.sort(Comparator.comparing(Workout::getWorkoutId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        long fingerprint = 17;
+        List<Entry> entries = new ArrayList<>(ordered.size());
+        for (Workout workout : ordered) {
+            List<WorkoutExercise> steps = exercisesByWorkout.getOrDefault(workout.getWorkoutId(), new ArrayList<>());
+            steps.sort(Comparator.comparing(WorkoutExercise::getOrderIndex,
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+
+            fingerprint = 31 * fingerprint + Objects.hash(workout.getWorkoutId(), workout.getName(),
+                    workout.getDescription(), workout.getWorkoutType(), workout.getDifficultyLevel(),
+                    workout.getEstimatedDuration(), workout.getRequiredEquipment());
+            for (WorkoutExercise step : steps) {
+                fingerprint = 31 * fingerprint + fingerprint(step);
+            }
+
+            entries.add(new Entry(
+                    workout.getWorkoutId(),
+                    workout.getName(),
+                    workout.getWorkoutType(),
+                    workout.getDifficultyLevel(),
+                    workout.getEstimatedDuration() != null ? workout.getEstimatedDuration() : 0,
+                    toResponse(workout),
+                    steps.stream().map(WorkoutCatalog::toExerciseDTO).toList()));
+        }
+        return new WorkoutCatalog(version, fingerprint, entries);
+    }
+
+    /**
+     * True when both snapshots were built from the same data - lets a
+     * periodic refresh skip the swap when nothing changed. A different
+     * fingerprint settles it straight away; an equal one can be a hash
+     * collision, so the entries are then compared field by field.
+     */
+    public boolean sameContentAs(WorkoutCatalog other) {
+        if (other == null || fingerprint != other.fingerprint || entries.size() != other.entries.size()) {
+            return false;
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            if (!sameContent(entries.get(i), other.entries.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ========================================================================
+    // READS
+    // ========================================================================
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /** All workouts in id order */
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    /** All workouts in id order, as API responses */
+    public List<WorkoutResponse> responses() {
+        return responses;
+    }
+
+    public Entry find(Long workoutId) {
+        return workoutId != null ? byId.get(workoutId) : null;
+    }
+
+    public List<Entry> byType(Workout.WorkoutType type) {
+        return byType.get(type).entries();
+    }
+
+    public List<WorkoutResponse> responsesByType(Workout.WorkoutType type) {
+        return byType.get(type).responses();
+    }
+
+    public List<Entry> byDifficulty(Workout.DifficultyLevel difficulty) {
+        return byDifficulty.get(difficulty).entries();
+    }
+
+    public List<WorkoutResponse> responsesByDifficulty(Workout.DifficultyLevel difficulty) {
+        return byDifficulty.get(difficulty).responses();
+    }
+
+    public List<Entry> byDuration(DurationBucket bucket) {
+        return byDuration.get(bucket);
+    }
+
+    /**
+     * Workouts of at most the given length, shortest first (a view, no copy)
+     */
+    public List<Entry> withDurationAtMost(int minutes) {
+        int index = Arrays.binarySearch(sortedDurations, minutes);
+        if (index < 0) {
+            return sortedByDuration.subList(0, -index - 1);
+        }
+        // Include every workout of exactly this length
+        while (index + 1 < sortedDurations.length && sortedDurations[index + 1] == minutes) {
+            index++;
+        }
+        return sortedByDuration.subList(0, index + 1);
+    }
+
+    /**
+     * Case-insensitive substring match on the name, in id order
+     */
+    public List<WorkoutResponse> search(String keyword) {
+        if (keyword == null || keyword.isBlank()) {
+            return responses;
+        }
+        String needle = keyword.trim().toLowerCase(Locale.ROOT);
+        List<WorkoutResponse> matches = new ArrayList<>();
+        for (int i = 0; i < lowerCaseNames.length; i++) {
+            if (lowerCaseNames[i].contains(needle)) {
+                matches.add(responses.get(i));
+            }
+        }
+        return List.copyOf(matches);
+    }
+
+    // ========================================================================
+    // HELPERS
+    // ========================================================================
+
+    private record Slice(List<Entry> entries, List<WorkoutResponse> responses) {
+        static final Slice EMPTY = new Slice(List.of(), List.of());
+    }
+
+    private static <K extends Enum<K>> Map<K, Slice> slices(Map<K, List<Entry>> grouped, Class<K> keyType) {
+        Map<K, Slice> slices = new EnumMap<>(keyType);
+        for (K key : keyType.getEnumConstants()) {
+            List<Entry> group = grouped.getOrDefault(key, List.of());
+            slices.put(key, group.isEmpty()
+                    ? Slice.EMPTY
+                    : new Slice(List.copyOf(group), group.stream().map(Entry::response).toList()));
+        }
+        return slices;
+    }
+
+    private static boolean sameContent(Entry a, Entry b) {
+        WorkoutResponse left = a.response();
+        WorkoutResponse right = b.response();
+        if (!Objects.equals(a.workoutId(), b.workoutId())
+                || !Objects.equals(left.getName(), right.getName())
+                || !Objects.equals(left.getDescription(), right.getDescription())
+                || !Objects.equals(left.getWorkoutType(), right.getWorkoutType())
+                || !Objects.equals(left.getDifficultyLevel(), right.getDifficultyLevel())
+                || !Objects.equals(left.getEstimatedDuration(), right.getEstimatedDuration())
+                || !Objects.equals(left.getRequiredEquipment(), right.getRequiredEquipment())
+                || a.exercises().size() != b.exercises().size()) {
+            return false;
+        }
+        for (int i = 0; i < a.exercises().size(); i++) {
+            if (!sameContent(a.exercises().get(i), b.exercises().get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameContent(WorkoutExerciseDTO a, WorkoutExerciseDTO b) {
+        return Objects.equals(a.getExerciseId(), b.getExerciseId())
+                && Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && Objects.equals(a.getMuscleGroup(), b.getMuscleGroup())
+                && Objects.equals(a.getEquipmentType(), b.getEquipmentType())
+                && Objects.equals(a.getVideoUrl(), b.getVideoUrl())
+                && Objects.equals(a.getImageUrl(), b.getImageUrl())
+                && Objects.equals(a.getOrderIndex(), b.getOrderIndex())
+                && Objects.equals(a.getSets(), b.getSets())
+                && Objects.equals(a.getReps(), b.getReps())
+                && Objects.equals(a.getDurationSeconds(), b.getDurationSeconds())
+                && Objects.equals(a.getRestSeconds(), b.getRestSeconds())
+                && Objects.equals(a.getNotes(), b.getNotes());
+    }
+
+    private static int fingerprint(WorkoutExercise step) {
+        Exercise exercise = step.getExercise();
+        return Objects.hash(step.getOrderIndex(), step.getSets(), step.getReps(), step.getDurationSeconds(),
+                step.getRestSeconds(), step.getNotes(), exercise.getExerciseId(), exercise.getName(),
+                exercise.getDescription(), exercise.getMuscleGroup(), exercise.getEquipmentType(),
+                exercise.getVideoUrl(), exercise.getImageUrl());
+    }
+
+    private static WorkoutResponse toResponse(Workout workout) {
+        WorkoutResponse response = new WorkoutResponse();
+        response.setWorkoutId(workout.getWorkoutId());
+        response.setName(workout.getName());
+        response.setDescription(workout.getDescription());
+        response.setWorkoutType(workout.getWorkoutType().name());
+        response.setDifficultyLevel(workout.getDifficultyLevel().name());
+        response.setEstimatedDuration(workout.getEstimatedDuration());
+        response.setRequiredEquipment(workout.getRequiredEquipment());
+        // The default is a mutable ArrayList; the exercises are served by getWorkoutExercises instead
+        response.setExercises(List.of());
+        return response;
+    }
+
+    private static WorkoutExerciseDTO toExerciseDTO(WorkoutExercise we) {
+        WorkoutExerciseDTO dto = new WorkoutExerciseDTO();
+        dto.setExerciseId(we.getExercise().getExerciseId());
+        dto.setName(we.getExercise().getName());
+        dto.setDescription(we.getExercise().getDescription());
+        dto.setMuscleGroup(we.getExercise().getMuscleGroup() != null ? we.getExercise().getMuscleGroup().name() : null);
+        dto.setEquipmentType(we.getExercise().getEquipmentType() != null ? we.getExercise().getEquipmentType().name() : null);
+        dto.setVideoUrl(we.getExercise().getVideoUrl());
+        dto.setImageUrl(we.getExercise().getImageUrl());
+        dto.setOrderIndex(we.getOrderIndex());
+        dto.setSets(we.getSets());
+        dto.setReps(we.getReps());
+        dto.setDurationSeconds(we.getDurationSeconds());
+        dto.setRestSeconds(we.getRestSeconds());
+        dto.setNotes(we.getNotes());
+        return dto;
+    }
+}
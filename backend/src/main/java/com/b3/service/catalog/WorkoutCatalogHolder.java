@@ -0,0 +1,134 @@
+package com.b3.service.catalog;
+
+import com.b3.event.WorkoutCatalogChangedEvent;
+import com.b3.model.Workout;
+import com.b3.model.WorkoutExercise;
+import com.b3.repository.WorkoutExerciseRepository;
+import com.b3.repository.WorkoutRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * WorkoutCatalogHolder - The current WorkoutCatalog, swapped atomically
+ *
+ * KEY DESIGN: Readers call current() and get an immutable snapshot - a
+ * volatile read, no database, no lock. A rebuild loads the catalog with two
+ * queries (workouts; all workout exercises joined to their exercise), builds
+ * the next snapshot off to the side and publishes it with one reference set,
+ * so a reader sees either the old catalog or the new one, never a mix.
+ *
+ * When it rebuilds:
+ *   - at startup, after DataInitializer has seeded
+ *   - after a WorkoutCatalogChangedEvent commits (writers publish it)
+ *   - every workout.catalog.refresh-interval-ms as a safety net for edits made
+ *     straight in the database; if nothing changed, the old snapshot stays
+ *
+ * Metrics: workout.catalog.reloads (counter, swapped/unchanged),
+ * workout.catalog.size (gauge).
+ */
+@Component
+public class WorkoutCatalogHolder {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkoutCatalogHolder.class);
+
+    private final WorkoutRepository workoutRepository;
+    private final WorkoutExerciseRepository workoutExerciseRepository;
+    private final AtomicReference<WorkoutCatalog> current = new AtomicReference<>();
+
+    private final Counter swapped;
+    private final Counter unchanged;
+
+    public WorkoutCatalogHolder(WorkoutRepository workoutRepository,
+                                WorkoutExerciseRepository workoutExerciseRepository,
+                                MeterRegistry meterRegistry) {
+        this.workoutRepository = workoutRepository;
+        this.workoutExerciseRepository = workoutExerciseRepository;
+
+        this.swapped = Counter.builder("workout.catalog.reloads")
+                .tag("result", "swapped")
+                .description("Workout catalog rebuilds, by whether a new snapshot was published")
+                .register(meterRegistry);
+        this.unchanged = Counter.builder("workout.catalog.reloads")
+                .tag("result", "unchanged")
+                .register(meterRegistry);
+        Gauge.builder("workout.catalog.size", current, catalog -> catalog.get() != null ? catalog.get().size() : 0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The catalog as of the last rebuild (built on first use if startup has not run yet)
+     */
+    public WorkoutCatalog current() {
+        WorkoutCatalog catalog = current.get();
+        return catalog != null ? catalog : reload();
+    }
+
+    // ========================================================================
+    // REBUILD
+    // ========================================================================
+
+    /**
+     * Load the catalog and publish it if it differs from the current one.
+     * Synchronized so two rebuilds never race to publish an older snapshot last.
+     */
+    public synchronized WorkoutCatalog reload() {
+        WorkoutCatalog previous = current.get();
+        List<Workout> workouts = workoutRepository.findAll();
+        List<WorkoutExercise> exercises = workoutExerciseRepository.findAllWithExercises();
+
+        long version = previous != null ? previous.version() + 1 : 1;
+        WorkoutCatalog next = WorkoutCatalog.of(workouts, exercises, version);
+        if (next.sameContentAs(previous)) {
+            unchanged.increment();
+            return previous;
+        }
+
+        current.set(next);
+        swapped.increment();
+        logger.info("Workout catalog v{} loaded: {} workouts, {} workout exercises",
+                version, next.size(), exercises.size());
+        return next;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Rebuilds only once the change has committed, or the reload would read
+     * the old rows. DataInitializer publishes "seeded" from its runner with
+     * no transaction open, and without fallbackExecution that event would be
+     * dropped without a word - today loadOnStartup happens to cover it, but
+     * a seed or import run later would leave the catalog stale until the
+     * next refresh.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(WorkoutCatalogChangedEvent event) {
+        logger.debug("Workout catalog changed ({}), rebuilding", event.reason());
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${workout.catalog.refresh-interval-ms:600000}",
+               initialDelayString = "${workout.catalog.refresh-interval-ms:600000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            // Keep serving the snapshot we have
+            logger.warn("Workout catalog refresh failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.b3.service.llm;
+
+/**
+ * One earlier message of the conversation, replayed to the model as context.
+ *
+ * role    - USER or ASSISTANT (BRIX)
+ * content - the message text as it was sent
+ */
+public record ChatTurn(Role role, String content) {
+
+    public enum Role {
+        USER,
+        ASSISTANT
+    }
+
+    public static ChatTurn user(String content) {
+        return new ChatTurn(Role.USER, content);
+    }
+
+    public static ChatTurn assistant(String content) {
+        return new ChatTurn(Role.ASSISTANT, content);
+    }
+
+    /**
+     * Role name as both Ollama and the Claude Messages API expect it
+     */
+    public String wireRole() {
+        return role == Role.USER ? "user" : "assistant";
+    }
+}
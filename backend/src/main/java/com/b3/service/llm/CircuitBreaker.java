@@ -0,0 +1,138 @@
+package com.b3.service.llm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CircuitBreaker - Tracks health of a remote dependency from real call outcomes
+ *
+ * KEY DESIGN: Classic three-state breaker.
+ * - CLOSED: calls flow; consecutive failures are counted
+ * - OPEN: after failureThreshold consecutive failures, calls are refused
+ *   instantly for openDurationMs - no connect timeout, straight to fallback
+ * - HALF_OPEN: once the open window elapses, exactly ONE trial call is let
+ *   through; success closes the circuit, failure re-opens it
+ *
+ * State lives in volatile/atomic fields so the hot path (isCallPermitted)
+ * is a couple of memory reads - no locks, no I/O.
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationMs;
+    private final Clock clock;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAtMs;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMs) {
+        this(name, failureThreshold, openDurationMs, Clock.systemUTC());
+    }
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMs, Clock clock) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationMs = openDurationMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Read-only check: would a call be let through right now?
+     * Does not claim the half-open trial slot.
+     */
+    public boolean isCallPermitted() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            return openWindowElapsed();
+        }
+        return !trialInFlight.get();
+    }
+
+    /**
+     * Claim permission for a call. In HALF_OPEN only the first caller wins.
+     */
+    public boolean allowRequest() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (!openWindowElapsed()) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        return trialInFlight.compareAndSet(false, true);
+    }
+
+    /**
+     * Record a successful call - closes the circuit
+     */
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        trialInFlight.set(false);
+        if (state != State.CLOSED) {
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * Record a failed call - may open (or re-open) the circuit
+     */
+    public void onFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state;
+
+        if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= failureThreshold)) {
+            openedAtMs = clock.millis();
+            trialInFlight.set(false);
+            transition(State.OPEN);
+        } else if (current == State.OPEN) {
+            // Probe failures while open push the retry window out
+            openedAtMs = clock.millis();
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    private boolean openWindowElapsed() {
+        return clock.millis() - openedAtMs >= openDurationMs;
+    }
+
+    private synchronized void transition(State next) {
+        State previous = state;
+        if (previous == next) {
+            return;
+        }
+        state = next;
+        if (next == State.OPEN) {
+            logger.warn("Circuit '{}' {} -> OPEN after {} consecutive failures", name, previous, consecutiveFailures.get());
+        } else {
+            logger.info("Circuit '{}' {} -> {}", name, previous, next);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.b3.service.llm;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HttpComponents request factory that enforces a hard total deadline per exchange.
+ *
+ * KEY DESIGN: Connect and read timeouts only bound individual socket waits -
+ * a model that trickles one token every few seconds never trips a read
+ * timeout and can hold a Tomcat worker indefinitely. Here every request gets
+ * a scheduled cancel() at totalTimeoutMs, which aborts the underlying
+ * connection wherever the exchange happens to be (pool wait, headers, or
+ * mid-body). The cancel is withdrawn as soon as the exchange ends - the
+ * response is closed or execute() fails - so finished requests do not sit in
+ * the deadline queue until they would have expired.
+ *
+ * The deadline thread is private to the factory: it is not a bean, so it
+ * never stands in for the application's @Scheduled task scheduler, and it
+ * only ever runs cancels. destroy() stops it and closes the pooled client.
+ */
+public class DeadlineClientHttpRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    private final long totalTimeoutMs;
+    private final ScheduledThreadPoolExecutor deadlineScheduler;
+
+    /** Hands the request created by createHttpUriRequest to createRequest on the same thread */
+    private final ThreadLocal<HttpUriRequestBase> created = new ThreadLocal<>();
+
+    public DeadlineClientHttpRequestFactory(HttpClient httpClient, long totalTimeoutMs, String provider) {
+        super(httpClient);
+        this.totalTimeoutMs = totalTimeoutMs;
+        this.deadlineScheduler = (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(1, runnable -> {
+            Thread thread = new Thread(runnable, "llm-http-deadline-" + provider);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.deadlineScheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+        ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+        if (totalTimeoutMs > 0 && request instanceof HttpUriRequestBase cancellable) {
+            created.set(cancellable);
+        }
+        return request;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        try {
+            ClientHttpRequest request = super.createRequest(uri, httpMethod);
+            HttpUriRequestBase exchange = created.get();
+            return exchange != null ? new DeadlineRequest(request, exchange) : request;
+        } finally {
+            created.remove();
+        }
+    }
+
+    /**
+     * Deadlines not yet fired or withdrawn (exchanges still in flight)
+     */
+    int pendingDeadlines() {
+        return deadlineScheduler.getQueue().size();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        deadlineScheduler.shutdownNow();
+        // Closes the pooled CloseableHttpClient and its connection manager
+        super.destroy();
+    }
+
+    // ========================================================================
+    // DEADLINE-BOUND EXCHANGE
+    // ========================================================================
+
+    /**
+     * Arms the deadline on execute() and withdraws it when the exchange ends
+     */
+    private final class DeadlineRequest implements ClientHttpRequest {
+
+        private final ClientHttpRequest delegate;
+        private final HttpUriRequestBase exchange;
+
+        DeadlineRequest(ClientHttpRequest delegate, HttpUriRequestBase exchange) {
+            this.delegate = delegate;
+            this.exchange = exchange;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            ScheduledFuture<?> deadline =
+                    deadlineScheduler.schedule(exchange::cancel, totalTimeoutMs, TimeUnit.MILLISECONDS);
+            try {
+                return new DeadlineResponse(delegate.execute(), deadline);
+            } catch (IOException | RuntimeException e) {
+                deadline.cancel(false);
+                throw e;
+            }
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return delegate.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return delegate.getURI();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return delegate.getAttributes();
+        }
+    }
+
+    private static final class DeadlineResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final ScheduledFuture<?> deadline;
+
+        DeadlineResponse(ClientHttpResponse delegate, ScheduledFuture<?> deadline) {
+            this.delegate = delegate;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public void close() {
+            deadline.cancel(false);
+            delegate.close();
+        }
+    }
+}
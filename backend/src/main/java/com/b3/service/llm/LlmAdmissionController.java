@@ -0,0 +1,344 @@
+package com.b3.service.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LlmAdmissionController - Concurrency limit + priority queue in front of a model server
+ *
+ * KEY DESIGN: Ollama only generates a few replies in parallel; anything
+ * beyond that just time-slices the same CPU and makes EVERY reply slow.
+ * So we hand out a fixed number of permits (= the server's parallelism)
+ * and make everyone else wait in a bounded priority queue:
+ * - INTERACTIVE waiters are always served before BACKGROUND ones (FIFO within a priority)
+ * - each priority has its own queue capacity, so background work can't crowd out chat
+ * - each priority has a max wait; past it the caller gets null and falls back
+ *   to keyword responses instead of hanging until a socket timeout
+ *
+ * acquire() parks the calling thread; acquireAsync() queues in the same
+ * line without holding a thread, for the reactive chat path.
+ *
+ * Metrics: llm.admission.queue.depth / in.flight (gauges),
+ * llm.admission.wait (timer, by outcome), llm.admission.rejected (counter, by reason).
+ */
+public class LlmAdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmAdmissionController.class);
+
+    private final String name;
+    private final int maxConcurrent;
+    private final Map<LlmPriority, Integer> queueCapacity;
+    private final Map<LlmPriority, Long> maxWaitMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+    private final Map<LlmPriority, Integer> queuedByPriority = new EnumMap<>(LlmPriority.class);
+    private int available;
+    private long sequence;
+
+    private final MeterRegistry meterRegistry;
+
+    public LlmAdmissionController(String name, int maxConcurrent,
+                                  Map<LlmPriority, Integer> queueCapacity,
+                                  Map<LlmPriority, Long> maxWaitMs,
+                                  MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.available = this.maxConcurrent;
+        this.queueCapacity = new EnumMap<>(queueCapacity);
+        this.maxWaitMs = new EnumMap<>(maxWaitMs);
+        this.meterRegistry = meterRegistry;
+
+        for (LlmPriority priority : LlmPriority.values()) {
+            queuedByPriority.put(priority, 0);
+            Gauge.builder("llm.admission.queue.depth", () -> getQueueDepth(priority))
+                    .tag("pool", name)
+                    .tag("priority", priority.name().toLowerCase())
+                    .description("Requests waiting for a model slot")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("llm.admission.in.flight", this::getInFlight)
+                .tag("pool", name)
+                .description("Requests currently holding a model slot")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Wait for a slot. Returns a Permit to close when the LLM call is done,
+     * or null if the queue is full or the max wait elapsed.
+     */
+    public Permit acquire(LlmPriority priority) {
+        long startNanos = System.nanoTime();
+
+        lock.lock();
+        try {
+            if (available > 0 && waiters.isEmpty()) {
+                available--;
+                recordWait(priority, "admitted", startNanos);
+                return new Permit();
+            }
+
+            int queued = queuedByPriority.get(priority);
+            if (queued >= queueCapacity.getOrDefault(priority, 0)) {
+                reject(priority, "queue_full");
+                return null;
+            }
+
+            Waiter waiter = new Waiter(priority, sequence++, startNanos, lock.newCondition(), null);
+            waiters.add(waiter);
+            queuedByPriority.put(priority, queued + 1);
+
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs.getOrDefault(priority, 0L));
+            try {
+                while (!waiter.granted && remainingNanos > 0) {
+                    remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.granted) {
+                    // Slot was handed over just as we were interrupted - pass it on
+                    release();
+                } else {
+                    dequeue(waiter);
+                }
+                recordWait(priority, "interrupted", startNanos);
+                return null;
+            }
+
+            if (waiter.granted) {
+                recordWait(priority, "admitted", startNanos);
+                return new Permit();
+            }
+
+            dequeue(waiter);
+            recordWait(priority, "timeout", startNanos);
+            reject(priority, "timeout");
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Non-blocking acquire. The future completes with a Permit once a slot is
+     * handed over, or with null if the queue is full or the max wait elapsed.
+     * Cancelling the future gives up the place in line (or the slot, if it
+     * was granted concurrently).
+     */
+    public CompletableFuture<Permit> acquireAsync(LlmPriority priority) {
+        long startNanos = System.nanoTime();
+        Waiter waiter;
+
+        lock.lock();
+        try {
+            if (available > 0 && waiters.isEmpty()) {
+                available--;
+                recordWait(priority, "admitted", startNanos);
+                return CompletableFuture.completedFuture(new Permit());
+            }
+
+            int queued = queuedByPriority.get(priority);
+            if (queued >= queueCapacity.getOrDefault(priority, 0)) {
+                reject(priority, "queue_full");
+                return CompletableFuture.completedFuture(null);
+            }
+
+            waiter = new Waiter(priority, sequence++, startNanos, null, new CompletableFuture<>());
+            waiters.add(waiter);
+            queuedByPriority.put(priority, queued + 1);
+        } finally {
+            lock.unlock();
+        }
+
+        CompletableFuture.delayedExecutor(maxWaitMs.getOrDefault(priority, 0L), TimeUnit.MILLISECONDS)
+                .execute(() -> expire(waiter));
+        waiter.future.whenComplete((permit, error) -> {
+            if (waiter.future.isCancelled()) {
+                abandon(waiter);
+            }
+        });
+        return waiter.future;
+    }
+
+    public int getQueueDepth(LlmPriority priority) {
+        lock.lock();
+        try {
+            return queuedByPriority.get(priority);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return maxConcurrent - available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    // ========================================================================
+    // INTERNALS
+    // ========================================================================
+
+    private void release() {
+        Waiter asyncWaiter = null;
+
+        lock.lock();
+        try {
+            while (true) {
+                Waiter next = waiters.poll();
+                if (next == null) {
+                    available++;
+                    break;
+                }
+                queuedByPriority.merge(next.priority, -1, Integer::sum);
+                if (next.future != null && next.future.isDone()) {
+                    // Async waiter already expired or was cancelled - skip it
+                    continue;
+                }
+                // Hand the slot straight to the next waiter - never back to the pool
+                next.granted = true;
+                if (next.future == null) {
+                    next.condition.signal();
+                } else {
+                    asyncWaiter = next;
+                }
+                break;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Complete outside the lock: dependents may run inline on this thread
+        if (asyncWaiter != null) {
+            recordWait(asyncWaiter.priority, "admitted", asyncWaiter.startNanos);
+            if (!asyncWaiter.future.complete(new Permit())) {
+                // Cancelled between the hand-over and here - pass the slot on
+                release();
+            }
+        }
+    }
+
+    private void expire(Waiter waiter) {
+        lock.lock();
+        try {
+            if (waiter.granted || waiter.future.isDone()) {
+                return;
+            }
+            dequeue(waiter);
+        } finally {
+            lock.unlock();
+        }
+
+        recordWait(waiter.priority, "timeout", waiter.startNanos);
+        reject(waiter.priority, "timeout");
+        waiter.future.complete(null);
+    }
+
+    private void abandon(Waiter waiter) {
+        lock.lock();
+        try {
+            if (!waiter.granted) {
+                dequeue(waiter);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dequeue(Waiter waiter) {
+        if (waiters.remove(waiter)) {
+            queuedByPriority.merge(waiter.priority, -1, Integer::sum);
+        }
+    }
+
+    private void recordWait(LlmPriority priority, String outcome, long startNanos) {
+        Timer.builder("llm.admission.wait")
+                .tag("pool", name)
+                .tag("priority", priority.name().toLowerCase())
+                .tag("outcome", outcome)
+                .description("Time spent waiting for a model slot")
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void reject(LlmPriority priority, String reason) {
+        logger.warn("LLM admission '{}' rejected {} request: {}", name, priority, reason);
+        Counter.builder("llm.admission.rejected")
+                .tag("pool", name)
+                .tag("priority", priority.name().toLowerCase())
+                .tag("reason", reason)
+                .description("Requests turned away by admission control")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * A queued caller: blocking waiters park on condition, async waiters hold a future
+     */
+    private static final class Waiter implements Comparable<Waiter> {
+        private final LlmPriority priority;
+        private final long sequence;
+        private final long startNanos;
+        private final Condition condition;
+        private final CompletableFuture<Permit> future;
+        private boolean granted;
+
+        private Waiter(LlmPriority priority, long sequence, long startNanos,
+                       Condition condition, CompletableFuture<Permit> future) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.startNanos = startNanos;
+            this.condition = condition;
+            this.future = future;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            int byPriority = Integer.compare(priority.ordinal(), other.priority.ordinal());
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * A held model slot. Closing it more than once, from any thread, is harmless.
+     */
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.b3.service.llm;
+
+import org.springframework.core.env.Environment;
+
+/**
+ * Connection pool and timeout settings for one LLM provider's HTTP client.
+ *
+ * Read from llm.http.{provider}.* so each provider can be tuned on its own:
+ *
+ *   llm.http.claude.max-connections=16
+ *   llm.http.ollama.connect-timeout-ms=2000
+ *   llm.http.ollama.read-timeout-ms=60000
+ *   llm.http.ollama.total-timeout-ms=120000
+ *   llm.http.ollama.pool-wait-timeout-ms=2000
+ *   llm.http.ollama.idle-evict-ms=30000
+ *
+ * - max-connections: pool size; each provider has one host, so it is also
+ *   the per-route limit. Ollama ignores it and derives both limits from
+ *   admission control instead (see withRouteLimit)
+ * - connect: TCP connect
+ * - read: max silence between bytes on the socket
+ * - total: hard deadline for the whole exchange, streamed bodies included
+ * - pool-wait: how long to wait for a free pooled connection before failing fast
+ * - idle-evict: pooled connections idle this long are closed in the background
+ */
+public record LlmHttpClientSettings(
+        String provider,
+        int maxConnections,
+        int maxConnectionsPerRoute,
+        long connectTimeoutMs,
+        long readTimeoutMs,
+        long totalTimeoutMs,
+        long poolWaitTimeoutMs,
+        long idleEvictMs
+) {
+
+    public static LlmHttpClientSettings from(Environment env, String provider, LlmHttpClientSettings defaults) {
+        String prefix = "llm.http." + provider + ".";
+        int maxConnections = env.getProperty(prefix + "max-connections", Integer.class, defaults.maxConnections());
+        return new LlmHttpClientSettings(
+                provider,
+                maxConnections,
+                maxConnections,
+                env.getProperty(prefix + "connect-timeout-ms", Long.class, defaults.connectTimeoutMs()),
+                env.getProperty(prefix + "read-timeout-ms", Long.class, defaults.readTimeoutMs()),
+                env.getProperty(prefix + "total-timeout-ms", Long.class, defaults.totalTimeoutMs()),
+                env.getProperty(prefix + "pool-wait-timeout-ms", Long.class, defaults.poolWaitTimeoutMs()),
+                env.getProperty(prefix + "idle-evict-ms", Long.class, defaults.idleEvictMs())
+        );
+    }
+
+    /**
+     * Same settings with perRoute connections to each of routes hosts, and
+     * perRoute * routes in total.
+     */
+    public LlmHttpClientSettings withRouteLimit(int perRoute, int routes) {
+        return new LlmHttpClientSettings(provider, perRoute * routes, perRoute, connectTimeoutMs,
+                readTimeoutMs, totalTimeoutMs, poolWaitTimeoutMs, idleEvictMs);
+    }
+}
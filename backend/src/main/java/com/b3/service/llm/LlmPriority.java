@@ -0,0 +1,14 @@
+package com.b3.service.llm;
+
+/**
+ * Scheduling priority for LLM work.
+ *
+ * INTERACTIVE - a user is waiting on the reply (/brix/chat)
+ * BACKGROUND  - nobody is waiting right now (trigger / pre-generated messages)
+ *
+ * Declaration order is priority order: lower ordinal is served first.
+ */
+public enum LlmPriority {
+    INTERACTIVE,
+    BACKGROUND
+}
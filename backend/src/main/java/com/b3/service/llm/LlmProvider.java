@@ -0,0 +1,33 @@
+package com.b3.service.llm;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A model backend the LlmRouter can send BRIX prompts to.
+ *
+ * Contract for generate(): emit the reply text, or complete EMPTY on any
+ * failure (timeout, open breaker, HTTP error, blank reply). Providers never
+ * signal errors - the router treats empty as "failed, try someone else".
+ * Cancellation must be honored: a hedged request that loses is cancelled.
+ */
+public interface LlmProvider {
+
+    /**
+     * Stable name used in config (llm.router.providers) and metric tags
+     */
+    String name();
+
+    /**
+     * Model this provider is currently answering with, for metric tags
+     */
+    default String model() {
+        return name();
+    }
+
+    /**
+     * Whether this provider is configured and worth trying right now
+     */
+    boolean isAvailable();
+
+    Mono<String> generate(LlmRequest request);
+}
@@ -0,0 +1,48 @@
+package com.b3.service.llm;
+
+import java.util.List;
+
+/**
+ * One prompt for whichever provider the router picks.
+ *
+ * systemPrompt - the full BRIX system prompt (see BrixPromptBuilder)
+ * userMessage  - what the user typed
+ * priority     - INTERACTIVE requests may be hedged, BACKGROUND never are
+ * affinityKey  - keeps one user on one model server (profile id), or null
+ * history      - earlier turns, oldest first, sent before userMessage (may be empty)
+ * purpose      - what the prompt is for ("user_chat", "app_open", "summary"), a metric tag
+ */
+public record LlmRequest(String systemPrompt, String userMessage, LlmPriority priority, String affinityKey,
+                         List<ChatTurn> history, String purpose) {
+
+    public static final String UNSPECIFIED_PURPOSE = "unspecified";
+
+    public LlmRequest {
+        history = history != null ? List.copyOf(history) : List.of();
+        purpose = purpose != null ? purpose : UNSPECIFIED_PURPOSE;
+    }
+
+    public LlmRequest(String systemPrompt, String userMessage, LlmPriority priority, String affinityKey) {
+        this(systemPrompt, userMessage, priority, affinityKey, List.of(), null);
+    }
+
+    public static LlmRequest interactive(String systemPrompt, String userMessage) {
+        return interactive(systemPrompt, userMessage, null);
+    }
+
+    public static LlmRequest interactive(String systemPrompt, String userMessage, String affinityKey) {
+        return new LlmRequest(systemPrompt, userMessage, LlmPriority.INTERACTIVE, affinityKey);
+    }
+
+    public static LlmRequest background(String systemPrompt, String userMessage) {
+        return new LlmRequest(systemPrompt, userMessage, LlmPriority.BACKGROUND, null);
+    }
+
+    public LlmRequest withHistory(List<ChatTurn> history) {
+        return new LlmRequest(systemPrompt, userMessage, priority, affinityKey, history, purpose);
+    }
+
+    public LlmRequest withPurpose(String purpose) {
+        return new LlmRequest(systemPrompt, userMessage, priority, affinityKey, history, purpose);
+    }
+}
@@ -0,0 +1,260 @@
+package com.b3.service.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LlmRouter - Sends each BRIX prompt to the fastest healthy provider
+ *
+ * KEY DESIGN: Latency-aware routing with hedged requests.
+ * - Every call's latency and outcome feeds a rolling window per provider
+ *   (ProviderStats). A provider is unhealthy once it has enough recent
+ *   samples and its error rate is above llm.router.max-error-rate.
+ * - Healthy providers are ranked by recent p50 latency. A provider without
+ *   enough samples yet ranks first if it is the preferred one (first in
+ *   llm.router.providers - the local, free model) and last otherwise, so
+ *   the paid API only takes over once it has shown it is actually faster.
+ * - Hedging: if the primary hasn't answered by its own p95, an INTERACTIVE
+ *   request is also sent to the runner-up and whichever answers first wins;
+ *   the loser is cancelled. Only the slowest ~5% of requests pay for a second
+ *   call, and those are exactly the ones where the user is waiting longest.
+ *   Hedge calls are also how a non-preferred provider earns its samples.
+ * - If the primary fails outright (empty), the runner-up is tried at once.
+ *
+ * Metrics: llm.router.latency (timer, by provider + model + trigger + outcome),
+ * llm.errors (counter, failed calls by provider + model + trigger),
+ * llm.router.hedges (counter, by primary), llm.router.hedge.wins (counter,
+ * by the provider that answered the hedge first).
+ */
+@Component
+public class LlmRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmRouter.class);
+
+    private final List<LlmProvider> providers;
+    private final Map<String, ProviderStats> stats = new LinkedHashMap<>();
+    private final int minSamples;
+    private final double maxErrorRate;
+    private final boolean hedgeEnabled;
+    private final Duration defaultHedgeDelay;
+    private final long minHedgeDelayNanos;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public LlmRouter(List<LlmProvider> providers,
+                     MeterRegistry meterRegistry,
+                     @Value("${llm.router.providers:ollama,claude}") String providerOrder,
+                     @Value("${llm.router.window-size:100}") int windowSize,
+                     @Value("${llm.router.window-ms:300000}") long windowMs,
+                     @Value("${llm.router.min-samples:10}") int minSamples,
+                     @Value("${llm.router.max-error-rate:0.5}") double maxErrorRate,
+                     @Value("${llm.router.hedge.enabled:true}") boolean hedgeEnabled,
+                     @Value("${llm.router.hedge.default-delay-ms:5000}") long defaultHedgeDelayMs,
+                     @Value("${llm.router.hedge.min-delay-ms:250}") long minHedgeDelayMs) {
+        this(providers, meterRegistry, providerOrder, windowSize, windowMs, minSamples, maxErrorRate,
+                hedgeEnabled, defaultHedgeDelayMs, minHedgeDelayMs, Clock.systemUTC());
+    }
+
+    LlmRouter(List<LlmProvider> providers, MeterRegistry meterRegistry, String providerOrder,
+              int windowSize, long windowMs, int minSamples, double maxErrorRate,
+              boolean hedgeEnabled, long defaultHedgeDelayMs, long minHedgeDelayMs, Clock clock) {
+        this.providers = orderProviders(providers, providerOrder);
+        this.meterRegistry = meterRegistry;
+        this.minSamples = Math.max(1, minSamples);
+        this.maxErrorRate = maxErrorRate;
+        this.hedgeEnabled = hedgeEnabled;
+        this.defaultHedgeDelay = Duration.ofMillis(defaultHedgeDelayMs);
+        this.minHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMs);
+
+        for (LlmProvider provider : this.providers) {
+            stats.put(provider.name(), new ProviderStats(Math.max(1, windowSize), windowMs, clock));
+        }
+        logger.info("LLM router providers (preferred first): {}",
+                this.providers.stream().map(LlmProvider::name).toList());
+    }
+
+    /**
+     * Whether any provider could take a request right now
+     */
+    public boolean hasAvailableProvider() {
+        return providers.stream().anyMatch(LlmProvider::isAvailable);
+    }
+
+    /**
+     * Route one request. Emits the first reply, or completes empty when every
+     * provider failed (the caller falls back to keyword responses).
+     */
+    public Mono<String> generate(LlmRequest request) {
+        return Mono.defer(() -> {
+            List<Candidate> ranked = rank();
+            if (ranked.isEmpty()) {
+                return Mono.empty();
+            }
+
+            Candidate primary = ranked.get(0);
+            if (ranked.size() == 1) {
+                return call(primary.provider(), request, false);
+            }
+
+            Candidate runnerUp = ranked.get(1);
+            if (!hedgeEnabled || request.priority() != LlmPriority.INTERACTIVE || !runnerUp.healthy()) {
+                return call(primary.provider(), request, false)
+                        .switchIfEmpty(Mono.defer(() -> call(runnerUp.provider(), request, false)));
+            }
+            return hedged(primary, runnerUp, request);
+        });
+    }
+
+    // ========================================================================
+    // ROUTING
+    // ========================================================================
+
+    /**
+     * Primary now; runner-up as soon as the primary fails or passes its p95
+     */
+    private Mono<String> hedged(Candidate primary, Candidate runnerUp, LlmRequest request) {
+        Duration delay = hedgeDelay(primary.snapshot());
+        Sinks.Empty<Void> primaryFinished = Sinks.empty();
+
+        Mono<String> primaryCall = call(primary.provider(), request, true)
+                .doFinally(signal -> primaryFinished.tryEmitEmpty());
+
+        Mono<String> hedgeCall = Mono.firstWithSignal(Mono.delay(delay).then(), primaryFinished.asMono())
+                .then(Mono.defer(() -> {
+                    logger.debug("Hedging {} -> {} after {} ms", primary.provider().name(),
+                            runnerUp.provider().name(), delay.toMillis());
+                    counter("llm.router.hedges", "primary", primary.provider().name()).increment();
+                    return call(runnerUp.provider(), request, false);
+                }))
+                .doOnNext(reply -> counter("llm.router.hedge.wins", "provider",
+                        runnerUp.provider().name()).increment());
+
+        return Mono.firstWithValue(primaryCall, hedgeCall)
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * One provider call, feeding its outcome into the provider's stats.
+     *
+     * recordIfCancelled: a primary that loses a hedge is cancelled, but it
+     * was at least that slow - record the elapsed time as a (censored)
+     * latency sample, otherwise a slow preferred provider that always loses
+     * would never collect samples and would stay primary forever. A cancelled
+     * hedge call is NOT recorded: it was cut short, not slow.
+     */
+    private Mono<String> call(LlmProvider provider, LlmRequest request, boolean recordIfCancelled) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            Mono<String> reply = provider.generate(request)
+                    .filter(text -> !text.isBlank())
+                    .onErrorResume(e -> {
+                        logger.warn("LLM provider {} failed: {}", provider.name(), e.getMessage());
+                        return Mono.empty();
+                    })
+                    // Fires for a reply or an empty completion, not on cancel
+                    .doOnSuccess(text -> record(provider, request, System.nanoTime() - started, text != null));
+            return recordIfCancelled
+                    ? reply.doOnCancel(() -> record(provider, request, System.nanoTime() - started, true))
+                    : reply;
+        });
+    }
+
+    private void record(LlmProvider provider, LlmRequest request, long nanos, boolean succeeded) {
+        stats.get(provider.name()).record(nanos, succeeded);
+        String model = provider.model();
+        if (!succeeded) {
+            Counter.builder("llm.errors")
+                    .tag("provider", provider.name())
+                    .tag("model", model)
+                    .tag("trigger", request.purpose())
+                    .description("LLM calls that failed or came back empty")
+                    .register(meterRegistry)
+                    .increment();
+        }
+        Timer.builder("llm.router.latency")
+                .tag("provider", provider.name())
+                .tag("model", model)
+                .tag("trigger", request.purpose())
+                .tag("outcome", succeeded ? "success" : "failure")
+                .description("LLM call latency as seen by the router")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Available providers: healthy before unhealthy, then fastest first
+     */
+    List<Candidate> rank() {
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < providers.size(); i++) {
+            LlmProvider provider = providers.get(i);
+            if (!provider.isAvailable()) {
+                continue;
+            }
+
+            ProviderStats.Snapshot snapshot = stats.get(provider.name()).snapshot();
+            boolean healthy = snapshot.samples() < minSamples || snapshot.errorRate() <= maxErrorRate;
+            long estimate;
+            if (snapshot.successes() >= minSamples) {
+                estimate = snapshot.p50Nanos();
+            } else {
+                estimate = i == 0 ? 0 : Long.MAX_VALUE;
+            }
+            candidates.add(new Candidate(provider, snapshot, healthy, estimate));
+        }
+
+        // Stable sort: ties keep the configured order
+        candidates.sort(Comparator.comparing((Candidate c) -> !c.healthy())
+                .thenComparingLong(Candidate::estimatedNanos));
+        return candidates;
+    }
+
+    private Duration hedgeDelay(ProviderStats.Snapshot snapshot) {
+        if (snapshot.successes() < minSamples) {
+            return defaultHedgeDelay;
+        }
+        return Duration.ofNanos(Math.max(minHedgeDelayNanos, snapshot.p95Nanos()));
+    }
+
+    private Counter counter(String name, String tag, String value) {
+        return Counter.builder(name).tag(tag, value).register(meterRegistry);
+    }
+
+    private static List<LlmProvider> orderProviders(List<LlmProvider> providers, String providerOrder) {
+        List<String> order = Arrays.stream(providerOrder.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+
+        List<LlmProvider> ordered = new ArrayList<>();
+        for (String name : order) {
+            providers.stream()
+                    .filter(p -> p.name().equals(name))
+                    .findFirst()
+                    .ifPresentOrElse(ordered::add,
+                            () -> logger.warn("llm.router.providers lists unknown provider '{}'", name));
+        }
+        return List.copyOf(ordered);
+    }
+
+    record Candidate(LlmProvider provider, ProviderStats.Snapshot snapshot, boolean healthy, long estimatedNanos) {
+    }
+}
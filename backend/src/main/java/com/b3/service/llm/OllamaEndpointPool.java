@@ -0,0 +1,336 @@
+package com.b3.service.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OllamaEndpointPool - Spreads Ollama calls over several model boxes
+ *
+ * KEY DESIGN: Least-outstanding-requests balancing with soft stickiness.
+ * - Each endpoint counts its in-flight calls; a new call goes to the
+ *   admitted endpoint with the fewest (random among ties). Generation time
+ *   varies 10x between replies, so "fewest in flight" beats round robin.
+ * - Calls carrying an affinity key (the profile id) prefer the endpoint
+ *   chosen by rendezvous hashing, so the same user keeps landing on the box
+ *   that already holds their prompt prefix in its KV cache. Stickiness is
+ *   dropped when that box is more than ollama.pool.sticky-max-imbalance
+ *   calls busier than the least loaded one - a warm cache isn't worth a queue.
+ *   Rendezvous hashing only moves the users of an endpoint that leaves.
+ * - Health: every endpoint has its own CircuitBreaker. Consecutive failures
+ *   eject it (OPEN); it is re-admitted after a successful half-open trial,
+ *   normally the background health probe. Only when no endpoint is admitted
+ *   do user requests serve as the half-open trial.
+ *
+ * Configured with ollama.api.urls (comma separated); defaults to the single
+ * ollama.api.url.
+ *
+ * Metrics per endpoint: ollama.endpoint.in.flight, ollama.endpoint.admitted
+ * (gauges), ollama.endpoint.latency (timer, by outcome),
+ * ollama.endpoint.ejections and ollama.endpoint.selections (by reason).
+ */
+@Component
+public class OllamaEndpointPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(OllamaEndpointPool.class);
+
+    private final List<Endpoint> endpoints;
+    private final int stickyMaxImbalance;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public OllamaEndpointPool(MeterRegistry meterRegistry,
+                              @Value("${ollama.api.urls:${ollama.api.url:http://localhost:11434}}") String urls,
+                              @Value("${ollama.circuit.failure-threshold:3}") int failureThreshold,
+                              @Value("${ollama.circuit.open-duration-ms:30000}") long openDurationMs,
+                              @Value("${ollama.pool.sticky-max-imbalance:2}") int stickyMaxImbalance) {
+        this(meterRegistry, urls, failureThreshold, openDurationMs, stickyMaxImbalance, Clock.systemUTC());
+    }
+
+    OllamaEndpointPool(MeterRegistry meterRegistry, String urls, int failureThreshold,
+                       long openDurationMs, int stickyMaxImbalance, Clock clock) {
+        this.meterRegistry = meterRegistry;
+        this.stickyMaxImbalance = Math.max(0, stickyMaxImbalance);
+
+        List<Endpoint> parsed = new ArrayList<>();
+        for (String url : Arrays.stream(urls.split(",")).map(String::trim).distinct().toList()) {
+            if (url.isEmpty()) {
+                continue;
+            }
+            String base = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+            parsed.add(new Endpoint(base, new CircuitBreaker("ollama@" + tagOf(base),
+                    failureThreshold, openDurationMs, clock)));
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("ollama.api.urls must list at least one endpoint");
+        }
+        this.endpoints = List.copyOf(parsed);
+
+        for (Endpoint endpoint : endpoints) {
+            Gauge.builder("ollama.endpoint.in.flight", endpoint.inFlight, AtomicInteger::get)
+                    .tag("endpoint", endpoint.tag)
+                    .description("Ollama calls currently running on this endpoint")
+                    .register(meterRegistry);
+            Gauge.builder("ollama.endpoint.admitted", endpoint,
+                            e -> e.breaker.getState() == CircuitBreaker.State.CLOSED ? 1 : 0)
+                    .tag("endpoint", endpoint.tag)
+                    .description("1 while the endpoint is in rotation, 0 while ejected")
+                    .register(meterRegistry);
+        }
+        logger.info("Ollama endpoint pool: {}", endpoints.stream().map(Endpoint::url).toList());
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public int size() {
+        return endpoints.size();
+    }
+
+    /**
+     * Cheap read-only check: could a call go anywhere right now?
+     */
+    public boolean hasAvailableEndpoint() {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.breaker.isCallPermitted()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pick an endpoint and count the call against it, or null if every
+     * endpoint is ejected. The lease MUST be closed.
+     *
+     * @param affinityKey sticky routing key (profile id), or null for none
+     */
+    public Lease acquire(String affinityKey) {
+        Endpoint leastLoaded = null;
+        int leastInFlight = Integer.MAX_VALUE;
+        int ties = 0;
+        Endpoint sticky = null;
+        long stickyScore = Long.MIN_VALUE;
+        long keyHash = affinityKey != null ? mix64(affinityKey.hashCode() * 0x9E3779B97F4A7C15L) : 0;
+
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.breaker.getState() != CircuitBreaker.State.CLOSED) {
+                continue;
+            }
+            int inFlight = endpoint.inFlight.get();
+            if (inFlight < leastInFlight) {
+                leastLoaded = endpoint;
+                leastInFlight = inFlight;
+                ties = 1;
+            } else if (inFlight == leastInFlight && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                leastLoaded = endpoint;
+            }
+            if (affinityKey != null) {
+                long score = mix64(keyHash ^ endpoint.seed);
+                if (score > stickyScore) {
+                    stickyScore = score;
+                    sticky = endpoint;
+                }
+            }
+        }
+
+        if (leastLoaded == null) {
+            return trialLease();
+        }
+        if (sticky != null && sticky.inFlight.get() - leastInFlight <= stickyMaxImbalance) {
+            return lease(sticky, "sticky");
+        }
+        return lease(leastLoaded, "least-outstanding");
+    }
+
+    /**
+     * Nothing admitted: let one half-open trial through, if any endpoint is due one
+     */
+    private Lease trialLease() {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.breaker.allowRequest()) {
+                return lease(endpoint, "trial");
+            }
+        }
+        return null;
+    }
+
+    private Lease lease(Endpoint endpoint, String reason) {
+        endpoint.inFlight.incrementAndGet();
+        Counter.builder("ollama.endpoint.selections")
+                .tag("endpoint", endpoint.tag)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        return new Lease(endpoint);
+    }
+
+    /**
+     * Feed a health probe result into the endpoint's breaker
+     */
+    public void recordProbe(Endpoint endpoint, boolean healthy) {
+        if (healthy) {
+            endpoint.succeeded();
+        } else {
+            endpoint.failed();
+        }
+    }
+
+    /**
+     * e.g. "2/3 admitted" - for health logging
+     */
+    public String describe() {
+        long admitted = endpoints.stream()
+                .filter(e -> e.breaker.getState() == CircuitBreaker.State.CLOSED)
+                .count();
+        return admitted + "/" + endpoints.size() + " admitted";
+    }
+
+    // ========================================================================
+    // ENDPOINT + LEASE
+    // ========================================================================
+
+    /**
+     * One Ollama server
+     */
+    public final class Endpoint {
+
+        private final String url;
+        private final String tag;
+        private final long seed;
+        private final CircuitBreaker breaker;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        private Endpoint(String url, CircuitBreaker breaker) {
+            this.url = url;
+            this.tag = tagOf(url);
+            this.seed = mix64(url.hashCode());
+            this.breaker = breaker;
+        }
+
+        public String url() {
+            return url;
+        }
+
+        public CircuitBreaker.State getState() {
+            return breaker.getState();
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        private void succeeded() {
+            CircuitBreaker.State before = breaker.getState();
+            breaker.onSuccess();
+            if (before != CircuitBreaker.State.CLOSED) {
+                logger.info("Ollama endpoint {} re-admitted", url);
+            }
+        }
+
+        private void failed() {
+            CircuitBreaker.State before = breaker.getState();
+            breaker.onFailure();
+            if (before != CircuitBreaker.State.OPEN && breaker.getState() == CircuitBreaker.State.OPEN) {
+                logger.warn("Ollama endpoint {} ejected after {} consecutive failures",
+                        url, breaker.getConsecutiveFailures());
+                Counter.builder("ollama.endpoint.ejections")
+                        .tag("endpoint", tag)
+                        .description("Times the endpoint was taken out of rotation")
+                        .register(meterRegistry)
+                        .increment();
+            }
+        }
+    }
+
+    /**
+     * One call's claim on an endpoint. The in-flight slot is held until
+     * close(); success()/failure() judge the endpoint (breaker + latency)
+     * and only the first of them counts - for a stream that is the first
+     * token, after which a client hanging up is not the endpoint's fault.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Endpoint endpoint;
+        private final long startedNanos = System.nanoTime();
+        private final AtomicBoolean judged = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String url() {
+            return endpoint.url;
+        }
+
+        public Endpoint endpoint() {
+            return endpoint;
+        }
+
+        public void success() {
+            if (judge("success")) {
+                endpoint.succeeded();
+            }
+        }
+
+        public void failure() {
+            if (judge("failure")) {
+                endpoint.failed();
+            }
+        }
+
+        /**
+         * Give the in-flight slot back. Safe to call more than once.
+         */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                endpoint.inFlight.decrementAndGet();
+            }
+        }
+
+        private boolean judge(String outcome) {
+            if (!judged.compareAndSet(false, true)) {
+                return false;
+            }
+            Timer.builder("ollama.endpoint.latency")
+                    .tag("endpoint", endpoint.tag)
+                    .tag("outcome", outcome)
+                    .description("Ollama call latency per endpoint (first token for streams)")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+            return true;
+        }
+    }
+
+    private static String tagOf(String url) {
+        int scheme = url.indexOf("://");
+        return scheme >= 0 ? url.substring(scheme + 3) : url;
+    }
+
+    /**
+     * SplitMix64 finalizer - spreads String.hashCode bits over the whole long
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
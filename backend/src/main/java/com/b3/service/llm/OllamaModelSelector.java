@@ -0,0 +1,211 @@
+package com.b3.service.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OllamaModelSelector - Drops to a smaller model while Ollama is overloaded
+ *
+ * KEY DESIGN: Degrade quality before latency. When the interactive queue
+ * backs up or the main model's recent p95 crosses a threshold, new requests
+ * go to ollama.downshift.model (e.g. a 1B variant) with a shorter
+ * num_predict - a slightly plainer BRIX reply in 2s beats a great one in 20s.
+ *
+ * Hysteresis so it doesn't flap:
+ * - separate enter (high) and exit (low) thresholds for queue depth and p95
+ * - ollama.downshift.min-dwell-ms must pass between any two switches
+ * - latency is tracked per model, and the main model's window is reset when
+ *   we switch back, so it is judged on fresh samples rather than the ones
+ *   that triggered the downshift
+ *
+ * Exit needs a short queue AND a healthy small-model p95: the small model's
+ * latency is what users see while downshifted.
+ *
+ * Evaluated lazily on the request path, at most every evaluate-interval-ms.
+ * Metrics: ollama.model.switches (counter, by from/to), ollama.model.downshifted (gauge 0/1).
+ */
+@Component
+public class OllamaModelSelector {
+
+    private static final Logger logger = LoggerFactory.getLogger(OllamaModelSelector.class);
+
+    /**
+     * Model + response cap to put in the next /api/chat request
+     */
+    public record ModelChoice(String model, int numPredict, boolean downshifted) {
+    }
+
+    private final ModelChoice primary;
+    private final ModelChoice fallback;
+    private final boolean enabled;
+    private final int queueDepthHigh;
+    private final int queueDepthLow;
+    private final long latencyHighNanos;
+    private final long latencyLowNanos;
+    private final int minSamples;
+    private final long minDwellMs;
+    private final long evaluateIntervalMs;
+    private final LlmAdmissionController admissionController;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+
+    private volatile ProviderStats primaryStats;
+    private final ProviderStats fallbackStats;
+    private volatile ModelChoice current;
+    private volatile long lastSwitchMs;
+    private final AtomicLong nextEvaluationMs = new AtomicLong();
+
+    @Autowired
+    public OllamaModelSelector(@Qualifier("ollamaAdmissionController") LlmAdmissionController admissionController,
+                               MeterRegistry meterRegistry,
+                               @Value("${ollama.model:llama3.2}") String model,
+                               @Value("${ollama.num-predict:300}") int numPredict,
+                               @Value("${ollama.downshift.enabled:false}") boolean enabled,
+                               @Value("${ollama.downshift.model:llama3.2:1b}") String downshiftModel,
+                               @Value("${ollama.downshift.num-predict:150}") int downshiftNumPredict,
+                               @Value("${ollama.downshift.queue-depth-high:8}") int queueDepthHigh,
+                               @Value("${ollama.downshift.queue-depth-low:2}") int queueDepthLow,
+                               @Value("${ollama.downshift.latency-high-ms:8000}") long latencyHighMs,
+                               @Value("${ollama.downshift.latency-low-ms:4000}") long latencyLowMs,
+                               @Value("${ollama.downshift.min-dwell-ms:60000}") long minDwellMs) {
+        this(admissionController, meterRegistry, model, numPredict, enabled, downshiftModel, downshiftNumPredict,
+                queueDepthHigh, queueDepthLow, latencyHighMs, latencyLowMs, minDwellMs, 500, Clock.systemUTC());
+    }
+
+    OllamaModelSelector(LlmAdmissionController admissionController, MeterRegistry meterRegistry,
+                        String model, int numPredict, boolean enabled,
+                        String downshiftModel, int downshiftNumPredict,
+                        int queueDepthHigh, int queueDepthLow, long latencyHighMs, long latencyLowMs,
+                        long minDwellMs, long evaluateIntervalMs, Clock clock) {
+        this.admissionController = admissionController;
+        this.meterRegistry = meterRegistry;
+        this.primary = new ModelChoice(model, numPredict, false);
+        this.fallback = new ModelChoice(downshiftModel, downshiftNumPredict, true);
+        this.enabled = enabled && !downshiftModel.equals(model);
+        this.queueDepthHigh = queueDepthHigh;
+        this.queueDepthLow = Math.min(queueDepthLow, queueDepthHigh);
+        this.latencyHighNanos = TimeUnit.MILLISECONDS.toNanos(latencyHighMs);
+        this.latencyLowNanos = TimeUnit.MILLISECONDS.toNanos(Math.min(latencyLowMs, latencyHighMs));
+        this.minSamples = 5;
+        this.minDwellMs = minDwellMs;
+        this.evaluateIntervalMs = evaluateIntervalMs;
+        this.clock = clock;
+
+        this.primaryStats = newStats();
+        this.fallbackStats = newStats();
+        this.current = primary;
+        this.lastSwitchMs = clock.millis() - minDwellMs;
+
+        Gauge.builder("ollama.model.downshifted", this, s -> s.current.downshifted() ? 1 : 0)
+                .description("1 while BRIX is answering with the smaller downshift model")
+                .register(meterRegistry);
+
+        if (this.enabled) {
+            logger.info("Ollama model downshift enabled: {} -> {} (num_predict {} -> {})",
+                    model, downshiftModel, numPredict, downshiftNumPredict);
+        }
+    }
+
+    /**
+     * Model for the next request
+     */
+    public ModelChoice current() {
+        if (enabled) {
+            long now = clock.millis();
+            long next = nextEvaluationMs.get();
+            if (now >= next && nextEvaluationMs.compareAndSet(next, now + evaluateIntervalMs)) {
+                evaluate(now);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Model in use right now, without re-evaluating load (for metric tags)
+     */
+    public String activeModel() {
+        return current.model();
+    }
+
+    /**
+     * Every model a request may use - all of them should be kept warm
+     */
+    public List<String> models() {
+        return enabled ? List.of(primary.model(), fallback.model()) : List.of(primary.model());
+    }
+
+    /**
+     * Feed one finished Ollama call (wall-clock, admission wait excluded)
+     */
+    public void recordLatency(ModelChoice choice, long nanos, boolean succeeded) {
+        (choice.downshifted() ? fallbackStats : primaryStats).record(nanos, succeeded);
+    }
+
+    // ========================================================================
+    // SWITCHING
+    // ========================================================================
+
+    private synchronized void evaluate(long now) {
+        if (now - lastSwitchMs < minDwellMs) {
+            return;
+        }
+
+        int queueDepth = admissionController.getQueueDepth(LlmPriority.INTERACTIVE);
+
+        if (!current.downshifted()) {
+            long p95 = p95(primaryStats);
+            if (queueDepth >= queueDepthHigh || p95 >= latencyHighNanos) {
+                switchTo(fallback, now, queueDepth, p95);
+            }
+        } else {
+            long p95 = p95(fallbackStats);
+            if (queueDepth <= queueDepthLow && p95 <= latencyLowNanos) {
+                primaryStats = newStats();
+                switchTo(primary, now, queueDepth, p95);
+            }
+        }
+    }
+
+    private void switchTo(ModelChoice target, long now, int queueDepth, long p95Nanos) {
+        ModelChoice from = current;
+        current = target;
+        lastSwitchMs = now;
+
+        String reason = String.format("queue depth %d, p95 %d ms", queueDepth, TimeUnit.NANOSECONDS.toMillis(p95Nanos));
+        if (target.downshifted()) {
+            logger.warn("Ollama under load ({}) - downshifting {} -> {}", reason, from.model(), target.model());
+        } else {
+            logger.info("Ollama load recovered ({}) - restoring {} -> {}", reason, from.model(), target.model());
+        }
+        Counter.builder("ollama.model.switches")
+                .tag("from", from.model())
+                .tag("to", target.model())
+                .description("Adaptive model switches")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Recent p95, or 0 until there are enough successful samples to trust it
+     */
+    private long p95(ProviderStats stats) {
+        ProviderStats.Snapshot snapshot = stats.snapshot();
+        return snapshot.successes() >= minSamples ? snapshot.p95Nanos() : 0;
+    }
+
+    private ProviderStats newStats() {
+        return new ProviderStats(200, 60_000, clock);
+    }
+}
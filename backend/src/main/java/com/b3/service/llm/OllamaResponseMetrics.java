@@ -0,0 +1,112 @@
+package com.b3.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OllamaResponseMetrics - Splits Ollama's own timings into load vs generation
+ *
+ * KEY DESIGN: Every final Ollama response carries nanosecond timings:
+ * load_duration (getting the model into memory), prompt_eval_duration
+ * (reading the prompt) and eval_duration (generating tokens). Wall-clock
+ * latency lumps these together; recorded separately, a cold start shows up
+ * as a load_duration spike instead of a mysteriously slow reply.
+ *
+ * The token counts come along too: prompt_eval_count (prompt tokens, as the
+ * model's tokenizer counts them) and eval_count (generated tokens). Divided
+ * by eval_duration, the latter gives decode throughput - the number that
+ * drops first when a box is overloaded or a model is too big for it.
+ *
+ * Timers: ollama.model.load, ollama.prompt.eval, ollama.generation (tagged
+ * model + source: chat / warmup / keepalive), plus ollama.model.cold.starts
+ * whenever load_duration exceeds ollama.cold-start-threshold-ms.
+ * Summaries: ollama.prompt.tokens, ollama.completion.tokens,
+ * ollama.tokens.per.second (same tags).
+ */
+@Component
+public class OllamaResponseMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(OllamaResponseMetrics.class);
+
+    private final MeterRegistry meterRegistry;
+    private final long coldStartThresholdNanos;
+
+    public OllamaResponseMetrics(MeterRegistry meterRegistry,
+                                 @Value("${ollama.cold-start-threshold-ms:1000}") long coldStartThresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.coldStartThresholdNanos = TimeUnit.MILLISECONDS.toNanos(coldStartThresholdMs);
+    }
+
+    /**
+     * Record the timings from a final ("done": true) Ollama response body
+     */
+    public void record(JsonNode body, String source) {
+        if (body == null || !body.path("done").asBoolean(true)) {
+            return;
+        }
+
+        String model = body.path("model").asText("unknown");
+        long loadNanos = body.path("load_duration").asLong(0);
+
+        timer("ollama.model.load", "Time Ollama spent loading the model", model, source, loadNanos);
+        timer("ollama.prompt.eval", "Time Ollama spent evaluating the prompt", model, source,
+                body.path("prompt_eval_duration").asLong(0));
+        timer("ollama.generation", "Time Ollama spent generating tokens", model, source,
+                body.path("eval_duration").asLong(0));
+
+        long promptTokens = body.path("prompt_eval_count").asLong(0);
+        long completionTokens = body.path("eval_count").asLong(0);
+        long evalNanos = body.path("eval_duration").asLong(0);
+        if (promptTokens > 0) {
+            summary("ollama.prompt.tokens", "Prompt tokens per request", "tokens", model, source, promptTokens);
+        }
+        if (completionTokens > 0) {
+            summary("ollama.completion.tokens", "Generated tokens per request", "tokens", model, source,
+                    completionTokens);
+            if (evalNanos > 0) {
+                summary("ollama.tokens.per.second", "Decode throughput", "tokens/s", model, source,
+                        completionTokens * 1e9 / evalNanos);
+            }
+        }
+
+        if (loadNanos > coldStartThresholdNanos) {
+            logger.warn("Ollama cold start: {} took {} ms to load ({})", model,
+                    TimeUnit.NANOSECONDS.toMillis(loadNanos), source);
+            Counter.builder("ollama.model.cold.starts")
+                    .tag("model", model)
+                    .tag("source", source)
+                    .description("Requests that paid for loading the model")
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private void summary(String name, String description, String unit, String model, String source,
+                         double amount) {
+        DistributionSummary.builder(name)
+                .tag("model", model)
+                .tag("source", source)
+                .description(description)
+                .baseUnit(unit)
+                .register(meterRegistry)
+                .record(amount);
+    }
+
+    private void timer(String name, String description, String model, String source, long nanos) {
+        Timer.builder(name)
+                .tag("model", model)
+                .tag("source", source)
+                .description(description)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
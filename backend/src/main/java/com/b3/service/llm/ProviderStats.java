@@ -0,0 +1,80 @@
+package com.b3.service.llm;
+
+import java.time.Clock;
+import java.util.Arrays;
+
+/**
+ * ProviderStats - Rolling latency and error rate for one LLM provider
+ *
+ * KEY DESIGN: Fixed-size ring of the most recent calls (latency + success),
+ * each stamped with when it finished. Samples older than the time window are
+ * ignored, so a provider that had a bad five minutes recovers its standing
+ * once those calls age out instead of being judged on them forever.
+ * Percentiles are computed over successful calls only; failures count
+ * toward the error rate.
+ */
+class ProviderStats {
+
+    /**
+     * Point-in-time view used by the router for one routing decision
+     */
+    record Snapshot(int samples, int successes, double errorRate, long p50Nanos, long p95Nanos) {
+    }
+
+    private final long[] latencyNanos;
+    private final boolean[] success;
+    private final long[] finishedAtMs;
+    private final long windowMs;
+    private final Clock clock;
+    private int next;
+    private int size;
+
+    ProviderStats(int capacity, long windowMs, Clock clock) {
+        this.latencyNanos = new long[capacity];
+        this.success = new boolean[capacity];
+        this.finishedAtMs = new long[capacity];
+        this.windowMs = windowMs;
+        this.clock = clock;
+    }
+
+    synchronized void record(long nanos, boolean succeeded) {
+        latencyNanos[next] = nanos;
+        success[next] = succeeded;
+        finishedAtMs[next] = clock.millis();
+        next = (next + 1) % latencyNanos.length;
+        size = Math.min(size + 1, latencyNanos.length);
+    }
+
+    synchronized Snapshot snapshot() {
+        long cutoff = clock.millis() - windowMs;
+        long[] ok = new long[size];
+        int samples = 0;
+        int successes = 0;
+        for (int i = 0; i < size; i++) {
+            if (finishedAtMs[i] < cutoff) {
+                continue;
+            }
+            samples++;
+            if (success[i]) {
+                ok[successes++] = latencyNanos[i];
+            }
+        }
+
+        if (samples == 0) {
+            return new Snapshot(0, 0, 0.0, 0, 0);
+        }
+        Arrays.sort(ok, 0, successes);
+        return new Snapshot(samples, successes,
+                (double) (samples - successes) / samples,
+                percentile(ok, successes, 0.50),
+                percentile(ok, successes, 0.95));
+    }
+
+    private static long percentile(long[] sorted, int count, double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+}
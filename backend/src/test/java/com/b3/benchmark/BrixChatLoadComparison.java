@@ -0,0 +1,185 @@
+package com.b3.benchmark;
+
+import com.b3.B3Application;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BrixChatLoadComparison - blocking /chat vs reactive /chat/reactive under load
+ *
+ * Boots the full app on a throwaway SQLite file, points Ollama at
+ * OllamaStubServer (fixed generation latency), disables the response cache
+ * and trivial-message bypass so every request reaches the "LLM", then drives
+ * each endpoint with the same number of concurrent clients from a
+ * non-blocking HTTP client.
+ *
+ * Reported per endpoint: throughput, latency percentiles, how many replies
+ * came from the stub (vs keyword fallback), failed requests, peak platform
+ * threads in the JVM and peak concurrent calls the stub saw.
+ *
+ * Note the blocking path's class-level transaction holds a JDBC connection
+ * for the whole generation, so its stub concurrency is capped at the Hikari
+ * pool size and, on SQLite, concurrent inserts start failing with
+ * SQLITE_BUSY. That is part of what this comparison measures.
+ *
+ * Run with:
+ *   mvn test-compile org.codehaus.mojo:exec-maven-plugin:3.1.0:java \
+ *       -Dexec.classpathScope=test -Dexec.mainClass=com.b3.benchmark.BrixChatLoadComparison \
+ *       -Dexec.args="1000 3 500"      (clients, requests per client, stub latency ms)
+ */
+public class BrixChatLoadComparison {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        long latencyMs = args.length > 2 ? Long.parseLong(args[2]) : 500;
+
+        Path dbDir = Files.createTempDirectory("b3-load");
+
+        try (OllamaStubServer stub = new OllamaStubServer(latencyMs)) {
+            ConfigurableApplicationContext app = SpringApplication.run(B3Application.class,
+                    "--server.port=0",
+                    "--spring.datasource.url=jdbc:sqlite:" + dbDir.resolve("b3.db"),
+                    "--spring.jpa.show-sql=false",
+                    "--logging.level.root=WARN",
+                    "--logging.level.com.b3=WARN",
+                    "--logging.level.org.hibernate.SQL=WARN",
+                    "--logging.level.org.springframework.web=WARN",
+                    "--exercisedb.api.key=load-test",
+                    "--ollama.api.url=" + stub.getUrl(),
+                    "--ollama.admission.max-concurrent=" + clients,
+                    "--ollama.admission.interactive.queue-capacity=" + clients,
+                    "--ollama.admission.interactive.max-wait-ms=60000",
+                    "--llm.http.ollama.pool-wait-timeout-ms=60000",
+                    "--server.tomcat.accept-count=" + clients,
+                    "--server.tomcat.max-connections=" + (clients * 2),
+                    "--brix.cache.enabled=false",
+                    "--brix.bypass.enabled=false");
+
+            try {
+                int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+                String base = "http://127.0.0.1:" + port + "/api/v1/brix";
+
+                System.out.printf("%nclients=%d requests/client=%d stub latency=%dms%n%n",
+                        clients, requestsPerClient, latencyMs);
+
+                // Warm up both paths (JIT, connection pools, Hibernate)
+                run(base + "/chat", Math.min(clients, 20), 2, stub);
+                run(base + "/chat/reactive", Math.min(clients, 20), 2, stub);
+
+                // Reactive first: Tomcat keeps the workers the blocking run spawns,
+                // which would otherwise inflate the reactive run's thread count
+                Result reactive = run(base + "/chat/reactive", clients, requestsPerClient, stub);
+                Result blocking = run(base + "/chat", clients, requestsPerClient, stub);
+
+                System.out.println(Result.HEADER);
+                System.out.println(blocking.format("blocking /chat"));
+                System.out.println(reactive.format("reactive /chat/reactive"));
+            } finally {
+                app.close();
+            }
+        }
+    }
+
+    private static Result run(String url, int clients, int requestsPerClient, OllamaStubServer stub) {
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        stub.resetPeak();
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger fromLlm = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger peakThreads = new AtomicInteger();
+        sampler.scheduleAtFixedRate(() -> peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max),
+                0, 20, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> all = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            long profileId = 1;
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int r = 0; r < requestsPerClient; r++) {
+                chain = chain.thenCompose(ignored -> send(http, url, profileId, latencies, fromLlm, failed));
+            }
+            all.add(chain);
+        }
+        CompletableFuture.allOf(all.toArray(new CompletableFuture[0])).join();
+        long elapsedNanos = System.nanoTime() - start;
+
+        sampler.shutdownNow();
+        return new Result(clients * requestsPerClient, elapsedNanos, latencies, fromLlm.get(), failed.get(),
+                Math.max(peakThreads.get(), threads.getPeakThreadCount()), stub.getPeakInFlight());
+    }
+
+    private static CompletableFuture<Void> send(HttpClient http, String url, long profileId, List<Long> latencies,
+                                                AtomicInteger fromLlm, AtomicInteger failed) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMinutes(2))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"profileId\":" + profileId + ",\"message\":\"Can you plan something for my week ahead?\"}"))
+                .build();
+
+        long sent = System.nanoTime();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    latencies.add(System.nanoTime() - sent);
+                    if (error != null || response.statusCode() != 200) {
+                        failed.incrementAndGet();
+                    } else if (response.body().contains(OllamaStubServer.REPLY_MARKER)) {
+                        fromLlm.incrementAndGet();
+                    }
+                    return null;
+                });
+    }
+
+    private record Result(int requests, long elapsedNanos, List<Long> latencies, int fromLlm, int failed,
+                          int peakThreads, int peakStubInFlight) {
+
+        static final String HEADER = String.format("%-26s %8s %9s %9s %9s %9s %8s %8s %12s %10s",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "llm", "failed",
+                "peak threads", "stub peak");
+
+        String format(String name) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%-26s %8d %9.1f %9.0f %9.0f %9.0f %8d %8d %12d %10d",
+                    name, requests, requests / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    fromLlm, failed, peakThreads, peakStubInFlight);
+        }
+
+        private static double percentile(List<Long> sorted, double p) {
+            if (sorted.isEmpty()) return 0;
+            int index = (int) Math.ceil(p * sorted.size()) - 1;
+            return sorted.get(Math.max(0, index)) / 1e6;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.b3.benchmark;
+
+import com.b3.B3Application;
+import com.b3.service.brix.BrixPromptBuilder;
+import com.b3.service.brix.BrixTrafficRecorder;
+import com.b3.service.brix.BrixTrafficRecorder.CapturedRequest;
+import com.b3.service.llm.LlmRequest;
+import com.b3.service.llm.LlmRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BrixTrafficReplay - replays captured BRIX chat traffic against an LLM setup
+ *
+ * Reads a file written by BrixTrafficRecorder (brix.capture.enabled=true),
+ * rebuilds every prompt with BrixPromptBuilder.chatRequest - so prompt layout
+ * changes are measured as they would ship - and sends it through the app's
+ * own LlmRouter: admission control, provider ranking, hedging and all.
+ *
+ * By default the app is pointed at OllamaStubServer and the Claude key is
+ * cleared, so the run is fully offline. Any extra --property=value argument
+ * is passed to the app and replaces the default, e.g. --ollama.api.url=...
+ * and --ollama.model=llama3.2:1b to compare a real local model, or
+ * --llm.router.providers=... to change the provider mix. Pointing Ollama
+ * anywhere else turns the stub off.
+ *
+ * Arrival rate:
+ *   N      - open loop, N requests per second
+ *   Kx     - open loop, the captured gaps between requests divided by K (1x = as recorded)
+ *   0      - closed loop, as fast as the concurrency limit allows
+ * At most `concurrency` requests are in flight. In the open-loop modes
+ * latency is measured from when a request was due, not when a slot freed
+ * up, so queueing behind the limit shows in the percentiles.
+ *
+ * Every captured turn goes to the LLM: the trivial-message bypass and the
+ * response cache are not modelled, so this is the LLM load the traffic would
+ * cause with both off. A reply that is empty or fails is counted as a
+ * fallback - BRIX would have answered it from keywords.
+ *
+ * Run with:
+ *   mvn test-compile org.codehaus.mojo:exec-maven-plugin:3.1.0:java \
+ *       -Dexec.classpathScope=test -Dexec.mainClass=com.b3.benchmark.BrixTrafficReplay \
+ *       -Dexec.args="brix-capture.jsonl 32 10x 500"   (capture file, concurrency, rate, stub latency ms)
+ */
+public class BrixTrafficReplay {
+
+    public static void main(String[] args) throws Exception {
+        List<String> positional = new ArrayList<>();
+        Map<String, String> overrides = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int split = arg.indexOf('=');
+                overrides.put(arg.substring(2, split), arg.substring(split + 1));
+            } else {
+                positional.add(arg);
+            }
+        }
+        if (positional.isEmpty()) {
+            System.err.println("usage: BrixTrafficReplay <capture.jsonl> [concurrency] [rate|Kx|0] [stub latency ms] [--property=value ...]");
+            System.exit(2);
+        }
+        Path captureFile = Path.of(positional.get(0));
+        int concurrency = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 32;
+        String rate = positional.size() > 2 ? positional.get(2) : "1x";
+        long latencyMs = positional.size() > 3 ? Long.parseLong(positional.get(3)) : 500;
+
+        List<CapturedRequest> captured = load(captureFile);
+        if (captured.isEmpty()) {
+            System.err.println("No requests in " + captureFile);
+            System.exit(1);
+        }
+
+        boolean useStub = !overrides.containsKey("ollama.api.url") && !overrides.containsKey("ollama.api.urls");
+        try (OllamaStubServer stub = useStub ? new OllamaStubServer(latencyMs) : null) {
+            ConfigurableApplicationContext app = SpringApplication.run(B3Application.class,
+                    appArgs(stub, concurrency, overrides));
+            try {
+                LlmRouter router = app.getBean(LlmRouter.class);
+                MeterRegistry registry = app.getBean(MeterRegistry.class);
+                awaitProvider(router);
+
+                System.out.printf("%n%d captured requests, concurrency=%d rate=%s llm=%s%n%n",
+                        captured.size(), concurrency, rate,
+                        useStub ? "stub (" + latencyMs + "ms)" : overrides.getOrDefault("ollama.api.url",
+                                overrides.get("ollama.api.urls")));
+
+                // Warm up (JIT, connection pools) on the first few requests
+                replay(router, captured.subList(0, Math.min(captured.size(), 10)), concurrency, "0");
+
+                Map<String, long[]> before = providerCounts(registry);
+                if (stub != null) {
+                    stub.resetPeak();
+                }
+                Result result = replay(router, captured, concurrency, rate);
+
+                System.out.println(Result.HEADER);
+                System.out.println(result.format());
+                System.out.println();
+                printProviders(before, providerCounts(registry));
+                if (stub != null) {
+                    System.out.printf("stub peak in-flight: %d%n", stub.getPeakInFlight());
+                }
+            } finally {
+                app.close();
+            }
+        }
+    }
+
+    // ========================================================================
+    // REPLAY
+    // ========================================================================
+
+    private static Result replay(LlmRouter router, List<CapturedRequest> requests, int concurrency, String rate)
+            throws InterruptedException {
+        Semaphore slots = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests.size());
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger fromLlm = new AtomicInteger();
+        AtomicInteger fallback = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        long firstAt = requests.get(0).at();
+        long start = System.nanoTime();
+        for (int i = 0; i < requests.size(); i++) {
+            CapturedRequest captured = requests.get(i);
+            long due = start + dueOffsetNanos(rate, i, captured.at() - firstAt);
+            sleepUntil(due);
+            slots.acquire();
+            long measuredFrom = "0".equals(rate) ? System.nanoTime() : due;
+
+            LlmRequest request = BrixPromptBuilder.chatRequest(captured.context(), captured.summary(),
+                    captured.history(), captured.message(), String.valueOf(captured.profileId()));
+            router.generate(request)
+                    .timeout(Duration.ofMinutes(2))
+                    .toFuture()
+                    .whenComplete((reply, error) -> {
+                        latencies.add(System.nanoTime() - measuredFrom);
+                        if (error != null) {
+                            failed.incrementAndGet();
+                            fallback.incrementAndGet();
+                        } else if (reply == null || reply.isBlank()) {
+                            fallback.incrementAndGet();
+                        } else {
+                            fromLlm.incrementAndGet();
+                        }
+                        slots.release();
+                        done.countDown();
+                    });
+        }
+        done.await();
+        return new Result(requests.size(), System.nanoTime() - start, latencies,
+                fromLlm.get(), fallback.get(), failed.get());
+    }
+
+    private static long dueOffsetNanos(String rate, int index, long capturedOffsetMs) {
+        if (rate.endsWith("x")) {
+            double speedup = Double.parseDouble(rate.substring(0, rate.length() - 1));
+            return (long) (TimeUnit.MILLISECONDS.toNanos(capturedOffsetMs) / speedup);
+        }
+        double perSecond = Double.parseDouble(rate);
+        return perSecond > 0 ? (long) (index * 1e9 / perSecond) : 0;
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining = nanoTime - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    // ========================================================================
+    // SETUP
+    // ========================================================================
+
+    private static List<CapturedRequest> load(Path file) throws Exception {
+        List<CapturedRequest> requests = new ArrayList<>();
+        int skipped = 0;
+        for (String line : Files.readAllLines(file)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                CapturedRequest request = BrixTrafficRecorder.MAPPER.readValue(line, CapturedRequest.class);
+                if (request.context() != null && request.message() != null) {
+                    requests.add(request);
+                    continue;
+                }
+            } catch (Exception ignored) {
+                // a torn last line if the app was killed mid-write
+            }
+            skipped++;
+        }
+        if (skipped > 0) {
+            System.err.printf("Skipped %d unreadable lines in %s%n", skipped, file);
+        }
+        requests.sort(Comparator.comparingLong(CapturedRequest::at));
+        return requests;
+    }
+
+    private static String[] appArgs(OllamaStubServer stub, int concurrency, Map<String, String> overrides)
+            throws Exception {
+        Map<String, String> props = new LinkedHashMap<>();
+        props.put("spring.main.web-application-type", "none");
+        props.put("spring.datasource.url", "jdbc:sqlite:" + Files.createTempDirectory("b3-replay").resolve("b3.db"));
+        props.put("spring.jpa.show-sql", "false");
+        props.put("logging.level.root", "WARN");
+        props.put("logging.level.com.b3", "WARN");
+        props.put("logging.level.org.hibernate.SQL", "WARN");
+        props.put("exercisedb.api.key", "replay");
+        props.put("anthropic.api.key", "");
+        props.put("brix.pregen.enabled", "false");
+        props.put("brix.capture.enabled", "false");
+        if (stub != null) {
+            // The stub stands in for unlimited capacity; a real box keeps its own admission settings
+            props.put("ollama.api.url", stub.getUrl());
+            props.put("ollama.api.urls", stub.getUrl());
+            props.put("ollama.warmup.enabled", "false");
+            props.put("ollama.admission.max-concurrent", String.valueOf(concurrency));
+            props.put("ollama.admission.interactive.queue-capacity", String.valueOf(concurrency));
+            props.put("ollama.admission.interactive.max-wait-ms", "60000");
+            props.put("llm.http.ollama.pool-wait-timeout-ms", "60000");
+        }
+        props.putAll(overrides);
+
+        return props.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+    }
+
+    private static void awaitProvider(LlmRouter router) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!router.hasAvailableProvider()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("No LLM provider became available - check the provider settings");
+            }
+            Thread.sleep(200);
+        }
+    }
+
+    // ========================================================================
+    // REPORT
+    // ========================================================================
+
+    /**
+     * Successful and failed calls per provider, from llm.router.latency
+     */
+    private static Map<String, long[]> providerCounts(MeterRegistry registry) {
+        Map<String, long[]> counts = new TreeMap<>();
+        for (Timer timer : registry.find("llm.router.latency").timers()) {
+            long[] count = counts.computeIfAbsent(timer.getId().getTag("provider"), ignored -> new long[2]);
+            count["success".equals(timer.getId().getTag("outcome")) ? 0 : 1] += timer.count();
+        }
+        return counts;
+    }
+
+    private static void printProviders(Map<String, long[]> before, Map<String, long[]> after) {
+        System.out.printf("%-12s %10s %10s%n", "provider", "ok", "failed");
+        after.forEach((provider, count) -> {
+            long[] earlier = before.getOrDefault(provider, new long[2]);
+            System.out.printf("%-12s %10d %10d%n", provider, count[0] - earlier[0], count[1] - earlier[1]);
+        });
+    }
+
+    private record Result(int requests, long elapsedNanos, List<Long> latencies, int fromLlm, int fallback,
+                          int failed) {
+
+        static final String HEADER = String.format("%8s %9s %9s %9s %9s %8s %9s %10s %8s",
+                "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "llm", "fallback", "fallback %", "failed");
+
+        String format() {
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%8d %9.1f %9.0f %9.0f %9.0f %8d %9d %9.1f%% %8d",
+                    requests, requests / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    fromLlm, fallback, 100.0 * fallback / requests, failed);
+        }
+
+        private static double percentile(List<Long> sorted, double p) {
+            if (sorted.isEmpty()) return 0;
+            int index = (int) Math.ceil(p * sorted.size()) - 1;
+            return sorted.get(Math.max(0, index)) / 1e6;
+        }
+    }
+}
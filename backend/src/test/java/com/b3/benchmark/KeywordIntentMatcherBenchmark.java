@@ -0,0 +1,124 @@
+package com.b3.benchmark;
+
+import com.b3.service.brix.KeywordIntentMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KeywordIntentMatcherBenchmark - single-pass automaton vs the containsAny chain
+ *
+ * The legacy chain below is the keyword fallback exactly as BrixService ran
+ * it before the automaton: lowercase, then up to eight containsAny loops,
+ * stopping at the first hit. Note it often stops EARLY on a false positive
+ * ("hi" inside "this"/"thinking"), so it flatters the old code.
+ * containsAnyAllIntents is the like-for-like baseline: the same chain asked
+ * for every intent, which is what the automaton returns in one pass.
+ *
+ * Messages are realistic chat lengths: a one-word greeting, a short
+ * check-in, and two ~180 char messages.
+ *
+ * Run with:
+ *   mvn test-compile org.codehaus.mojo:exec-maven-plugin:3.1.0:java \
+ *       -Dexec.classpathScope=test -Dexec.mainClass=com.b3.benchmark.KeywordIntentMatcherBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordIntentMatcherBenchmark {
+
+    @Param({
+            "hey",
+            "I'm so tired today, not sure I can do much",
+            "Honestly this week has been a lot. Work kept piling up, I barely slept, and every evening I told "
+                    + "myself I would get something in but it never happened. I keep thinking about it though",
+            "Thinking about the weekend plans with family, probably a long lunch and then a movie in the "
+                    + "evening, nothing special going on otherwise, just the usual errands and chores around"
+    })
+    public String message;
+
+    private KeywordIntentMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        matcher = new KeywordIntentMatcher();
+    }
+
+    @Benchmark
+    public int automaton() {
+        return matcher.matchMask(message);
+    }
+
+    @Benchmark
+    public void containsAnyChain(Blackhole blackhole) {
+        blackhole.consume(legacyIntent(message));
+    }
+
+    @Benchmark
+    public int containsAnyAllIntents() {
+        return legacyIntentMask(message);
+    }
+
+    // ========================================================================
+    // LEGACY CHAIN (baseline)
+    // ========================================================================
+
+    private static int legacyIntent(String userMessage) {
+        String lowerMessage = userMessage.toLowerCase();
+        if (containsAny(lowerMessage, "hello", "hi", "hey", "sup", "what's up")) return 0;
+        if (containsAny(lowerMessage, "tired", "exhausted", "no energy", "drained", "sleepy", "low energy", "fatigued")) return 1;
+        if (containsAny(lowerMessage, "ready", "crush", "let's go", "pumped", "motivated", "fired up", "excited")) return 2;
+        if (containsAny(lowerMessage, "motivation", "motivate", "inspire", "struggling", "can't", "help", "stuck")) return 3;
+        if (containsAny(lowerMessage, "workout", "what should", "recommend", "suggestion", "exercise", "train")) return 4;
+        if (containsAny(lowerMessage, "streak", "progress", "how am i", "stats", "doing", "bricks")) return 5;
+        if (containsAny(lowerMessage, "stressed", "stress", "anxious", "overwhelmed", "pressure")) return 6;
+        if (containsAny(lowerMessage, "bad", "down", "sad", "not great", "rough", "hard day", "difficult")) return 7;
+        return -1;
+    }
+
+    private static int legacyIntentMask(String userMessage) {
+        String lowerMessage = userMessage.toLowerCase();
+        int mask = 0;
+        if (containsAny(lowerMessage, "hello", "hi", "hey", "sup", "what's up")) mask |= 1;
+        if (containsAny(lowerMessage, "tired", "exhausted", "no energy", "drained", "sleepy", "low energy", "fatigued")) mask |= 1 << 1;
+        if (containsAny(lowerMessage, "ready", "crush", "let's go", "pumped", "motivated", "fired up", "excited")) mask |= 1 << 2;
+        if (containsAny(lowerMessage, "motivation", "motivate", "inspire", "struggling", "can't", "help", "stuck")) mask |= 1 << 3;
+        if (containsAny(lowerMessage, "workout", "what should", "recommend", "suggestion", "exercise", "train")) mask |= 1 << 4;
+        if (containsAny(lowerMessage, "streak", "progress", "how am i", "stats", "doing", "bricks")) mask |= 1 << 5;
+        if (containsAny(lowerMessage, "stressed", "stress", "anxious", "overwhelmed", "pressure")) mask |= 1 << 6;
+        if (containsAny(lowerMessage, "bad", "down", "sad", "not great", "rough", "hard day", "difficult")) mask |= 1 << 7;
+        return mask;
+    }
+
+    private static boolean containsAny(String text, String... keywords) {
+        for (String keyword : keywords) {
+            if (text.contains(keyword)) return true;
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(KeywordIntentMatcherBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
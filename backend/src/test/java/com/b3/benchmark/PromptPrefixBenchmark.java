@@ -0,0 +1,178 @@
+package com.b3.benchmark;
+
+import com.b3.service.brix.BrixPromptBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * PromptPrefixBenchmark - Ollama prompt evaluation, old prompt layout vs shared prefix
+ *
+ * Sends the same chat for a rotating set of users, once with the legacy
+ * layout (user context in the middle of the system prompt, built with
+ * String.format) and once with BrixPromptBuilder (byte-identical prefix,
+ * context at the end). Consecutive requests are for different users, which
+ * is the case the prefix cache is meant to help.
+ *
+ * Reported per layout, from Ollama's own response timings:
+ * prompt_eval_count (tokens actually evaluated - cached prefix tokens are
+ * skipped) and prompt_eval_duration. num_predict is 1 so generation doesn't
+ * dilute the numbers.
+ *
+ * Without a reachable Ollama it still prints the offline half: how many
+ * characters consecutive prompts share, i.e. the upper bound on reuse.
+ *
+ * Run with:
+ *   mvn test-compile org.codehaus.mojo:exec-maven-plugin:3.1.0:java \
+ *       -Dexec.classpathScope=test -Dexec.mainClass=com.b3.benchmark.PromptPrefixBenchmark \
+ *       -Dexec.args="http://localhost:11434 llama3.2 40"   (url, model, requests per layout)
+ */
+public class PromptPrefixBenchmark {
+
+    private record User(String name, int streak, int bricks, Integer energy, Integer stress,
+                        String mood, String fitnessLevel, String goal) {
+    }
+
+    private static final List<User> USERS = List.of(
+            new User("Alex", 4, 27, 3, 2, "GOOD", "BEGINNER", "Build strength"),
+            new User("Sam", 0, 3, 1, 5, "STRESSED", "INTERMEDIATE", "Lose weight"),
+            new User("Jordan", 31, 140, 5, 1, "GREAT", "ADVANCED", "Endurance"),
+            new User("Riley", 12, 58, null, null, null, "BEGINNER", null));
+
+    private static final String MESSAGE = "What should I do for a workout today?";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:11434";
+        String model = args.length > 1 ? args[1] : "llama3.2";
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+
+        Function<User, String> legacy = u -> legacyPrompt(u.name, u.streak, u.bricks, u.energy,
+                u.stress, u.mood, u.fitnessLevel, u.goal);
+        Function<User, String> shared = u -> BrixPromptBuilder.systemPrompt(u.name, u.streak, u.bricks,
+                u.energy, u.stress, u.mood, u.fitnessLevel, u.goal);
+
+        System.out.println("Offline: characters shared by consecutive users' system prompts");
+        System.out.printf("  %-8s %6.0f of %6.0f avg%n", "legacy", sharedPrefix(legacy), avgLength(legacy));
+        System.out.printf("  %-8s %6.0f of %6.0f avg%n", "shared", sharedPrefix(shared), avgLength(shared));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        try {
+            client.send(HttpRequest.newBuilder(URI.create(url + "/api/tags")).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+        } catch (Exception e) {
+            System.out.println("\nOllama not reachable at " + url + " - skipping prompt_eval measurement");
+            return;
+        }
+
+        // Load the model first so neither layout pays the cold start
+        chat(client, url, model, shared.apply(USERS.get(0)));
+
+        System.out.printf("%nOllama %s, %d requests per layout, users rotating every request%n", model, requests);
+        System.out.printf("  %-8s %18s %22s%n", "layout", "prompt_eval_count", "prompt_eval_duration");
+        for (Map.Entry<String, Function<User, String>> layout :
+                List.of(Map.entry("legacy", legacy), Map.entry("shared", shared))) {
+            long tokens = 0;
+            long nanos = 0;
+            for (int i = 0; i < requests; i++) {
+                JsonNode body = chat(client, url, model, layout.getValue().apply(USERS.get(i % USERS.size())));
+                tokens += body.path("prompt_eval_count").asLong();
+                nanos += body.path("prompt_eval_duration").asLong();
+            }
+            System.out.printf("  %-8s %18.1f %19.1f ms%n", layout.getKey(),
+                    (double) tokens / requests, nanos / 1e6 / requests);
+        }
+    }
+
+    private static JsonNode chat(HttpClient client, String url, String model, String systemPrompt) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of(
+                "model", model,
+                "stream", false,
+                "keep_alive", "10m",
+                "messages", List.of(
+                        Map.of("role", "system", "content", systemPrompt),
+                        Map.of("role", "user", "content", MESSAGE)),
+                "options", Map.of("num_predict", 1, "temperature", 0.7)));
+
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create(url + "/api/chat"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body());
+    }
+
+    private static double sharedPrefix(Function<User, String> layout) {
+        long total = 0;
+        for (int i = 0; i < USERS.size(); i++) {
+            String a = layout.apply(USERS.get(i));
+            String b = layout.apply(USERS.get((i + 1) % USERS.size()));
+            int n = 0;
+            while (n < a.length() && n < b.length() && a.charAt(n) == b.charAt(n)) {
+                n++;
+            }
+            total += n;
+        }
+        return (double) total / USERS.size();
+    }
+
+    private static double avgLength(Function<User, String> layout) {
+        return USERS.stream().mapToInt(u -> layout.apply(u).length()).average().orElse(0);
+    }
+
+    /**
+     * The system prompt exactly as OllamaService built it before BrixPromptBuilder
+     */
+    private static String legacyPrompt(String userName, int streak, int totalBricks,
+                                       Integer energyLevel, Integer stressLevel,
+                                       String mood, String fitnessLevel, String primaryGoal) {
+
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("You are BRIX, an enthusiastic and supportive AI fitness coach in the B3 (Brick by Brick) fitness app. ");
+        prompt.append("Your personality is warm, motivating, and uses a 'brick by brick' metaphor - each workout is a brick in building the user's fitness wall.\n\n");
+
+        prompt.append("KEY TRAITS:\n");
+        prompt.append("- Use brick/wall building metaphors naturally (not every message, but often)\n");
+        prompt.append("- Be encouraging but not fake - acknowledge struggles genuinely\n");
+        prompt.append("- Keep responses concise (2-4 sentences max)\n");
+        prompt.append("- Be adaptive: empathetic when user is struggling, celebratory for wins, challenging when they're ready\n\n");
+
+        prompt.append("USER CONTEXT:\n");
+        prompt.append(String.format("- Name: %s\n", userName));
+        prompt.append(String.format("- Current streak: %d days\n", streak));
+        prompt.append(String.format("- Total bricks (workouts): %d\n", totalBricks));
+        prompt.append(String.format("- Fitness level: %s\n", fitnessLevel != null ? fitnessLevel : "Unknown"));
+        prompt.append(String.format("- Primary goal: %s\n", primaryGoal != null ? primaryGoal : "General fitness"));
+
+        if (energyLevel != null) {
+            prompt.append(String.format("- Today's energy level: %d/5\n", energyLevel));
+        }
+        if (stressLevel != null) {
+            prompt.append(String.format("- Today's stress level: %d/5\n", stressLevel));
+        }
+        if (mood != null) {
+            prompt.append(String.format("- Today's mood: %s\n", mood));
+        }
+
+        prompt.append("\nRESPONSE GUIDELINES:\n");
+        prompt.append("- If user is tired/low energy: Be empathetic, suggest rest or light activity\n");
+        prompt.append("- If user is stressed: Acknowledge it, suggest exercise as stress relief\n");
+        prompt.append("- If user is motivated: Match their energy, encourage them\n");
+        prompt.append("- If user asks about workouts: Recommend based on their energy/goals\n");
+        prompt.append("- If user asks about progress: Celebrate their bricks and streak\n");
+        prompt.append("- Always address them by first name\n");
+        prompt.append("- Never break character - you ARE BRIX the fitness coach\n");
+
+        return prompt.toString();
+    }
+}
@@ -0,0 +1,55 @@
+package com.b3.config;
+
+import com.b3.service.llm.LlmHttpClientSettings;
+import com.b3.service.llm.OllamaEndpointPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for how the Ollama connection pool is sized
+ */
+@DisplayName("LlmHttpClientConfig Tests")
+class LlmHttpClientConfigTest {
+
+    private static OllamaEndpointPool pool(String urls) {
+        return new OllamaEndpointPool(new SimpleMeterRegistry(), urls, 3, 30_000, 2);
+    }
+
+    @Test
+    @DisplayName("Should give each endpoint its admission limit plus the sticky headroom")
+    void testOllamaPoolFollowsAdmissionAndEndpoints() {
+        // Given
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("ollama.admission.max-concurrent", "4")
+                .withProperty("ollama.pool.sticky-max-imbalance", "1");
+
+        // When
+        LlmHttpClientSettings settings = LlmHttpClientConfig.ollamaSettings(env,
+                pool("http://ollama-a:11434,http://ollama-b:11434,http://ollama-c:11434"));
+
+        // Then
+        assertEquals(5, settings.maxConnectionsPerRoute());
+        assertEquals(15, settings.maxConnections());
+    }
+
+    @Test
+    @DisplayName("Should ignore llm.http.ollama.max-connections")
+    void testOllamaPoolIgnoresFixedMaxConnections() {
+        // Given - defaults: max-concurrent 2, sticky imbalance 2
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("llm.http.ollama.max-connections", "8")
+                .withProperty("llm.http.ollama.read-timeout-ms", "45000");
+
+        // When
+        LlmHttpClientSettings settings = LlmHttpClientConfig.ollamaSettings(env, pool("http://ollama-a:11434"));
+
+        // Then
+        assertEquals(4, settings.maxConnectionsPerRoute());
+        assertEquals(4, settings.maxConnections());
+        assertEquals(45_000, settings.readTimeoutMs());
+    }
+}
@@ -0,0 +1,128 @@
+package com.b3.controller;
+
+import com.b3.exception.RestExceptionHandler;
+import com.b3.service.BrixService;
+import com.b3.service.BrixService.BrixChatResponse;
+import com.b3.service.BrixService.ChatStreamListener;
+import com.b3.service.brix.BrixChatJobService;
+import com.b3.service.brix.BrixMessageSearchIndex;
+import com.b3.service.brix.CohortRecommendationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Controller tests for the BRIX SSE stream: event names, payloads and overload
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BrixController Stream Tests")
+class BrixControllerTest {
+
+    private static final String BODY = "{\"profileId\": 7, \"message\": \"hey there\"}";
+
+    @Mock private BrixService brixService;
+    @Mock private BrixChatJobService chatJobService;
+    @Mock private BrixMessageSearchIndex messageSearchIndex;
+    @Mock private CohortRecommendationService cohortRecommendations;
+
+    private MockMvc mockMvc(TaskExecutor streamExecutor) {
+        BrixController controller = new BrixController(brixService, chatJobService, messageSearchIndex,
+                cohortRecommendations, new ObjectMapper(), streamExecutor, 5_000);
+        return MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new RestExceptionHandler())
+                .build();
+    }
+
+    private MvcResult startStream(MockMvc mockMvc) throws Exception {
+        return mockMvc.perform(post("/api/v1/brix/chat/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    // ========================================================================
+    // STREAM TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should send a token event per chunk, then done with the full reply")
+    void testStreamTokensThenDone() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            ChatStreamListener listener = invocation.getArgument(2);
+            listener.onToken("Let's ");
+            listener.onToken("build!");
+            listener.onComplete(new BrixChatResponse("Let's build!", "ENCOURAGING", null));
+            return null;
+        }).when(brixService).streamChat(eq(7L), eq("hey there"), any());
+        MockMvc mockMvc = mockMvc(Runnable::run);
+
+        // When
+        MvcResult result = startStream(mockMvc);
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        "event:token\ndata:{\"content\":\"Let's \"}\n\n"
+                                + "event:token\ndata:{\"content\":\"build!\"}\n\n"
+                                + "event:done\ndata:{\"message\":\"Let's build!\",\"tone\":\"ENCOURAGING\","
+                                + "\"recommendation\":null}\n\n"));
+    }
+
+    @Test
+    @DisplayName("Should end with an error event when generation fails mid-stream")
+    void testStreamErrorEvent() throws Exception {
+        // Given - the service rethrows once a token is out
+        doAnswer(invocation -> {
+            ChatStreamListener listener = invocation.getArgument(2);
+            listener.onToken("Let's ");
+            throw new IllegalStateException("connection reset");
+        }).when(brixService).streamChat(eq(7L), eq("hey there"), any());
+        MockMvc mockMvc = mockMvc(Runnable::run);
+
+        // When
+        MvcResult result = startStream(mockMvc);
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        "event:token\ndata:{\"content\":\"Let's \"}\n\n"
+                                + "event:error\ndata:{\"message\":\"BRIX lost its train of thought - please try again\"}\n\n"));
+    }
+
+    @Test
+    @DisplayName("Should answer 429 when the stream pool is full")
+    void testStreamRejectedWhenPoolFull() throws Exception {
+        // Given
+        MockMvc mockMvc = mockMvc(task -> {
+            throw new TaskRejectedException("brix-stream pool and queue are full");
+        });
+
+        // When / Then
+        mockMvc.perform(post("/api/v1/brix/chat/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BODY))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.message").value("BRIX is busy - please try again in a moment"));
+
+        verifyNoInteractions(brixService);
+    }
+}
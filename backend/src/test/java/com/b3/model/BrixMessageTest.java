@@ -10,6 +10,7 @@ import com.b3.model.BrixMessage.Tone;
 import com.b3.model.UserProfile.FitnessLevel;
 import com.b3.model.UserProfile.PrimaryGoal;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
@@ -282,6 +283,46 @@ class BrixMessageTest {
         assertNull(message.getMessagePreview());
     }
 
+    @Test
+    @DisplayName("Messages are from BRIX unless created as a user message")
+    void testSender() {
+        assertEquals(BrixMessage.Sender.BRIX, message.getSender());
+        assertFalse(message.isFromUser());
+
+        // Rows written before the sender column existed read back as BRIX
+        message.setSender(null);
+        assertEquals(BrixMessage.Sender.BRIX, message.getSender());
+    }
+
+    @Test
+    @DisplayName("fromUser() marks the sender and truncates to the column length")
+    void testFromUser() {
+        BrixMessage userMessage = BrixMessage.fromUser(userProfile, "x".repeat(600), Tone.EMPATHETIC, "user_chat");
+
+        assertTrue(userMessage.isFromUser());
+        assertEquals(MessageType.CHAT, userMessage.getMessageType());
+        assertEquals(500, userMessage.getMessageText().length());
+        assertTrue(userMessage.wasTriggeredBy("user_chat"));
+    }
+
+    @Test
+    @DisplayName("pregenerated() is pending until delivered")
+    void testPregeneratedDelivery() {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        BrixMessage pending = BrixMessage.pregenerated(userProfile, "Morning!", MessageType.CHECK_IN,
+                Tone.ENCOURAGING, "app_open", tomorrow);
+
+        assertTrue(pending.isPending());
+        assertEquals(tomorrow, pending.getDeliverOn());
+        assertFalse(message.isPending());
+
+        LocalDateTime deliveredAt = LocalDateTime.now();
+        pending.deliver(deliveredAt);
+
+        assertFalse(pending.isPending());
+        assertEquals(deliveredAt, pending.getSentAt());
+    }
+
     // =====================================================
     // VALIDATION TESTS
     // =====================================================
@@ -0,0 +1,80 @@
+package com.b3.repository;
+
+import com.b3.model.BrixMessage;
+import com.b3.model.UserProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for BrixMessageRepository
+ */
+@SpringBootTest
+@Transactional  // Rollback after each test
+@DisplayName("BrixMessageRepository Tests")
+class BrixMessageRepositoryTest {
+
+    @Autowired
+    private BrixMessageRepository repository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    private UserProfile user;
+    private LocalDateTime base;
+
+    @BeforeEach
+    void setUp() {
+        user = userProfileRepository.save(new UserProfile(
+            "BrixHistoryUser",
+            30,
+            UserProfile.FitnessLevel.BEGINNER,
+            UserProfile.PrimaryGoal.CARDIO,
+            "None",
+            3
+        ));
+        base = LocalDateTime.of(2026, 3, 1, 8, 0);
+    }
+
+    private void save(BrixMessage message, int minutesAfterBase) {
+        BrixMessage saved = repository.save(message);
+        // sentAt is stamped on persist; pin it so the order is deterministic
+        saved.setSentAt(base.plusMinutes(minutesAfterBase));
+        repository.saveAndFlush(saved);
+    }
+
+    @Test
+    @DisplayName("Should return the latest BRIX messages, skipping user turns and pending messages")
+    void testFindRecentFromBrix() {
+        // Given - three BRIX replies, then 25 newer user turns and a pending check-in
+        for (int i = 0; i < 3; i++) {
+            save(new BrixMessage(user, "Reply " + i, BrixMessage.MessageType.MOTIVATION,
+                    BrixMessage.Tone.ENCOURAGING), i);
+        }
+        for (int i = 0; i < 25; i++) {
+            save(BrixMessage.fromUser(user, "Turn " + i, BrixMessage.Tone.ENCOURAGING, "user_chat"), 10 + i);
+        }
+        save(BrixMessage.pregenerated(user, "Tomorrow's check-in", BrixMessage.MessageType.CHECK_IN,
+                BrixMessage.Tone.ENCOURAGING, "daily_checkin", LocalDate.of(2026, 3, 2)), 60);
+
+        // When
+        List<BrixMessage> recent = repository.findRecentFromBrix(user.getProfileId(), PageRequest.of(0, 20));
+        List<BrixMessage> latest = repository.findRecentFromBrix(user.getProfileId(), PageRequest.of(0, 2));
+
+        // Then - the limit applies after filtering, not to the newest 20 rows
+        assertEquals(List.of("Reply 2", "Reply 1", "Reply 0"),
+                recent.stream().map(BrixMessage::getMessageText).toList());
+        assertEquals(List.of("Reply 2", "Reply 1"),
+                latest.stream().map(BrixMessage::getMessageText).toList());
+    }
+}
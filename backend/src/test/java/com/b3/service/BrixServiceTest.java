@@ -0,0 +1,257 @@
+package com.b3.service;
+
+import com.b3.model.BrixMessage;
+import com.b3.model.UserProfile;
+import com.b3.repository.BehaviorProfileRepository;
+import com.b3.repository.BrickRepository;
+import com.b3.repository.BrixMessageRepository;
+import com.b3.repository.DailyLogRepository;
+import com.b3.repository.UserProfileRepository;
+import com.b3.service.BrixService.BrixChatResponse;
+import com.b3.service.BrixService.ChatStreamListener;
+import com.b3.service.brix.BrixContextAssembler;
+import com.b3.service.brix.BrixPipelineMetrics;
+import com.b3.service.brix.BrixResponseCache;
+import com.b3.service.brix.BrixTrafficRecorder;
+import com.b3.service.brix.CoachingContext;
+import com.b3.service.brix.CoachingContextCache;
+import com.b3.service.brix.KeywordIntentMatcher;
+import com.b3.service.brix.LlmBypassPolicy;
+import com.b3.service.brix.WorkoutCoOccurrenceModel;
+import com.b3.service.brix.WorkoutRecommendationCache;
+import com.b3.service.brix.WorkoutScoringEngine;
+import com.b3.service.catalog.WorkoutCatalog;
+import com.b3.service.catalog.WorkoutCatalogHolder;
+import com.b3.service.llm.LlmRequest;
+import com.b3.service.llm.LlmRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BrixService chat paths: LLM reply, fallback and persistence
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BrixService Tests")
+class BrixServiceTest {
+
+    private static final Long PROFILE_ID = 7L;
+    private static final String MESSAGE = "hey there";
+
+    @Mock private UserProfileRepository userProfileRepository;
+    @Mock private BehaviorProfileRepository behaviorProfileRepository;
+    @Mock private WorkoutCatalogHolder workoutCatalog;
+    @Mock private WorkoutScoringEngine scoringEngine;
+    @Mock private WorkoutRecommendationCache recommendationCache;
+    @Mock private WorkoutCoOccurrenceModel coOccurrenceModel;
+    @Mock private DailyLogRepository dailyLogRepository;
+    @Mock private BrixMessageRepository brixMessageRepository;
+    @Mock private BrickRepository brickRepository;
+    @Mock private OllamaService ollamaService;
+    @Mock private LlmRouter llmRouter;
+    @Mock private BrixResponseCache responseCache;
+    @Mock private KeywordIntentMatcher intentMatcher;
+    @Mock private LlmBypassPolicy bypassPolicy;
+    @Mock private BrixContextAssembler contextAssembler;
+    @Mock private CoachingContextCache coachingContextCache;
+    @Mock private BrixTrafficRecorder trafficRecorder;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    private SimpleMeterRegistry registry;
+    private BrixService brixService;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        brixService = new BrixService(userProfileRepository, behaviorProfileRepository, workoutCatalog,
+                scoringEngine, recommendationCache, coOccurrenceModel, dailyLogRepository, brixMessageRepository,
+                brickRepository, ollamaService, llmRouter, responseCache, intentMatcher, bypassPolicy,
+                contextAssembler, coachingContextCache, new BrixPipelineMetrics(registry), trafficRecorder,
+                eventPublisher, Schedulers.immediate());
+
+        UserProfile user = new UserProfile("Alex Rivera", 30, UserProfile.FitnessLevel.BEGINNER,
+                UserProfile.PrimaryGoal.CARDIO, "None", 3);
+        user.setProfileId(PROFILE_ID);
+        CoachingContext context = new CoachingContext(user, null, null, BrixMessage.Tone.ENCOURAGING,
+                LocalDate.now());
+        when(coachingContextCache.get(eq(PROFILE_ID), any())).thenReturn(context);
+        when(contextAssembler.assemble(PROFILE_ID)).thenReturn(BrixContextAssembler.ConversationMemory.EMPTY);
+        // Not reached when a stream fails mid-response
+        lenient().when(workoutCatalog.current()).thenReturn(WorkoutCatalog.EMPTY);
+        lenient().when(brixMessageRepository.save(any(BrixMessage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private List<BrixMessage> savedMessages(int expected) {
+        ArgumentCaptor<BrixMessage> saved = ArgumentCaptor.forClass(BrixMessage.class);
+        verify(brixMessageRepository, times(expected)).save(saved.capture());
+        return saved.getAllValues();
+    }
+
+    /** Records what the controller would have sent as token and done events */
+    private static class RecordingListener implements ChatStreamListener {
+        final List<String> tokens = new ArrayList<>();
+        BrixChatResponse completed;
+
+        @Override
+        public void onToken(String token) {
+            tokens.add(token);
+        }
+
+        @Override
+        public void onComplete(BrixChatResponse response) {
+            completed = response;
+        }
+    }
+
+    private double replies(String source) {
+        return registry.get("brix.replies").tag("source", source).counter().count();
+    }
+
+    // ========================================================================
+    // REACTIVE CHAT TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should return and save the LLM reply on the reactive path")
+    void testChatReactiveLlmReply() {
+        // Given
+        when(llmRouter.hasAvailableProvider()).thenReturn(true);
+        when(llmRouter.generate(any(LlmRequest.class))).thenReturn(Mono.just("Let's lay a brick today!"));
+
+        // When
+        BrixChatResponse response = brixService.chatReactive(PROFILE_ID, MESSAGE).block(Duration.ofSeconds(5));
+
+        // Then
+        assertEquals("Let's lay a brick today!", response.message());
+        assertEquals("ENCOURAGING", response.tone());
+        List<BrixMessage> saved = savedMessages(2);
+        assertEquals(MESSAGE, saved.get(0).getMessageText());
+        assertTrue(saved.get(0).isFromUser());
+        assertEquals("Let's lay a brick today!", saved.get(1).getMessageText());
+        verify(responseCache).put(any(), eq("Let's lay a brick today!"), any());
+        assertEquals(1.0, replies("llm"));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the keyword reply when the LLM comes back empty")
+    void testChatReactiveFallsBackOnEmptyReply() {
+        // Given - every provider failed or answered blank (the router completes empty)
+        when(llmRouter.hasAvailableProvider()).thenReturn(true);
+        when(llmRouter.generate(any(LlmRequest.class))).thenReturn(Mono.empty());
+        when(intentMatcher.match(MESSAGE)).thenReturn(KeywordIntentMatcher.Intent.GREETING);
+
+        // When
+        BrixChatResponse response = brixService.chatReactive(PROFILE_ID, MESSAGE).block(Duration.ofSeconds(5));
+
+        // Then
+        assertTrue(response.message().startsWith("Hey Alex!"), response.message());
+        assertEquals(response.message(), savedMessages(2).get(1).getMessageText());
+        verify(responseCache, never()).put(any(), any(), any());
+        assertEquals(1.0, replies("keyword"));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the keyword reply when the LLM call errors")
+    void testChatReactiveFallsBackOnError() {
+        // Given
+        when(llmRouter.hasAvailableProvider()).thenReturn(true);
+        when(llmRouter.generate(any(LlmRequest.class)))
+                .thenReturn(Mono.error(new IllegalStateException("connection reset")));
+        when(intentMatcher.match(MESSAGE)).thenReturn(KeywordIntentMatcher.Intent.GREETING);
+
+        // When
+        BrixChatResponse response = brixService.chatReactive(PROFILE_ID, MESSAGE).block(Duration.ofSeconds(5));
+
+        // Then - the user never sees the error
+        assertTrue(response.message().startsWith("Hey Alex!"), response.message());
+        savedMessages(2);
+        assertEquals(1.0, replies("keyword"));
+    }
+
+    @Test
+    @DisplayName("Should not call the LLM when no provider is available")
+    void testChatReactiveWithoutProvider() {
+        // Given
+        when(llmRouter.hasAvailableProvider()).thenReturn(false);
+        when(intentMatcher.match(MESSAGE)).thenReturn(KeywordIntentMatcher.Intent.GREETING);
+
+        // When
+        BrixChatResponse response = brixService.chatReactive(PROFILE_ID, MESSAGE).block(Duration.ofSeconds(5));
+
+        // Then
+        assertTrue(response.message().startsWith("Hey Alex!"), response.message());
+        verify(llmRouter, never()).generate(any());
+    }
+
+    // ========================================================================
+    // STREAMING CHAT TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should fall back to one keyword chunk when the stream fails before the first token")
+    void testStreamChatFallsBackBeforeFirstToken() {
+        // Given
+        when(ollamaService.isConfigured()).thenReturn(true);
+        when(ollamaService.name()).thenReturn("ollama");
+        when(ollamaService.model()).thenReturn("llama3.2");
+        when(ollamaService.streamChat(any(), any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("connection refused"));
+        when(intentMatcher.match(MESSAGE)).thenReturn(KeywordIntentMatcher.Intent.GREETING);
+        RecordingListener listener = new RecordingListener();
+
+        // When
+        brixService.streamChat(PROFILE_ID, MESSAGE, listener);
+
+        // Then
+        assertEquals(1, listener.tokens.size());
+        assertTrue(listener.tokens.get(0).startsWith("Hey Alex!"), listener.tokens.get(0));
+        assertEquals(listener.tokens.get(0), listener.completed.message());
+        assertEquals(listener.tokens.get(0), savedMessages(2).get(1).getMessageText());
+        assertEquals(1.0, replies("keyword"));
+    }
+
+    @Test
+    @DisplayName("Should rethrow a failure after the first token without saving or completing")
+    void testStreamChatRethrowsAfterFirstToken() {
+        // Given - Ollama sends one chunk, then the connection drops
+        when(ollamaService.isConfigured()).thenReturn(true);
+        when(ollamaService.name()).thenReturn("ollama");
+        when(ollamaService.model()).thenReturn("llama3.2");
+        when(ollamaService.streamChat(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<String> onToken = invocation.getArgument(4);
+            onToken.accept("Let's ");
+            throw new IllegalStateException("connection reset");
+        });
+        RecordingListener listener = new RecordingListener();
+
+        // When
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> brixService.streamChat(PROFILE_ID, MESSAGE, listener));
+
+        // Then - the controller turns this into an error event; no keyword reply is appended
+        assertEquals("connection reset", thrown.getMessage());
+        assertEquals(List.of("Let's "), listener.tokens);
+        assertNull(listener.completed);
+        verify(brixMessageRepository, never()).save(any());
+        verify(intentMatcher, never()).match(any());
+    }
+}
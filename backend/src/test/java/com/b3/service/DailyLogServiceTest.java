@@ -2,6 +2,8 @@ package com.b3.service;
 
 import com.b3.dto.DailyLogCreateDTO;
 import com.b3.dto.DailyLogDTO;
+import com.b3.event.CoachingContextChangedEvent;
+import com.b3.event.RecommendationInputsChangedEvent;
 import com.b3.exception.ResourceNotFoundException;
 import com.b3.exception.DuplicateResourceException;
 import com.b3.model.DailyLog;
@@ -14,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.util.Arrays;
@@ -37,6 +40,9 @@ class DailyLogServiceTest {
     @Mock
     private UserProfileRepository userProfileRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private DailyLogService dailyLogService;
 
@@ -95,6 +101,8 @@ class DailyLogServiceTest {
         assertEquals(2, result.getStressLevel());
         assertEquals("GOOD", result.getMood());
         verify(dailyLogRepository, times(1)).save(any(DailyLog.class));
+        verify(eventPublisher).publishEvent(new CoachingContextChangedEvent(1L, "daily_log_submitted"));
+        verify(eventPublisher).publishEvent(new RecommendationInputsChangedEvent(1L, "daily_log_submitted"));
     }
 
     @Test
@@ -119,6 +127,7 @@ class DailyLogServiceTest {
         // When/Then
         assertThrows(DuplicateResourceException.class,
                 () -> dailyLogService.submitDailyLog(testCreateDTO));
+        verifyNoInteractions(eventPublisher);
     }
 
     // ========================================================================
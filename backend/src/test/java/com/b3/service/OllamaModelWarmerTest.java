@@ -0,0 +1,75 @@
+package com.b3.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OllamaModelWarmer startup warm-up and active-hours window
+ */
+@DisplayName("OllamaModelWarmer Tests")
+class OllamaModelWarmerTest {
+
+    private final OllamaService ollamaService = mock(OllamaService.class);
+
+    private OllamaModelWarmer warmer(boolean enabled, String activeHours) {
+        return new OllamaModelWarmer(ollamaService, new SyncTaskExecutor(), enabled, activeHours);
+    }
+
+    @Test
+    @DisplayName("Should warm the model once the application is ready")
+    void testWarmsUpOnStartup() {
+        // When
+        warmer(true, "06:00-23:00").warmUpOnStartup();
+
+        // Then
+        verify(ollamaService).warmUp("warmup");
+    }
+
+    @Test
+    @DisplayName("Should not touch Ollama when warm-up is disabled")
+    void testDisabled() {
+        // Given
+        OllamaModelWarmer warmer = warmer(false, "00:00-23:59");
+
+        // When
+        warmer.warmUpOnStartup();
+        warmer.keepAlive();
+
+        // Then
+        verifyNoInteractions(ollamaService);
+    }
+
+    @Test
+    @DisplayName("Should treat a daytime window as start-inclusive, end-exclusive")
+    void testDaytimeWindow() {
+        OllamaModelWarmer warmer = warmer(true, "06:00-23:00");
+
+        assertTrue(warmer.isActiveHours(LocalTime.of(6, 0)));
+        assertTrue(warmer.isActiveHours(LocalTime.of(12, 30)));
+        assertFalse(warmer.isActiveHours(LocalTime.of(23, 0)));
+        assertFalse(warmer.isActiveHours(LocalTime.of(3, 0)));
+    }
+
+    @Test
+    @DisplayName("Should support windows that wrap past midnight")
+    void testWrappingWindow() {
+        OllamaModelWarmer warmer = warmer(true, "22:00-02:00");
+
+        assertTrue(warmer.isActiveHours(LocalTime.of(23, 15)));
+        assertTrue(warmer.isActiveHours(LocalTime.of(1, 59)));
+        assertFalse(warmer.isActiveHours(LocalTime.of(2, 0)));
+        assertFalse(warmer.isActiveHours(LocalTime.of(12, 0)));
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed active-hours setting")
+    void testMalformedActiveHours() {
+        assertThrows(IllegalArgumentException.class, () -> warmer(true, "always"));
+    }
+}
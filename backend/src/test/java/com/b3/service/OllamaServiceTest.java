@@ -0,0 +1,190 @@
+package com.b3.service;
+
+import com.b3.service.llm.ChatTurn;
+import com.b3.service.llm.CircuitBreaker;
+import com.b3.service.llm.LlmAdmissionController;
+import com.b3.service.llm.LlmPriority;
+import com.b3.service.llm.LlmRequest;
+import com.b3.service.llm.OllamaEndpointPool;
+import com.b3.service.llm.OllamaModelSelector;
+import com.b3.service.llm.OllamaResponseMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OllamaService's non-blocking WebClient path (chatReactive / generate)
+ */
+@DisplayName("OllamaService Tests")
+class OllamaServiceTest {
+
+    private static final String URL = "http://ollama-a:11434";
+    /** Generous, so a cold first WebClient call never trips it by accident */
+    private static final long TIMEOUT_MS = 5_000;
+
+    private SimpleMeterRegistry registry;
+    private LlmAdmissionController admissionController;
+    private OllamaEndpointPool endpointPool;
+    private List<ClientRequest> requests;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        admissionController = new LlmAdmissionController("ollama", 1,
+                Map.of(LlmPriority.INTERACTIVE, 10, LlmPriority.BACKGROUND, 10),
+                Map.of(LlmPriority.INTERACTIVE, 1000L, LlmPriority.BACKGROUND, 1000L),
+                registry);
+        // One failure ejects the endpoint, so a failed call shows up in its state
+        endpointPool = new OllamaEndpointPool(registry, URL, 1, 30_000, 2);
+        requests = new ArrayList<>();
+    }
+
+    private OllamaService service(boolean enabled, ExchangeFunction exchange) {
+        return service(enabled, exchange, TIMEOUT_MS);
+    }
+
+    private OllamaService service(boolean enabled, ExchangeFunction exchange, long totalTimeoutMs) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.add(request);
+                    return exchange.exchange(request);
+                })
+                .build();
+        OllamaModelSelector modelSelector = new OllamaModelSelector(admissionController, registry,
+                "llama3.2", 300, false, "llama3.2:1b", 150, 8, 2, 8000, 4000, 60_000);
+        return new OllamaService(mock(RestTemplate.class), webClient, totalTimeoutMs, new ObjectMapper(),
+                admissionController, new OllamaResponseMetrics(registry, 1000), endpointPool, modelSelector,
+                enabled, "30m");
+    }
+
+    private static ExchangeFunction reply(String content) {
+        String body = "{\"model\":\"llama3.2\",\"message\":{\"role\":\"assistant\",\"content\":\""
+                + content + "\"},\"done\":true,\"eval_count\":12,\"eval_duration\":400000000}";
+        return request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build());
+    }
+
+    private OllamaEndpointPool.Endpoint endpoint() {
+        return endpointPool.getEndpoints().get(0);
+    }
+
+    private void assertSlotsReleased() {
+        assertEquals(0, admissionController.getInFlight());
+        assertEquals(0, endpoint().getInFlight());
+    }
+
+    // ========================================================================
+    // CHAT REACTIVE TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should return the reply and release the model slot and endpoint")
+    void testSuccess() {
+        // Given
+        OllamaService service = service(true, reply("Let's build!"));
+        LlmRequest request = LlmRequest.interactive("system", "hi", "7")
+                .withHistory(List.of(ChatTurn.user("earlier"), ChatTurn.assistant("reply")));
+
+        // When
+        String reply = service.generate(request).block(Duration.ofSeconds(5));
+
+        // Then
+        assertEquals("Let's build!", reply);
+        assertEquals(1, requests.size());
+        assertEquals(URL + "/api/chat", requests.get(0).url().toString());
+        assertEquals(CircuitBreaker.State.CLOSED, endpoint().getState());
+        assertEquals(1, registry.get("ollama.completion.tokens").summary().count());
+        assertSlotsReleased();
+    }
+
+    @Test
+    @DisplayName("Should complete empty on a blank reply so the caller falls back")
+    void testBlankReply() {
+        // Given
+        OllamaService service = service(true, reply("   "));
+
+        // When
+        String reply = service.chatReactive("system", List.of(), "hi", LlmPriority.INTERACTIVE, null)
+                .block(Duration.ofSeconds(5));
+
+        // Then - Ollama answered, so the endpoint stays in rotation
+        assertNull(reply);
+        assertEquals(CircuitBreaker.State.CLOSED, endpoint().getState());
+        assertSlotsReleased();
+    }
+
+    @Test
+    @DisplayName("Should complete empty on a non-2xx response and count it against the endpoint")
+    void testErrorStatus() {
+        // Given
+        OllamaService service = service(true, request -> Mono.just(
+                ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body("{\"error\":\"model 'llama3.2' not found\"}")
+                        .build()));
+
+        // When
+        String reply = service.chatReactive("system", List.of(), "hi", LlmPriority.INTERACTIVE, null)
+                .block(Duration.ofSeconds(5));
+
+        // Then
+        assertNull(reply);
+        assertEquals(CircuitBreaker.State.OPEN, endpoint().getState());
+        assertSlotsReleased();
+    }
+
+    @Test
+    @DisplayName("Should give up after the total timeout and release the slot")
+    void testTimeout() {
+        // Given - Ollama never answers
+        OllamaService service = service(true, request -> Mono.never(), 200);
+
+        // When
+        long started = System.nanoTime();
+        String reply = service.chatReactive("system", List.of(), "hi", LlmPriority.INTERACTIVE, null)
+                .block(Duration.ofSeconds(5));
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        // Then
+        assertNull(reply);
+        assertTrue(elapsedMs >= 200 && elapsedMs < TIMEOUT_MS, "returned after " + elapsedMs + " ms");
+        assertEquals(CircuitBreaker.State.OPEN, endpoint().getState());
+        assertSlotsReleased();
+    }
+
+    @Test
+    @DisplayName("Should not call Ollama when disabled")
+    void testDisabled() {
+        // Given
+        OllamaService service = service(false, reply("unused"));
+
+        // When
+        String reply = service.generate(LlmRequest.interactive("system", "hi")).block(Duration.ofSeconds(5));
+
+        // Then
+        assertNull(reply);
+        assertTrue(requests.isEmpty());
+        assertSlotsReleased();
+    }
+}
@@ -2,6 +2,8 @@ package com.b3.service;
 
 import com.b3.dto.request.UserProfileUpdateRequest;
 import com.b3.dto.response.UserProfileResponse;
+import com.b3.event.CoachingContextChangedEvent;
+import com.b3.event.RecommendationInputsChangedEvent;
 import com.b3.exception.ResourceNotFoundException;
 import com.b3.model.UserProfile;
 import com.b3.repository.UserProfileRepository;
@@ -11,6 +13,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Optional;
 
@@ -27,6 +30,9 @@ class UserProfileServiceTest {
     @Mock
     private UserProfileRepository userProfileRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserProfileService userProfileService;
 
@@ -104,6 +110,8 @@ class UserProfileServiceTest {
         assertNotNull(response);
         verify(userProfileRepository).findById(1L);
         verify(userProfileRepository).save(any(UserProfile.class));
+        verify(eventPublisher).publishEvent(any(CoachingContextChangedEvent.class));
+        verify(eventPublisher).publishEvent(new RecommendationInputsChangedEvent(1L, "profile_updated"));
     }
 
     @Test
@@ -3,7 +3,8 @@ package com.b3.service;
 import com.b3.dto.response.WorkoutResponse;
 import com.b3.exception.ResourceNotFoundException;
 import com.b3.model.Workout;
-import com.b3.repository.WorkoutRepository;
+import com.b3.service.catalog.WorkoutCatalog;
+import com.b3.service.catalog.WorkoutCatalogHolder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -11,9 +12,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,7 +24,7 @@ import static org.mockito.Mockito.*;
 class WorkoutServiceTest {
 
     @Mock
-    private WorkoutRepository workoutRepository;
+    private WorkoutCatalogHolder catalogHolder;
 
     @InjectMocks
     private WorkoutService workoutService;
@@ -56,6 +55,9 @@ class WorkoutServiceTest {
             "None"
         );
         testWorkout2.setWorkoutId(2L);
+
+        when(catalogHolder.current()).thenReturn(
+            WorkoutCatalog.of(List.of(testWorkout1, testWorkout2), List.of(), 1));
     }
 
     // =====================================================
@@ -65,16 +67,14 @@ class WorkoutServiceTest {
     @Test
     @DisplayName("Should get all workouts")
     void testGetAllWorkouts() {
-        // Given
-        when(workoutRepository.findAll()).thenReturn(Arrays.asList(testWorkout1, testWorkout2));
-        
         // When
         List<WorkoutResponse> workouts = workoutService.getAllWorkouts();
         
         // Then
         assertNotNull(workouts);
         assertEquals(2, workouts.size());
-        verify(workoutRepository).findAll();
+        // Served from the snapshot: the same precomputed list every time
+        assertSame(workouts, workoutService.getAllWorkouts());
     }
 
     // =====================================================
@@ -84,9 +84,6 @@ class WorkoutServiceTest {
     @Test
     @DisplayName("Should get workout by ID")
     void testGetWorkoutById() {
-        // Given
-        when(workoutRepository.findById(1L)).thenReturn(Optional.of(testWorkout1));
-        
         // When
         WorkoutResponse response = workoutService.getWorkoutById(1L);
         
@@ -94,19 +91,18 @@ class WorkoutServiceTest {
         assertNotNull(response);
         assertEquals("Upper Body Blast", response.getName());
         assertEquals("STRENGTH", response.getWorkoutType());
-        verify(workoutRepository).findById(1L);
     }
 
     @Test
     @DisplayName("Should throw exception when workout not found")
     void testGetWorkoutByIdNotFound() {
-        // Given
-        when(workoutRepository.findById(999L)).thenReturn(Optional.empty());
-        
         // When & Then
         assertThrows(ResourceNotFoundException.class, () -> {
             workoutService.getWorkoutById(999L);
         });
+        assertThrows(ResourceNotFoundException.class, () -> {
+            workoutService.getWorkoutExercises(999L);
+        });
     }
 
     // =====================================================
@@ -116,10 +112,6 @@ class WorkoutServiceTest {
     @Test
     @DisplayName("Should filter workouts by type")
     void testFilterByWorkoutType() {
-        // Given
-        when(workoutRepository.findByWorkoutType(Workout.WorkoutType.STRENGTH))
-            .thenReturn(Arrays.asList(testWorkout1));
-        
         // When
         List<WorkoutResponse> workouts = workoutService.getWorkoutsByType(Workout.WorkoutType.STRENGTH);
         
@@ -127,7 +119,7 @@ class WorkoutServiceTest {
         assertNotNull(workouts);
         assertEquals(1, workouts.size());
         assertEquals("STRENGTH", workouts.get(0).getWorkoutType());
-        verify(workoutRepository).findByWorkoutType(Workout.WorkoutType.STRENGTH);
+        assertTrue(workoutService.getWorkoutsByType(Workout.WorkoutType.FLEXIBILITY).isEmpty());
     }
 
     // =====================================================
@@ -137,10 +129,6 @@ class WorkoutServiceTest {
     @Test
     @DisplayName("Should filter workouts by difficulty")
     void testFilterByDifficulty() {
-        // Given
-        when(workoutRepository.findByDifficultyLevel(Workout.DifficultyLevel.BEGINNER))
-            .thenReturn(Arrays.asList(testWorkout2));
-        
         // When
         List<WorkoutResponse> workouts = workoutService.getWorkoutsByDifficulty(Workout.DifficultyLevel.BEGINNER);
         
@@ -148,7 +136,6 @@ class WorkoutServiceTest {
         assertNotNull(workouts);
         assertEquals(1, workouts.size());
         assertEquals("BEGINNER", workouts.get(0).getDifficultyLevel());
-        verify(workoutRepository).findByDifficultyLevel(Workout.DifficultyLevel.BEGINNER);
     }
 
     // =====================================================
@@ -158,27 +145,18 @@ class WorkoutServiceTest {
     @Test
     @DisplayName("Should search workouts by name")
     void testSearchWorkouts() {
-        // Given
-        when(workoutRepository.findByNameContainingIgnoreCase("upper"))
-            .thenReturn(Arrays.asList(testWorkout1));
-        
         // When
-        List<WorkoutResponse> workouts = workoutService.searchWorkouts("upper");
+        List<WorkoutResponse> workouts = workoutService.searchWorkouts("UPPER");
         
         // Then
         assertNotNull(workouts);
         assertEquals(1, workouts.size());
         assertTrue(workouts.get(0).getName().toLowerCase().contains("upper"));
-        verify(workoutRepository).findByNameContainingIgnoreCase("upper");
     }
 
     @Test
     @DisplayName("Should return empty list when no matches found")
     void testSearchWorkoutsNoResults() {
-        // Given
-        when(workoutRepository.findByNameContainingIgnoreCase("yoga"))
-            .thenReturn(Arrays.asList());
-        
         // When
         List<WorkoutResponse> workouts = workoutService.searchWorkouts("yoga");
         
@@ -194,10 +172,6 @@ class WorkoutServiceTest {
     @Test
     @DisplayName("Should recommend workouts based on user fitness level")
     void testGetRecommendedWorkouts() {
-        // Given
-        when(workoutRepository.findByDifficultyLevel(Workout.DifficultyLevel.INTERMEDIATE))
-            .thenReturn(Arrays.asList(testWorkout1));
-        
         // When
         List<WorkoutResponse> workouts = workoutService.getRecommendedWorkouts(
             Workout.DifficultyLevel.INTERMEDIATE
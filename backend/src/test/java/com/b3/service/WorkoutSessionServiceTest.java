@@ -3,6 +3,7 @@ package com.b3.service;
 import com.b3.dto.request.WorkoutSessionCreateRequest;
 import com.b3.dto.request.WorkoutSessionCompleteRequest;
 import com.b3.dto.response.WorkoutSessionResponse;
+import com.b3.event.WorkoutCompletedEvent;
 import com.b3.exception.BadRequestException;
 import com.b3.exception.ResourceNotFoundException;
 import com.b3.model.UserProfile;
@@ -17,6 +18,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -42,6 +44,9 @@ class WorkoutSessionServiceTest {
     @Mock
     private WorkoutRepository workoutRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private WorkoutSessionService workoutSessionService;
 
@@ -156,6 +161,7 @@ class WorkoutSessionServiceTest {
         assertNotNull(response);
         verify(workoutSessionRepository).save(any(WorkoutSession.class));
         verify(userProfileRepository).save(any(UserProfile.class)); // User stats updated
+        verify(eventPublisher).publishEvent(new WorkoutCompletedEvent(1L, 1L));
     }
 
     @Test
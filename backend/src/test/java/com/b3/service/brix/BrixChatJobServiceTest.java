@@ -0,0 +1,236 @@
+package com.b3.service.brix;
+
+import com.b3.exception.BadRequestException;
+import com.b3.exception.ResourceNotFoundException;
+import com.b3.exception.TooManyRequestsException;
+import com.b3.service.BrixService;
+import com.b3.service.BrixService.BrixChatResponse;
+import com.b3.service.brix.BrixChatJobService.JobView;
+import com.b3.service.brix.BrixChatJobService.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BrixChatJobService dedupe, long-poll and bounds
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BrixChatJobService Tests")
+class BrixChatJobServiceTest {
+
+    @Mock
+    private BrixService brixService;
+
+    private SimpleMeterRegistry registry;
+    private MutableClock clock;
+    private BrixChatJobService jobService;
+
+    private final BrixChatResponse reply = new BrixChatResponse("Let's build!", "ENCOURAGING", null);
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        // 2 jobs max, finished jobs kept 10 minutes, long-poll capped at 5s
+        jobService = new BrixChatJobService(brixService, registry, 2, 600_000, 5_000, clock);
+    }
+
+    // ========================================================================
+    // SUBMIT TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should run the chat once and expose the result")
+    void testSubmitAndComplete() {
+        // Given
+        when(brixService.chatReactive(1L, "hi")).thenReturn(Mono.just(reply));
+
+        // When
+        JobView submitted = jobService.submit(1L, "hi", null);
+        JobView fetched = jobService.await(submitted.jobId(), 0).block();
+
+        // Then
+        assertNotNull(fetched);
+        assertEquals(Status.COMPLETED, fetched.status());
+        assertEquals(reply, fetched.response());
+        verify(brixService, times(1)).chatReactive(1L, "hi");
+    }
+
+    @Test
+    @DisplayName("Should map retries with the same key to the in-flight job")
+    void testIdempotentRetryWhilePending() {
+        // Given - generation still running
+        Sinks.One<BrixChatResponse> generation = Sinks.one();
+        when(brixService.chatReactive(1L, "hi")).thenReturn(generation.asMono());
+        JobView first = jobService.submit(1L, "hi", "key-1");
+
+        // When
+        JobView retry = jobService.submit(1L, "hi", "key-1");
+
+        // Then
+        assertEquals(first.jobId(), retry.jobId());
+        assertEquals(Status.PENDING, retry.status());
+        verify(brixService, times(1)).chatReactive(1L, "hi");
+
+        // And - once done, a late retry still sees the same finished job
+        generation.tryEmitValue(reply);
+        JobView lateRetry = jobService.submit(1L, "hi", "key-1");
+        assertEquals(first.jobId(), lateRetry.jobId());
+        assertEquals(Status.COMPLETED, lateRetry.status());
+        assertEquals(2.0, registry.get("brix.chat.jobs").tag("result", "deduplicated").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should scope keys per user and reject a key reused for another message")
+    void testKeyScoping() {
+        // Given
+        when(brixService.chatReactive(anyLong(), anyString())).thenReturn(Mono.just(reply));
+        JobView mine = jobService.submit(1L, "hi", "key-1");
+
+        // When / Then - another user, same key: separate job
+        JobView theirs = jobService.submit(2L, "hi", "key-1");
+        assertNotEquals(mine.jobId(), theirs.jobId());
+
+        // When / Then - same user, same key, different message
+        assertThrows(BadRequestException.class, () -> jobService.submit(1L, "different", "key-1"));
+    }
+
+    @Test
+    @DisplayName("Should allow a failed job to be retried under the same key")
+    void testRetryAfterFailure() {
+        // Given
+        when(brixService.chatReactive(1L, "hi"))
+                .thenReturn(Mono.error(new IllegalStateException("boom")))
+                .thenReturn(Mono.just(reply));
+        JobView failed = jobService.submit(1L, "hi", "key-1");
+        assertEquals(Status.FAILED, failed.status());
+
+        // When
+        JobView retried = jobService.submit(1L, "hi", "key-1");
+
+        // Then
+        assertNotEquals(failed.jobId(), retried.jobId());
+        assertEquals(Status.COMPLETED, retried.status());
+    }
+
+    // ========================================================================
+    // LONG-POLL TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should return as soon as the job finishes while long-polling")
+    void testLongPollCompletes() {
+        // Given
+        Sinks.One<BrixChatResponse> generation = Sinks.one();
+        when(brixService.chatReactive(1L, "hi")).thenReturn(generation.asMono());
+        JobView submitted = jobService.submit(1L, "hi", null);
+
+        // When
+        Mono<JobView> poll = jobService.await(submitted.jobId(), 60_000);
+        generation.tryEmitValue(reply);
+
+        // Then
+        JobView result = poll.block(Duration.ofSeconds(2));
+        assertNotNull(result);
+        assertEquals(Status.COMPLETED, result.status());
+    }
+
+    @Test
+    @DisplayName("Should return PENDING when the wait runs out")
+    void testLongPollTimesOut() {
+        // Given
+        when(brixService.chatReactive(1L, "hi")).thenReturn(Mono.never());
+        jobService = new BrixChatJobService(brixService, new SimpleMeterRegistry(), 2, 600_000, 50, clock);
+        JobView submitted = jobService.submit(1L, "hi", null);
+
+        // When - asks for a minute, capped at 50ms
+        JobView result = jobService.await(submitted.jobId(), 60_000).block(Duration.ofSeconds(2));
+
+        // Then
+        assertNotNull(result);
+        assertEquals(Status.PENDING, result.status());
+    }
+
+    @Test
+    @DisplayName("Should report unknown jobs as not found")
+    void testUnknownJob() {
+        assertThrows(ResourceNotFoundException.class, () -> jobService.await("missing", 0).block());
+    }
+
+    // ========================================================================
+    // BOUND TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should expire finished jobs after the TTL")
+    void testTtlEviction() {
+        // Given
+        when(brixService.chatReactive(1L, "hi")).thenReturn(Mono.just(reply));
+        JobView submitted = jobService.submit(1L, "hi", "key-1");
+
+        // When
+        clock.advance(Duration.ofMinutes(11));
+
+        // Then - gone, and the key no longer dedupes
+        assertThrows(ResourceNotFoundException.class, () -> jobService.await(submitted.jobId(), 0).block());
+        assertNotEquals(submitted.jobId(), jobService.submit(1L, "hi", "key-1").jobId());
+    }
+
+    @Test
+    @DisplayName("Should evict finished jobs first and refuse when all jobs are running")
+    void testCapacity() {
+        // Given - one finished, one running
+        when(brixService.chatReactive(1L, "done")).thenReturn(Mono.just(reply));
+        when(brixService.chatReactive(anyLong(), eq("slow"))).thenReturn(Mono.never());
+        JobView finished = jobService.submit(1L, "done", null);
+        jobService.submit(2L, "slow", null);
+
+        // When - full: the finished job makes room
+        jobService.submit(3L, "slow", null);
+
+        // Then
+        assertEquals(2, jobService.size());
+        assertThrows(ResourceNotFoundException.class, () -> jobService.await(finished.jobId(), 0).block());
+
+        // When / Then - full of running jobs
+        assertThrows(TooManyRequestsException.class, () -> jobService.submit(4L, "slow", null));
+        assertEquals(1.0, registry.get("brix.chat.jobs").tag("result", "rejected").counter().count());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
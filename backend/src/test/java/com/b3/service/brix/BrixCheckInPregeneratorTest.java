@@ -0,0 +1,231 @@
+package com.b3.service.brix;
+
+import com.b3.model.BehaviorProfile;
+import com.b3.model.BrixMessage;
+import com.b3.model.UserProfile;
+import com.b3.repository.BehaviorProfileRepository;
+import com.b3.repository.BrixMessageRepository;
+import com.b3.service.llm.LlmPriority;
+import com.b3.service.llm.LlmRequest;
+import com.b3.service.llm.LlmRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BrixCheckInPregenerator paging, throttling and window handling
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BrixCheckInPregenerator Tests")
+class BrixCheckInPregeneratorTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+    @Mock
+    private BehaviorProfileRepository behaviorProfileRepository;
+
+    @Mock
+    private BrixMessageRepository messageRepository;
+
+    @Mock
+    private LlmRouter llmRouter;
+
+    private SimpleMeterRegistry registry;
+    private TaskExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        executor = new SyncTaskExecutor();
+    }
+
+    private BrixCheckInPregenerator pregenerator(String time, int chunkSize) {
+        Clock clock = Clock.fixed(Instant.parse("2025-06-01T" + time + ":00Z"), ZoneId.of("UTC"));
+        // no pacing in tests
+        return new BrixCheckInPregenerator(behaviorProfileRepository, messageRepository, llmRouter, executor, registry,
+                true, "01:00-05:30", chunkSize, 0, 14, 1000, clock);
+    }
+
+    private BehaviorProfile activeUser(long profileId) {
+        UserProfile user = new UserProfile();
+        user.setProfileId(profileId);
+        user.setDisplayName("User " + profileId);
+        BehaviorProfile behavior = new BehaviorProfile(user);
+        behavior.setConsecutiveDays(3);
+        behavior.setTotalBricksLaid(10);
+        return behavior;
+    }
+
+    // ========================================================================
+    // RUN TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should store one pending message per trigger for each active user")
+    void testGeneratesPendingMessages() {
+        // Given
+        when(llmRouter.hasAvailableProvider()).thenReturn(true);
+        when(llmRouter.generate(any())).thenReturn(Mono.just("  Morning! Let's build.  "));
+        when(behaviorProfileRepository.findActiveAfter(eq(0L), any(), any()))
+                .thenReturn(List.of(activeUser(1L)));
+
+        // When
+        BrixCheckInPregenerator.RunSummary summary = pregenerator("01:00", 10).run();
+
+        // Then
+        assertTrue(summary.completed());
+        assertEquals(TODAY, summary.deliverOn());
+        assertEquals(1, summary.users());
+        assertEquals(3, summary.messages());
+
+        ArgumentCaptor<BrixMessage> saved = ArgumentCaptor.forClass(BrixMessage.class);
+        verify(messageRepository, times(3)).save(saved.capture());
+        assertTrue(saved.getAllValues().stream().allMatch(message ->
+                message.isPending()
+                        && TODAY.equals(message.getDeliverOn())
+                        && "Morning! Let's build.".equals(message.getMessageText())));
+        assertEquals(BrixCheckInPregenerator.TRIGGERS.keySet(), saved.getAllValues().stream()
+                .map(BrixMessage::getContextTrigger).collect(Collectors.toSet()));
+
+        ArgumentCaptor<LlmRequest> requests = ArgumentCaptor.forClass(LlmRequest.class);
+        verify(llmRouter, times(3)).generate(requests.capture());
+        assertTrue(requests.getAllValues().stream().allMatch(request -> request.priority() == LlmPriority.BACKGROUND));
+        verify(messageRepository).deleteUndeliveredBefore(TODAY);
+    }
+
+    @Test
+    @DisplayName("Should page through users by keyset cursor")
+    void testKeysetPaging() {
+        // Given - chunk size 2: a full page, then a short one
+        when(llmRouter.hasAvailableProvider()).thenReturn(true);
+        when(llmRouter.generate(any())).thenReturn(Mono.just("Hi!"));
+        when(behaviorProfileRepository.findActiveAfter(eq(0L), any(), any()))
+                .thenReturn(List.of(activeUser(4L), activeUser(9L)));
+        when(behaviorProfileRepository.findActiveAfter(eq(9L), any(), any()))
+                .thenReturn(List.of(activeUser(12L)));
+
+        // When
+        BrixCheckInPregenerator.RunSummary summary = pregenerator("02:00", 2).run();
+
+        // Then
+        assertEquals(3, summary.users());
+        ArgumentCaptor<LocalDateTime> activeSince = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<Pageable> pages = ArgumentCaptor.forClass(Pageable.class);
+        verify(behaviorProfileRepository, times(2)).findActiveAfter(anyLong(), activeSince.capture(), pages.capture());
+        assertEquals(LocalDateTime.of(2025, 5, 18, 2, 0), activeSince.getValue());
+        assertTrue(pages.getAllValues().stream().allMatch(page -> page.getPageNumber() == 0 && page.getPageSize() == 2));
+    }
+
+    @Test
+    @DisplayName("Should skip users who already have messages for the day")
+    void testSkipsAlreadyGenerated() {
+        // Given
+        when(llmRouter.hasAvailableProvider()).thenReturn(true);
+        when(behaviorProfileRepository.findActiveAfter(eq(0L), any(), any()))
+                .thenReturn(List.of(activeUser(1L)));
+        when(messageRepository.findProfileIdsWithPendingOn(List.of(1L), TODAY)).thenReturn(List.of(1L));
+
+        // When
+        BrixCheckInPregenerator.RunSummary summary = pregenerator("01:30", 10).run();
+
+        // Then
+        assertEquals(1, summary.skipped());
+        verify(messageRepository).findProfileIdsWithPendingOn(List.of(1L), TODAY);
+        verify(llmRouter, never()).generate(any());
+        verify(messageRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should stop after repeated LLM failures without saving anything")
+    void testStopsWhenLlmFails() {
+        // Given
+        when(llmRouter.hasAvailableProvider()).thenReturn(true);
+        when(llmRouter.generate(any())).thenReturn(Mono.error(new IllegalStateException("down")));
+        when(behaviorProfileRepository.findActiveAfter(eq(0L), any(), any()))
+                .thenReturn(List.of(activeUser(1L), activeUser(2L), activeUser(3L)));
+
+        // When
+        BrixCheckInPregenerator.RunSummary summary = pregenerator("01:00", 10).run();
+
+        // Then - 5 failures in a row ends the run partway through user 2
+        assertFalse(summary.completed());
+        verify(llmRouter, times(5)).generate(any());
+        verify(messageRepository, never()).save(any());
+        assertEquals(5.0, registry.get("brix.pregen.messages").tag("result", "failed").counter().count());
+    }
+
+    // ========================================================================
+    // WINDOW TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should not run outside the off-peak window or without an LLM")
+    void testSkipsOutsideWindow() {
+        // When / Then - morning peak
+        assertFalse(pregenerator("08:00", 10).run().completed());
+
+        // When / Then - in window, no provider
+        when(llmRouter.hasAvailableProvider()).thenReturn(false);
+        assertFalse(pregenerator("01:00", 10).run().completed());
+
+        verifyNoInteractions(behaviorProfileRepository, messageRepository);
+    }
+
+    @Test
+    @DisplayName("Should hand the scheduled run to its own executor")
+    void testScheduledRunUsesOwnExecutor() {
+        // Given - an executor that only collects tasks
+        List<Runnable> submitted = new ArrayList<>();
+        executor = submitted::add;
+        BrixCheckInPregenerator pregenerator = pregenerator("02:00", 10);
+
+        // When
+        pregenerator.runScheduled();
+
+        // Then - the scheduler thread did no work itself
+        assertEquals(1, submitted.size());
+        verifyNoInteractions(llmRouter, behaviorProfileRepository, messageRepository);
+    }
+
+    @Test
+    @DisplayName("Should handle windows that wrap midnight")
+    void testWindowWrapsMidnight() {
+        Clock clock = Clock.fixed(Instant.parse("2025-06-01T23:00:00Z"), ZoneId.of("UTC"));
+        BrixCheckInPregenerator overnight = new BrixCheckInPregenerator(behaviorProfileRepository,
+                messageRepository, llmRouter, executor, registry, true, "22:00-02:00", 10, 0, 14, 1000, clock);
+
+        assertTrue(overnight.isInWindow(LocalTime.of(23, 0)));
+        assertTrue(overnight.isInWindow(LocalTime.of(1, 59)));
+        assertFalse(overnight.isInWindow(LocalTime.of(2, 0)));
+
+        // A run starting before midnight writes for the next day
+        when(llmRouter.hasAvailableProvider()).thenReturn(true);
+        when(behaviorProfileRepository.findActiveAfter(eq(0L), any(), any())).thenReturn(List.of());
+        assertEquals(TODAY.plusDays(1), overnight.run().deliverOn());
+    }
+}
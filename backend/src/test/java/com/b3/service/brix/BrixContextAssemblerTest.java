@@ -0,0 +1,294 @@
+package com.b3.service.brix;
+
+import com.b3.model.BrixConversationSummary;
+import com.b3.model.BrixMessage;
+import com.b3.model.UserProfile;
+import com.b3.repository.BrixConversationSummaryRepository;
+import com.b3.repository.BrixMessageRepository;
+import com.b3.service.llm.ChatTurn;
+import com.b3.service.llm.LlmPriority;
+import com.b3.service.llm.LlmRequest;
+import com.b3.service.llm.LlmRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BrixContextAssembler budgeting and incremental summaries
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BrixContextAssembler Tests")
+class BrixContextAssemblerTest {
+
+    private static final Long PROFILE_ID = 1L;
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-06-01T12:00:00Z"), ZoneId.of("UTC"));
+
+    @Mock
+    private BrixMessageRepository messageRepository;
+
+    @Mock
+    private BrixConversationSummaryRepository summaryRepository;
+
+    @Mock
+    private LlmRouter llmRouter;
+
+    private UserProfile user;
+    private SimpleMeterRegistry registry;
+    private BrixContextAssembler assembler;
+
+    @BeforeEach
+    void setUp() {
+        user = new UserProfile();
+        user.setProfileId(PROFILE_ID);
+        registry = new SimpleMeterRegistry();
+        // 100-token budget, 4 recent messages, 30-token summary, fold 2+ at a time
+        assembler = new BrixContextAssembler(messageRepository, summaryRepository, llmRouter, registry,
+                Schedulers.immediate(), true, 100, 4, 30, 2, 30, 5000, CLOCK);
+    }
+
+    private BrixMessage message(long id, boolean fromUser, String text, long minutesAgo) {
+        BrixMessage message = fromUser
+                ? BrixMessage.fromUser(user, text, BrixMessage.Tone.ENCOURAGING, BrixContextAssembler.CHAT_TRIGGER)
+                : new BrixMessage(user, text, BrixMessage.MessageType.MOTIVATION, BrixMessage.Tone.ENCOURAGING,
+                        BrixContextAssembler.CHAT_TRIGGER);
+        message.setMessageId(id);
+        message.setSentAt(LocalDateTime.now(CLOCK).minusMinutes(minutesAgo));
+        return message;
+    }
+
+    private void recent(BrixMessage... newestFirst) {
+        when(messageRepository.findByUserProfile_ProfileIdAndContextTriggerOrderByMessageIdDesc(
+                eq(PROFILE_ID), eq(BrixContextAssembler.CHAT_TRIGGER), any(Pageable.class)))
+                .thenReturn(List.of(newestFirst));
+    }
+
+    private void pending(long afterId, List<BrixMessage> oldestFirst) {
+        when(messageRepository.findByUserProfile_ProfileIdAndContextTriggerAndMessageIdGreaterThanOrderByMessageIdAsc(
+                eq(PROFILE_ID), eq(BrixContextAssembler.CHAT_TRIGGER), eq(afterId), any(Pageable.class)))
+                .thenReturn(oldestFirst);
+    }
+
+    private List<BrixMessage> conversation(int count) {
+        List<BrixMessage> messages = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            boolean fromUser = i % 2 == 1;
+            messages.add(message(i, fromUser, (fromUser ? "question " : "answer ") + i, 100 - i));
+        }
+        return messages;
+    }
+
+    // ========================================================================
+    // ASSEMBLY TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should replay recent turns oldest first with their roles")
+    void testRecentTurns() {
+        // Given
+        when(summaryRepository.findByUserProfile_ProfileId(PROFILE_ID)).thenReturn(Optional.empty());
+        recent(message(4, false, "Try a 20 minute walk.", 5),
+                message(3, true, "My knee hurts today", 6),
+                message(2, false, "Nice work!", 7),
+                message(1, true, "I did squats", 8));
+
+        // When
+        BrixContextAssembler.ConversationMemory memory = assembler.assemble(PROFILE_ID);
+
+        // Then
+        assertEquals(List.of(ChatTurn.user("I did squats"), ChatTurn.assistant("Nice work!"),
+                ChatTurn.user("My knee hurts today"), ChatTurn.assistant("Try a 20 minute walk.")), memory.turns());
+        assertNull(memory.summary());
+        assertTrue(memory.ongoing());
+        assertEquals(1, registry.get("brix.memory.prompt.tokens").summary().count());
+    }
+
+    @Test
+    @DisplayName("Should stop adding turns once the token budget is spent")
+    void testTokenBudget() {
+        // Given - each long message is ~100 tokens, more than the budget left after the newest two
+        when(summaryRepository.findByUserProfile_ProfileId(PROFILE_ID)).thenReturn(Optional.empty());
+        String longText = "x".repeat(320);
+        recent(message(4, false, "Short answer.", 5),
+                message(3, true, "Short question?", 6),
+                message(2, false, longText, 7),
+                message(1, true, longText, 8));
+
+        // When
+        BrixContextAssembler.ConversationMemory memory = assembler.assemble(PROFILE_ID);
+
+        // Then - newest pair kept, older pair dropped, under budget
+        assertEquals(List.of(ChatTurn.user("Short question?"), ChatTurn.assistant("Short answer.")), memory.turns());
+        assertTrue(memory.estimatedTokens() <= 100);
+    }
+
+    @Test
+    @DisplayName("Should include the summary and skip turns it already covers")
+    void testSummaryAndWatermark() {
+        // Given
+        BrixConversationSummary summary = new BrixConversationSummary(user);
+        summary.advance("They are training for a 5k.", 2L, 2);
+        when(summaryRepository.findByUserProfile_ProfileId(PROFILE_ID)).thenReturn(Optional.of(summary));
+        recent(message(4, false, "Go easy today.", 5),
+                message(3, true, "Legs are sore", 6),
+                message(2, false, "Covered by summary", 7));
+
+        // When
+        BrixContextAssembler.ConversationMemory memory = assembler.assemble(PROFILE_ID);
+
+        // Then
+        assertEquals("They are training for a 5k.", memory.summary());
+        assertEquals(2, memory.turns().size());
+        assertTrue(memory.turns().stream().noneMatch(turn -> turn.content().contains("Covered")));
+    }
+
+    @Test
+    @DisplayName("Should start with a user turn, alternate roles and end before the new message")
+    void testNormalize() {
+        // Given - legacy BRIX-only rows, then a doubled user turn and an unanswered one
+        ArrayDeque<ChatTurn> window = new ArrayDeque<>(List.of(
+                ChatTurn.assistant("old reply"),
+                ChatTurn.user("first"),
+                ChatTurn.user("second"),
+                ChatTurn.assistant("reply"),
+                ChatTurn.user("unanswered")));
+
+        // When
+        List<ChatTurn> turns = BrixContextAssembler.normalize(window);
+
+        // Then
+        assertEquals(List.of(ChatTurn.user("first\nsecond"), ChatTurn.assistant("reply")), turns);
+    }
+
+    @Test
+    @DisplayName("Should not treat an old conversation as ongoing")
+    void testNotOngoingAfterGap() {
+        // Given
+        when(summaryRepository.findByUserProfile_ProfileId(PROFILE_ID)).thenReturn(Optional.empty());
+        recent(message(2, false, "See you tomorrow!", 180), message(1, true, "Done for today", 181));
+
+        // When / Then
+        assertFalse(assembler.assemble(PROFILE_ID).ongoing());
+    }
+
+    @Test
+    @DisplayName("Should return empty memory without touching the database when disabled")
+    void testDisabled() {
+        // Given
+        BrixContextAssembler disabled = new BrixContextAssembler(messageRepository, summaryRepository, llmRouter,
+                new SimpleMeterRegistry(), Schedulers.immediate(), false, 100, 4, 30, 2, 30, 5000, CLOCK);
+
+        // When
+        BrixContextAssembler.ConversationMemory memory = disabled.assemble(PROFILE_ID);
+
+        // Then
+        assertTrue(memory.isEmpty());
+        verifyNoInteractions(messageRepository, summaryRepository);
+    }
+
+    // ========================================================================
+    // SUMMARY TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should fold only messages that left the window into the existing summary")
+    void testIncrementalRefresh() {
+        // Given - summary covers messages 1-2; 3-8 are new, the newest 4 stay in the window
+        BrixConversationSummary summary = new BrixConversationSummary(user);
+        summary.advance("They are training for a 5k.", 2L, 2);
+        when(summaryRepository.findByUserProfile_ProfileId(PROFILE_ID)).thenReturn(Optional.of(summary));
+        pending(2L, conversation(8).subList(2, 8));
+        when(llmRouter.hasAvailableProvider()).thenReturn(true);
+        when(llmRouter.generate(any())).thenReturn(Mono.just("Training for a 5k; asked two questions."));
+
+        // When
+        Boolean refreshed = assembler.refreshSummary(PROFILE_ID).block();
+
+        // Then - one background call, fed the old summary plus messages 3-4 only
+        assertTrue(refreshed);
+        ArgumentCaptor<LlmRequest> request = ArgumentCaptor.forClass(LlmRequest.class);
+        verify(llmRouter).generate(request.capture());
+        assertEquals(LlmPriority.BACKGROUND, request.getValue().priority());
+        assertTrue(request.getValue().userMessage().contains("They are training for a 5k."));
+        assertTrue(request.getValue().userMessage().contains("User: question 3"));
+        assertTrue(request.getValue().userMessage().contains("BRIX: answer 4"));
+        assertFalse(request.getValue().userMessage().contains("question 5"));
+
+        assertEquals("Training for a 5k; asked two questions.", summary.getSummaryText());
+        assertEquals(4L, summary.getSummarizedThroughMessageId());
+        assertEquals(4, summary.getMessagesSummarized());
+        verify(summaryRepository).save(summary);
+        assertEquals(1.0, registry.get("brix.memory.summary.refreshes").tag("method", "llm").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should wait until a full batch has left the window")
+    void testNoRefreshBelowBatch() {
+        // Given - 5 new messages, window of 4: only one has left
+        when(summaryRepository.findByUserProfile_ProfileId(PROFILE_ID)).thenReturn(Optional.empty());
+        pending(0L, conversation(5));
+
+        // When
+        Boolean refreshed = assembler.refreshSummary(PROFILE_ID).block();
+
+        // Then
+        assertFalse(refreshed);
+        verifyNoInteractions(llmRouter);
+        verify(summaryRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should fall back to an extractive summary capped to its token limit")
+    void testExtractiveFallback() {
+        // Given - first summary for the user, no LLM available
+        when(summaryRepository.findByUserProfile_ProfileId(PROFILE_ID)).thenReturn(Optional.empty());
+        List<BrixMessage> messages = conversation(10);
+        messages.set(0, message(1, true, "I want to run a half marathon in the spring and my left knee is weak", 99));
+        pending(0L, messages);
+        when(llmRouter.hasAvailableProvider()).thenReturn(false);
+
+        // When
+        Boolean refreshed = assembler.refreshSummary(PROFILE_ID).block();
+
+        // Then - the user's words are kept, newest last, within 30 tokens (~120 chars)
+        assertTrue(refreshed);
+        ArgumentCaptor<BrixConversationSummary> saved = ArgumentCaptor.forClass(BrixConversationSummary.class);
+        verify(summaryRepository).save(saved.capture());
+        String text = saved.getValue().getSummaryText();
+        assertTrue(text.length() <= 120);
+        assertTrue(text.endsWith("They said: question 5"));
+        assertFalse(text.contains("answer"));
+        assertEquals(6L, saved.getValue().getSummarizedThroughMessageId());
+        assertSame(user, saved.getValue().getUserProfile());
+        verify(llmRouter, never()).generate(any());
+    }
+
+    @Test
+    @DisplayName("Should estimate about four characters per token")
+    void testEstimateTokens() {
+        assertEquals(0, BrixContextAssembler.estimateTokens(null));
+        assertEquals(1, BrixContextAssembler.estimateTokens("hey"));
+        assertEquals(25, BrixContextAssembler.estimateTokens("x".repeat(100)));
+    }
+}
@@ -0,0 +1,217 @@
+package com.b3.service.brix;
+
+import com.b3.event.BrixMessageSavedEvent;
+import com.b3.exception.BadRequestException;
+import com.b3.model.BrixMessage;
+import com.b3.model.UserProfile;
+import com.b3.repository.BrixMessageRepository;
+import com.b3.repository.BrixMessageRepository.IndexedText;
+import com.b3.service.brix.BrixMessageSearchIndex.SearchHit;
+import com.b3.service.brix.BrixMessageSearchIndex.SearchPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BrixMessageSearchIndex analysis, ranking and paging
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BrixMessageSearchIndex Tests")
+class BrixMessageSearchIndexTest {
+
+    @Mock
+    private BrixMessageRepository messageRepository;
+
+    private SimpleMeterRegistry registry;
+    private BrixMessageSearchIndex index;
+    private final Map<Long, BrixMessage> stored = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        index = new BrixMessageSearchIndex(messageRepository, registry, 2, 50);
+        lenient().when(messageRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<BrixMessage> found = new ArrayList<>();
+            for (Object id : invocation.<Iterable<?>>getArgument(0)) {
+                if (stored.containsKey(id)) {
+                    found.add(stored.get(id));
+                }
+            }
+            return found;
+        });
+    }
+
+    private void givenMessages(long profileId, String... texts) {
+        List<IndexedText> rows = new ArrayList<>();
+        for (String text : texts) {
+            long messageId = stored.size() + 1;
+            rows.add(store(messageId, text));
+        }
+        when(messageRepository.findIndexedText(profileId)).thenReturn(rows);
+    }
+
+    private IndexedText store(long messageId, String text) {
+        UserProfile user = new UserProfile();
+        user.setProfileId(1L);
+        BrixMessage message = new BrixMessage(user, text, BrixMessage.MessageType.TIP, BrixMessage.Tone.ENCOURAGING);
+        message.setMessageId(messageId);
+        stored.put(messageId, message);
+        return new Row(messageId, text);
+    }
+
+    private record Row(Long messageId, String messageText) implements IndexedText {
+        public Long getMessageId() { return messageId; }
+        public String getMessageText() { return messageText; }
+    }
+
+    private List<Long> ids(SearchPage page) {
+        return page.results().stream().map(SearchHit::messageId).toList();
+    }
+
+    // ========================================================================
+    // TEXT ANALYSIS TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should stem common inflections to the same term")
+    void testStemming() {
+        assertEquals("stretch", BrixMessageSearchIndex.stem("stretching"));
+        assertEquals("stretch", BrixMessageSearchIndex.stem("stretches"));
+        assertEquals("stretch", BrixMessageSearchIndex.stem("stretched"));
+        assertEquals("run", BrixMessageSearchIndex.stem("running"));
+        assertEquals("injury", BrixMessageSearchIndex.stem("injuries"));
+        assertEquals("leg", BrixMessageSearchIndex.stem("legs"));
+        assertEquals("stress", BrixMessageSearchIndex.stem("stress"));
+    }
+
+    @Test
+    @DisplayName("Should drop stop words, punctuation and single letters")
+    void testTokenize() {
+        assertEquals(List.of("brix", "say", "stretch"),
+                BrixMessageSearchIndex.tokenize("What did BRIX say about stretching?!"));
+        assertEquals(List.of("let", "go"), BrixMessageSearchIndex.tokenize("Let's go!"));
+    }
+
+    // ========================================================================
+    // SEARCH TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should rank messages by BM25 and match across inflections")
+    void testRanking() {
+        // Given
+        givenMessages(1L,
+                "Drink water after your workout.",
+                "Stretch your hamstrings. Stretching daily keeps them loose - stretch before bed too.",
+                "Remember to stretch after a long run and drink plenty of water afterwards, it helps recovery a lot.",
+                "Rest days build the wall as much as workouts do.");
+
+        // When
+        SearchPage page = index.search(1L, "what did BRIX say about stretching", 10, null);
+
+        // Then - the message that is all about stretching ranks first
+        assertEquals(List.of(2L, 3L), ids(page));
+        assertTrue(page.results().get(0).score() > page.results().get(1).score());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Should page with keyset cursors without repeating results")
+    void testKeysetPaging() {
+        // Given - five equally relevant messages
+        givenMessages(1L, "core work", "core work", "core work", "core work", "core work");
+
+        // When
+        SearchPage first = index.search(1L, "core", 2, null);
+        SearchPage second = index.search(1L, "core", 2, first.nextCursor());
+        SearchPage third = index.search(1L, "core", 2, second.nextCursor());
+
+        // Then - ties broken by newest id first
+        assertEquals(List.of(5L, 4L), ids(first));
+        assertEquals(List.of(3L, 2L), ids(second));
+        assertEquals(List.of(1L), ids(third));
+        assertNull(third.nextCursor());
+
+        Set<Long> all = new HashSet<>();
+        all.addAll(ids(first));
+        all.addAll(ids(second));
+        all.addAll(ids(third));
+        assertEquals(5, all.size());
+    }
+
+    @Test
+    @DisplayName("Should build each user's index once and add saved messages incrementally")
+    void testIncrementalUpdate() {
+        // Given
+        givenMessages(1L, "Try some yoga tonight.");
+        assertTrue(index.search(1L, "mobility", 10, null).results().isEmpty());
+
+        // When
+        store(2L, "Mobility drills count as a brick too.");
+        index.onMessageSaved(new BrixMessageSavedEvent(1L, 2L, "Mobility drills count as a brick too."));
+        index.onMessageSaved(new BrixMessageSavedEvent(1L, 2L, "Mobility drills count as a brick too."));
+
+        // Then
+        assertEquals(List.of(2L), ids(index.search(1L, "mobility", 10, null)));
+        verify(messageRepository, times(1)).findIndexedText(1L);
+        assertEquals(1.0, registry.get("brix.search.index.builds").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should ignore saves for users whose index is not loaded")
+    void testSaveForUnloadedUser() {
+        // When
+        index.onMessageSaved(new BrixMessageSavedEvent(9L, 1L, "hello"));
+
+        // Then
+        assertEquals(0, index.size());
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently searched user beyond max-users")
+    void testLruBound() {
+        // Given - room for two users
+        when(messageRepository.findIndexedText(anyLong())).thenReturn(List.of());
+
+        // When
+        index.search(1L, "core", 10, null);
+        index.search(2L, "core", 10, null);
+        index.search(1L, "core", 10, null);
+        index.search(3L, "core", 10, null);
+        index.search(1L, "core", 10, null);
+
+        // Then - user 1 stayed warm, user 2 was evicted
+        assertEquals(2, index.size());
+        verify(messageRepository, times(1)).findIndexedText(1L);
+    }
+
+    // ========================================================================
+    // VALIDATION TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should reject blank queries and malformed cursors")
+    void testValidation() {
+        assertThrows(BadRequestException.class, () -> index.search(1L, "  ", 10, null));
+        assertThrows(BadRequestException.class, () -> index.search(1L, "core", 10, "not-a-cursor"));
+        // Only stop words: nothing to look for
+        assertTrue(index.search(1L, "what is the", 10, null).results().isEmpty());
+    }
+}
@@ -0,0 +1,105 @@
+package com.b3.service.brix;
+
+import com.b3.service.brix.BrixPipelineMetrics.ReplySource;
+import com.b3.service.brix.BrixPipelineMetrics.Stage;
+import com.b3.service.llm.ChatTurn;
+import com.b3.service.llm.LlmRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BrixPipelineMetrics meter names and tags
+ */
+@DisplayName("BrixPipelineMetrics Tests")
+class BrixPipelineMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private BrixPipelineMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new BrixPipelineMetrics(registry);
+    }
+
+    @Test
+    @DisplayName("Should time stages by stage and path, even when the stage throws")
+    void testStageTimers() {
+        // When
+        String result = metrics.time(Stage.CONTEXT_LOAD, BrixPipelineMetrics.PATH_CHAT, () -> "context");
+        metrics.recordStage(Stage.FIRST_TOKEN, BrixPipelineMetrics.PATH_STREAM, TimeUnit.MILLISECONDS.toNanos(350));
+        assertThrows(IllegalStateException.class, () -> metrics.time(Stage.PROMPT_BUILD,
+                BrixPipelineMetrics.PATH_CHAT, () -> { throw new IllegalStateException("boom"); }));
+
+        // Then
+        assertEquals("context", result);
+        assertEquals(1, registry.get("brix.pipeline.stage")
+                .tags("stage", "context_load", "path", "chat").timer().count());
+        assertEquals(350, registry.get("brix.pipeline.stage")
+                .tags("stage", "first_token", "path", "stream").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(1, registry.get("brix.pipeline.stage")
+                .tags("stage", "prompt_build").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should count replies by source so the keyword share is the fallback rate")
+    void testReplySources() {
+        // When
+        metrics.recordReply(ReplySource.LLM, BrixPipelineMetrics.PATH_CHAT, "user_chat");
+        metrics.recordReply(ReplySource.LLM, BrixPipelineMetrics.PATH_CHAT, "user_chat");
+        metrics.recordReply(ReplySource.KEYWORD, BrixPipelineMetrics.PATH_CHAT, "user_chat");
+        metrics.recordReply(ReplySource.PREGENERATED, BrixPipelineMetrics.PATH_TRIGGER, "app_open");
+
+        // Then
+        assertEquals(2.0, registry.get("brix.replies").tags("source", "llm").counter().count());
+        assertEquals(1.0, registry.get("brix.replies")
+                .tags("source", "keyword", "path", "chat", "trigger", "user_chat").counter().count());
+        assertEquals(1.0, registry.get("brix.replies").tags("trigger", "app_open").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should fold unknown triggers into one tag value")
+    void testUnknownTriggersShareATag() {
+        // When - the trigger is a client path variable
+        metrics.recordReply(ReplySource.TEMPLATE, BrixPipelineMetrics.PATH_TRIGGER, "Missed_Day");
+        metrics.recordReply(ReplySource.TEMPLATE, BrixPipelineMetrics.PATH_TRIGGER, "abc123");
+        metrics.recordReply(ReplySource.TEMPLATE, BrixPipelineMetrics.PATH_TRIGGER, "xyz789");
+
+        // Then
+        assertEquals(1.0, registry.get("brix.replies").tags("trigger", "missed_day").counter().count());
+        assertEquals(2.0, registry.get("brix.replies").tags("trigger", "other").counter().count());
+        assertEquals(2, registry.find("brix.replies").counters().size());
+    }
+
+    @Test
+    @DisplayName("Should estimate prompt tokens across system prompt, history and message")
+    void testPromptTokens() {
+        // Given - 40 + 8 + 4 + 4 characters
+        LlmRequest request = LlmRequest.interactive("s".repeat(40), "m".repeat(8))
+                .withHistory(List.of(ChatTurn.user("u".repeat(4)), ChatTurn.assistant("a".repeat(4))));
+
+        // When
+        metrics.recordPromptTokens(request, BrixPipelineMetrics.PATH_REACTIVE);
+
+        // Then
+        assertEquals(14.0, registry.get("brix.prompt.tokens").tags("path", "reactive").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should share the llm.errors meter with the router")
+    void testLlmErrors() {
+        // When
+        metrics.recordLlmError("ollama", "llama3.2", "user_chat");
+
+        // Then
+        assertEquals(1.0, registry.get("llm.errors")
+                .tags("provider", "ollama", "model", "llama3.2", "trigger", "user_chat").counter().count());
+    }
+}
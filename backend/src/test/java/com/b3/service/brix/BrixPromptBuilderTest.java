@@ -0,0 +1,76 @@
+package com.b3.service.brix;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BrixPromptBuilder prompt layout
+ */
+@DisplayName("BrixPromptBuilder Tests")
+class BrixPromptBuilderTest {
+
+    @Test
+    @DisplayName("Should start every prompt with the identical persona prefix")
+    void testSharedPrefix() {
+        // When
+        String alex = BrixPromptBuilder.systemPrompt("Alex", 4, 27, 3, 2, "GOOD", "BEGINNER", "Build strength");
+        String sam = BrixPromptBuilder.systemPrompt("Sam", 0, 3, null, null, null, null, null);
+
+        // Then
+        assertTrue(alex.startsWith(BrixPromptBuilder.PERSONA_PREFIX));
+        assertTrue(sam.startsWith(BrixPromptBuilder.PERSONA_PREFIX));
+        assertFalse(BrixPromptBuilder.PERSONA_PREFIX.contains("Alex"));
+        assertFalse(BrixPromptBuilder.PERSONA_PREFIX.contains("Streak:"));
+    }
+
+    @Test
+    @DisplayName("Should render the full user context after the prefix")
+    void testUserContext() {
+        // When
+        String prompt = BrixPromptBuilder.systemPrompt("Alex", 4, 27, 3, 2, "GOOD", "BEGINNER", "Build strength");
+        String context = prompt.substring(BrixPromptBuilder.PERSONA_PREFIX.length());
+
+        // Then
+        assertEquals("USER CONTEXT:\n"
+                + "- Name: Alex\n"
+                + "- Streak: 4 days\n"
+                + "- Bricks (workouts): 27\n"
+                + "- Fitness level: BEGINNER\n"
+                + "- Goal: Build strength\n"
+                + "- Energy today: 3/5\n"
+                + "- Stress today: 2/5\n"
+                + "- Mood today: GOOD\n", context);
+    }
+
+    @Test
+    @DisplayName("Should fall back to defaults and omit missing check-in fields")
+    void testMissingFields() {
+        // When
+        String prompt = BrixPromptBuilder.systemPrompt("Sam", 0, 3, null, null, null, null, null);
+
+        // Then
+        assertTrue(prompt.contains("- Fitness level: Unknown\n"));
+        assertTrue(prompt.contains("- Goal: General fitness\n"));
+        assertFalse(prompt.contains("Energy today"));
+        assertFalse(prompt.contains("Stress today"));
+        assertFalse(prompt.contains("Mood today"));
+    }
+
+    @Test
+    @DisplayName("Should append the conversation summary after the user context")
+    void testConversationSummary() {
+        // Given
+        String prompt = BrixPromptBuilder.systemPrompt("Sam", 0, 3, null, null, null, null, null);
+
+        // When
+        String withSummary = BrixPromptBuilder.withConversationSummary(prompt, "Sam has a sore knee.");
+
+        // Then
+        assertTrue(withSummary.startsWith(prompt));
+        assertTrue(withSummary.endsWith("EARLIER IN THIS CONVERSATION:\nSam has a sore knee.\n"));
+        assertSame(prompt, BrixPromptBuilder.withConversationSummary(prompt, null));
+        assertSame(prompt, BrixPromptBuilder.withConversationSummary(prompt, "  "));
+    }
+}
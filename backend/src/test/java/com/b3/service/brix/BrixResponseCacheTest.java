@@ -0,0 +1,191 @@
+package com.b3.service.brix;
+
+import com.b3.model.BrixMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BrixResponseCache keying, templating and eviction
+ */
+@DisplayName("BrixResponseCache Tests")
+class BrixResponseCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private MutableClock clock;
+    private BrixResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        cache = new BrixResponseCache(registry, true, 1_000_000, 60_000, 8, clock);
+    }
+
+    private BrixResponseCache.ReplyContext context(String name, int streak, int bricks, Integer energy) {
+        return new BrixResponseCache.ReplyContext(name, streak, bricks, energy, 2, "GOOD",
+                BrixMessage.Tone.ENCOURAGING, "BEGINNER", "STRENGTH");
+    }
+
+    // ========================================================================
+    // KEY TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should share keys across users in the same bucket")
+    void testSameBucketSharesKey() {
+        // Given - streaks 4 and 6 are both in the 3-6 band, energy 4 and 5 both "high"
+        BrixResponseCache.CacheKey alice = cache.keyFor("I'm tired!", context("Alice", 4, 10, 4));
+        BrixResponseCache.CacheKey bob = cache.keyFor("i'm   TIRED", context("Bob", 6, 40, 5));
+
+        // Then
+        assertNotNull(alice);
+        assertEquals(alice, bob);
+    }
+
+    @Test
+    @DisplayName("Should separate keys across buckets")
+    void testDifferentBucketsDifferentKeys() {
+        BrixResponseCache.CacheKey lowStreak = cache.keyFor("hey", context("Alice", 1, 1, 3));
+        BrixResponseCache.CacheKey highStreak = cache.keyFor("hey", context("Alice", 12, 1, 3));
+
+        assertNotEquals(lowStreak, highStreak);
+    }
+
+    @Test
+    @DisplayName("Should not key long messages")
+    void testLongMessageNotCached() {
+        String longMessage = "I had a really long day at work and I am not sure what to do tonight";
+
+        assertNull(cache.keyFor(longMessage, context("Alice", 4, 10, 3)));
+    }
+
+    // ========================================================================
+    // TEMPLATING TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should render personal values for the requesting user")
+    void testRendersForOtherUser() {
+        // Given
+        BrixResponseCache.ReplyContext alice = context("Alice", 4, 10, 4);
+        BrixResponseCache.ReplyContext bob = context("Bob", 6, 40, 5);
+        BrixResponseCache.CacheKey key = cache.keyFor("how am I doing", alice);
+        cache.put(key, "Alice, 4 days and 10 bricks - keep going!", alice);
+
+        // When
+        String reply = cache.get(cache.keyFor("how am I doing", bob), bob);
+
+        // Then
+        assertEquals("Bob, 6 days and 40 bricks - keep going!", reply);
+    }
+
+    @Test
+    @DisplayName("Should refuse replies with numbers it can't generalize")
+    void testUncacheableDigits() {
+        BrixResponseCache.ReplyContext alice = context("Alice", 4, 10, 4);
+        BrixResponseCache.CacheKey key = cache.keyFor("what should I do", alice);
+
+        assertFalse(cache.put(key, "Try a 25-minute walk, Alice!", alice));
+        assertNull(cache.get(key, alice));
+    }
+
+    @Test
+    @DisplayName("Should refuse replies when streak and bricks are ambiguous")
+    void testAmbiguousNumbers() {
+        BrixResponseCache.ReplyContext alice = context("Alice", 5, 5, 4);
+        BrixResponseCache.CacheKey key = cache.keyFor("progress", alice);
+
+        assertFalse(cache.put(key, "Alice, that's 5 already!", alice));
+    }
+
+    // ========================================================================
+    // EVICTION TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should expire entries after the TTL")
+    void testTtlExpiry() {
+        // Given
+        BrixResponseCache.ReplyContext alice = context("Alice", 4, 10, 4);
+        BrixResponseCache.CacheKey key = cache.keyFor("hey", alice);
+        cache.put(key, "Hey Alice!", alice);
+
+        // When
+        clock.advance(Duration.ofMinutes(2));
+
+        // Then
+        assertNull(cache.get(key, alice));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used entries past the byte budget")
+    void testLruEviction() {
+        // Given - budget fits roughly two entries
+        cache = new BrixResponseCache(registry, true, 500, 60_000, 8, clock);
+        BrixResponseCache.ReplyContext alice = context("Alice", 4, 10, 4);
+        BrixResponseCache.CacheKey first = cache.keyFor("hey", alice);
+        BrixResponseCache.CacheKey second = cache.keyFor("hello", alice);
+        BrixResponseCache.CacheKey third = cache.keyFor("yo", alice);
+
+        cache.put(first, "Hey Alice!", alice);
+        cache.put(second, "Hello Alice!", alice);
+        cache.get(first, alice);  // touch first so second is eldest
+
+        // When
+        cache.put(third, "Yo Alice!", alice);
+
+        // Then
+        assertNotNull(cache.get(first, alice));
+        assertNull(cache.get(second, alice));
+        assertNotNull(cache.get(third, alice));
+        assertTrue(cache.bytes() <= 500);
+    }
+
+    @Test
+    @DisplayName("Should count hits and misses")
+    void testMetrics() {
+        BrixResponseCache.ReplyContext alice = context("Alice", 4, 10, 4);
+        BrixResponseCache.CacheKey key = cache.keyFor("hey", alice);
+
+        cache.get(key, alice);
+        cache.put(key, "Hey Alice!", alice);
+        cache.get(key, alice);
+
+        assertEquals(1.0, registry.get("brix.response.cache").tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get("brix.response.cache").tag("result", "miss").counter().count());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.b3.service.brix;
+
+import com.b3.model.BrixMessage;
+import com.b3.service.brix.BrixTrafficRecorder.CapturedRequest;
+import com.b3.service.llm.ChatTurn;
+import com.b3.service.llm.LlmRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BrixTrafficRecorder capture format and bounds
+ */
+@DisplayName("BrixTrafficRecorder Tests")
+class BrixTrafficRecorderTest {
+
+    @TempDir
+    Path dir;
+
+    private SimpleMeterRegistry registry;
+    private Clock clock;
+
+    private final BrixResponseCache.ReplyContext context = new BrixResponseCache.ReplyContext(
+            "Sam", 4, 12, 3, 2, "GOOD", BrixMessage.Tone.ENCOURAGING, "BEGINNER", "STRENGTH");
+
+    private final BrixContextAssembler.ConversationMemory memory = new BrixContextAssembler.ConversationMemory(
+            "Talked about knee pain.",
+            List.of(new ChatTurn(ChatTurn.Role.USER, "my knee hurts"),
+                    new ChatTurn(ChatTurn.Role.ASSISTANT, "Let's go easy today.")),
+            20, true);
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        clock = Clock.fixed(Instant.parse("2025-06-01T08:00:00Z"), ZoneId.of("UTC"));
+    }
+
+    private BrixTrafficRecorder recorder(boolean enabled, Path file, long maxBytes) {
+        return new BrixTrafficRecorder(registry, enabled, file, maxBytes, 100, clock);
+    }
+
+    // ========================================================================
+    // CAPTURE TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should append one JSON line per chat turn that reads back to the same request")
+    void testRecordsReadableLines() throws Exception {
+        // Given
+        Path file = dir.resolve("capture.jsonl");
+        BrixTrafficRecorder recorder = recorder(true, file, 1_000_000);
+
+        // When
+        recorder.record(BrixPipelineMetrics.PATH_CHAT, 7L, "any tips for today?", context, memory);
+        recorder.record(BrixPipelineMetrics.PATH_STREAM, 8L, "hi", context,
+                BrixContextAssembler.ConversationMemory.EMPTY);
+        recorder.close();
+
+        // Then
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+
+        CapturedRequest first = BrixTrafficRecorder.MAPPER.readValue(lines.get(0), CapturedRequest.class);
+        assertEquals(clock.millis(), first.at());
+        assertEquals("chat", first.path());
+        assertEquals(7L, first.profileId());
+        assertEquals(context, first.context());
+        assertEquals(memory.summary(), first.summary());
+        assertEquals(memory.turns(), first.history());
+
+        CapturedRequest second = BrixTrafficRecorder.MAPPER.readValue(lines.get(1), CapturedRequest.class);
+        assertNull(second.summary());
+        assertTrue(second.history().isEmpty());
+        assertFalse(lines.get(1).contains("history"), "empty memory is left out of the line");
+        assertEquals(2.0, registry.get("brix.capture.records").tag("result", "written").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should rebuild the prompt BRIX would have sent from a captured line")
+    void testCapturedRequestRebuildsPrompt() throws Exception {
+        // Given
+        Path file = dir.resolve("capture.jsonl");
+        BrixTrafficRecorder recorder = recorder(true, file, 1_000_000);
+        recorder.record(BrixPipelineMetrics.PATH_CHAT, 7L, "any tips for today?", context, memory);
+        recorder.close();
+        CapturedRequest captured = BrixTrafficRecorder.MAPPER.readValue(
+                Files.readAllLines(file).get(0), CapturedRequest.class);
+
+        // When
+        LlmRequest replayed = BrixPromptBuilder.chatRequest(captured.context(), captured.summary(),
+                captured.history(), captured.message(), "7");
+
+        // Then
+        LlmRequest live = BrixPromptBuilder.chatRequest(context, memory.summary(), memory.turns(),
+                "any tips for today?", "7");
+        assertEquals(live, replayed);
+    }
+
+    @Test
+    @DisplayName("Should keep appending to an existing file")
+    void testAppends() throws Exception {
+        // Given
+        Path file = dir.resolve("capture.jsonl");
+        Files.writeString(file, "{\"at\":1,\"message\":\"earlier\"}\n");
+
+        // When
+        BrixTrafficRecorder recorder = recorder(true, file, 1_000_000);
+        recorder.record(BrixPipelineMetrics.PATH_CHAT, 7L, "hello again", context, memory);
+        recorder.close();
+
+        // Then
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("earlier"));
+    }
+
+    // ========================================================================
+    // BOUND TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should stop writing once the file reaches max-bytes")
+    void testMaxBytes() throws Exception {
+        // Given - room for roughly one record
+        Path file = dir.resolve("capture.jsonl");
+        BrixTrafficRecorder recorder = recorder(true, file, 600);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            recorder.record(BrixPipelineMetrics.PATH_CHAT, 7L, "message " + i, context, memory);
+        }
+        recorder.close();
+
+        // Then
+        assertTrue(Files.size(file) <= 600);
+        double written = registry.get("brix.capture.records").tag("result", "written").counter().count();
+        double dropped = registry.get("brix.capture.records").tag("result", "dropped").counter().count();
+        assertEquals(Files.readAllLines(file).size(), (int) written);
+        assertEquals(5.0, written + dropped);
+        assertTrue(dropped > 0);
+    }
+
+    @Test
+    @DisplayName("Should not create a file when capture is disabled")
+    void testDisabled() {
+        // Given
+        Path file = dir.resolve("capture.jsonl");
+        BrixTrafficRecorder recorder = recorder(false, file, 1_000_000);
+
+        // When
+        recorder.record(BrixPipelineMetrics.PATH_CHAT, 7L, "hi", context, memory);
+        recorder.close();
+
+        // Then
+        assertFalse(recorder.isEnabled());
+        assertFalse(Files.exists(file));
+    }
+}
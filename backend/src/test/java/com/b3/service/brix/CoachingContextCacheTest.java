@@ -0,0 +1,181 @@
+package com.b3.service.brix;
+
+import com.b3.event.CoachingContextChangedEvent;
+import com.b3.model.BrixMessage;
+import com.b3.model.UserProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CoachingContextCache hits, invalidation and expiry
+ */
+@DisplayName("CoachingContextCache Tests")
+class CoachingContextCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private MutableClock clock;
+    private CoachingContextCache cache;
+    private AtomicInteger loads;
+    private Function<Long, CoachingContext> loader;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        cache = new CoachingContextCache(registry, true, 2, 300_000, clock);
+        loads = new AtomicInteger();
+        loader = profileId -> {
+            loads.incrementAndGet();
+            return context(profileId);
+        };
+    }
+
+    private CoachingContext context(Long profileId) {
+        UserProfile user = new UserProfile();
+        user.setProfileId(profileId);
+        user.setDisplayName("Alex Morgan");
+        return new CoachingContext(user, null, null, BrixMessage.Tone.ENCOURAGING, LocalDate.now(clock));
+    }
+
+    // ========================================================================
+    // CACHE TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should load once and serve repeat requests from cache")
+    void testHit() {
+        // When
+        CoachingContext first = cache.get(1L, loader);
+        CoachingContext second = cache.get(1L, loader);
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals("Alex", second.firstName());
+        assertEquals(1.0, registry.get("brix.context.cache").tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get("brix.context.cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should reload after a change event")
+    void testInvalidateOnEvent() {
+        // Given
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+
+        // When
+        cache.onContextChanged(new CoachingContextChangedEvent(1L, "daily_log_submitted"));
+
+        // Then - only user 1 reloads
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should not cache a load that raced with an invalidation")
+    void testRacingLoadNotCached() {
+        // When - the write commits while the load is running
+        CoachingContext stale = cache.get(1L, profileId -> {
+            cache.invalidate(profileId);
+            return context(profileId);
+        });
+
+        // Then - returned, but the next request loads fresh
+        assertNotNull(stale);
+        cache.get(1L, loader);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should expire entries after the TTL and at midnight")
+    void testExpiry() {
+        // Given
+        cache.get(1L, loader);
+
+        // When / Then - TTL
+        clock.advance(Duration.ofMinutes(6));
+        cache.get(1L, loader);
+        assertEquals(2, loads.get());
+
+        // When / Then - next day, well within TTL
+        clock.set(Instant.parse("2025-01-01T23:59:00Z"));
+        cache.get(1L, loader);
+        clock.set(Instant.parse("2025-01-02T00:01:00Z"));
+        cache.get(1L, loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used user when full")
+    void testBounded() {
+        // Given - capacity 2
+        cache.get(1L, loader);
+        cache.get(2L, loader);
+        cache.get(1L, loader);
+
+        // When
+        cache.get(3L, loader);
+
+        // Then - user 2 was least recently used
+        assertEquals(2, cache.size());
+        cache.get(1L, loader);
+        assertEquals(3, loads.get());
+        cache.get(2L, loader);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should always load when disabled")
+    void testDisabled() {
+        // Given
+        CoachingContextCache disabled = new CoachingContextCache(new SimpleMeterRegistry(), false, 2, 300_000, clock);
+
+        // When
+        disabled.get(1L, loader);
+        disabled.get(1L, loader);
+
+        // Then
+        assertEquals(2, loads.get());
+        assertEquals(0, disabled.size());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        void set(Instant instant) {
+            now = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
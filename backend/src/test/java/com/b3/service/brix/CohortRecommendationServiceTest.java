@@ -0,0 +1,188 @@
+package com.b3.service.brix;
+
+import com.b3.model.UserProfile;
+import com.b3.model.Workout;
+import com.b3.repository.UserProfileRepository;
+import com.b3.repository.UserProfileRepository.RecommendationInputs;
+import com.b3.service.brix.CohortRecommendationService.CohortRecommendation;
+import com.b3.service.brix.CohortRecommendationService.CohortRunSummary;
+import com.b3.service.catalog.WorkoutCatalog;
+import com.b3.service.catalog.WorkoutCatalogHolder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CohortRecommendationService paging, ordering and parallel scoring
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CohortRecommendationService Tests")
+class CohortRecommendationServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 2);
+
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    @Mock
+    private WorkoutCatalogHolder catalogHolder;
+
+    @Mock
+    private WorkoutCoOccurrenceModel coOccurrenceModel;
+
+    private SimpleMeterRegistry registry;
+    private CohortRecommendationService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Clock clock = Clock.fixed(Instant.parse("2026-03-02T09:00:00Z"), ZoneId.of("UTC"));
+        service = new CohortRecommendationService(userProfileRepository, catalogHolder,
+                new WorkoutScoringEngine(3), coOccurrenceModel, registry, 1000, 4, 14, clock);
+
+        Workout yoga = new Workout("Morning Yoga", "Calm", Workout.WorkoutType.FLEXIBILITY,
+                Workout.DifficultyLevel.BEGINNER, 15, "Mat");
+        yoga.setWorkoutId(1L);
+        Workout strength = new Workout("Heavy Day", "Lift", Workout.WorkoutType.STRENGTH,
+                Workout.DifficultyLevel.ADVANCED, 50, "Barbell");
+        strength.setWorkoutId(2L);
+        when(catalogHolder.current()).thenReturn(WorkoutCatalog.of(List.of(yoga, strength), List.of(), 3));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private record Row(Long profileId, UserProfile.FitnessLevel fitnessLevel, UserProfile.PrimaryGoal primaryGoal,
+                       Integer energyLevel, Integer stressLevel) implements RecommendationInputs {
+        public Long getProfileId() { return profileId; }
+        public UserProfile.FitnessLevel getFitnessLevel() { return fitnessLevel; }
+        public UserProfile.PrimaryGoal getPrimaryGoal() { return primaryGoal; }
+        public Integer getEnergyLevel() { return energyLevel; }
+        public Integer getStressLevel() { return stressLevel; }
+    }
+
+    /** Alternating tired and energetic advanced lifters */
+    private List<RecommendationInputs> rows(long fromId, int count) {
+        List<RecommendationInputs> rows = new ArrayList<>();
+        for (long id = fromId; id < fromId + count; id++) {
+            boolean tired = id % 2 == 0;
+            rows.add(new Row(id, UserProfile.FitnessLevel.ADVANCED, UserProfile.PrimaryGoal.STRENGTH,
+                    tired ? 1 : 5, tired ? 5 : 1));
+        }
+        return rows;
+    }
+
+    @Test
+    @DisplayName("Should page all active users by keyset and stream results in profile order")
+    void testActiveRunPagesByKeyset() {
+        // Given - 2500 users in pages of 1000
+        when(userProfileRepository.findActiveRecommendationInputsAfter(anyLong(), eq(TODAY),
+                any(LocalDateTime.class), any(Pageable.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            return after >= 2500 ? List.of() : rows(after + 1, (int) Math.min(1000, 2500 - after));
+        });
+        List<CohortRecommendation> results = new ArrayList<>();
+
+        // When
+        CohortRunSummary summary = service.recommendActive(results::add);
+
+        // Then - the short last page ends the run without another query
+        assertEquals(2500, summary.users());
+        assertEquals(3, summary.catalogVersion());
+        verify(userProfileRepository).findActiveRecommendationInputsAfter(eq(0L), eq(TODAY),
+                eq(LocalDateTime.of(2026, 2, 16, 9, 0)), any(Pageable.class));
+        verify(userProfileRepository).findActiveRecommendationInputsAfter(eq(2000L), any(), any(), any());
+        verify(userProfileRepository, times(3)).findActiveRecommendationInputsAfter(anyLong(), any(), any(), any());
+
+        assertEquals(2500, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            CohortRecommendation result = results.get(i);
+            assertEquals(i + 1L, result.profileId());
+            // Tired users get the gentle workout, energetic ones the heavy day
+            assertEquals(result.profileId() % 2 == 0 ? 1L : 2L, result.workoutId());
+        }
+        assertEquals("Perfect for your energy level today - gentle but effective!", results.get(1).reason());
+        assertEquals(2500.0, registry.get("brix.cohort.recommendations").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should score explicit IDs in sorted, de-duplicated chunks")
+    void testExplicitIds() {
+        // Given
+        when(userProfileRepository.findRecommendationInputsByIds(anyCollection(), eq(TODAY))).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            // User 7 does not exist
+            return ids.stream().filter(id -> id != 7L)
+                    .map(id -> (RecommendationInputs) new Row(id, null, null, null, null)).toList();
+        });
+        List<CohortRecommendation> results = new ArrayList<>();
+
+        // When
+        CohortRunSummary summary = service.recommendFor(List.of(9L, 3L, 7L, 3L), results::add);
+
+        // Then - no check-in and no profile data: base score, lowest id wins the tie
+        assertEquals(2, summary.users());
+        assertEquals(List.of(3L, 9L), results.stream().map(CohortRecommendation::profileId).toList());
+        assertEquals(1L, results.get(0).workoutId());
+        assertEquals(50, results.get(0).score());
+        verify(userProfileRepository).findRecommendationInputsByIds(eq(List.of(3L, 7L, 9L)), eq(TODAY));
+    }
+
+    @Test
+    @DisplayName("Should rank users with a collaborative bonus individually")
+    void testCollaborativeBonusIsPersonal() {
+        // Given - two users in the same state; only user 9's history favours the heavy day
+        when(userProfileRepository.findRecommendationInputsByIds(anyCollection(), eq(TODAY))).thenReturn(List.of(
+                new Row(3L, null, null, null, null), new Row(9L, null, null, null, null)));
+        when(coOccurrenceModel.bonuses(anyLong(), any())).thenAnswer(invocation ->
+                invocation.getArgument(0).equals(9L) ? new int[]{0, 12} : null);
+        List<CohortRecommendation> results = new ArrayList<>();
+
+        // When
+        service.recommendFor(List.of(3L, 9L), results::add);
+
+        // Then
+        assertEquals(1L, results.get(0).workoutId());
+        assertEquals(50, results.get(0).score());
+        assertEquals(2L, results.get(1).workoutId());
+        assertEquals(62, results.get(1).score());
+    }
+
+    @Test
+    @DisplayName("Should not query users when the catalog is empty")
+    void testEmptyCatalog() {
+        // Given
+        when(catalogHolder.current()).thenReturn(WorkoutCatalog.EMPTY);
+
+        // When
+        CohortRunSummary summary = service.recommendActive(result -> fail("no results expected"));
+
+        // Then
+        assertEquals(0, summary.users());
+        verifyNoInteractions(userProfileRepository);
+    }
+}
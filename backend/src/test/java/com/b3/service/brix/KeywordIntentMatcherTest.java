@@ -0,0 +1,68 @@
+package com.b3.service.brix;
+
+import com.b3.service.brix.KeywordIntentMatcher.Intent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KeywordIntentMatcher
+ */
+@DisplayName("KeywordIntentMatcher Tests")
+class KeywordIntentMatcherTest {
+
+    private final KeywordIntentMatcher matcher = new KeywordIntentMatcher();
+
+    @ParameterizedTest
+    @CsvSource({
+            "'Hey BRIX!', GREETING",
+            "'I am so TIRED today', TIRED",
+            "'let''s go, I''m pumped', MOTIVATED",
+            "'I need some motivation', NEED_MOTIVATION",
+            "'any workouts for me?', WORKOUT_REQUEST",
+            "'How am I doing on my streak', PROGRESS",
+            "'work is stressful', STRESS",
+            "'rough week honestly', FEELING_DOWN"
+    })
+    @DisplayName("Should match each intent")
+    void testMatchesIntent(String message, Intent expected) {
+        assertEquals(expected, matcher.match(message));
+    }
+
+    @Test
+    @DisplayName("Should not match keywords inside other words")
+    void testWordBoundaries() {
+        // "hi" in "this"/"think", "sad" in "crusade", "down" in "countdown"
+        assertNull(matcher.match("I think this crusade countdown is neat"));
+    }
+
+    @Test
+    @DisplayName("Should return every intent in priority order")
+    void testMatchAllPriorityOrder() {
+        // When
+        List<Intent> intents = List.copyOf(matcher.matchAll("hey, I'm stressed and tired - what workout?"));
+
+        // Then
+        assertEquals(List.of(Intent.GREETING, Intent.TIRED, Intent.WORKOUT_REQUEST, Intent.STRESS), intents);
+        assertEquals(Intent.GREETING, matcher.match("hey, I'm stressed and tired - what workout?"));
+    }
+
+    @Test
+    @DisplayName("Should treat curly apostrophes like straight ones")
+    void testCurlyApostrophe() {
+        assertEquals(Intent.NEED_MOTIVATION, matcher.match("I can’t do this"));
+    }
+
+    @Test
+    @DisplayName("Should handle empty and null messages")
+    void testEmptyMessages() {
+        assertNull(matcher.match(""));
+        assertNull(matcher.match(null));
+        assertTrue(matcher.matchAll("🧱🧱").isEmpty());
+    }
+}
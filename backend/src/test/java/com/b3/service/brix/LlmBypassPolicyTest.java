@@ -0,0 +1,46 @@
+package com.b3.service.brix;
+
+import com.b3.service.brix.TrivialMessageClassifier.Category;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LlmBypassPolicy routing decisions
+ */
+@DisplayName("LlmBypassPolicy Tests")
+class LlmBypassPolicyTest {
+
+    private SimpleMeterRegistry registry;
+    private LlmBypassPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        policy = new LlmBypassPolicy(registry, true, 0.85);
+    }
+
+    @Test
+    @DisplayName("Should answer trivial messages from templates outside a conversation")
+    void testBypassOutsideConversation() {
+        assertEquals(Category.ACKNOWLEDGEMENT, policy.check("ok", false));
+        assertEquals(Category.GREETING, policy.check("hey", false));
+        assertEquals(1.0, policy.bypassShare());
+    }
+
+    @Test
+    @DisplayName("Should send an acknowledgement mid-conversation to the LLM")
+    void testAcknowledgementInOngoingConversation() {
+        // When - "ok" answers BRIX's question, "thanks" does not need one
+        Category acknowledgement = policy.check("ok", true);
+        Category thanks = policy.check("thanks!", true);
+
+        // Then
+        assertNull(acknowledgement);
+        assertEquals(Category.THANKS, thanks);
+        assertEquals(1.0, registry.get("brix.llm.route").tag("route", "llm").counter().count());
+    }
+}
@@ -0,0 +1,68 @@
+package com.b3.service.brix;
+
+import com.b3.service.brix.TrivialMessageClassifier.Category;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TrivialMessageClassifier
+ */
+@DisplayName("TrivialMessageClassifier Tests")
+class TrivialMessageClassifierTest {
+
+    private static final double THRESHOLD = 0.85;
+
+    private final TrivialMessageClassifier classifier = new TrivialMessageClassifier();
+
+    @ParameterizedTest
+    @CsvSource({
+            "'hey', GREETING",
+            "'Heyyy BRIX!', GREETING",
+            "'good morning 👋', GREETING",
+            "'thanks!', THANKS",
+            "'Thank you so much', THANKS",
+            "'ok', ACKNOWLEDGEMENT",
+            "'sounds good', ACKNOWLEDGEMENT"
+    })
+    @DisplayName("Should classify trivial messages confidently")
+    void testTrivialMessages(String message, Category expected) {
+        // When
+        TrivialMessageClassifier.Prediction prediction = classifier.classify(message);
+
+        // Then
+        assertEquals(expected, prediction.category());
+        assertTrue(prediction.confidence() >= THRESHOLD,
+                () -> message + " confidence " + prediction.confidence());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "I'm exhausted",
+            "hey what workout should I do",
+            "thanks but I feel stressed",
+            "how is my streak going",
+            "I had a really rough day at work and don't know if I should train"
+    })
+    @DisplayName("Should not bypass messages with real content")
+    void testContentMessages(String message) {
+        TrivialMessageClassifier.Prediction prediction = classifier.classify(message);
+
+        assertFalse(prediction.category() != Category.NOT_TRIVIAL && prediction.confidence() >= THRESHOLD,
+                () -> message + " was classified " + prediction);
+    }
+
+    @Test
+    @DisplayName("Should detect emoji-only messages")
+    void testEmojiOnly() {
+        assertEquals(Category.EMOJI_ONLY, classifier.classify("💪🔥").category());
+        assertEquals(Category.EMOJI_ONLY, classifier.classify("👍🏽 !").category());
+        assertEquals(Category.EMOJI_ONLY, classifier.classify("❤️").category());
+        assertNotEquals(Category.EMOJI_ONLY, classifier.classify("legs 💪").category());
+        assertNotEquals(Category.EMOJI_ONLY, classifier.classify("!!!").category());
+    }
+}
@@ -0,0 +1,202 @@
+package com.b3.service.brix;
+
+import com.b3.event.CollaborativeModelRebuiltEvent;
+import com.b3.model.Workout;
+import com.b3.repository.WorkoutSessionRepository;
+import com.b3.repository.WorkoutSessionRepository.CompletedWorkout;
+import com.b3.repository.WorkoutSessionRepository.ProfileIdRange;
+import com.b3.service.brix.WorkoutCoOccurrenceModel.RebuildSummary;
+import com.b3.service.catalog.WorkoutCatalog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for WorkoutCoOccurrenceModel counting, similarity bonuses and rebuilds
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WorkoutCoOccurrenceModel Tests")
+class WorkoutCoOccurrenceModelTest {
+
+    private static final long YOGA = 10L;
+    private static final long RUN = 20L;
+    private static final long LIFT = 30L;
+
+    @Mock
+    private WorkoutSessionRepository sessionRepository;
+
+    private SimpleMeterRegistry registry;
+    private WorkoutCatalog catalog;
+    private List<Object> published;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        published = new ArrayList<>();
+        List<Workout> workouts = new ArrayList<>();
+        for (long id : new long[]{YOGA, RUN, LIFT}) {
+            Workout workout = new Workout("Workout " + id, "desc", Workout.WorkoutType.CARDIO,
+                    Workout.DifficultyLevel.BEGINNER, 20, "None");
+            workout.setWorkoutId(id);
+            workouts.add(workout);
+        }
+        catalog = WorkoutCatalog.of(workouts, List.of(), 1);
+    }
+
+    private WorkoutCoOccurrenceModel model(int minSupport, int rangeSize) {
+        return new WorkoutCoOccurrenceModel(sessionRepository, registry, published::add, true, 20, minSupport, rangeSize, 4);
+    }
+
+    private record Completed(Long profileId, Long workoutId) implements CompletedWorkout {
+        public Long getProfileId() { return profileId; }
+        public Long getWorkoutId() { return workoutId; }
+    }
+
+    private record Range(Long minProfileId, Long maxProfileId) implements ProfileIdRange {
+        public Long getMinProfileId() { return minProfileId; }
+        public Long getMaxProfileId() { return maxProfileId; }
+    }
+
+    /** Everyone did yoga; even users also ran, odd users also lifted */
+    private List<CompletedWorkout> history(int users) {
+        List<CompletedWorkout> rows = new ArrayList<>();
+        for (long id = 1; id <= users; id++) {
+            rows.add(new Completed(id, YOGA));
+            rows.add(new Completed(id, id % 2 == 0 ? RUN : LIFT));
+        }
+        return rows;
+    }
+
+    // ========================================================================
+    // INCREMENTAL TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should count each user once per workout pair however often they repeat it")
+    void testIncrementalCounts() {
+        // Given
+        WorkoutCoOccurrenceModel model = model(1, 100);
+
+        // When
+        model.record(1L, YOGA);
+        model.record(1L, RUN);
+        model.record(1L, RUN);
+        model.record(2L, RUN);
+        model.record(2L, YOGA);
+
+        // Then
+        assertEquals(2, model.together(YOGA, RUN));
+        assertEquals(2, model.together(RUN, YOGA));
+        assertEquals(0, model.together(YOGA, LIFT));
+        assertEquals(2, model.users());
+        assertEquals(4.0, registry.get("brix.collaborative.updates").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should award cosine similarity points only above the minimum support")
+    void testBonuses() {
+        // Given - users 1 and 2 did yoga and a run, user 3 yoga and a lift, user 4 only yoga
+        WorkoutCoOccurrenceModel model = model(2, 100);
+        model.record(1L, YOGA);
+        model.record(1L, RUN);
+        model.record(2L, YOGA);
+        model.record(2L, RUN);
+        model.record(3L, YOGA);
+        model.record(3L, LIFT);
+        model.record(4L, YOGA);
+
+        // When
+        int[] bonus = model.bonuses(4L, catalog);
+
+        // Then - run: 2 / sqrt(4 * 2) = 0.71 -> 14 points; lift seen together once, below support
+        assertArrayEquals(new int[]{0, 14, 0}, bonus);
+        assertNull(model.bonuses(99L, catalog));
+        assertNull(new WorkoutCoOccurrenceModel(sessionRepository, registry, published::add, true, 0, 2, 100, 4)
+                .bonuses(4L, catalog));
+    }
+
+    // ========================================================================
+    // REBUILD TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should rebuild by profile range to the same counts as incremental updates")
+    void testRebuildMatchesIncremental() {
+        // Given - 3000 users in ranges of 250
+        List<CompletedWorkout> rows = history(3000);
+        when(sessionRepository.findCompletedProfileIdRange()).thenReturn(new Range(1L, 3000L));
+        when(sessionRepository.findCompletedWorkoutsInRange(anyLong(), anyLong())).thenAnswer(invocation -> {
+            long from = invocation.getArgument(0);
+            long to = invocation.getArgument(1);
+            return rows.stream().filter(row -> row.getProfileId() >= from && row.getProfileId() < to).toList();
+        });
+        WorkoutCoOccurrenceModel rebuilt = model(1, 250);
+        WorkoutCoOccurrenceModel incremental = model(1, 250);
+        rows.forEach(row -> incremental.record(row.getProfileId(), row.getWorkoutId()));
+
+        // When
+        RebuildSummary summary = rebuilt.rebuild();
+
+        // Then
+        assertTrue(summary.ran());
+        assertEquals(3000, summary.users());
+        assertEquals(3, summary.workouts());
+        assertEquals(2, summary.pairs());
+        verify(sessionRepository, times(12)).findCompletedWorkoutsInRange(anyLong(), anyLong());
+        assertEquals(incremental.together(YOGA, RUN), rebuilt.together(YOGA, RUN));
+        assertEquals(1500, rebuilt.together(YOGA, LIFT));
+        assertEquals(0, rebuilt.together(RUN, LIFT));
+        assertArrayEquals(incremental.bonuses(7L, catalog), rebuilt.bonuses(7L, catalog));
+        assertEquals(List.of(new CollaborativeModelRebuiltEvent(3000, 2)), published);
+    }
+
+    @Test
+    @DisplayName("Should keep completions that arrive while a rebuild runs")
+    void testCompletionDuringRebuild() {
+        // Given - user 3 completes a workout while the rebuild is reading
+        WorkoutCoOccurrenceModel model = model(1, 100);
+        when(sessionRepository.findCompletedProfileIdRange()).thenReturn(new Range(1L, 2L));
+        when(sessionRepository.findCompletedWorkoutsInRange(1L, 3L)).thenAnswer(invocation -> {
+            model.record(3L, YOGA);
+            model.record(3L, RUN);
+            return history(2);
+        });
+
+        // When
+        model.rebuild();
+
+        // Then
+        assertEquals(3, model.users());
+        assertEquals(2, model.together(YOGA, RUN));
+    }
+
+    @Test
+    @DisplayName("Should do nothing when disabled")
+    void testDisabled() {
+        // Given
+        WorkoutCoOccurrenceModel model =
+                new WorkoutCoOccurrenceModel(sessionRepository, registry, published::add, false, 20, 1, 100, 4);
+
+        // When
+        model.record(1L, YOGA);
+        RebuildSummary summary = model.rebuild();
+
+        // Then
+        assertFalse(summary.ran());
+        assertEquals(0, model.users());
+        assertNull(model.bonuses(1L, catalog));
+        verifyNoInteractions(sessionRepository);
+        assertTrue(published.isEmpty());
+    }
+}
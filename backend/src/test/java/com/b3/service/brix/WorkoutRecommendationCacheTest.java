@@ -0,0 +1,186 @@
+package com.b3.service.brix;
+
+import com.b3.event.CollaborativeModelRebuiltEvent;
+import com.b3.event.RecommendationInputsChangedEvent;
+import com.b3.service.BrixService.WorkoutRecommendation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WorkoutRecommendationCache hits, invalidation and rollover
+ */
+@DisplayName("WorkoutRecommendationCache Tests")
+class WorkoutRecommendationCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private MutableClock clock;
+    private WorkoutRecommendationCache cache;
+    private AtomicInteger loads;
+    private Supplier<WorkoutRecommendation> loader;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        cache = new WorkoutRecommendationCache(registry, true, 100, clock);
+        loads = new AtomicInteger();
+        loader = () -> recommendation(loads.incrementAndGet());
+    }
+
+    private WorkoutRecommendation recommendation(long workoutId) {
+        return new WorkoutRecommendation(workoutId, "Workout " + workoutId, "CARDIO", "BEGINNER", 20,
+                "Matches your fitness level and goals perfectly!", 50, null, List.of());
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    // ========================================================================
+    // CACHE TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should rank once per user and day and report the hit ratio")
+    void testHit() {
+        // When
+        WorkoutRecommendation first = cache.get(1L, today(), 1, loader);
+        WorkoutRecommendation second = cache.get(1L, today(), 1, loader);
+        cache.get(1L, today(), 1, loader);
+        cache.get(1L, today(), 1, loader);
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(3.0, registry.get("brix.recommendation.cache").tag("result", "hit").counter().count());
+        assertEquals(0.75, registry.get("brix.recommendation.cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should drop only the changed user's entry when its inputs change")
+    void testInvalidationIsPerUser() {
+        // Given
+        cache.get(1L, today(), 1, loader);
+        cache.get(2L, today(), 1, loader);
+
+        // When
+        cache.onInputsChanged(new RecommendationInputsChangedEvent(1L, "daily_log_submitted"));
+
+        // Then
+        assertEquals(2L, cache.get(2L, today(), 1, loader).workoutId());
+        assertEquals(3L, cache.get(1L, today(), 1, loader).workoutId());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should drop every entry when the collaborative model is rebuilt")
+    void testModelRebuildDropsAll() {
+        // Given - cached before the startup rebuild had counted anything
+        cache.get(1L, today(), 1, loader);
+        cache.get(2L, today(), 1, loader);
+
+        // When
+        cache.onCollaborativeModelRebuilt(new CollaborativeModelRebuiltEvent(2, 1));
+
+        // Then
+        assertEquals(0, cache.size());
+        assertEquals(3L, cache.get(1L, today(), 1, loader).workoutId());
+    }
+
+    @Test
+    @DisplayName("Should not cache a result computed while an invalidation arrived")
+    void testRaceWithInvalidation() {
+        // When - the write commits while the recommendation is being ranked
+        cache.get(1L, today(), 1, () -> {
+            cache.invalidate(1L);
+            return loader.get();
+        });
+        cache.get(1L, today(), 1, loader);
+
+        // Then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should miss for a new day or a swapped catalog")
+    void testDayAndCatalogVersion() {
+        // Given
+        cache.get(1L, today(), 1, loader);
+
+        // When / Then - new catalog
+        assertEquals(2L, cache.get(1L, today(), 2, loader).workoutId());
+
+        // When / Then - next day
+        clock.advance(Duration.ofDays(1));
+        assertEquals(3L, cache.get(1L, today(), 2, loader).workoutId());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should purge the previous day's entries at rollover")
+    void testRolloverPurge() {
+        // Given
+        cache.get(1L, today(), 1, loader);
+        cache.get(2L, today(), 1, loader);
+
+        // When
+        cache.purgeStaleDays();
+        assertEquals(2, cache.size());
+        clock.advance(Duration.ofHours(12));
+        cache.purgeStaleDays();
+
+        // Then
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should never cache an empty recommendation, and bypass when disabled")
+    void testNullAndDisabled() {
+        // When
+        assertNull(cache.get(1L, today(), 1, () -> null));
+
+        // Then
+        assertEquals(0, cache.size());
+
+        WorkoutRecommendationCache disabled = new WorkoutRecommendationCache(registry, false, 100, clock);
+        disabled.get(1L, today(), 1, loader);
+        disabled.get(1L, today(), 1, loader);
+        assertEquals(2, loads.get());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.b3.service.brix;
+
+import com.b3.model.DailyLog;
+import com.b3.model.UserProfile;
+import com.b3.model.Workout;
+import com.b3.service.brix.WorkoutScoringEngine.ScoreBreakdown;
+import com.b3.service.brix.WorkoutScoringEngine.ScoredWorkout;
+import com.b3.service.catalog.WorkoutCatalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WorkoutScoringEngine tables, top-K and breakdowns
+ */
+@DisplayName("WorkoutScoringEngine Tests")
+class WorkoutScoringEngineTest {
+
+    private WorkoutScoringEngine engine;
+    private WorkoutCatalog catalog;
+    private UserProfile user;
+
+    @BeforeEach
+    void setUp() {
+        engine = new WorkoutScoringEngine(3);
+
+        // Every difficulty x type at 15, 25 and 45 minutes
+        List<Workout> workouts = new ArrayList<>();
+        long id = 1;
+        for (Workout.DifficultyLevel difficulty : Workout.DifficultyLevel.values()) {
+            for (Workout.WorkoutType type : Workout.WorkoutType.values()) {
+                for (int minutes : new int[]{15, 25, 45}) {
+                    Workout workout = new Workout(type + " " + minutes, "desc", type, difficulty, minutes, "None");
+                    workout.setWorkoutId(id++);
+                    workouts.add(workout);
+                }
+            }
+        }
+        catalog = WorkoutCatalog.of(workouts, List.of(), 1);
+
+        user = new UserProfile();
+        user.setFitnessLevel(UserProfile.FitnessLevel.INTERMEDIATE);
+        user.setPrimaryGoal(UserProfile.PrimaryGoal.STRENGTH);
+    }
+
+    private DailyLog log(int energy, int stress) {
+        DailyLog log = new DailyLog();
+        log.setEnergyLevel(energy);
+        log.setStressLevel(stress);
+        return log;
+    }
+
+    /**
+     * The additive rules as BrixService used to apply them, one workout at a time
+     */
+    private int referenceScore(WorkoutCatalog.Entry workout, UserProfile user, DailyLog todaysLog) {
+        int score = 50;
+        if (user.getFitnessLevel() != null && workout.difficulty().name().equals(user.getFitnessLevel().name())) {
+            score += 20;
+        }
+        if (todaysLog != null) {
+            int energy = todaysLog.getEnergyLevel();
+            int stress = todaysLog.getStressLevel();
+            if (energy <= 2) {
+                if (workout.difficulty() == Workout.DifficultyLevel.BEGINNER) score += 30;
+                if (workout.estimatedDuration() <= 20) score += 20;
+                if (workout.type() == Workout.WorkoutType.FLEXIBILITY) score += 25;
+            }
+            if (energy >= 4) {
+                if (workout.difficulty() == Workout.DifficultyLevel.ADVANCED) score += 15;
+                if (workout.type() == Workout.WorkoutType.STRENGTH) score += 10;
+            }
+            if (stress >= 4) {
+                if (workout.type() == Workout.WorkoutType.FLEXIBILITY) score += 30;
+                if (workout.estimatedDuration() <= 25) score += 15;
+            }
+        }
+        if (user.getPrimaryGoal() != null && workout.type().name().equals(user.getPrimaryGoal().name())) {
+            score += 15;
+        }
+        return score;
+    }
+
+    @Test
+    @DisplayName("Should score every workout exactly as the additive rules do, for every user state")
+    void testMatchesReferenceRules() {
+        List<UserProfile.FitnessLevel> levels = new ArrayList<>(List.of(UserProfile.FitnessLevel.values()));
+        levels.add(null);
+        List<UserProfile.PrimaryGoal> goals = new ArrayList<>(List.of(UserProfile.PrimaryGoal.values()));
+        goals.add(null);
+
+        for (UserProfile.FitnessLevel level : levels) {
+            for (UserProfile.PrimaryGoal goal : goals) {
+                user.setFitnessLevel(level);
+                user.setPrimaryGoal(goal);
+                List<DailyLog> logs = new ArrayList<>();
+                logs.add(null);
+                for (int energy = 1; energy <= 5; energy++) {
+                    for (int stress = 1; stress <= 5; stress++) {
+                        logs.add(log(energy, stress));
+                    }
+                }
+
+                for (DailyLog todaysLog : logs) {
+                    List<ScoredWorkout> all = engine.topK(catalog, user, todaysLog, catalog.size());
+                    assertEquals(catalog.size(), all.size());
+                    for (ScoredWorkout scored : all) {
+                        assertEquals(referenceScore(scored.workout(), user, todaysLog), scored.score());
+                        assertEquals(scored.score(), scored.breakdown().total());
+                    }
+
+                    // Best first, lower id first on equal scores
+                    List<ScoredWorkout> expected = all.stream()
+                            .sorted(Comparator.comparingInt(ScoredWorkout::score).reversed()
+                                    .thenComparing(scored -> scored.workout().workoutId()))
+                            .toList();
+                    assertEquals(expected, all);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should return the top K with a per-factor breakdown")
+    void testTopKBreakdown() {
+        // When - low energy, high stress
+        List<ScoredWorkout> ranked = engine.rank(catalog, user, log(1, 5));
+
+        // Then - short beginner flexibility wins: 50 + energy 75 + stress 45
+        assertEquals(4, ranked.size());
+        ScoredWorkout best = ranked.get(0);
+        assertEquals(Workout.WorkoutType.FLEXIBILITY, best.workout().type());
+        assertEquals(Workout.DifficultyLevel.BEGINNER, best.workout().difficulty());
+        assertEquals(15, best.workout().estimatedDuration());
+        assertEquals(new ScoreBreakdown(50, 0, 75, 45, 0, 0), best.breakdown());
+        assertEquals(170, best.score());
+        assertTrue(ranked.get(1).score() <= best.score());
+    }
+
+    @Test
+    @DisplayName("Should add collaborative points to the score and the breakdown")
+    void testCollaborativePoints() {
+        // Given - a large bonus on the first workout only
+        int[] collaborative = new int[catalog.size()];
+        collaborative[0] = 100;
+
+        // When
+        List<ScoredWorkout> ranked = engine.rank(catalog, user, null, collaborative);
+
+        // Then - it wins, and the runners-up keep their shared breakdowns
+        ScoredWorkout best = ranked.get(0);
+        assertEquals(1L, best.workout().workoutId());
+        assertEquals(100, best.breakdown().collaborative());
+        assertEquals(best.breakdown().total(), best.score());
+        assertEquals(0, ranked.get(1).breakdown().collaborative());
+        assertEquals(engine.rank(catalog, user, null).subList(0, 3), ranked.subList(1, 4));
+    }
+
+    @Test
+    @DisplayName("Should handle K beyond the catalog size and an empty catalog")
+    void testBounds() {
+        assertEquals(catalog.size(), engine.topK(catalog, user, null, 1000).size());
+        assertTrue(engine.topK(catalog, user, null, 0).isEmpty());
+        assertTrue(engine.rank(WorkoutCatalog.EMPTY, user, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should pick up a swapped catalog")
+    void testNewCatalog() {
+        // Given
+        engine.rank(catalog, user, null);
+        Workout only = new Workout("Only", "desc", Workout.WorkoutType.CARDIO, Workout.DifficultyLevel.ADVANCED, 30, "None");
+        only.setWorkoutId(99L);
+
+        // When
+        List<ScoredWorkout> ranked = engine.rank(WorkoutCatalog.of(List.of(only), List.of(), 2), user, null);
+
+        // Then
+        assertEquals(1, ranked.size());
+        assertEquals(99L, ranked.get(0).workout().workoutId());
+        assertEquals(50, ranked.get(0).score());
+    }
+}
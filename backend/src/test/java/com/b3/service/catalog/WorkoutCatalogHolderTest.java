@@ -0,0 +1,111 @@
+package com.b3.service.catalog;
+
+import com.b3.event.WorkoutCatalogChangedEvent;
+import com.b3.model.Workout;
+import com.b3.repository.WorkoutExerciseRepository;
+import com.b3.repository.WorkoutRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for WorkoutCatalogHolder rebuilds and swaps
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WorkoutCatalogHolder Tests")
+class WorkoutCatalogHolderTest {
+
+    @Mock
+    private WorkoutRepository workoutRepository;
+
+    @Mock
+    private WorkoutExerciseRepository workoutExerciseRepository;
+
+    private SimpleMeterRegistry registry;
+    private WorkoutCatalogHolder holder;
+    private Workout workout;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        holder = new WorkoutCatalogHolder(workoutRepository, workoutExerciseRepository, registry);
+
+        workout = new Workout("Quick HIIT", "Fast", Workout.WorkoutType.CARDIO, Workout.DifficultyLevel.BEGINNER, 20, "None");
+        workout.setWorkoutId(1L);
+        when(workoutRepository.findAll()).thenReturn(List.of(workout));
+        when(workoutExerciseRepository.findAllWithExercises()).thenReturn(List.of());
+    }
+
+    @Test
+    @DisplayName("Should build the catalog on first read and serve it from memory after")
+    void testLazyLoad() {
+        // When
+        WorkoutCatalog first = holder.current();
+        WorkoutCatalog second = holder.current();
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, first.version());
+        assertEquals(1, first.size());
+        verify(workoutRepository, times(1)).findAll();
+        assertEquals(1.0, registry.get("workout.catalog.size").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should keep the current snapshot when nothing changed")
+    void testUnchangedReload() {
+        // Given
+        WorkoutCatalog loaded = holder.current();
+
+        // When
+        holder.refresh();
+
+        // Then
+        assertSame(loaded, holder.current());
+        assertEquals(1.0, registry.get("workout.catalog.reloads").tag("result", "unchanged").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should swap in a new snapshot when the catalog changes")
+    void testSwapOnChange() {
+        // Given
+        WorkoutCatalog before = holder.current();
+        Workout added = new Workout("Yoga", "Calm", Workout.WorkoutType.FLEXIBILITY, Workout.DifficultyLevel.BEGINNER, 15, "Mat");
+        added.setWorkoutId(2L);
+        when(workoutRepository.findAll()).thenReturn(List.of(workout, added));
+
+        // When
+        holder.onCatalogChanged(new WorkoutCatalogChangedEvent("test"));
+
+        // Then - readers holding the old snapshot still see the old data
+        WorkoutCatalog after = holder.current();
+        assertNotSame(before, after);
+        assertEquals(2, after.version());
+        assertEquals(2, after.size());
+        assertEquals(1, before.size());
+        assertEquals(2.0, registry.get("workout.catalog.reloads").tag("result", "swapped").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should keep serving the old snapshot when a periodic refresh fails")
+    void testRefreshFailure() {
+        // Given
+        WorkoutCatalog loaded = holder.current();
+        when(workoutRepository.findAll()).thenThrow(new RuntimeException("db down"));
+
+        // When
+        holder.refresh();
+
+        // Then
+        assertSame(loaded, holder.current());
+    }
+}
@@ -0,0 +1,150 @@
+package com.b3.service.catalog;
+
+import com.b3.dto.WorkoutExerciseDTO;
+import com.b3.model.Exercise;
+import com.b3.model.Workout;
+import com.b3.model.WorkoutExercise;
+import com.b3.service.catalog.WorkoutCatalog.DurationBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WorkoutCatalog indexes and lookups
+ */
+@DisplayName("WorkoutCatalog Tests")
+class WorkoutCatalogTest {
+
+    private Workout yoga;
+    private Workout hiit;
+    private Workout strength;
+    private Exercise squat;
+    private Exercise plank;
+
+    @BeforeEach
+    void setUp() {
+        strength = workout(3L, "Full Body Strength", Workout.WorkoutType.STRENGTH, Workout.DifficultyLevel.ADVANCED, 50);
+        yoga = workout(1L, "Morning Yoga Flow", Workout.WorkoutType.FLEXIBILITY, Workout.DifficultyLevel.BEGINNER, 15);
+        hiit = workout(2L, "Quick HIIT", Workout.WorkoutType.CARDIO, Workout.DifficultyLevel.BEGINNER, 20);
+
+        squat = new Exercise("Squat", "Sit back", Exercise.MuscleGroup.LEGS, Exercise.EquipmentType.BODYWEIGHT, null);
+        squat.setExerciseId(10L);
+        plank = new Exercise("Plank", "Hold", Exercise.MuscleGroup.CORE, Exercise.EquipmentType.BODYWEIGHT, null);
+        plank.setExerciseId(11L);
+    }
+
+    private Workout workout(long id, String name, Workout.WorkoutType type, Workout.DifficultyLevel level, int minutes) {
+        Workout workout = new Workout(name, name + " description", type, level, minutes, "None");
+        workout.setWorkoutId(id);
+        return workout;
+    }
+
+    private WorkoutCatalog catalog() {
+        // Exercises deliberately out of order
+        return WorkoutCatalog.of(List.of(strength, yoga, hiit), List.of(
+                new WorkoutExercise(hiit, plank, 2, 3, null, 30),
+                new WorkoutExercise(hiit, squat, 1, 3, 15, null)), 7);
+    }
+
+    @Test
+    @DisplayName("Should keep workouts in id order with their exercises in order")
+    void testEntriesAndExercises() {
+        WorkoutCatalog catalog = catalog();
+
+        assertEquals(7, catalog.version());
+        assertEquals(List.of(1L, 2L, 3L), catalog.entries().stream().map(WorkoutCatalog.Entry::workoutId).toList());
+        assertEquals("Quick HIIT", catalog.find(2L).response().getName());
+        assertEquals(List.of("Squat", "Plank"),
+                catalog.find(2L).exercises().stream().map(WorkoutExerciseDTO::getName).toList());
+        assertTrue(catalog.find(1L).exercises().isEmpty());
+        assertNull(catalog.find(99L));
+        assertNull(catalog.find(null));
+    }
+
+    @Test
+    @DisplayName("Should index by type, difficulty and duration bucket")
+    void testIndexes() {
+        WorkoutCatalog catalog = catalog();
+
+        assertEquals(List.of(2L), catalog.byType(Workout.WorkoutType.CARDIO).stream()
+                .map(WorkoutCatalog.Entry::workoutId).toList());
+        assertTrue(catalog.byType(Workout.WorkoutType.MIXED).isEmpty());
+        assertEquals(2, catalog.responsesByDifficulty(Workout.DifficultyLevel.BEGINNER).size());
+        assertEquals(List.of(1L, 2L), catalog.byDuration(DurationBucket.SHORT).stream()
+                .map(WorkoutCatalog.Entry::workoutId).toList());
+        assertTrue(catalog.byDuration(DurationBucket.MEDIUM).isEmpty());
+        assertEquals(DurationBucket.LONG, catalog.find(3L).durationBucket());
+
+        // Precomputed: repeated reads return the same list
+        assertSame(catalog.responsesByType(Workout.WorkoutType.CARDIO),
+                catalog.responsesByType(Workout.WorkoutType.CARDIO));
+    }
+
+    @Test
+    @DisplayName("Should find workouts up to a duration, shortest first")
+    void testWithDurationAtMost() {
+        WorkoutCatalog catalog = catalog();
+
+        assertEquals(List.of(1L, 2L), catalog.withDurationAtMost(20).stream()
+                .map(WorkoutCatalog.Entry::workoutId).toList());
+        assertEquals(List.of(1L, 2L), catalog.withDurationAtMost(25).stream()
+                .map(WorkoutCatalog.Entry::workoutId).toList());
+        assertTrue(catalog.withDurationAtMost(10).isEmpty());
+        assertEquals(3, catalog.withDurationAtMost(90).size());
+    }
+
+    @Test
+    @DisplayName("Should search names case-insensitively")
+    void testSearch() {
+        WorkoutCatalog catalog = catalog();
+
+        assertEquals(1, catalog.search("hiit").size());
+        assertEquals(0, catalog.search("pilates").size());
+        assertEquals(3, catalog.search(" ").size());
+    }
+
+    @Test
+    @DisplayName("Should hand out lists nobody can modify")
+    void testSharedListsAreUnmodifiable() {
+        WorkoutCatalog catalog = catalog();
+
+        assertThrows(UnsupportedOperationException.class, () -> catalog.search("hiit").clear());
+        assertThrows(UnsupportedOperationException.class, () -> catalog.responses().clear());
+        assertThrows(UnsupportedOperationException.class, () -> catalog.find(2L).exercises().clear());
+        assertThrows(UnsupportedOperationException.class,
+                () -> catalog.find(2L).response().getExercises().add(null));
+    }
+
+    @Test
+    @DisplayName("Should tell whether two snapshots hold the same data")
+    void testSameContent() {
+        WorkoutCatalog first = catalog();
+
+        assertTrue(catalog().sameContentAs(first));
+
+        hiit.setEstimatedDuration(25);
+        assertFalse(catalog().sameContentAs(first));
+        assertFalse(first.sameContentAs(null));
+        assertTrue(WorkoutCatalog.EMPTY.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not mistake a fingerprint collision for the same data")
+    void testSameContentIgnoresFingerprintCollision() {
+        // Given - "Aa" and "BB" have the same String hash code
+        Workout workout = workout(4L, "Aa", Workout.WorkoutType.CARDIO, Workout.DifficultyLevel.BEGINNER, 10);
+        WorkoutCatalog before = WorkoutCatalog.of(List.of(workout), List.of(), 1);
+
+        // When
+        workout.setName("BB");
+        workout.setDescription("BB description");
+        WorkoutCatalog after = WorkoutCatalog.of(List.of(workout), List.of(), 2);
+
+        // Then
+        assertFalse(after.sameContentAs(before));
+    }
+}
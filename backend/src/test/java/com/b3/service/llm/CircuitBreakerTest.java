@@ -0,0 +1,187 @@
+package com.b3.service.llm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CircuitBreaker state transitions
+ */
+@DisplayName("CircuitBreaker Tests")
+class CircuitBreakerTest {
+
+    private MutableClock clock;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        breaker = new CircuitBreaker("test", 3, 30_000, clock);
+    }
+
+    // ========================================================================
+    // CLOSED STATE TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should start closed and permit calls")
+    void testStartsClosed() {
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.isCallPermitted());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    @DisplayName("Should stay closed below the failure threshold")
+    void testStaysClosedBelowThreshold() {
+        // When
+        breaker.onFailure();
+        breaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.isCallPermitted());
+    }
+
+    @Test
+    @DisplayName("Should reset failure count on success")
+    void testSuccessResetsFailures() {
+        // Given
+        breaker.onFailure();
+        breaker.onFailure();
+
+        // When
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1, breaker.getConsecutiveFailures());
+    }
+
+    // ========================================================================
+    // OPEN STATE TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should open after consecutive failures and refuse calls instantly")
+    void testOpensAtThreshold() {
+        // When
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.isCallPermitted());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    @DisplayName("Should close when a probe succeeds while open")
+    void testProbeSuccessClosesOpenCircuit() {
+        // Given
+        openBreaker();
+
+        // When
+        breaker.onSuccess();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.isCallPermitted());
+    }
+
+    // ========================================================================
+    // HALF-OPEN STATE TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should allow exactly one trial call after the open window")
+    void testHalfOpenSingleTrial() {
+        // Given
+        openBreaker();
+        clock.advance(Duration.ofSeconds(31));
+
+        // When
+        assertTrue(breaker.isCallPermitted());
+        boolean first = breaker.allowRequest();
+        boolean second = breaker.allowRequest();
+
+        // Then
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should close when the half-open trial succeeds")
+    void testHalfOpenTrialSuccess() {
+        // Given
+        openBreaker();
+        clock.advance(Duration.ofSeconds(31));
+        breaker.allowRequest();
+
+        // When
+        breaker.onSuccess();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    @DisplayName("Should re-open when the half-open trial fails")
+    void testHalfOpenTrialFailure() {
+        // Given
+        openBreaker();
+        clock.advance(Duration.ofSeconds(31));
+        breaker.allowRequest();
+
+        // When
+        breaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.isCallPermitted());
+    }
+
+    // ========================================================================
+    // HELPERS
+    // ========================================================================
+
+    private void openBreaker() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onFailure();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.b3.service.llm;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that DeadlineClientHttpRequestFactory bounds the whole exchange,
+ * even when the server keeps the socket busy with a slow trickle.
+ */
+@DisplayName("DeadlineClientHttpRequestFactory Tests")
+class DeadlineClientHttpRequestFactoryTest {
+
+    private HttpServer server;
+    private DeadlineClientHttpRequestFactory factory;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+
+        server.createContext("/fast", exchange -> {
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        // One byte every 100ms for ~5s - never idle long enough to trip a read timeout
+        server.createContext("/trickle", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < 50; i++) {
+                    out.write('x');
+                    out.flush();
+                    Thread.sleep(100);
+                }
+            } catch (Exception ignored) {
+                // client aborted
+            }
+        });
+
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.stop(0);
+        if (factory != null) {
+            factory.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should complete requests that finish within the deadline")
+    void testFastRequestCompletes() {
+        // Given
+        factory = new DeadlineClientHttpRequestFactory(HttpClients.createDefault(), 2_000, "test");
+        RestTemplate restTemplate = new RestTemplate(factory);
+
+        // When
+        String body = restTemplate.getForObject(baseUrl + "/fast", String.class);
+
+        // Then - the finished exchange no longer holds a queued deadline
+        assertEquals("ok", body);
+        assertEquals(0, factory.pendingDeadlines());
+    }
+
+    @Test
+    @DisplayName("Should abort a trickling response at the total deadline")
+    void testTricklingResponseAborted() {
+        // Given
+        factory = new DeadlineClientHttpRequestFactory(HttpClients.createDefault(), 500, "test");
+        RestTemplate restTemplate = new RestTemplate(factory);
+
+        // When
+        long start = System.currentTimeMillis();
+        assertThrows(Exception.class, () -> restTemplate.getForObject(baseUrl + "/trickle", String.class));
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Then
+        assertTrue(elapsed < 3_000, "Expected abort near 500ms but took " + elapsed + "ms");
+    }
+}
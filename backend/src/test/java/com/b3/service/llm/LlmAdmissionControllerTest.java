@@ -0,0 +1,215 @@
+package com.b3.service.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LlmAdmissionController concurrency, priority and backpressure
+ */
+@DisplayName("LlmAdmissionController Tests")
+class LlmAdmissionControllerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Should admit immediately while slots are free")
+    void testAdmitsUpToLimit() {
+        // Given
+        LlmAdmissionController controller = create(2, 4, 4, 50, 50);
+
+        // When
+        LlmAdmissionController.Permit first = controller.acquire(LlmPriority.INTERACTIVE);
+        LlmAdmissionController.Permit second = controller.acquire(LlmPriority.BACKGROUND);
+
+        // Then
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(2, controller.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should time out and return null when no slot frees up")
+    void testTimesOut() {
+        // Given
+        LlmAdmissionController controller = create(1, 4, 4, 50, 50);
+        controller.acquire(LlmPriority.INTERACTIVE);
+
+        // When
+        LlmAdmissionController.Permit permit = controller.acquire(LlmPriority.INTERACTIVE);
+
+        // Then
+        assertNull(permit);
+        assertEquals(0, controller.getQueueDepth());
+        assertEquals(1.0, meterRegistry.get("llm.admission.rejected").tag("reason", "timeout").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should reject immediately when the priority's queue is full")
+    void testQueueFull() {
+        // Given
+        LlmAdmissionController controller = create(1, 4, 0, 50, 50);
+        controller.acquire(LlmPriority.INTERACTIVE);
+
+        // When
+        long start = System.nanoTime();
+        LlmAdmissionController.Permit permit = controller.acquire(LlmPriority.BACKGROUND);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertNull(permit);
+        assertTrue(elapsedMs < 40, "Queue-full rejection should not wait");
+        assertEquals(1.0, meterRegistry.get("llm.admission.rejected").tag("reason", "queue_full").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should serve interactive waiters before background waiters")
+    void testInteractiveFirst() throws Exception {
+        // Given - the only slot is taken
+        LlmAdmissionController controller = create(1, 4, 4, 5_000, 5_000);
+        LlmAdmissionController.Permit held = controller.acquire(LlmPriority.BACKGROUND);
+
+        List<LlmPriority> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+
+        Thread background = waiter(controller, LlmPriority.BACKGROUND, order, done);
+        background.start();
+        awaitQueueDepth(controller, 1);
+
+        Thread interactive = waiter(controller, LlmPriority.INTERACTIVE, order, done);
+        interactive.start();
+        awaitQueueDepth(controller, 2);
+
+        // When
+        held.close();
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(LlmPriority.INTERACTIVE, LlmPriority.BACKGROUND), order);
+        assertEquals(0, controller.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should ignore double close of a permit")
+    void testDoubleCloseIsHarmless() {
+        // Given
+        LlmAdmissionController controller = create(1, 4, 4, 50, 50);
+        LlmAdmissionController.Permit permit = controller.acquire(LlmPriority.INTERACTIVE);
+
+        // When
+        permit.close();
+        permit.close();
+
+        // Then
+        assertEquals(0, controller.getInFlight());
+        assertNotNull(controller.acquire(LlmPriority.INTERACTIVE));
+        assertNull(controller.acquire(LlmPriority.INTERACTIVE));
+    }
+
+    // ========================================================================
+    // ASYNC ACQUIRE TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should hand a released slot to an async waiter without blocking")
+    void testAsyncWaiterGranted() throws Exception {
+        // Given
+        LlmAdmissionController controller = create(1, 4, 4, 2_000, 2_000);
+        LlmAdmissionController.Permit held = controller.acquire(LlmPriority.INTERACTIVE);
+
+        // When
+        CompletableFuture<LlmAdmissionController.Permit> pending = controller.acquireAsync(LlmPriority.INTERACTIVE);
+
+        // Then
+        assertFalse(pending.isDone());
+        assertEquals(1, controller.getQueueDepth());
+
+        held.close();
+        LlmAdmissionController.Permit granted = pending.get(1, TimeUnit.SECONDS);
+        assertNotNull(granted);
+        assertEquals(1, controller.getInFlight());
+        assertEquals(0, controller.getQueueDepth());
+    }
+
+    @Test
+    @DisplayName("Should complete async waiters with null after the max wait")
+    void testAsyncWaiterExpires() throws Exception {
+        // Given
+        LlmAdmissionController controller = create(1, 4, 4, 50, 50);
+        controller.acquire(LlmPriority.INTERACTIVE);
+
+        // When
+        LlmAdmissionController.Permit permit = controller.acquireAsync(LlmPriority.INTERACTIVE).get(1, TimeUnit.SECONDS);
+
+        // Then
+        assertNull(permit);
+        assertEquals(0, controller.getQueueDepth());
+        assertEquals(1.0, meterRegistry.get("llm.admission.rejected").tag("reason", "timeout").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should skip cancelled async waiters when handing over a slot")
+    void testCancelledAsyncWaiterSkipped() throws Exception {
+        // Given
+        LlmAdmissionController controller = create(1, 4, 4, 2_000, 2_000);
+        LlmAdmissionController.Permit held = controller.acquire(LlmPriority.INTERACTIVE);
+        CompletableFuture<LlmAdmissionController.Permit> cancelled = controller.acquireAsync(LlmPriority.INTERACTIVE);
+        CompletableFuture<LlmAdmissionController.Permit> next = controller.acquireAsync(LlmPriority.INTERACTIVE);
+
+        // When
+        cancelled.cancel(true);
+        held.close();
+
+        // Then
+        assertNotNull(next.get(1, TimeUnit.SECONDS));
+        assertEquals(1, controller.getInFlight());
+        assertEquals(0, controller.getQueueDepth());
+    }
+
+    // ========================================================================
+    // HELPERS
+    // ========================================================================
+
+    private LlmAdmissionController create(int maxConcurrent, int interactiveCapacity, int backgroundCapacity,
+                                          long interactiveWaitMs, long backgroundWaitMs) {
+        return new LlmAdmissionController("test", maxConcurrent,
+                Map.of(LlmPriority.INTERACTIVE, interactiveCapacity, LlmPriority.BACKGROUND, backgroundCapacity),
+                Map.of(LlmPriority.INTERACTIVE, interactiveWaitMs, LlmPriority.BACKGROUND, backgroundWaitMs),
+                meterRegistry);
+    }
+
+    private Thread waiter(LlmAdmissionController controller, LlmPriority priority,
+                          List<LlmPriority> order, CountDownLatch done) {
+        return new Thread(() -> {
+            LlmAdmissionController.Permit permit = controller.acquire(priority);
+            if (permit != null) {
+                order.add(priority);
+                permit.close();
+            }
+            done.countDown();
+        });
+    }
+
+    private void awaitQueueDepth(LlmAdmissionController controller, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (controller.getQueueDepth() < depth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(depth, controller.getQueueDepth());
+    }
+}
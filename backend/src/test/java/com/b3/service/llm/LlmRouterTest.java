@@ -0,0 +1,254 @@
+package com.b3.service.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LlmRouter routing, failover and hedging, using stub providers
+ */
+@DisplayName("LlmRouter Tests")
+class LlmRouterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final LlmRequest REQUEST = LlmRequest.interactive("system", "hello");
+
+    private SimpleMeterRegistry registry;
+    private StubLlmProvider local;
+    private StubLlmProvider remote;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        local = new StubLlmProvider("local", Duration.ofMillis(20));
+        remote = new StubLlmProvider("remote", Duration.ofMillis(20));
+    }
+
+    private LlmRouter router(boolean hedge, long defaultHedgeDelayMs) {
+        return new LlmRouter(List.of(remote, local), registry, "local,remote",
+                20, 60_000, 3, 0.5, hedge, defaultHedgeDelayMs, 10, Clock.systemUTC());
+    }
+
+    // ========================================================================
+    // ROUTING TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should send requests to the preferred provider while it has no samples")
+    void testPreferredProviderFirst() {
+        // Given
+        LlmRouter router = router(true, 2_000);
+
+        // When
+        String reply = router.generate(REQUEST).block(TIMEOUT);
+
+        // Then
+        assertEquals("[local] reply", reply);
+        assertEquals(0, remote.calls.get());
+    }
+
+    @Test
+    @DisplayName("Should return empty when no provider is available")
+    void testNoProviders() {
+        // Given
+        local.available(false);
+        remote.available(false);
+        LlmRouter router = router(true, 2_000);
+
+        // Then
+        assertFalse(router.hasAvailableProvider());
+        assertNull(router.generate(REQUEST).block(TIMEOUT));
+    }
+
+    @Test
+    @DisplayName("Should fail over to the runner-up immediately when the primary fails")
+    void testFailover() {
+        // Given - hedge delay far longer than the test would tolerate
+        local.failing(true);
+        LlmRouter router = router(true, 60_000);
+
+        // When
+        long started = System.nanoTime();
+        String reply = router.generate(REQUEST).block(TIMEOUT);
+
+        // Then
+        assertEquals("[remote] reply", reply);
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 2_000);
+    }
+
+    @Test
+    @DisplayName("Should count failed calls by provider, model and trigger")
+    void testErrorMetrics() {
+        // Given
+        local.failing(true);
+        LlmRouter router = router(false, 60_000);
+
+        // When
+        router.generate(REQUEST.withPurpose("user_chat")).block(TIMEOUT);
+
+        // Then
+        assertEquals(1.0, registry.get("llm.errors")
+                .tags("provider", "local", "model", "local", "trigger", "user_chat").counter().count());
+        assertNull(registry.find("llm.errors").tag("provider", "remote").counter());
+        assertEquals(1, registry.get("llm.router.latency")
+                .tags("provider", "remote", "trigger", "user_chat", "outcome", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should move an error-prone provider behind a healthy one")
+    void testUnhealthyProviderDemoted() {
+        // Given - local fails its first min-samples calls
+        local.failing(true);
+        LlmRouter router = router(false, 2_000);
+        for (int i = 0; i < 3; i++) {
+            router.generate(REQUEST).block(TIMEOUT);
+        }
+        int localCalls = local.calls.get();
+
+        // When
+        local.failing(false);
+        String reply = router.generate(REQUEST).block(TIMEOUT);
+
+        // Then
+        assertEquals("[remote] reply", reply);
+        assertEquals(localCalls, local.calls.get());
+        assertFalse(router.rank().get(1).healthy());
+    }
+
+    // ========================================================================
+    // HEDGING TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should not hedge when the primary answers in time")
+    void testNoHedgeWhenFast() {
+        // Given
+        LlmRouter router = router(true, 500);
+
+        // When
+        String reply = router.generate(REQUEST).block(TIMEOUT);
+
+        // Then
+        assertEquals("[local] reply", reply);
+        assertEquals(0, remote.calls.get());
+        assertNull(registry.find("llm.router.hedges").counter());
+    }
+
+    @Test
+    @DisplayName("Should hedge a slow primary and take whichever answers first")
+    void testHedgeWins() {
+        // Given
+        local.latency(Duration.ofSeconds(3));
+        LlmRouter router = router(true, 50);
+
+        // When
+        long started = System.nanoTime();
+        String reply = router.generate(REQUEST).block(TIMEOUT);
+
+        // Then
+        assertEquals("[remote] reply", reply);
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 2_000);
+        assertEquals(1, local.cancellations.get());
+        assertEquals(1.0, registry.get("llm.router.hedges").tag("primary", "local").counter().count());
+        assertEquals(1.0, registry.get("llm.router.hedge.wins").tag("provider", "remote").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should never hedge BACKGROUND requests")
+    void testBackgroundNotHedged() {
+        // Given
+        local.latency(Duration.ofMillis(300));
+        LlmRouter router = router(true, 20);
+
+        // When
+        String reply = router.generate(new LlmRequest("system", "hello", LlmPriority.BACKGROUND, null)).block(TIMEOUT);
+
+        // Then
+        assertEquals("[local] reply", reply);
+        assertEquals(0, remote.calls.get());
+    }
+
+    @Test
+    @DisplayName("Should promote the runner-up once hedges show it is faster")
+    void testLearnsFasterProvider() {
+        // Given - local is slow, so early requests are hedged to remote
+        local.latency(Duration.ofMillis(400));
+        LlmRouter router = router(true, 50);
+        for (int i = 0; i < 3; i++) {
+            router.generate(REQUEST).block(TIMEOUT);
+        }
+
+        // When
+        int localCalls = local.calls.get();
+        String reply = router.generate(REQUEST).block(TIMEOUT);
+
+        // Then - remote is now primary and answers before any hedge
+        assertEquals("[remote] reply", reply);
+        assertEquals("remote", router.rank().get(0).provider().name());
+        assertEquals(localCalls, local.calls.get());
+    }
+
+    // ========================================================================
+    // STATS TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should compute percentiles over successes and drop samples outside the window")
+    void testProviderStatsWindow() {
+        // Given
+        MutableClock clock = new MutableClock();
+        ProviderStats stats = new ProviderStats(100, 60_000, clock);
+        for (int i = 1; i <= 20; i++) {
+            stats.record(i * 1_000_000L, true);
+        }
+        stats.record(5_000_000L, false);
+
+        // When
+        ProviderStats.Snapshot snapshot = stats.snapshot();
+
+        // Then
+        assertEquals(21, snapshot.samples());
+        assertEquals(20, snapshot.successes());
+        assertEquals(1.0 / 21, snapshot.errorRate(), 1e-9);
+        assertEquals(10_000_000L, snapshot.p50Nanos());
+        assertEquals(19_000_000L, snapshot.p95Nanos());
+
+        // When - everything ages out
+        clock.advance(Duration.ofMinutes(2));
+
+        // Then
+        assertEquals(0, stats.snapshot().samples());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
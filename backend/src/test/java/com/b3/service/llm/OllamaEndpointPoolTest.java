@@ -0,0 +1,233 @@
+package com.b3.service.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OllamaEndpointPool balancing, stickiness and ejection
+ */
+@DisplayName("OllamaEndpointPool Tests")
+class OllamaEndpointPoolTest {
+
+    private static final String URLS = "http://box-a:11434, http://box-b:11434/, http://box-c:11434";
+
+    private SimpleMeterRegistry registry;
+    private MutableClock clock;
+    private OllamaEndpointPool pool;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        pool = new OllamaEndpointPool(registry, URLS, 2, 30_000, 2, clock);
+    }
+
+    // ========================================================================
+    // BALANCING TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should parse and normalize the endpoint list")
+    void testParsesUrls() {
+        assertEquals(3, pool.size());
+        assertEquals("http://box-b:11434", pool.getEndpoints().get(1).url());
+        assertThrows(IllegalArgumentException.class,
+                () -> new OllamaEndpointPool(registry, " , ", 2, 30_000, 2, clock));
+    }
+
+    @Test
+    @DisplayName("Should send each new call to the endpoint with the fewest in flight")
+    void testLeastOutstanding() {
+        // When - three calls held open
+        List<OllamaEndpointPool.Lease> leases = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            leases.add(pool.acquire(null));
+        }
+
+        // Then - one per endpoint
+        Set<String> used = new HashSet<>();
+        leases.forEach(lease -> used.add(lease.url()));
+        assertEquals(3, used.size());
+        pool.getEndpoints().forEach(endpoint -> assertEquals(1, endpoint.getInFlight()));
+
+        // When - box-a frees up
+        OllamaEndpointPool.Lease first = leases.get(0);
+        first.close();
+        first.close();
+
+        // Then - the next call goes there, and double close didn't go negative
+        assertEquals(first.url(), pool.acquire(null).url());
+        assertEquals(1, first.endpoint().getInFlight());
+        assertEquals(1.0, registry.get("ollama.endpoint.in.flight").tag("endpoint", "box-a:11434").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should keep a profile on the same endpoint while load is balanced")
+    void testStickyRouting() {
+        // When
+        String first;
+        try (OllamaEndpointPool.Lease lease = pool.acquire("42")) {
+            first = lease.url();
+        }
+
+        // Then
+        for (int i = 0; i < 10; i++) {
+            try (OllamaEndpointPool.Lease lease = pool.acquire("42")) {
+                assertEquals(first, lease.url());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should spread different profiles across endpoints")
+    void testStickySpread() {
+        Set<String> used = new HashSet<>();
+        for (int profile = 1; profile <= 30; profile++) {
+            try (OllamaEndpointPool.Lease lease = pool.acquire(String.valueOf(profile))) {
+                used.add(lease.url());
+            }
+        }
+        assertEquals(3, used.size());
+    }
+
+    @Test
+    @DisplayName("Should give up stickiness when the sticky endpoint is too busy")
+    void testStickyYieldsUnderImbalance() {
+        // Given - the profile's endpoint already has 3 calls, the others none
+        String sticky;
+        try (OllamaEndpointPool.Lease lease = pool.acquire("42")) {
+            sticky = lease.url();
+        }
+        for (int i = 0; i < 3; i++) {
+            OllamaEndpointPool.Lease busy = pool.acquire("42");
+            assertEquals(sticky, busy.url(), "within the imbalance allowance at call " + i);
+        }
+
+        // When
+        OllamaEndpointPool.Lease lease = pool.acquire("42");
+
+        // Then
+        assertNotEquals(sticky, lease.url());
+        assertTrue(registry.get("ollama.endpoint.selections").tag("reason", "least-outstanding").counter().count() >= 1);
+    }
+
+    // ========================================================================
+    // HEALTH TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should eject an endpoint after consecutive failures and route around it")
+    void testEjection() {
+        // Given
+        OllamaEndpointPool.Endpoint bad = pool.getEndpoints().get(0);
+
+        // When
+        pool.recordProbe(bad, false);
+        pool.recordProbe(bad, false);
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, bad.getState());
+        assertEquals(1.0, registry.get("ollama.endpoint.ejections").tag("endpoint", "box-a:11434").counter().count());
+        assertEquals(0.0, registry.get("ollama.endpoint.admitted").tag("endpoint", "box-a:11434").gauge().value());
+        assertEquals("2/3 admitted", pool.describe());
+        for (int i = 0; i < 20; i++) {
+            try (OllamaEndpointPool.Lease lease = pool.acquire(String.valueOf(i))) {
+                assertNotEquals(bad.url(), lease.url());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should count a failed call against the endpoint only once")
+    void testLeaseJudgedOnce() {
+        // Given
+        OllamaEndpointPool.Lease lease = pool.acquire(null);
+
+        // When - first token arrived, then the client hung up
+        lease.success();
+        lease.failure();
+        lease.close();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, lease.endpoint().getState());
+        assertEquals(1, registry.get("ollama.endpoint.latency").tag("outcome", "success").timer().count());
+        assertNull(registry.find("ollama.endpoint.latency").tag("outcome", "failure").timer());
+    }
+
+    @Test
+    @DisplayName("Should re-admit an ejected endpoint after a healthy probe")
+    void testReadmission() {
+        // Given
+        OllamaEndpointPool.Endpoint bad = pool.getEndpoints().get(0);
+        pool.recordProbe(bad, false);
+        pool.recordProbe(bad, false);
+
+        // When
+        pool.recordProbe(bad, true);
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, bad.getState());
+        assertEquals("3/3 admitted", pool.describe());
+    }
+
+    @Test
+    @DisplayName("Should let one trial through once every endpoint is ejected and the window passes")
+    void testTrialWhenAllEjected() {
+        // Given
+        for (OllamaEndpointPool.Endpoint endpoint : pool.getEndpoints()) {
+            pool.recordProbe(endpoint, false);
+            pool.recordProbe(endpoint, false);
+        }
+
+        // Then - nothing while the open window lasts
+        assertFalse(pool.hasAvailableEndpoint());
+        assertNull(pool.acquire("42"));
+
+        // When
+        clock.advance(Duration.ofSeconds(31));
+        OllamaEndpointPool.Lease trial = pool.acquire("42");
+
+        // Then
+        assertNotNull(trial);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, trial.endpoint().getState());
+        trial.success();
+        trial.close();
+        assertEquals(CircuitBreaker.State.CLOSED, trial.endpoint().getState());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
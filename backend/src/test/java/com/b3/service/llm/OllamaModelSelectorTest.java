@@ -0,0 +1,218 @@
+package com.b3.service.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OllamaModelSelector downshift and restore
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OllamaModelSelector Tests")
+class OllamaModelSelectorTest {
+
+    @Mock
+    private LlmAdmissionController admissionController;
+
+    private SimpleMeterRegistry registry;
+    private MutableClock clock;
+    private OllamaModelSelector selector;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        selector = selector(true);
+    }
+
+    private OllamaModelSelector selector(boolean enabled) {
+        // queue 8/2, p95 8000/4000 ms, 60s dwell, evaluated on every call
+        return new OllamaModelSelector(admissionController, registry, "llama3.2", 300, enabled,
+                "llama3.2:1b", 150, 8, 2, 8000, 4000, 60_000, 0, clock);
+    }
+
+    private void queueDepth(int depth) {
+        lenient().when(admissionController.getQueueDepth(LlmPriority.INTERACTIVE)).thenReturn(depth);
+    }
+
+    private void latencies(OllamaModelSelector.ModelChoice choice, long millis, int count) {
+        for (int i = 0; i < count; i++) {
+            selector.recordLatency(choice, Duration.ofMillis(millis).toNanos(), true);
+        }
+    }
+
+    // ========================================================================
+    // DOWNSHIFT TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should use the main model while load is normal")
+    void testPrimaryByDefault() {
+        // Given
+        queueDepth(1);
+        latencies(selector.current(), 2000, 10);
+
+        // When
+        OllamaModelSelector.ModelChoice choice = selector.current();
+
+        // Then
+        assertEquals("llama3.2", choice.model());
+        assertEquals(300, choice.numPredict());
+        assertFalse(choice.downshifted());
+        assertEquals(List.of("llama3.2", "llama3.2:1b"), selector.models());
+    }
+
+    @Test
+    @DisplayName("Should downshift when the interactive queue backs up")
+    void testDownshiftOnQueueDepth() {
+        // Given
+        queueDepth(8);
+
+        // When
+        OllamaModelSelector.ModelChoice choice = selector.current();
+
+        // Then
+        assertEquals("llama3.2:1b", choice.model());
+        assertEquals(150, choice.numPredict());
+        assertTrue(choice.downshifted());
+        assertEquals(1.0, registry.get("ollama.model.downshifted").gauge().value());
+        assertEquals(1.0, registry.get("ollama.model.switches")
+                .tag("from", "llama3.2").tag("to", "llama3.2:1b").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should downshift when the main model's p95 is too slow")
+    void testDownshiftOnLatency() {
+        // Given - short queue, but replies take 9s
+        queueDepth(0);
+        OllamaModelSelector.ModelChoice primary = selector.current();
+        latencies(primary, 9000, 10);
+
+        // When / Then
+        assertTrue(selector.current().downshifted());
+    }
+
+    @Test
+    @DisplayName("Should not trust p95 until there are enough samples")
+    void testIgnoresThinLatencySample() {
+        // Given
+        queueDepth(0);
+        latencies(selector.current(), 20_000, 2);
+
+        // When / Then
+        assertFalse(selector.current().downshifted());
+    }
+
+    // ========================================================================
+    // HYSTERESIS TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should stay downshifted for the dwell time even if load drops")
+    void testNoFlapWithinDwell() {
+        // Given - downshifted
+        queueDepth(10);
+        OllamaModelSelector.ModelChoice fallback = selector.current();
+        assertTrue(fallback.downshifted());
+
+        // When - load gone, small model fast, but only 30s later
+        queueDepth(0);
+        latencies(fallback, 1000, 10);
+        clock.advance(Duration.ofSeconds(30));
+
+        // Then
+        assertTrue(selector.current().downshifted());
+    }
+
+    @Test
+    @DisplayName("Should stay downshifted while the queue is between the thresholds")
+    void testNoRestoreBetweenThresholds() {
+        // Given
+        queueDepth(10);
+        latencies(selector.current(), 1000, 10);
+
+        // When - queue eased to 5: below high, above low
+        queueDepth(5);
+        clock.advance(Duration.ofMinutes(2));
+
+        // Then
+        assertTrue(selector.current().downshifted());
+    }
+
+    @Test
+    @DisplayName("Should restore the main model once load has dropped and the dwell has passed")
+    void testRestoreAfterLoadDrops() {
+        // Given - downshifted because the main model was slow
+        queueDepth(0);
+        latencies(selector.current(), 9000, 10);
+        OllamaModelSelector.ModelChoice fallback = selector.current();
+        assertTrue(fallback.downshifted());
+
+        // When
+        latencies(fallback, 1500, 10);
+        clock.advance(Duration.ofSeconds(61));
+        OllamaModelSelector.ModelChoice restored = selector.current();
+
+        // Then - restored, and the old slow samples don't bounce it straight back
+        assertFalse(restored.downshifted());
+        clock.advance(Duration.ofSeconds(61));
+        assertFalse(selector.current().downshifted());
+        assertEquals(0.0, registry.get("ollama.model.downshifted").gauge().value());
+        assertEquals(1.0, registry.get("ollama.model.switches")
+                .tag("from", "llama3.2:1b").tag("to", "llama3.2").counter().count());
+    }
+
+    // ========================================================================
+    // CONFIG TESTS
+    // ========================================================================
+
+    @Test
+    @DisplayName("Should never downshift when disabled")
+    void testDisabled() {
+        // Given
+        registry = new SimpleMeterRegistry();
+        OllamaModelSelector disabled = selector(false);
+        queueDepth(50);
+
+        // When / Then
+        assertFalse(disabled.current().downshifted());
+        assertEquals(List.of("llama3.2"), disabled.models());
+        verifyNoInteractions(admissionController);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.b3.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OllamaResponseMetrics timing split and cold-start detection
+ */
+@DisplayName("OllamaResponseMetrics Tests")
+class OllamaResponseMetricsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SimpleMeterRegistry registry;
+    private OllamaResponseMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new OllamaResponseMetrics(registry, 1000);
+    }
+
+    private JsonNode body(boolean done, long loadMs, long evalMs) throws Exception {
+        return objectMapper.readTree(String.format(
+                "{\"model\":\"llama3.2\",\"done\":%s,\"load_duration\":%d,"
+                        + "\"prompt_eval_duration\":%d,\"eval_duration\":%d}",
+                done, TimeUnit.MILLISECONDS.toNanos(loadMs),
+                TimeUnit.MILLISECONDS.toNanos(20), TimeUnit.MILLISECONDS.toNanos(evalMs)));
+    }
+
+    @Test
+    @DisplayName("Should record load and generation time separately")
+    void testRecordsSeparateTimers() throws Exception {
+        // When
+        metrics.record(body(true, 15, 900), "chat");
+
+        // Then
+        Timer load = registry.get("ollama.model.load").tags("model", "llama3.2", "source", "chat").timer();
+        Timer generation = registry.get("ollama.generation").tags("model", "llama3.2", "source", "chat").timer();
+        assertEquals(15, load.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(900, generation.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(20, registry.get("ollama.prompt.eval").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertNull(registry.find("ollama.model.cold.starts").counter());
+    }
+
+    @Test
+    @DisplayName("Should derive tokens per second from eval_count and eval_duration")
+    void testRecordsTokenThroughput() throws Exception {
+        // Given - 120 tokens generated in 2 seconds from a 350-token prompt
+        JsonNode body = objectMapper.readTree("{\"model\":\"llama3.2\",\"done\":true,"
+                + "\"prompt_eval_count\":350,\"eval_count\":120,\"eval_duration\":2000000000}");
+
+        // When
+        metrics.record(body, "chat");
+
+        // Then
+        assertEquals(60.0, registry.get("ollama.tokens.per.second").tags("model", "llama3.2")
+                .summary().totalAmount(), 0.001);
+        assertEquals(350.0, registry.get("ollama.prompt.tokens").summary().totalAmount(), 0.001);
+        assertEquals(120.0, registry.get("ollama.completion.tokens").summary().totalAmount(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Should count a cold start when load time exceeds the threshold")
+    void testCountsColdStart() throws Exception {
+        // When
+        metrics.record(body(true, 4200, 900), "warmup");
+
+        // Then
+        Counter coldStarts = registry.get("ollama.model.cold.starts").tags("source", "warmup").counter();
+        assertEquals(1.0, coldStarts.count());
+    }
+
+    @Test
+    @DisplayName("Should ignore intermediate stream chunks and null bodies")
+    void testIgnoresUnfinishedBodies() throws Exception {
+        // When
+        metrics.record(body(false, 4200, 900), "chat");
+        metrics.record(null, "chat");
+
+        // Then
+        assertTrue(registry.getMeters().isEmpty());
+    }
+}
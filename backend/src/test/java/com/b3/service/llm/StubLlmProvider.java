@@ -0,0 +1,64 @@
+package com.b3.service.llm;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StubLlmProvider - Offline LlmProvider with a fixed latency and outcome
+ *
+ * Answers "[name] reply" after the configured latency, or completes empty
+ * after it when set to fail. Counts calls and cancellations so tests can see
+ * what the router actually sent where.
+ */
+class StubLlmProvider implements LlmProvider {
+
+    private final String name;
+    private volatile Duration latency;
+    private volatile boolean failing;
+    private volatile boolean available = true;
+    final AtomicInteger calls = new AtomicInteger();
+    final AtomicInteger cancellations = new AtomicInteger();
+
+    StubLlmProvider(String name, Duration latency) {
+        this.name = name;
+        this.latency = latency;
+    }
+
+    StubLlmProvider latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    StubLlmProvider failing(boolean failing) {
+        this.failing = failing;
+        return this;
+    }
+
+    StubLlmProvider available(boolean available) {
+        this.available = available;
+        return this;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public Mono<String> generate(LlmRequest request) {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            Mono<Long> delay = Mono.delay(latency);
+            return failing
+                    ? delay.then(Mono.<String>empty())
+                    : delay.map(tick -> "[" + name + "] reply");
+        }).doOnCancel(cancellations::incrementAndGet);
+    }
+}